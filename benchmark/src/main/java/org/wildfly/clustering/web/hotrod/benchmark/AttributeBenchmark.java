@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+
+/**
+ * Compares the cost of marshalling the attributes of a session for each {@link AttributePersistence},
+ * where a request reads and mutates a single attribute.
+ * A COARSE session marshals all of its attributes as a single map, a BUCKETED session marshals only the bucket of the mutated attribute,
+ * while a FINE session marshals only the mutated attribute.
+ * Run with "-prof gc" to measure allocation per operation.
+ * @author Paul Ferraro
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AttributeBenchmark {
+
+    @Param
+    private AttributePersistence persistence;
+    @Param({ "1", "10", "50" })
+    private int attributes;
+    @Param({ "64", "1024", "16384" })
+    private int attributeSize;
+
+    private final Marshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader());
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        Map<String, Object> attributes = new HashMap<>();
+        for (int i = 0; i < this.attributes; ++i) {
+            attributes.put("attribute-" + i, new Attribute(this.attributeSize));
+        }
+        switch (this.persistence) {
+            case COARSE: {
+                this.value = attributes;
+                break;
+            }
+            case BUCKETED: {
+                // Attributes sharing the bucket of the mutated attribute
+                int buckets = this.persistence.getBuckets();
+                int bucket = Math.floorMod("attribute-0".hashCode(), buckets);
+                Map<String, Object> bucketAttributes = new HashMap<>();
+                attributes.entrySet().stream().filter(entry -> Math.floorMod(entry.getKey().hashCode(), buckets) == bucket).forEach(entry -> bucketAttributes.put(entry.getKey(), entry.getValue()));
+                this.value = bucketAttributes;
+                break;
+            }
+            default: {
+                this.value = attributes.get("attribute-0");
+            }
+        }
+        this.bytes = this.marshaller.objectToByteBuffer(this.value);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException, InterruptedException {
+        return this.marshaller.objectToByteBuffer(this.value);
+    }
+
+    @Benchmark
+    public Object read() throws IOException, ClassNotFoundException {
+        return this.marshaller.objectFromByteBuffer(this.bytes);
+    }
+
+    /**
+     * A typical serializable session attribute.
+     */
+    public static class Attribute implements Serializable {
+        private static final long serialVersionUID = -8409154285012553372L;
+
+        private final String name;
+        private final long timestamp;
+        private final byte[] data;
+
+        Attribute(int size) {
+            this.name = "attribute";
+            this.timestamp = System.currentTimeMillis();
+            this.data = new byte[size];
+            ThreadLocalRandom.current().nextBytes(this.data);
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+
+        public byte[] getData() {
+            return this.data;
+        }
+    }
+}
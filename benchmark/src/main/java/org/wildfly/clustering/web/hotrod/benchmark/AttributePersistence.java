@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration.SessionAttributePersistenceStrategy;
+
+/**
+ * Enumerates the compared session attribute persistence configurations.
+ * @author Paul Ferraro
+ */
+public enum AttributePersistence {
+    COARSE(SessionAttributePersistenceStrategy.COARSE, 1),
+    BUCKETED(SessionAttributePersistenceStrategy.COARSE, 8),
+    FINE(SessionAttributePersistenceStrategy.FINE, 1),
+    ;
+    private final SessionAttributePersistenceStrategy strategy;
+    private final int buckets;
+
+    AttributePersistence(SessionAttributePersistenceStrategy strategy, int buckets) {
+        this.strategy = strategy;
+        this.buckets = buckets;
+    }
+
+    public SessionAttributePersistenceStrategy getStrategy() {
+        return this.strategy;
+    }
+
+    public int getBuckets() {
+        return this.buckets;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.session.HotRodSessionManagerFactory;
+import org.wildfly.clustering.web.session.Session;
+import org.wildfly.clustering.web.session.SessionManager;
+
+/**
+ * Measures the throughput of 16 concurrent requests for the same session, i.e. findSession(...), getAttribute(...), setAttribute(...), close(),
+ * against an in-process stand-in for a remote cache with a configurable latency per remote operation.
+ * Concurrent lookups of the session are coalesced, thus the number of remote operations per request, given by the ratio of the "remoteOperations" and "requests" counters,
+ * is expected to be lower than that of {@link SessionLifecycleBenchmark}.
+ * Each thread writes its own attribute of the shared session.
+ * After each iteration, the stored session is verified to contain the last value written by every thread, i.e. that the writes of concurrent closes were merged or serialized, rather than lost.
+ * Coarse sessions are written optimistically, since a coarse session written by the last writer would otherwise lose the concurrent changes of other requests.
+ * @author Paul Ferraro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentSessionBenchmark {
+
+    @Param({ "COARSE", "FINE" })
+    private AttributePersistence persistence;
+    @Param({ "100", "1000" })
+    private long latencyMicros;
+
+    private final AtomicInteger clients = new AtomicInteger();
+    // Last value written by each client, by attribute name
+    private final Map<String, Long> written = new ConcurrentHashMap<>();
+
+    private InMemoryRemoteCacheManager container;
+    private HotRodSessionManagerFactory<Void, MarshallingContext> factory;
+    private SessionManager<Void, TransactionBatch> manager;
+    private String id;
+
+    @Setup
+    public void setup() {
+        this.container = new InMemoryRemoteCacheManager(new ConfigurationBuilder().build(), new HotRodMarshaller(HotRodMarshaller.class.getClassLoader()));
+        this.factory = SessionManagers.createSessionManagerFactory(this.container, this.persistence, true);
+        this.manager = SessionManagers.createSessionManager(this.factory);
+        this.manager.start();
+
+        this.id = this.manager.createIdentifier();
+        try (TransactionBatch batch = this.manager.getBatcher().createBatch()) {
+            this.manager.createSession(this.id).close();
+        }
+        this.container.setLatency(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.latencyMicros)));
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        try (TransactionBatch batch = this.manager.getBatcher().createBatch()) {
+            try (Session<Void> session = this.manager.findSession(this.id)) {
+                int lost = 0;
+                for (Map.Entry<String, Long> entry : this.written.entrySet()) {
+                    if (!entry.getValue().equals(session.getAttributes().getAttribute(entry.getKey()))) {
+                        lost += 1;
+                    }
+                }
+                if (lost > 0) {
+                    throw new IllegalStateException(String.format("Last write of %d of %d concurrent clients was lost", lost, this.written.size()));
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.manager.stop();
+        this.factory.close();
+        this.container.stop();
+    }
+
+    @Benchmark
+    public Object request(Client client, SessionLifecycleBenchmark.RemoteOperations operations) {
+        Object result = null;
+        try (TransactionBatch batch = this.manager.getBatcher().createBatch()) {
+            try (Session<Void> session = this.manager.findSession(this.id)) {
+                result = session.getAttributes().getAttribute(client.name);
+                session.getAttributes().setAttribute(client.name, client.writes + 1);
+            }
+        }
+        // Only record values whose write has completed
+        client.writes += 1;
+        this.written.put(client.name, client.writes);
+        operations.record();
+        return result;
+    }
+
+    /**
+     * A client issuing requests for the shared session, that writes its own attribute.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        String name;
+        long writes;
+
+        @Setup
+        public void setup(ConcurrentSessionBenchmark benchmark) {
+            this.name = "client-" + benchmark.clients.getAndIncrement();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.marshalling.Externalizer;
+import org.wildfly.clustering.web.cache.session.SessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SessionAccessMetaDataExternalizer;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntryExternalizer;
+import org.wildfly.clustering.web.cache.session.SimpleSessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SimpleSessionCreationMetaData;
+import org.wildfly.clustering.web.hotrod.session.ChunkKey;
+import org.wildfly.clustering.web.hotrod.session.ChunkKeyExternalizer;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValue;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueExternalizer;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKeyExternalizer;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKeyExternalizer;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKeyExternalizer;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKeyExternalizer;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKeyExternalizer;
+
+/**
+ * Measures the throughput of each key and meta data externalizer, writing to and reading from a reusable JBoss Marshalling stream.
+ * Run with "-prof gc" to measure allocation per operation.
+ * @author Paul Ferraro
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExternalizerBenchmark {
+
+    @SuppressWarnings("rawtypes")
+    public enum ExternalizerType implements Supplier<Object> {
+        SESSION_CREATION_META_DATA_KEY(new SessionCreationMetaDataKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new SessionCreationMetaDataKey(SessionIdentifiers.create());
+            }
+        },
+        SESSION_ACCESS_META_DATA_KEY(new SessionAccessMetaDataKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new SessionAccessMetaDataKey(SessionIdentifiers.create());
+            }
+        },
+        SESSION_ATTRIBUTES_KEY(new SessionAttributesKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new SessionAttributesKey(SessionIdentifiers.create());
+            }
+        },
+        SESSION_ATTRIBUTE_NAMES_KEY(new SessionAttributeNamesKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new SessionAttributeNamesKey(SessionIdentifiers.create());
+            }
+        },
+        SESSION_ATTRIBUTE_KEY(new SessionAttributeKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new SessionAttributeKey(SessionIdentifiers.create(), UUID.randomUUID());
+            }
+        },
+        CHUNK_KEY(new ChunkKeyExternalizer()) {
+            @Override
+            public Object get() {
+                return new ChunkKey(SessionIdentifiers.create(), UUID.randomUUID(), 1);
+            }
+        },
+        SESSION_CREATION_META_DATA(new SessionCreationMetaDataEntryExternalizer()) {
+            @Override
+            public Object get() {
+                SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(Instant.now());
+                metaData.setMaxInactiveInterval(Duration.ofMinutes(30));
+                return new SessionCreationMetaDataEntry<>(metaData);
+            }
+        },
+        SESSION_ACCESS_META_DATA(new SessionAccessMetaDataExternalizer()) {
+            @Override
+            public Object get() {
+                SessionAccessMetaData metaData = new SimpleSessionAccessMetaData();
+                metaData.setLastAccessedDuration(Duration.ofSeconds(1));
+                return metaData;
+            }
+        },
+        CHUNKED_VALUE(new ChunkedValueExternalizer()) {
+            @Override
+            public Object get() {
+                return new ChunkedValue(UUID.randomUUID(), 1 << 20, 16);
+            }
+        },
+        ;
+        private final Externalizer externalizer;
+
+        ExternalizerType(Externalizer externalizer) {
+            this.externalizer = externalizer;
+        }
+
+        @SuppressWarnings("unchecked")
+        Externalizer<Object> getExternalizer() {
+            return this.externalizer;
+        }
+    }
+
+    @Param
+    private ExternalizerType type;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private Externalizer<Object> externalizer;
+    private Object object;
+    private byte[] bytes;
+    private Marshaller marshaller;
+    private Unmarshaller unmarshaller;
+
+    @Setup
+    public void setup() throws IOException {
+        MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory("river");
+        MarshallingConfiguration configuration = new MarshallingConfiguration();
+        this.marshaller = factory.createMarshaller(configuration);
+        this.unmarshaller = factory.createUnmarshaller(configuration);
+        this.externalizer = this.type.getExternalizer();
+        this.object = this.type.get();
+        this.bytes = this.write();
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        this.output.reset();
+        this.marshaller.start(Marshalling.createByteOutput(this.output));
+        this.externalizer.writeObject(this.marshaller, this.object);
+        this.marshaller.finish();
+        return this.output.toByteArray();
+    }
+
+    @Benchmark
+    public Object read() throws IOException, ClassNotFoundException {
+        this.unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(this.bytes)));
+        Object result = this.externalizer.readObject(this.unmarshaller);
+        this.unmarshaller.finish();
+        return result;
+    }
+}
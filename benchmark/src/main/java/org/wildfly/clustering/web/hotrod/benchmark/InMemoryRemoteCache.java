@@ -0,0 +1,346 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.marshall.Marshaller;
+
+/**
+ * In-process stand-in for a remote cache, for use by benchmarks.
+ * Keys and values are stored in marshalled form, using the marshaller of the associated cache manager,
+ * such that operations incur the same marshalling costs as a real remote cache, and never share object references.
+ * Entries are versioned, and writes only return previous values if {@link Flag#FORCE_RETURN_VALUE} was specified.
+ * Asynchronous operations complete via the executor of the associated cache manager.
+ * Each remote operation incurs the configured latency of the associated cache manager, and is counted per calling thread.
+ * Compound operations (i.e. compute, computeIfAbsent, computeIfPresent, merge) are performed by the client as a versioned read followed by a conditional write,
+ * and thus count as 2 remote operations.
+ * @author Paul Ferraro
+ */
+public class InMemoryRemoteCache {
+
+    private static final ThreadLocal<long[]> OPERATIONS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Returns, and resets, the number of remote operations invoked by the current thread.
+     * @return a number of remote operations
+     */
+    public static long takeOperations() {
+        long[] operations = OPERATIONS.get();
+        long result = operations[0];
+        operations[0] = 0;
+        return result;
+    }
+
+    private final String name;
+    private final InMemoryRemoteCacheManager manager;
+    private final Map<ByteBuffer, VersionedEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    InMemoryRemoteCache(String name, InMemoryRemoteCacheManager manager) {
+        this.name = name;
+        this.manager = manager;
+    }
+
+    <K, V> RemoteCache<K, V> getCache() {
+        return this.createCache(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> RemoteCache<K, V> createCache(boolean forceReturnValue) {
+        return (RemoteCache<K, V>) Proxy.newProxyInstance(RemoteCache.class.getClassLoader(), new Class<?>[] { RemoteCache.class }, new CacheView(forceReturnValue));
+    }
+
+    private class CacheView implements InvocationHandler {
+        private final boolean forceReturnValue;
+
+        CacheView(boolean forceReturnValue) {
+            this.forceReturnValue = forceReturnValue;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "getName":
+                    return InMemoryRemoteCache.this.name;
+                case "withFlags":
+                    return InMemoryRemoteCache.this.createCache(this.forceReturnValue || Arrays.asList((Flag[]) args[0]).contains(Flag.FORCE_RETURN_VALUE));
+                case "getRemoteCacheManager":
+                case "getRemoteCacheContainer":
+                    return InMemoryRemoteCache.this.manager;
+                case "getTransactionManager":
+                    return null;
+                case "isTransactional":
+                    return false;
+                case "start":
+                case "stop":
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return InMemoryRemoteCache.this.name;
+                default:
+            }
+            int operations = (name.startsWith("compute") || name.startsWith("merge")) ? 2 : 1;
+            OPERATIONS.get()[0] += operations;
+            if (name.endsWith("Async")) {
+                Method syncMethod = RemoteCache.class.getMethod(name.substring(0, name.length() - "Async".length()), method.getParameterTypes());
+                return CompletableFuture.supplyAsync(() -> {
+                    InMemoryRemoteCache.this.await(operations);
+                    return this.execute(syncMethod, args);
+                }, InMemoryRemoteCache.this.manager.getExecutor());
+            }
+            InMemoryRemoteCache.this.await(operations);
+            return this.execute(method, args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object execute(Method method, Object[] args) {
+            InMemoryRemoteCache cache = InMemoryRemoteCache.this;
+            Map<ByteBuffer, VersionedEntry> entries = cache.entries;
+            switch (method.getName()) {
+                case "get": {
+                    return cache.value(entries.get(cache.key(args[0])));
+                }
+                case "getWithMetadata":
+                case "getVersioned": {
+                    VersionedEntry entry = entries.get(cache.key(args[0]));
+                    return (entry != null) ? new SimpleMetadataValue(entry.getVersion(), cache.value(entry)) : null;
+                }
+                case "containsKey": {
+                    return entries.containsKey(cache.key(args[0]));
+                }
+                case "getAll": {
+                    Map<Object, Object> result = new HashMap<>();
+                    for (Object key : (Iterable<Object>) args[0]) {
+                        Object value = cache.value(entries.get(cache.key(key)));
+                        if (value != null) {
+                            result.put(key, value);
+                        }
+                    }
+                    return result;
+                }
+                case "put": {
+                    return this.previous(entries.put(cache.key(args[0]), cache.entry(args[1])));
+                }
+                case "putIfAbsent": {
+                    return this.previous(entries.putIfAbsent(cache.key(args[0]), cache.entry(args[1])));
+                }
+                case "putAll": {
+                    for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) args[0]).entrySet()) {
+                        entries.put(cache.key(entry.getKey()), cache.entry(entry.getValue()));
+                    }
+                    return null;
+                }
+                case "replace": {
+                    ByteBuffer key = cache.key(args[0]);
+                    if ((args.length >= 3) && (method.getParameterTypes()[2] == Object.class)) {
+                        VersionedEntry expected = cache.entry(args[1]);
+                        VersionedEntry current = entries.get(key);
+                        return (current != null) && Arrays.equals(current.getValue(), expected.getValue()) && entries.replace(key, current, cache.entry(args[2]));
+                    }
+                    return this.previous(entries.replace(key, cache.entry(args[1])));
+                }
+                case "replaceWithVersion": {
+                    ByteBuffer key = cache.key(args[0]);
+                    long version = (Long) args[2];
+                    VersionedEntry current = entries.get(key);
+                    return (current != null) && (current.getVersion() == version) && entries.replace(key, current, cache.entry(args[1]));
+                }
+                case "remove": {
+                    ByteBuffer key = cache.key(args[0]);
+                    if (args.length == 2) {
+                        VersionedEntry expected = cache.entry(args[1]);
+                        VersionedEntry current = entries.get(key);
+                        return (current != null) && Arrays.equals(current.getValue(), expected.getValue()) && entries.remove(key, current);
+                    }
+                    return this.previous(entries.remove(key));
+                }
+                case "removeWithVersion": {
+                    ByteBuffer key = cache.key(args[0]);
+                    long version = (Long) args[1];
+                    VersionedEntry current = entries.get(key);
+                    return (current != null) && (current.getVersion() == version) && entries.remove(key, current);
+                }
+                case "compute": {
+                    return this.compute(args[0], (BiFunction<Object, Object, Object>) args[1]);
+                }
+                case "computeIfAbsent": {
+                    Function<Object, Object> function = (Function<Object, Object>) args[1];
+                    return this.compute(args[0], (key, value) -> (value == null) ? function.apply(key) : value);
+                }
+                case "computeIfPresent": {
+                    BiFunction<Object, Object, Object> function = (BiFunction<Object, Object, Object>) args[1];
+                    return this.compute(args[0], (key, value) -> (value != null) ? function.apply(key, value) : null);
+                }
+                case "merge": {
+                    Object newValue = args[1];
+                    BiFunction<Object, Object, Object> function = (BiFunction<Object, Object, Object>) args[2];
+                    return this.compute(args[0], (key, value) -> (value != null) ? function.apply(value, newValue) : newValue);
+                }
+                case "size": {
+                    return entries.size();
+                }
+                case "isEmpty": {
+                    return entries.isEmpty();
+                }
+                case "clear": {
+                    entries.clear();
+                    return null;
+                }
+                default: {
+                    throw new UnsupportedOperationException(method.toString());
+                }
+            }
+        }
+
+        private Object compute(Object key, BiFunction<Object, Object, Object> function) {
+            InMemoryRemoteCache cache = InMemoryRemoteCache.this;
+            VersionedEntry result = cache.entries.compute(cache.key(key), (k, entry) -> {
+                Object value = function.apply(key, cache.value(entry));
+                return (value != null) ? cache.entry(value) : null;
+            });
+            return cache.value(result);
+        }
+
+        private Object previous(VersionedEntry entry) {
+            return this.forceReturnValue ? InMemoryRemoteCache.this.value(entry) : null;
+        }
+    }
+
+    void await(int operations) {
+        long latency = this.manager.getLatency().toNanos();
+        if (latency > 0) {
+            LockSupport.parkNanos(latency * operations);
+        }
+    }
+
+    ByteBuffer key(Object key) {
+        return ByteBuffer.wrap(this.marshal(key));
+    }
+
+    VersionedEntry entry(Object value) {
+        return new VersionedEntry(this.marshal(value), this.versions.incrementAndGet());
+    }
+
+    Object value(VersionedEntry entry) {
+        if (entry == null) return null;
+        try {
+            return this.getMarshaller().objectFromByteBuffer(entry.getValue());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] marshal(Object object) {
+        try {
+            return this.getMarshaller().objectToByteBuffer(object);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Marshaller getMarshaller() {
+        return this.manager.getMarshaller();
+    }
+
+    static class VersionedEntry {
+        private final byte[] value;
+        private final long version;
+
+        VersionedEntry(byte[] value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+
+        byte[] getValue() {
+            return this.value;
+        }
+
+        long getVersion() {
+            return this.version;
+        }
+    }
+
+    static class SimpleMetadataValue implements MetadataValue<Object> {
+        private final long version;
+        private final Object value;
+
+        SimpleMetadataValue(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        @Override
+        public long getVersion() {
+            return this.version;
+        }
+
+        @Override
+        public Object getValue() {
+            return this.value;
+        }
+
+        @Override
+        public long getCreated() {
+            return -1;
+        }
+
+        @Override
+        public int getLifespan() {
+            return -1;
+        }
+
+        @Override
+        public long getLastUsed() {
+            return -1;
+        }
+
+        @Override
+        public int getMaxIdle() {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.commons.marshall.Marshaller;
+
+/**
+ * Remote cache manager whose caches are in-process stand-ins, see {@link InMemoryRemoteCache}.
+ * This manager is never started, and thus never connects to a server.
+ * @author Paul Ferraro
+ */
+public class InMemoryRemoteCacheManager extends RemoteCacheManager {
+
+    private final Marshaller marshaller;
+    private final Map<String, InMemoryRemoteCache> caches = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    public InMemoryRemoteCacheManager(Configuration configuration, Marshaller marshaller) {
+        super(configuration, false);
+        this.marshaller = marshaller;
+    }
+
+    /**
+     * Specifies the latency to inject into every remote operation.
+     * @param latency a duration
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    Duration getLatency() {
+        return this.latency;
+    }
+
+    ExecutorService getExecutor() {
+        return this.executor;
+    }
+
+    @Override
+    public Marshaller getMarshaller() {
+        return this.marshaller;
+    }
+
+    @Override
+    public <K, V> RemoteCache<K, V> getCache(String cacheName) {
+        return this.caches.computeIfAbsent(cacheName, name -> new InMemoryRemoteCache(name, this)).getCache();
+    }
+
+    @Override
+    public void stop() {
+        this.executor.shutdownNow();
+    }
+}
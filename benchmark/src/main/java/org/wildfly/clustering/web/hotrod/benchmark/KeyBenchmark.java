@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+
+/**
+ * Measures the cost of locating an entry by key, as done by the client for every remote cache operation,
+ * comparing keys created per operation against keys reused across the operations of a request.
+ * Run with "-prof gc" to compare the allocation per operation of each.
+ * @author Paul Ferraro
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KeyBenchmark {
+
+    private final Map<Object, Object> entries = new HashMap<>();
+    private String id;
+    private UUID attributeId;
+    private SessionCreationMetaDataKey creationMetaDataKey;
+    private SessionAttributesKey attributesKey;
+    private SessionAttributeKey attributeKey;
+
+    @Setup
+    public void setup() {
+        this.id = SessionIdentifiers.create();
+        this.attributeId = UUID.randomUUID();
+        this.creationMetaDataKey = new SessionCreationMetaDataKey(this.id);
+        this.attributesKey = new SessionAttributesKey(this.id);
+        this.attributeKey = new SessionAttributeKey(this.id, this.attributeId);
+        this.entries.put(this.creationMetaDataKey, new Object());
+        this.entries.put(this.attributesKey, new Object());
+        this.entries.put(this.attributeKey, new Object());
+    }
+
+    @Benchmark
+    public Object createSessionCreationMetaDataKey() {
+        return this.entries.get(new SessionCreationMetaDataKey(this.id));
+    }
+
+    @Benchmark
+    public Object reuseSessionCreationMetaDataKey() {
+        return this.entries.get(this.creationMetaDataKey);
+    }
+
+    @Benchmark
+    public Object createSessionAttributesKey() {
+        return this.entries.get(new SessionAttributesKey(this.id));
+    }
+
+    @Benchmark
+    public Object reuseSessionAttributesKey() {
+        return this.entries.get(this.attributesKey);
+    }
+
+    @Benchmark
+    public Object createSessionAttributeKey() {
+        return this.entries.get(new SessionAttributeKey(this.id, this.attributeId));
+    }
+
+    @Benchmark
+    public Object reuseSessionAttributeKey() {
+        return this.entries.get(this.attributeKey);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.AbstractJBossMarshaller;
+import org.infinispan.commons.marshall.jboss.DefaultContextClassResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.marshalling.jboss.DynamicClassTable;
+import org.wildfly.clustering.marshalling.jboss.ExternalizerObjectTable;
+import org.wildfly.clustering.web.cache.session.SessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SimpleSessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SimpleSessionCreationMetaData;
+import org.wildfly.clustering.web.hotrod.BufferPool;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+
+/**
+ * Measures the throughput of {@link HotRodMarshaller} for cache keys and session meta data,
+ * compared to a plain JBoss Marshalling marshaller, i.e. without key formats.
+ * Keys are created per operation, since marshalled keys are otherwise cached by the key itself.
+ * Run with "-prof gc" to measure allocation per operation.
+ * @author Paul Ferraro
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MarshallerBenchmark {
+
+    public enum MarshallerType implements Function<ClassLoader, Marshaller> {
+        HOTROD() {
+            @Override
+            public Marshaller apply(ClassLoader loader) {
+                return new HotRodMarshaller(loader, 0, BufferPool.DEFAULT, true);
+            }
+        },
+        JBOSS() {
+            @Override
+            public Marshaller apply(ClassLoader loader) {
+                return new JBossMarshaller(loader);
+            }
+        },
+    }
+
+    public enum ObjectType implements Function<String, Object> {
+        SESSION_CREATION_META_DATA_KEY() {
+            @Override
+            public Object apply(String id) {
+                return new SessionCreationMetaDataKey(id);
+            }
+        },
+        SESSION_ATTRIBUTE_KEY() {
+            private final UUID attributeId = UUID.randomUUID();
+
+            @Override
+            public Object apply(String id) {
+                return new SessionAttributeKey(id, this.attributeId);
+            }
+        },
+        SESSION_CREATION_META_DATA() {
+            @Override
+            public Object apply(String id) {
+                SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(Instant.now());
+                metaData.setMaxInactiveInterval(Duration.ofMinutes(30));
+                return new SessionCreationMetaDataEntry<>(metaData);
+            }
+        },
+        SESSION_ACCESS_META_DATA() {
+            @Override
+            public Object apply(String id) {
+                SessionAccessMetaData metaData = new SimpleSessionAccessMetaData();
+                metaData.setLastAccessedDuration(Duration.ofSeconds(1));
+                return metaData;
+            }
+        },
+    }
+
+    @Param
+    private MarshallerType marshallerType;
+    @Param
+    private ObjectType objectType;
+
+    private Marshaller marshaller;
+    private Supplier<Object> factory;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        this.marshaller = this.marshallerType.apply(HotRodMarshaller.class.getClassLoader());
+        String id = SessionIdentifiers.create();
+        ObjectType type = this.objectType;
+        this.factory = () -> type.apply(id);
+        this.bytes = this.marshaller.objectToByteBuffer(this.factory.get());
+    }
+
+    @Benchmark
+    public byte[] marshal() throws IOException, InterruptedException {
+        return this.marshaller.objectToByteBuffer(this.factory.get());
+    }
+
+    @Benchmark
+    public Object unmarshal() throws IOException, ClassNotFoundException {
+        return this.marshaller.objectFromByteBuffer(this.bytes);
+    }
+
+    /**
+     * Marshaller configured like {@link HotRodMarshaller}, but which marshals all objects via JBoss Marshalling.
+     */
+    static class JBossMarshaller extends AbstractJBossMarshaller {
+
+        JBossMarshaller(ClassLoader loader) {
+            super();
+            super.baseCfg.setClassResolver(new DefaultContextClassResolver(loader));
+            super.baseCfg.setClassTable(new DynamicClassTable(loader));
+            super.baseCfg.setObjectTable(new ExternalizerObjectTable(loader));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.session.HotRodSessionManagerFactory;
+import org.wildfly.clustering.web.session.Session;
+import org.wildfly.clustering.web.session.SessionManager;
+
+/**
+ * Measures the throughput of session requests, i.e. findSession(...), getAttribute(...), setAttribute(...), close(),
+ * against an in-process stand-in for a remote cache with a configurable latency per remote operation.
+ * The number of remote operations per request is given by the ratio of the "remoteOperations" and "requests" counters.
+ * Run with "-prof gc" to measure allocation per request.
+ * @author Paul Ferraro
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SessionLifecycleBenchmark {
+
+    @Param
+    private AttributePersistence persistence;
+    @Param({ "0", "100", "1000" })
+    private long latencyMicros;
+    @Param({ "10", "50" })
+    private int attributes;
+    @Param({ "1024" })
+    private int attributeSize;
+    @Param({ "1000" })
+    private int sessions;
+
+    private InMemoryRemoteCacheManager container;
+    private HotRodSessionManagerFactory<Void, MarshallingContext> factory;
+    private SessionManager<Void, TransactionBatch> manager;
+    private String[] ids;
+
+    @Setup
+    public void setup() {
+        this.container = new InMemoryRemoteCacheManager(new ConfigurationBuilder().build(), new HotRodMarshaller(HotRodMarshaller.class.getClassLoader()));
+        this.factory = SessionManagers.createSessionManagerFactory(this.container, this.persistence, false);
+        this.manager = SessionManagers.createSessionManager(this.factory);
+        this.manager.start();
+
+        // Populate sessions before injecting latency
+        this.ids = new String[this.sessions];
+        for (int i = 0; i < this.sessions; ++i) {
+            String id = this.manager.createIdentifier();
+            try (TransactionBatch batch = this.manager.getBatcher().createBatch()) {
+                try (Session<Void> session = this.manager.createSession(id)) {
+                    for (int j = 0; j < this.attributes; ++j) {
+                        session.getAttributes().setAttribute(attributeName(j), new AttributeBenchmark.Attribute(this.attributeSize));
+                    }
+                }
+            }
+            this.ids[i] = id;
+        }
+        this.container.setLatency(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.latencyMicros)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.manager.stop();
+        this.factory.close();
+        this.container.stop();
+    }
+
+    @Benchmark
+    public Object request(RemoteOperations operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id = this.ids[random.nextInt(this.ids.length)];
+        String name = attributeName(random.nextInt(this.attributes));
+        Object result = null;
+        try (TransactionBatch batch = this.manager.getBatcher().createBatch()) {
+            try (Session<Void> session = this.manager.findSession(id)) {
+                if (session != null) {
+                    result = session.getAttributes().getAttribute(name);
+                    session.getAttributes().setAttribute(name, new AttributeBenchmark.Attribute(this.attributeSize));
+                }
+            }
+        }
+        operations.record();
+        return result;
+    }
+
+    private static String attributeName(int index) {
+        return "attribute-" + index;
+    }
+
+    /**
+     * Per-thread counters of requests and their remote operations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RemoteOperations {
+        public long requests;
+        public long remoteOperations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.requests = 0;
+            this.remoteOperations = 0;
+            InMemoryRemoteCache.takeOperations();
+        }
+
+        void record() {
+            this.requests += 1;
+            this.remoteOperations += InMemoryRemoteCache.takeOperations();
+        }
+    }
+}
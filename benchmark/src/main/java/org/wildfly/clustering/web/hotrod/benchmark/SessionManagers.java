@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.benchmark;
+
+import java.lang.reflect.Proxy;
+
+import javax.servlet.ServletContext;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.SimpleClassResolver;
+import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
+import org.wildfly.clustering.marshalling.jboss.MarshallingContext;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshalledValueFactory;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingConfigurationRepository;
+import org.wildfly.clustering.marshalling.jboss.SimpleMarshallingContextFactory;
+import org.wildfly.clustering.marshalling.spi.MarshalledValueFactory;
+import org.wildfly.clustering.web.IdentifierFactory;
+import org.wildfly.clustering.web.LocalContextFactory;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.session.HotRodSessionManagerFactory;
+import org.wildfly.clustering.web.hotrod.session.HotRodSessionManagerFactoryConfiguration;
+import org.wildfly.clustering.web.session.SessionExpirationListener;
+import org.wildfly.clustering.web.session.SessionManager;
+import org.wildfly.clustering.web.session.SessionManagerConfiguration;
+import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration.SessionAttributePersistenceStrategy;
+
+/**
+ * Creates session managers whose sessions are stored in the in-process caches of an {@link InMemoryRemoteCacheManager}, for use by benchmarks.
+ * @author Paul Ferraro
+ */
+public final class SessionManagers {
+
+    /**
+     * Creates a session manager factory whose sessions are stored in the "sessions" cache of the specified container.
+     * @param container an in-process remote cache container
+     * @param persistence the attribute persistence configuration
+     * @param optimistic indicates whether the attributes of coarse sessions are written conditionally, merging concurrent changes
+     * @return a session manager factory
+     */
+    public static HotRodSessionManagerFactory<Void, MarshallingContext> createSessionManagerFactory(InMemoryRemoteCacheManager container, AttributePersistence persistence, boolean optimistic) {
+        ClassLoader loader = HotRodMarshaller.class.getClassLoader();
+        MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassResolver(new SimpleClassResolver(loader));
+        MarshallingContext context = new SimpleMarshallingContextFactory().createMarshallingContext(new SimpleMarshallingConfigurationRepository(1, configuration), loader);
+        MarshalledValueFactory<MarshallingContext> marshalledValueFactory = new SimpleMarshalledValueFactory(context);
+
+        return new HotRodSessionManagerFactory<>(new HotRodSessionManagerFactoryConfiguration<MarshallingContext, Void>() {
+            @Override
+            public <K, V> RemoteCache<K, V> getCache() {
+                return container.getCache("sessions");
+            }
+
+            @Override
+            public SessionAttributePersistenceStrategy getAttributePersistenceStrategy() {
+                return persistence.getStrategy();
+            }
+
+            @Override
+            public int getAttributeBuckets() {
+                return persistence.getBuckets();
+            }
+
+            @Override
+            public boolean isOptimisticAttributeWrites() {
+                return optimistic;
+            }
+
+            @Override
+            public int getMaxActiveSessions() {
+                return -1;
+            }
+
+            @Override
+            public String getServerName() {
+                return "server";
+            }
+
+            @Override
+            public String getDeploymentName() {
+                return "benchmark.war";
+            }
+
+            @Override
+            public MarshalledValueFactory<MarshallingContext> getMarshalledValueFactory() {
+                return marshalledValueFactory;
+            }
+
+            @Override
+            public MarshallingContext getMarshallingContext() {
+                return context;
+            }
+
+            @Override
+            public LocalContextFactory<Void> getLocalContextFactory() {
+                return () -> null;
+            }
+        });
+    }
+
+    /**
+     * Creates a session manager, whose identifiers resemble those of Undertow, and whose expired sessions are ignored.
+     * @param factory a session manager factory
+     * @return a session manager, that is not yet started
+     */
+    public static SessionManager<Void, TransactionBatch> createSessionManager(HotRodSessionManagerFactory<Void, MarshallingContext> factory) {
+        ServletContext servletContext = (ServletContext) Proxy.newProxyInstance(HotRodMarshaller.class.getClassLoader(), new Class<?>[] { ServletContext.class }, (proxy, method, args) -> null);
+        return factory.createSessionManager(new SessionManagerConfiguration() {
+            @Override
+            public ServletContext getServletContext() {
+                return servletContext;
+            }
+
+            @Override
+            public IdentifierFactory<String> getIdentifierFactory() {
+                return new IdentifierFactory<String>() {
+                    @Override
+                    public String createIdentifier() {
+                        return SessionIdentifiers.create();
+                    }
+
+                    @Override
+                    public void start() {
+                    }
+
+                    @Override
+                    public void stop() {
+                    }
+                };
+            }
+
+            @Override
+            public SessionExpirationListener getExpirationListener() {
+                return session -> {};
+            }
+        });
+    }
+
+    private SessionManagers() {
+        // Hide
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics.jfr;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import jdk.jfr.EventType;
+
+import org.wildfly.clustering.web.hotrod.metrics.RemoteOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationDetails;
+
+/**
+ * Session metrics that emit Java Flight Recorder events for session operations and remote cache operations.
+ * Operations are only measured, and events only created, if their event type is enabled in an active recording.
+ * Requires a JVM that provides the jdk.jfr module.
+ * @author Paul Ferraro
+ */
+public class FlightRecorderSessionMetrics implements SessionMetrics {
+
+    private static final Map<SessionOperation, Supplier<SessionEvent>> FACTORIES = new EnumMap<>(SessionOperation.class);
+    private static final Map<SessionOperation, EventType> TYPES = new EnumMap<>(SessionOperation.class);
+    private static final EventType REMOTE_OPERATION = EventType.getEventType(RemoteCacheOperationEvent.class);
+
+    static {
+        register(SessionOperation.FIND, FindSessionEvent.class, FindSessionEvent::new);
+        register(SessionOperation.ACTIVATE, ActivateSessionAttributesEvent.class, ActivateSessionAttributesEvent::new);
+        register(SessionOperation.CREATE, CreateSessionEvent.class, CreateSessionEvent::new);
+        register(SessionOperation.CLOSE, CloseSessionEvent.class, CloseSessionEvent::new);
+        register(SessionOperation.EXPIRE, ExpireSessionEvent.class, ExpireSessionEvent::new);
+        register(SessionOperation.REMOVE, RemoveSessionEvent.class, RemoveSessionEvent::new);
+    }
+
+    private static <E extends SessionEvent> void register(SessionOperation operation, Class<E> eventClass, Supplier<SessionEvent> factory) {
+        FACTORIES.put(operation, factory);
+        TYPES.put(operation, EventType.getEventType(eventClass));
+    }
+
+    @Override
+    public boolean isEnabled(RemoteOperation operation) {
+        // Remote operations contribute to the details of session events
+        if (REMOTE_OPERATION.isEnabled()) return true;
+        for (EventType type : TYPES.values()) {
+            if (type.isEnabled()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled(SessionOperation operation) {
+        return TYPES.get(operation).isEnabled();
+    }
+
+    @Override
+    public void remoteOperationCompleted(RemoteOperation operation, long duration) {
+        if (REMOTE_OPERATION.isEnabled()) {
+            RemoteCacheOperationEvent event = new RemoteCacheOperationEvent();
+            event.operation = operation.name();
+            event.operationDuration = duration;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void sessionOperationCompleted(SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails operations) {
+        if (TYPES.get(operation).isEnabled()) {
+            SessionEvent event = FACTORIES.get(operation).get();
+            event.sessionIdHash = id.hashCode();
+            event.attributes = attributes;
+            event.operationDuration = duration;
+            event.remoteOperations = operations.getTotal();
+            event.remoteTime = operations.getRemoteTime();
+            event.bytesRead = operations.getBytesRead();
+            event.bytesWritten = operations.getBytesWritten();
+            if (event instanceof ActivateSessionAttributesEvent) {
+                ((ActivateSessionAttributesEvent) event).deserializationTime = Math.max(duration - operations.getRemoteTime(), 0L);
+            }
+            event.commit();
+        }
+    }
+}
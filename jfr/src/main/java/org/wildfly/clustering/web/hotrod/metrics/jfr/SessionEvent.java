@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Base flight recorder event for a session operation.
+ * Since events are committed upon completion of an operation, the duration of the operation is recorded as a separate field.
+ * Session identifiers are recorded as hashes, so that recordings do not disclose them.
+ * @author Paul Ferraro
+ */
+@Category({ "WildFly", "Web Sessions" })
+@StackTrace(false)
+abstract class SessionEvent extends Event {
+
+    @Label("Session ID Hash")
+    int sessionIdHash;
+
+    @Label("Attributes")
+    int attributes;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+
+    @Label("Remote Operations")
+    int remoteOperations;
+
+    @Label("Remote Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long remoteTime;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics.jfr;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.wildfly.clustering.web.hotrod.metrics.RemoteOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationMeasurement;
+
+/**
+ * Unit test for {@link FlightRecorderSessionMetrics}.
+ * @author Paul Ferraro
+ */
+public class FlightRecorderSessionMetricsTestCase {
+
+    @Test
+    public void test() throws IOException {
+        SessionMetrics metrics = new FlightRecorderSessionMetrics();
+
+        // Nothing is measured without an active recording
+        for (SessionOperation operation : SessionOperation.values()) {
+            assertFalse(metrics.isEnabled(operation));
+        }
+        assertFalse(metrics.isEnabled(RemoteOperation.GET));
+
+        Path file = Files.createTempFile("sessions", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.wildfly.clustering.web.hotrod.FindSession");
+            recording.enable("org.wildfly.clustering.web.hotrod.RemoteCacheOperation");
+            recording.disable("org.wildfly.clustering.web.hotrod.CloseSession");
+            recording.start();
+
+            assertTrue(metrics.isEnabled(SessionOperation.FIND));
+            assertFalse(metrics.isEnabled(SessionOperation.CLOSE));
+            assertTrue(metrics.isEnabled(RemoteOperation.GET));
+
+            metrics.remoteOperationCompleted(RemoteOperation.GET, 1000L);
+            SessionOperationMeasurement.start(metrics).stop(SessionOperation.FIND, "session", 2);
+            // Disabled events are not recorded
+            SessionOperationMeasurement.start(metrics).stop(SessionOperation.CLOSE, "session", 2);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(2, events.size());
+
+            RecordedEvent remoteEvent = events.stream().filter(event -> event.getEventType().getName().endsWith("RemoteCacheOperation")).findFirst().get();
+            assertEquals(RemoteOperation.GET.name(), remoteEvent.getString("operation"));
+
+            RecordedEvent findEvent = events.stream().filter(event -> event.getEventType().getName().endsWith("FindSession")).findFirst().get();
+            assertEquals("session".hashCode(), findEvent.getInt("sessionIdHash"));
+            assertEquals(2, findEvent.getInt("attributes"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
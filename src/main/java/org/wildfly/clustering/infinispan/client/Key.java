@@ -22,7 +22,7 @@
 
 package org.wildfly.clustering.infinispan.client;
 
-import java.util.Objects;
+import java.io.IOException;
 
 /**
  * Base type for cache keys.
@@ -30,24 +30,48 @@ import java.util.Objects;
  */
 public class Key<I> {
 
-    private I id;
+    private final I id;
+    // Keys are hashed frequently, so compute once
+    private final int hashCode;
+    // Binary form of this key, cached by the marshaller
+    private volatile byte[] bytes;
 
     public Key(I id) {
         this.id = id;
+        this.hashCode = 31 * this.getClass().hashCode() + id.hashCode();
     }
 
     public I getId() {
         return this.id;
     }
 
+    /**
+     * Returns the binary form of this key, marshalling it via the specified marshaller on first use.
+     * A given key is assumed to always be marshalled by the same marshaller.
+     * The returned array must not be modified.
+     * @param marshaller a key marshaller
+     * @return the marshalled key
+     * @throws IOException if the key could not be marshalled
+     * @throws InterruptedException if marshalling was interrupted
+     */
+    public byte[] getBytes(KeyMarshaller marshaller) throws IOException, InterruptedException {
+        byte[] bytes = this.bytes;
+        if (bytes == null) {
+            bytes = marshaller.marshal(this);
+            this.bytes = bytes;
+        }
+        return bytes;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(this.getClass(), this.id);
+        return this.hashCode;
     }
 
     @Override
     public boolean equals(Object object) {
-        return this.getClass().equals(object.getClass()) && this.id.equals(((Key<?>) object).id);
+        if (this == object) return true;
+        return (object != null) && this.getClass().equals(object.getClass()) && this.id.equals(((Key<?>) object).id);
     }
 
     @Override
@@ -34,29 +34,29 @@ import org.wildfly.clustering.web.session.Session;
 /**
  * @author Paul Ferraro
  */
-public class CompositeSessionFactory<V, L> implements SessionFactory<CompositeSessionMetaDataEntry<L>, V, L> {
+public class CompositeSessionFactory<MV extends CompositeSessionMetaDataEntry<L>, V, L> implements SessionFactory<MV, V, L> {
 
-    private final SessionMetaDataFactory<CompositeSessionMetaDataEntry<L>, L> metaDataFactory;
+    private final SessionMetaDataFactory<MV, L> metaDataFactory;
     private final SessionAttributesFactory<V> attributesFactory;
     private final LocalContextFactory<L> localContextFactory;
 
-    public CompositeSessionFactory(SessionMetaDataFactory<CompositeSessionMetaDataEntry<L>, L> metaDataFactory, SessionAttributesFactory<V> attributesFactory, LocalContextFactory<L> localContextFactory) {
+    public CompositeSessionFactory(SessionMetaDataFactory<MV, L> metaDataFactory, SessionAttributesFactory<V> attributesFactory, LocalContextFactory<L> localContextFactory) {
         this.metaDataFactory = metaDataFactory;
         this.attributesFactory = attributesFactory;
         this.localContextFactory = localContextFactory;
     }
 
     @Override
-    public Map.Entry<CompositeSessionMetaDataEntry<L>, V> createValue(String id, Void context) {
-        CompositeSessionMetaDataEntry<L> metaDataValue = this.metaDataFactory.createValue(id, context);
+    public Map.Entry<MV, V> createValue(String id, Void context) {
+        MV metaDataValue = this.metaDataFactory.createValue(id, context);
         if (metaDataValue == null) return null;
         V attributesValue = this.attributesFactory.createValue(id, context);
         return new SimpleImmutableEntry<>(metaDataValue, attributesValue);
     }
 
     @Override
-    public Map.Entry<CompositeSessionMetaDataEntry<L>, V> findValue(String id) {
-        CompositeSessionMetaDataEntry<L> metaDataValue = this.metaDataFactory.findValue(id);
+    public Map.Entry<MV, V> findValue(String id) {
+        MV metaDataValue = this.metaDataFactory.findValue(id);
         if (metaDataValue != null) {
             V attributesValue = this.attributesFactory.findValue(id);
             if (attributesValue != null) {
@@ -69,8 +69,8 @@ public class CompositeSessionFactory<V, L> implements SessionFactory<CompositeSe
     }
 
     @Override
-    public Map.Entry<CompositeSessionMetaDataEntry<L>, V> tryValue(String id) {
-        CompositeSessionMetaDataEntry<L> metaDataValue = this.metaDataFactory.tryValue(id);
+    public Map.Entry<MV, V> tryValue(String id) {
+        MV metaDataValue = this.metaDataFactory.tryValue(id);
         if (metaDataValue != null) {
             V attributesValue = this.attributesFactory.tryValue(id);
             if (attributesValue != null) {
@@ -92,7 +92,7 @@ public class CompositeSessionFactory<V, L> implements SessionFactory<CompositeSe
     }
 
     @Override
-    public SessionMetaDataFactory<CompositeSessionMetaDataEntry<L>, L> getMetaDataFactory() {
+    public SessionMetaDataFactory<MV, L> getMetaDataFactory() {
         return this.metaDataFactory;
     }
 
@@ -102,8 +102,8 @@ public class CompositeSessionFactory<V, L> implements SessionFactory<CompositeSe
     }
 
     @Override
-    public Session<L> createSession(String id, Map.Entry<CompositeSessionMetaDataEntry<L>, V> entry) {
-        CompositeSessionMetaDataEntry<L> key = entry.getKey();
+    public Session<L> createSession(String id, Map.Entry<MV, V> entry) {
+        MV key = entry.getKey();
         InvalidatableSessionMetaData metaData = this.metaDataFactory.createSessionMetaData(id, key);
         SessionAttributes attributes = this.attributesFactory.createSessionAttributes(id, entry.getValue());
         return new CompositeSession<>(id, metaData, attributes, key.getLocalContext(), this.localContextFactory, this);
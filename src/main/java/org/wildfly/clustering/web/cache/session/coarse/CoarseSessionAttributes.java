@@ -94,7 +94,16 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     @Override
     public void close() {
         if ((this.mutations != null) && !this.mutations.isEmpty()) {
-            this.mutator.mutate();
+            this.mutate(this.mutations);
         }
     }
+
+    /**
+     * Replicates the specified mutable attributes upon close, i.e. those that were read, but not subsequently set or removed.
+     * By default, this writes all attributes.
+     * @param names the names of the mutable attributes to replicate
+     */
+    protected void mutate(Set<String> names) {
+        this.mutator.mutate();
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded pool of reusable byte arrays, partitioned into power-of-two size classes.
+ * Pooled buffers are not bound to a thread, so the pool is equally effective for platform and virtual threads.
+ * Each size class retains a bounded number of buffers, proportional to the inverse of its size; requests for buffers larger than the largest size class are not pooled.
+ * @author Paul Ferraro
+ */
+public class BufferPool {
+
+    /** A pool shared by all marshallers */
+    public static final BufferPool DEFAULT = new BufferPool(1 << 20, 1 << 20);
+
+    private static final int MIN_SHIFT = 10;
+
+    private final AtomicReferenceArray<byte[]>[] classes;
+
+    /**
+     * Creates a new buffer pool.
+     * @param maxBufferSize the maximum size of a pooled buffer
+     * @param maxClassSize the maximum number of bytes retained by each size class
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(int maxBufferSize, int maxClassSize) {
+        int maxSlots = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4);
+        this.classes = new AtomicReferenceArray[classIndex(maxBufferSize) + 1];
+        for (int i = 0; i < this.classes.length; ++i) {
+            int slots = Math.max(1, Math.min(maxSlots, Integer.highestOneBit(maxClassSize >>> (i + MIN_SHIFT))));
+            this.classes[i] = new AtomicReferenceArray<>(slots);
+        }
+    }
+
+    /**
+     * Acquires a buffer of at least the specified size.
+     * @param size a minimum buffer size
+     * @return a buffer, whose content is undefined
+     */
+    public byte[] acquire(int size) {
+        int index = classIndex(size);
+        if (index >= this.classes.length) return new byte[size];
+        AtomicReferenceArray<byte[]> slots = this.classes[index];
+        int mask = slots.length() - 1;
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i <= mask; ++i) {
+            int slot = (start + i) & mask;
+            byte[] buffer = slots.get(slot);
+            if ((buffer != null) && slots.compareAndSet(slot, buffer, null)) {
+                return buffer;
+            }
+        }
+        return new byte[1 << (index + MIN_SHIFT)];
+    }
+
+    /**
+     * Returns the specified buffer to this pool.  The caller must not use the buffer afterwards.
+     * Buffers not acquired from this pool, or which exceed the capacity of the pool, are discarded.
+     * @param buffer a buffer
+     */
+    public void release(byte[] buffer) {
+        int length = buffer.length;
+        // Only pool buffers of an exact size class
+        if ((length < (1 << MIN_SHIFT)) || (Integer.bitCount(length) != 1)) return;
+        int index = classIndex(length);
+        if (index >= this.classes.length) return;
+        AtomicReferenceArray<byte[]> slots = this.classes[index];
+        int mask = slots.length() - 1;
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i <= mask; ++i) {
+            int slot = (start + i) & mask;
+            if ((slots.get(slot) == null) && slots.compareAndSet(slot, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private static int classIndex(int size) {
+        return (size <= (1 << MIN_SHIFT)) ? 0 : (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT);
+    }
+}
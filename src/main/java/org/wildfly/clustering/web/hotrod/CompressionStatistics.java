@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the compression of marshalled session attributes.
+ * May be shared by multiple marshallers, and registered as a standard MBean.
+ * @author Paul Ferraro
+ */
+public class CompressionStatistics implements CompressionStatisticsMBean {
+
+    private final LongAdder compressions = new LongAdder();
+    private final LongAdder skippedCompressions = new LongAdder();
+    private final LongAdder decompressions = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    void compressed(long uncompressedSize, long compressedSize, long nanos) {
+        this.compressions.increment();
+        this.uncompressedBytes.add(uncompressedSize);
+        this.compressedBytes.add(compressedSize);
+        this.compressionNanos.add(nanos);
+    }
+
+    void skipped(long nanos) {
+        this.skippedCompressions.increment();
+        this.compressionNanos.add(nanos);
+    }
+
+    void decompressed(long nanos) {
+        this.decompressions.increment();
+        this.decompressionNanos.add(nanos);
+    }
+
+    @Override
+    public long getCompressions() {
+        return this.compressions.sum();
+    }
+
+    @Override
+    public long getSkippedCompressions() {
+        return this.skippedCompressions.sum();
+    }
+
+    @Override
+    public long getDecompressions() {
+        return this.decompressions.sum();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        long compressed = this.compressedBytes.sum();
+        return (compressed > 0) ? (double) this.uncompressedBytes.sum() / compressed : 0;
+    }
+
+    @Override
+    public long getCompressionTime() {
+        return this.compressionNanos.sum();
+    }
+
+    @Override
+    public long getDecompressionTime() {
+        return this.decompressionNanos.sum();
+    }
+}
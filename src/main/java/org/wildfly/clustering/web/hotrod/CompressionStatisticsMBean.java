@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+/**
+ * Management interface of {@link CompressionStatistics}, suitable for registration as a standard MBean.
+ * @author Paul Ferraro
+ */
+public interface CompressionStatisticsMBean {
+
+    /**
+     * The number of payloads that were stored compressed.
+     * @return a number of payloads
+     */
+    long getCompressions();
+
+    /**
+     * The number of payloads exceeding the compression threshold that were stored uncompressed, since compression did not reduce their size.
+     * @return a number of payloads
+     */
+    long getSkippedCompressions();
+
+    /**
+     * The number of compressed payloads that were read.
+     * @return a number of payloads
+     */
+    long getDecompressions();
+
+    /**
+     * The ratio of the uncompressed size to the compressed size of all compressed payloads.
+     * @return a compression ratio, or 0 if no payloads were compressed
+     */
+    double getCompressionRatio();
+
+    /**
+     * The CPU time spent compressing payloads, including those whose compression was skipped.
+     * @return a duration in nanoseconds
+     */
+    long getCompressionTime();
+
+    /**
+     * The CPU time spent decompressing payloads.
+     * @return a duration in nanoseconds
+     */
+    long getDecompressionTime();
+}
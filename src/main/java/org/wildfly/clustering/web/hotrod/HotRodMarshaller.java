@@ -22,20 +22,486 @@
 
 package org.wildfly.clustering.web.hotrod;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
 import org.infinispan.commons.marshall.jboss.AbstractJBossMarshaller;
 import org.infinispan.commons.marshall.jboss.DefaultContextClassResolver;
+import org.wildfly.clustering.infinispan.client.Key;
 import org.wildfly.clustering.marshalling.jboss.DynamicClassTable;
 import org.wildfly.clustering.marshalling.jboss.ExternalizerObjectTable;
+import org.wildfly.clustering.marshalling.spi.MarshalledValue;
+import org.wildfly.clustering.web.hotrod.metrics.OperationCounters;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
+ * Marshaller for a remote session cache.
+ * If enabled, keys with a {@link KeyFormat} are written as a single (negative) format identifier followed by the key payload, bypassing JBoss Marshalling entirely.
+ * Since a JBoss Marshalling stream always begins with a positive version byte, the two forms are distinguishable by their first byte,
+ * thus keys of either form can be unmarshalled, e.g. when iterating over the entries of the cache.
+ * However, the server locates an entry by the bytes of its key, thus an entry written using one form cannot be found using the other.
+ * The marshalled form of a key is cached by the key itself.
+ * All other objects are marshalled via JBoss Marshalling.
+ * Marshalled values (i.e. session attributes) whose marshalled form exceeds a given threshold are optionally compressed,
+ * and written as a {@link #COMPRESSED} byte followed by the uncompressed size and the deflated payload.
+ * Compression is applied here, rather than by the session attribute marshallers, since marshalled values are only serialized when written to the cache.
+ * Intermediate buffers, i.e. for marshalling, compression, and decompression, are acquired from a {@link BufferPool}, such that only the final payload is allocated per operation.
+ * Objects may also be marshalled to, and unmarshalled from, a stream, e.g. to split large values into chunks without materializing their complete binary form.
+ * Since the uncompressed size of a streamed value is not known in advance, a streamed compressed payload specifies an {@link #UNKNOWN_SIZE}.
  * @author Paul Ferraro
  */
 public class HotRodMarshaller extends AbstractJBossMarshaller {
 
+    private static final int KEY_SIZE_ESTIMATE = 32;
+    // Leading byte of a compressed payload, distinct from any key format index
+    static final byte COMPRESSED = Byte.MIN_VALUE;
+    private static final int COMPRESSED_HEADER_SIZE = 5;
+    // Uncompressed size of a compressed payload written to a stream
+    static final int UNKNOWN_SIZE = -1;
+    private static final int DEFLATE_BUFFER_SIZE = 8192;
+    // Upper bound of the compression ratio of the deflate algorithm
+    private static final int MAX_COMPRESSION_RATIO = 1032;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    // Indexed by format identifier
+    @SuppressWarnings("unchecked")
+    private final KeyFormat<Object>[] formats = new KeyFormat[Byte.MAX_VALUE + 1];
+    private final Map<Class<?>, KeyFormat<Object>> targetFormats = new IdentityHashMap<>();
+    private final boolean binaryKeys;
+    private final int compressionThreshold;
+    private final BufferPool pool;
+    private final CompressionStatistics compressionStatistics;
+
     public HotRodMarshaller(ClassLoader loader) {
+        this(loader, 0);
+    }
+
+    /**
+     * Creates a marshaller that compresses marshalled values of at least the specified size.
+     * @param loader a class loader
+     * @param compressionThreshold the minimum size of a marshalled value to compress, or 0, to disable compression
+     */
+    public HotRodMarshaller(ClassLoader loader, int compressionThreshold) {
+        this(loader, compressionThreshold, BufferPool.DEFAULT);
+    }
+
+    /**
+     * Creates a marshaller that compresses marshalled values of at least the specified size, using buffers from the specified pool.
+     * @param loader a class loader
+     * @param compressionThreshold the minimum size of a marshalled value to compress, or 0, to disable compression
+     * @param pool a pool of intermediate buffers
+     */
+    public HotRodMarshaller(ClassLoader loader, int compressionThreshold, BufferPool pool) {
+        this(loader, compressionThreshold, pool, false);
+    }
+
+    /**
+     * Creates a marshaller that compresses marshalled values of at least the specified size, using buffers from the specified pool.
+     * @param loader a class loader
+     * @param compressionThreshold the minimum size of a marshalled value to compress, or 0, to disable compression
+     * @param pool a pool of intermediate buffers
+     * @param binaryKeys indicates whether keys with a {@link KeyFormat} should be written in their binary form, rather than via JBoss Marshalling
+     */
+    public HotRodMarshaller(ClassLoader loader, int compressionThreshold, BufferPool pool, boolean binaryKeys) {
+        this(loader, compressionThreshold, pool, binaryKeys, new CompressionStatistics());
+    }
+
+    /**
+     * Creates a marshaller that compresses marshalled values of at least the specified size, using buffers from the specified pool.
+     * @param loader a class loader
+     * @param compressionThreshold the minimum size of a marshalled value to compress, or 0, to disable compression
+     * @param pool a pool of intermediate buffers
+     * @param binaryKeys indicates whether keys with a {@link KeyFormat} should be written in their binary form, rather than via JBoss Marshalling
+     * @param compressionStatistics the statistics to which this marshaller records compression and decompression
+     */
+    public HotRodMarshaller(ClassLoader loader, int compressionThreshold, BufferPool pool, boolean binaryKeys, CompressionStatistics compressionStatistics) {
         super();
+        this.binaryKeys = binaryKeys;
+        this.compressionThreshold = compressionThreshold;
+        this.pool = pool;
+        this.compressionStatistics = compressionStatistics;
         super.baseCfg.setClassResolver(new DefaultContextClassResolver(loader));
         super.baseCfg.setClassTable(new DynamicClassTable(loader));
         super.baseCfg.setObjectTable(new ExternalizerObjectTable(loader));
+
+        for (KeyFormat<Object> format : loadFormats(loader)) {
+            int id = format.getFormatId();
+            if ((id <= 0) || (id >= this.formats.length) || (this.formats[id] != null)) {
+                throw new IllegalStateException(format.getClass().getName());
+            }
+            this.formats[id] = format;
+            this.targetFormats.put(format.getTargetClass(), format);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<KeyFormat<Object>> loadFormats(ClassLoader loader) {
+        PrivilegedAction<List<KeyFormat<Object>>> action = new PrivilegedAction<List<KeyFormat<Object>>>() {
+            @Override
+            public List<KeyFormat<Object>> run() {
+                List<KeyFormat<Object>> formats = new ArrayList<>();
+                for (KeyFormat<?> format : ServiceLoader.load(KeyFormat.class, loader)) {
+                    formats.add((KeyFormat<Object>) format);
+                }
+                return formats;
+            }
+        };
+        return WildFlySecurityManager.doUnchecked(action);
+    }
+
+    @Override
+    public byte[] objectToByteBuffer(Object object, int estimatedSize) throws IOException, InterruptedException {
+        byte[] bytes = (object instanceof PreMarshalled) ? ((PreMarshalled) object).getBytes() : (object instanceof Key) ? ((Key<?>) object).getBytes(key -> this.keyToBytes(key, estimatedSize)) : this.valueToBytes(object, estimatedSize);
+        if (OperationCounters.isEnabled()) {
+            OperationCounters.written(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isMarshallable(Object object) throws Exception {
+        return (object instanceof PreMarshalled) || super.isMarshallable(object);
+    }
+
+    @Override
+    protected ByteBuffer objectToBuffer(Object object, int estimatedSize) throws IOException, InterruptedException {
+        byte[] bytes = this.objectToByteBuffer(object, estimatedSize);
+        return new ByteBufferImpl(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Object objectFromByteBuffer(byte[] buffer, int offset, int length) throws IOException, ClassNotFoundException {
+        if (OperationCounters.isEnabled()) {
+            OperationCounters.read(length);
+        }
+        if ((length > 0) && (buffer[offset] == COMPRESSED)) {
+            return this.decompress(buffer, offset, length);
+        }
+        if ((length > 0) && (buffer[offset] < 0)) {
+            KeyFormat<Object> format = this.formats[-buffer[offset]];
+            if (format == null) {
+                throw new IOException(Integer.toString(buffer[offset]));
+            }
+            // The caller may reuse the buffer, so the read key must not retain it
+            return format.read(new DataInputStream(new ByteArrayInputStream(buffer, offset + 1, length - 1)));
+        }
+        return super.objectFromByteBuffer(buffer, offset, length);
+    }
+
+    /**
+     * Marshals the specified object to the specified stream, without materializing its complete binary form.
+     * The written bytes are readable via {@link #objectFromByteBuffer(byte[], int, int)} or {@link #readObject(InputStream)}.
+     * Unlike {@link #objectToByteBuffer(Object)}, a marshalled value exceeding the compression threshold is compressed as it is written, even if this does not reduce its size.
+     * @param object an object to marshal
+     * @param output the target stream, which is not closed by this method
+     * @throws IOException if the object could not be marshalled
+     */
+    public void writeObject(Object object, OutputStream output) throws IOException {
+        if ((object instanceof Key) || (object instanceof PreMarshalled)) {
+            try {
+                output.write(this.objectToByteBuffer(object));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return;
+        }
+        try (CompressingOutputStream compressing = ((this.compressionThreshold > 0) && (object instanceof MarshalledValue)) ? new CompressingOutputStream(output) : null) {
+            ObjectOutput marshaller = this.startObjectOutput((compressing != null) ? compressing : output, false, DEFLATE_BUFFER_SIZE);
+            try {
+                this.objectToObjectStream(object, marshaller);
+            } finally {
+                this.finishObjectOutput(marshaller);
+            }
+        }
+    }
+
+    /**
+     * Unmarshals an object from the specified stream, as written by {@link #writeObject(Object, OutputStream)} or {@link #objectToByteBuffer(Object)}.
+     * @param input a source stream
+     * @return the unmarshalled object
+     * @throws IOException if the object could not be read
+     * @throws ClassNotFoundException if the class of the object could not be resolved
+     */
+    public Object readObject(InputStream input) throws IOException, ClassNotFoundException {
+        int tag = input.read();
+        if (tag < 0) {
+            throw new EOFException();
+        }
+        if ((byte) tag == COMPRESSED) {
+            // Uncompressed size is not needed when inflating to a stream
+            new DataInputStream(input).readInt();
+            long start = cpuTime();
+            Inflater inflater = new Inflater();
+            try (InflaterInputStream inflating = new InflaterInputStream(input, inflater, DEFLATE_BUFFER_SIZE)) {
+                Object result = this.unmarshal(inflating);
+                this.compressionStatistics.decompressed(cpuTime() - start);
+                return result;
+            } finally {
+                inflater.end();
+            }
+        }
+        if ((byte) tag < 0) {
+            KeyFormat<Object> format = this.formats[-(byte) tag];
+            if (format == null) {
+                throw new IOException(Integer.toString((byte) tag));
+            }
+            return format.read(new DataInputStream(input));
+        }
+        PushbackInputStream pushback = new PushbackInputStream(input, 1);
+        pushback.unread(tag);
+        return this.unmarshal(pushback);
+    }
+
+    private Object unmarshal(InputStream input) throws IOException, ClassNotFoundException {
+        ObjectInput unmarshaller = this.startObjectInput(input, false);
+        try {
+            return this.objectFromObjectStream(unmarshaller);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            this.finishObjectInput(unmarshaller);
+        }
+    }
+
+    /**
+     * Returns the binary form of the specified key, using its format, if enabled and registered, or JBoss Marshalling otherwise.
+     * @param key a key to marshal
+     * @param estimatedSize the estimated size of the marshalled key
+     * @return the marshalled key
+     * @throws IOException if the key could not be written
+     */
+    private byte[] keyToBytes(Key<?> key, int estimatedSize) throws IOException {
+        KeyFormat<Object> format = this.binaryKeys ? this.targetFormats.get(key.getClass()) : null;
+        if (format == null) {
+            return this.valueToBytes(key, estimatedSize);
+        }
+        try (PooledOutputStream output = new PooledOutputStream(this.pool, KEY_SIZE_ESTIMATE)) {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeByte(-format.getFormatId());
+            format.write(data, key);
+            data.flush();
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Returns the binary form of the specified object via JBoss Marshalling, compressing it if necessary.
+     * @param object an object to marshal
+     * @param estimatedSize the estimated size of the marshalled object
+     * @return the marshalled object
+     * @throws IOException if the object could not be marshalled
+     */
+    private byte[] valueToBytes(Object object, int estimatedSize) throws IOException {
+        try (PooledOutputStream output = new PooledOutputStream(this.pool, estimatedSize)) {
+            ObjectOutput marshaller = this.startObjectOutput(output, false, estimatedSize);
+            try {
+                this.objectToObjectStream(object, marshaller);
+            } finally {
+                this.finishObjectOutput(marshaller);
+            }
+            int length = output.size();
+            if ((this.compressionThreshold > 0) && (object instanceof MarshalledValue) && (length >= this.compressionThreshold)) {
+                byte[] compressed = this.compress(output.getBuffer(), length);
+                if (compressed != null) {
+                    return compressed;
+                }
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Returns the compression statistics of this marshaller.
+     * @return compression statistics
+     */
+    public CompressionStatistics getCompressionStatistics() {
+        return this.compressionStatistics;
+    }
+
+    /**
+     * Compresses the specified buffer.
+     * @param buffer an uncompressed buffer
+     * @param length the number of bytes of the buffer to compress
+     * @return a compressed payload, or null, if compression would not reduce its size.
+     */
+    private byte[] compress(byte[] buffer, int length) {
+        long start = cpuTime();
+        // Compression is only worthwhile if it results in a smaller payload
+        byte[] result = this.pool.acquire(length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            result[0] = COMPRESSED;
+            result[1] = (byte) (length >>> 24);
+            result[2] = (byte) (length >>> 16);
+            result[3] = (byte) (length >>> 8);
+            result[4] = (byte) length;
+            int size = COMPRESSED_HEADER_SIZE;
+            deflater.setInput(buffer, 0, length);
+            deflater.finish();
+            while (!deflater.finished() && (size < length)) {
+                size += deflater.deflate(result, size, length - size);
+            }
+            if (!deflater.finished()) {
+                this.compressionStatistics.skipped(cpuTime() - start);
+                return null;
+            }
+            byte[] compressed = Arrays.copyOf(result, size);
+            this.compressionStatistics.compressed(length, size, cpuTime() - start);
+            return compressed;
+        } finally {
+            deflater.end();
+            this.pool.release(result);
+        }
+    }
+
+    private Object decompress(byte[] buffer, int offset, int length) throws IOException, ClassNotFoundException {
+        if (length < COMPRESSED_HEADER_SIZE) {
+            throw new IOException(Integer.toString(length));
+        }
+        int size = ((buffer[offset + 1] & 0xFF) << 24) | ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 8) | (buffer[offset + 4] & 0xFF);
+        if (size == UNKNOWN_SIZE) {
+            return this.readObject(new ByteArrayInputStream(buffer, offset, length));
+        }
+        long start = cpuTime();
+        // Reject a peer-supplied size that the payload could not possibly inflate to, rather than allocating it
+        if ((size < 0) || (size > (long) (length - COMPRESSED_HEADER_SIZE) * MAX_COMPRESSION_RATIO)) {
+            throw new IOException(Integer.toString(size));
+        }
+        byte[] result = this.pool.acquire(size);
+        try {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(buffer, offset + COMPRESSED_HEADER_SIZE, length - COMPRESSED_HEADER_SIZE);
+                int read = 0;
+                while (read < size) {
+                    int count = inflater.inflate(result, read, size - read);
+                    if ((count == 0) && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException(String.format("Expected %d bytes, but only inflated %d", size, read));
+                    }
+                    read += count;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+            this.compressionStatistics.decompressed(cpuTime() - start);
+            // The unmarshalled object does not retain the buffer, so it can be safely returned to the pool
+            return super.objectFromByteBuffer(result, 0, size);
+        } finally {
+            this.pool.release(result);
+        }
+    }
+
+    private static long cpuTime() {
+        return THREAD_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Output stream that buffers written bytes until they reach the compression threshold,
+     * beyond which it writes a {@link #COMPRESSED} header of {@link #UNKNOWN_SIZE}, followed by the deflated stream.
+     * Closing this stream does not close the target stream.
+     */
+    private class CompressingOutputStream extends OutputStream {
+        private final OutputStream output;
+        private final PooledOutputStream buffer;
+        private final byte[] single = new byte[1];
+        private Deflater deflater;
+        private byte[] deflated;
+        private long uncompressedSize = 0;
+        private long compressedSize = 0;
+        private long nanos = 0;
+
+        CompressingOutputStream(OutputStream output) {
+            this.output = output;
+            this.buffer = new PooledOutputStream(HotRodMarshaller.this.pool, HotRodMarshaller.this.compressionThreshold);
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            this.single[0] = (byte) value;
+            this.write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.deflater == null) {
+                if (this.buffer.size() + length < HotRodMarshaller.this.compressionThreshold) {
+                    this.buffer.write(bytes, offset, length);
+                    return;
+                }
+                this.deflater = new Deflater(Deflater.BEST_SPEED);
+                this.deflated = HotRodMarshaller.this.pool.acquire(DEFLATE_BUFFER_SIZE);
+                this.output.write(new byte[] { COMPRESSED, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF });
+                this.compressedSize += COMPRESSED_HEADER_SIZE;
+                this.deflate(this.buffer.getBuffer(), 0, this.buffer.size());
+            }
+            this.deflate(bytes, offset, length);
+        }
+
+        private void deflate(byte[] bytes, int offset, int length) throws IOException {
+            this.uncompressedSize += length;
+            this.deflater.setInput(bytes, offset, length);
+            while (!this.deflater.needsInput()) {
+                this.drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            long start = cpuTime();
+            int size = this.deflater.deflate(this.deflated, 0, this.deflated.length);
+            this.nanos += cpuTime() - start;
+            this.output.write(this.deflated, 0, size);
+            this.compressedSize += size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (this.deflater == null) {
+                    this.output.write(this.buffer.getBuffer(), 0, this.buffer.size());
+                } else {
+                    this.deflater.finish();
+                    while (!this.deflater.finished()) {
+                        this.drain();
+                    }
+                    HotRodMarshaller.this.compressionStatistics.compressed(this.uncompressedSize, this.compressedSize, this.nanos);
+                }
+            } finally {
+                this.buffer.close();
+                if (this.deflater != null) {
+                    this.deflater.end();
+                    HotRodMarshaller.this.pool.release(this.deflated);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.util.function.Function;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.wildfly.clustering.web.hotrod.protostream.ProtoStreamHotRodMarshaller;
+
+/**
+ * Enumerates the supported marshallers of a remote session cache.
+ * Each creates the marshaller of the remote cache container given the JBoss Marshalling based marshaller used for session attributes.
+ * @author Paul Ferraro
+ */
+public enum HotRodMarshallerFactory implements Function<Marshaller, Marshaller> {
+    /**
+     * Marshals all objects via JBoss Marshalling.
+     */
+    JBOSS() {
+        @Override
+        public Marshaller apply(Marshaller marshaller) {
+            return marshaller;
+        }
+    },
+    /**
+     * Marshals keys and session meta data as ProtoStream messages, and all other objects via JBoss Marshalling.
+     */
+    PROTOSTREAM() {
+        @Override
+        public Marshaller apply(Marshaller marshaller) {
+            return new ProtoStreamHotRodMarshaller(marshaller);
+        }
+    },
+    ;
+}
@@ -0,0 +1,47 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import org.wildfly.clustering.marshalling.spi.Serializer;
+
+/**
+ * Binary format of a cache key, used by {@link HotRodMarshaller} to marshal keys without the overhead of a marshalling stream.
+ * Implementations are loaded via {@link java.util.ServiceLoader}, and are identified on the wire by their format identifier.
+ * The binary form of a key must begin with its session identifier, written via {@link org.wildfly.clustering.web.cache.SessionIdentifierSerializer}, see {@link SessionKeyPartitioner}.
+ * @author Paul Ferraro
+ */
+public interface KeyFormat<K> extends Serializer<K> {
+
+    /**
+     * The identifier of this format, written as the leading byte of the binary form of a key.
+     * Identifiers must be unique and must never change, since they are persisted in the remote cache.
+     * @return a number between 1 and 127
+     */
+    int getFormatId();
+
+    /**
+     * The key type handled by this format.
+     * @return a key class
+     */
+    Class<K> getTargetClass();
+}
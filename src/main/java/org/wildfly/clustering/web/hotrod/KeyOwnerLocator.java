@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+
+/**
+ * Locates the primary owner of a cache key, using the consistent hash of the remote cache topology most recently received by the client.
+ * @author Paul Ferraro
+ */
+public class KeyOwnerLocator {
+
+    private final RemoteCacheManager manager;
+    private final byte[] cacheName;
+
+    public KeyOwnerLocator(RemoteCache<?, ?> cache) {
+        this.manager = cache.getRemoteCacheManager();
+        this.cacheName = RemoteCacheManager.cacheNameBytes(cache.getName());
+    }
+
+    /**
+     * Returns the consistent hash of the remote cache.
+     * @return a consistent hash, or null, if the client has not yet received a topology, e.g. if client intelligence is basic.
+     */
+    public ConsistentHash getConsistentHash() {
+        return this.manager.getChannelFactory().getConsistentHash(this.cacheName);
+    }
+
+    /**
+     * Returns the marshalled form of the specified key, as hashed by the client.
+     * @param key a cache key
+     * @return a marshalled key
+     */
+    public byte[] marshal(Object key) {
+        try {
+            return this.manager.getMarshaller().objectToByteBuffer(key);
+        } catch (IOException e) {
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        }
+    }
+
+    /**
+     * Returns the address of the server that owns the specified key.
+     * @param key a cache key
+     * @return a server address, or null, if the owner is not known.
+     */
+    public SocketAddress getOwner(Object key) {
+        ConsistentHash hash = this.getConsistentHash();
+        return (hash != null) ? hash.getServer(this.marshal(key)) : null;
+    }
+}
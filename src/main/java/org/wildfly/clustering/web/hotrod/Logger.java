@@ -24,6 +24,8 @@ package org.wildfly.clustering.web.hotrod;
 
 import static org.jboss.logging.Logger.Level.*;
 
+import java.time.Duration;
+
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
@@ -60,4 +62,47 @@ public interface Logger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 11, value = "Session %s is missing cache entry for attribute %s")
     void missingSessionAttributeCacheEntry(String sessionId, String attribute);
+
+    @Message(id = 12, value = "Session %s could not be created, since its identifier is already in use")
+    IllegalStateException sessionIdentifierCollision(String sessionId);
+
+    @Message(id = 13, value = "Failed to marshal cache entry %s")
+    IllegalStateException failedToMarshalCacheEntry(@Cause Throwable cause, Object key);
+
+    @Message(id = 14, value = "Failed to unmarshal cache entry %s")
+    IllegalStateException failedToUnmarshalCacheEntry(@Cause Throwable cause, Object key);
+
+    @Message(id = 15, value = "Cache entry %s references chunks that no longer exist")
+    IllegalStateException missingChunks(Object key);
+
+    @LogMessage(level = INFO)
+    @Message(id = 16, value = "Slow session operation: %s")
+    void slowSessionOperation(Object operation);
+
+    @LogMessage(level = WARN)
+    @Message(id = 17, value = "Failed to write session %s")
+    void failedToWriteSession(@Cause Throwable cause, String sessionId);
+
+    @LogMessage(level = WARN)
+    @Message(id = 18, value = "Failed to expire session %s")
+    void failedToExpireSession(@Cause Throwable cause, String sessionId);
+
+    @LogMessage(level = WARN)
+    @Message(id = 19, value = "Session %s was not closed within %s of its creation, its creation remains deferred until it is closed")
+    void sessionReservationOverdue(String sessionId, Duration timeout);
+
+    @LogMessage(level = WARN)
+    @Message(id = 20, value = "Failed to generate session identifiers owned by a preferred server")
+    void failedToGenerateIdentifiers(@Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 21, value = "Pending writes of closed sessions were not applied within %s")
+    void pendingSessionWrites(Duration timeout);
+
+    @LogMessage(level = WARN)
+    @Message(id = 22, value = "Session %s was written concurrently during each of %d attempts to merge its attributes, so concurrent changes will be overwritten")
+    void sessionWriteConflicts(String sessionId, int attempts);
+
+    @Message(id = 23, value = "Delta %3$d of attribute %2$s of session %1$s no longer exists")
+    IllegalStateException missingSessionAttributeDelta(String sessionId, String attribute, int index);
 }
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Output stream that writes to buffers acquired from a {@link BufferPool}, and which are released on {@link #close()}.
+ * @author Paul Ferraro
+ */
+public class PooledOutputStream extends OutputStream {
+
+    private final BufferPool pool;
+    private byte[] buffer;
+    private int size = 0;
+
+    public PooledOutputStream(BufferPool pool, int estimatedSize) {
+        this.pool = pool;
+        this.buffer = pool.acquire(estimatedSize);
+    }
+
+    @Override
+    public void write(int value) {
+        this.ensureCapacity(this.size + 1);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * Returns the buffer containing the bytes written to this stream, which remains valid until this stream is closed.
+     * @return a buffer whose length is at least {@link #size()}
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Returns the number of bytes written to this stream.
+     * @return a number of bytes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a copy of the bytes written to this stream.
+     * @return a byte array of exactly {@link #size()} bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    @Override
+    public void close() {
+        if (this.buffer != null) {
+            this.pool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.buffer.length) {
+            if (capacity < 0) {
+                throw new OutOfMemoryError();
+            }
+            byte[] buffer = this.pool.acquire(Math.max(capacity, this.buffer.length << 1));
+            System.arraycopy(this.buffer, 0, buffer, 0, this.size);
+            this.pool.release(this.buffer);
+            this.buffer = buffer;
+        }
+    }
+}
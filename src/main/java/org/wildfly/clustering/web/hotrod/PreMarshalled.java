@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+/**
+ * The binary form of an object, as marshalled by the marshaller of a remote cache container, and written as is by that marshaller.
+ * Avoids marshalling an object twice, e.g. once to determine its size, and again to write it to the remote cache.
+ * @author Paul Ferraro
+ */
+public class PreMarshalled {
+
+    private final byte[] bytes;
+
+    public PreMarshalled(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the binary form of the marshalled object.
+     * @return a marshalled object
+     */
+    public byte[] getBytes() {
+        return this.bytes;
+    }
+}
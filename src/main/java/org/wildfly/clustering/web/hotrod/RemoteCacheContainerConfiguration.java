@@ -39,4 +39,48 @@ public interface RemoteCacheContainerConfiguration {
      * @return
      */
     int getMaxActiveSessions();
+
+    /**
+     * The marshaller of the remote cache container.
+     * @return a marshaller factory
+     */
+    default HotRodMarshallerFactory getMarshallerFactory() {
+        return HotRodMarshallerFactory.JBOSS;
+    }
+
+    /**
+     * The minimum size, in bytes, of a marshalled session attribute payload to store compressed.
+     * @return a number of bytes, or 0, if compression is disabled
+     */
+    default int getCompressionThreshold() {
+        return 0;
+    }
+
+    /**
+     * The statistics to which the marshaller records the compression of session attributes, e.g. for registration as an MBean.
+     * @return compression statistics
+     */
+    default CompressionStatistics getCompressionStatistics() {
+        return new CompressionStatistics();
+    }
+
+    /**
+     * Indicates whether cache keys should be written in their compact binary form, see {@link KeyFormat}, rather than via JBoss Marshalling.
+     * Since the server locates an entry by the bytes of its key, changing this setting changes the key of every cache entry, rendering existing sessions unreachable.
+     * Thus this setting must be identical on all members of the cluster, and may only be changed while the remote cache contains no live sessions.
+     * @return true, if cache keys are written in their binary form, false otherwise
+     */
+    default boolean isBinaryKeyFormat() {
+        return false;
+    }
+
+    /**
+     * Indicates whether the cache entries of a session should be hashed by session identifier only, such that they share the same owner.
+     * Requires the remote cache to use an equivalent key partitioner, see {@link SessionKeyPartitioner}, and the JBoss Marshalling marshaller.
+     * Implies {@link #isBinaryKeyFormat()}, thus is subject to the same restrictions, i.e. this setting must be identical on all members of the cluster, and may only be changed while the remote cache contains no live sessions.
+     * @return true, if session keys are grouped by session identifier, false otherwise
+     */
+    default boolean isSessionGrouping() {
+        return false;
+    }
 }
@@ -44,11 +44,17 @@ public class RemoteCacheContainerFactory implements Supplier<RemoteCacheContaine
     @Override
     public RemoteCacheContainer get() {
         int maxActiveSessions = this.config.getMaxActiveSessions();
-        Configuration configuration = new ConfigurationBuilder()
-                .withProperties(this.config.getProperties())
+        // Session grouping requires the binary key format
+        boolean binaryKeys = this.config.isBinaryKeyFormat() || this.config.isSessionGrouping();
+        HotRodMarshaller marshaller = new HotRodMarshaller(this.getClass().getClassLoader(), this.config.getCompressionThreshold(), BufferPool.DEFAULT, binaryKeys, this.config.getCompressionStatistics());
+        ConfigurationBuilder builder = new ConfigurationBuilder();
+        builder.withProperties(this.config.getProperties())
                 .nearCache().mode((maxActiveSessions == 0) ? NearCacheMode.DISABLED : NearCacheMode.INVALIDATED).maxEntries(maxActiveSessions * 3)
-                .marshaller(new HotRodMarshaller(this.getClass().getClassLoader()))
-                .build();
+                .marshaller(this.config.getMarshallerFactory().apply(marshaller));
+        if (this.config.isSessionGrouping()) {
+            builder.consistentHashImpl(2, SessionGroupConsistentHash.class);
+        }
+        Configuration configuration = builder.build();
 
         return new RemoteCacheManager(configuration, false);
     }
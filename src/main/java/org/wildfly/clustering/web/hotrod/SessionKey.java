@@ -22,17 +22,17 @@
 
 package org.wildfly.clustering.web.hotrod;
 
-import java.util.Objects;
-
 /**
  * @author Paul Ferraro
  */
 public class SessionKey<I> implements Identified<I> {
 
-    private I id;
+    private final I id;
+    private final int hashCode;
 
     public SessionKey(I id) {
         this.id = id;
+        this.hashCode = 31 * this.getClass().hashCode() + id.hashCode();
     }
 
     @Override
@@ -42,12 +42,13 @@ public class SessionKey<I> implements Identified<I> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.getClass(), this.id);
+        return this.hashCode;
     }
 
     @Override
     public boolean equals(Object object) {
-        return this.getClass().equals(object.getClass()) && this.id.equals(((SessionKey<?>) object).id);
+        if (this == object) return true;
+        return (object != null) && this.getClass().equals(object.getClass()) && this.id.equals(((SessionKey<?>) object).id);
     }
 
     @Override
@@ -22,6 +22,8 @@
 
 package org.wildfly.clustering.web.hotrod;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -32,29 +34,47 @@ import org.wildfly.clustering.marshalling.Externalizer;
 import org.wildfly.clustering.web.cache.SessionIdentifierSerializer;
 
 /**
+ * Externalizer, and binary format, for keys that consist solely of a session identifier.
  * @author Paul Ferraro
  */
-public class SessionKeyExternalizer<K extends Key<String>> implements Externalizer<K> {
+public class SessionKeyExternalizer<K extends Key<String>> implements Externalizer<K>, KeyFormat<K> {
 
+    private final int formatId;
     private final Class<K> targetClass;
     private final Function<String, K> resolver;
 
-    public SessionKeyExternalizer(Class<K> targetClass, Function<String, K> resolver) {
+    public SessionKeyExternalizer(int formatId, Class<K> targetClass, Function<String, K> resolver) {
+        this.formatId = formatId;
         this.targetClass = targetClass;
         this.resolver = resolver;
     }
 
     @Override
     public void writeObject(ObjectOutput output, K key) throws IOException {
-        SessionIdentifierSerializer.INSTANCE.write(output, key.getId());
+        this.write(output, key);
     }
 
     @Override
     public K readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        return this.read(input);
+    }
+
+    @Override
+    public void write(DataOutput output, K key) throws IOException {
+        SessionIdentifierSerializer.INSTANCE.write(output, key.getId());
+    }
+
+    @Override
+    public K read(DataInput input) throws IOException {
         String id = SessionIdentifierSerializer.INSTANCE.read(input);
         return this.resolver.apply(id);
     }
 
+    @Override
+    public int getFormatId() {
+        return this.formatId;
+    }
+
     @Override
     public Class<K> getTargetClass() {
         return this.targetClass;
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.wildfly.clustering.web.cache.SessionIdentifierSerializer;
+
+/**
+ * Computes the segment of a key marshalled by {@link HotRodMarshaller}, hashing only the session identifier portion of session keys.
+ * All cache entries of a given session are thus mapped to the same segment, and therefore to the same owner.
+ * This is a stand-in for the equivalent server-side key partitioner, which must compute identical segments for the remote cache;
+ * the client-side counterpart is {@link SessionGroupConsistentHash}.
+ * @author Paul Ferraro
+ */
+public class SessionKeyPartitioner {
+
+    private final int segmentSize;
+
+    public SessionKeyPartitioner(int segments) {
+        this.segmentSize = (int) Math.ceil((double) (1L << 31) / segments);
+    }
+
+    /**
+     * Returns the segment of the specified marshalled key.
+     * @param key a marshalled key
+     * @return a segment
+     */
+    public int getSegment(byte[] key) {
+        return (MurmurHash3.getInstance().hash(group(key)) & Integer.MAX_VALUE) / this.segmentSize;
+    }
+
+    /**
+     * Returns the portion of the specified marshalled key to hash, i.e. the session identifier of a key with a {@link KeyFormat}.
+     * @param key a marshalled key
+     * @return the marshalled session identifier of a session key, or the specified key otherwise
+     */
+    public static byte[] group(byte[] key) {
+        // Keys with a format are prefixed by a negative format identifier, and their payload begins with a session identifier
+        if ((key.length < 2) || (key[0] >= 0) || (key[0] == HotRodMarshaller.COMPRESSED)) return key;
+        ByteArrayInputStream input = new ByteArrayInputStream(key, 1, key.length - 1);
+        try {
+            SessionIdentifierSerializer.INSTANCE.read(new DataInputStream(input));
+        } catch (IOException e) {
+            return key;
+        }
+        return Arrays.copyOfRange(key, 1, key.length - input.available());
+    }
+}
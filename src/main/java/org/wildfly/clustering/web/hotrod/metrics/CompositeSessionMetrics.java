@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * Session metrics that forward to multiple session metrics, e.g. a {@link HistogramSessionMetrics} and a {@link SlowOperationLog}.
+ * @author Paul Ferraro
+ */
+public class CompositeSessionMetrics implements SessionMetrics {
+
+    private final SessionMetrics[] metrics;
+
+    public CompositeSessionMetrics(SessionMetrics... metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean isEnabled(RemoteOperation operation) {
+        for (SessionMetrics metrics : this.metrics) {
+            if (metrics.isEnabled(operation)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled(SessionOperation operation) {
+        for (SessionMetrics metrics : this.metrics) {
+            if (metrics.isEnabled(operation)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void remoteOperationCompleted(RemoteOperation operation, long duration) {
+        for (SessionMetrics metrics : this.metrics) {
+            if (metrics.isEnabled(operation)) {
+                metrics.remoteOperationCompleted(operation, duration);
+            }
+        }
+    }
+
+    @Override
+    public void sessionOperationCompleted(SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails details) {
+        for (SessionMetrics metrics : this.metrics) {
+            if (metrics.isEnabled(operation)) {
+                metrics.sessionOperationCompleted(operation, id, attributes, duration, details);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session metrics that record latency histograms per session operation and per remote operation type,
+ * as well as the number of remote operations performed per session operation.
+ * @author Paul Ferraro
+ */
+public class HistogramSessionMetrics implements SessionMetrics {
+
+    private final Map<SessionOperation, LatencyHistogram> sessionLatencies = new EnumMap<>(SessionOperation.class);
+    private final Map<RemoteOperation, LatencyHistogram> remoteLatencies = new EnumMap<>(RemoteOperation.class);
+    private final Map<SessionOperation, Map<RemoteOperation, LongAdder>> remoteOperations = new EnumMap<>(SessionOperation.class);
+
+    public HistogramSessionMetrics() {
+        for (SessionOperation operation : SessionOperation.values()) {
+            this.sessionLatencies.put(operation, new LatencyHistogram());
+            Map<RemoteOperation, LongAdder> counts = new EnumMap<>(RemoteOperation.class);
+            for (RemoteOperation remoteOperation : RemoteOperation.values()) {
+                counts.put(remoteOperation, new LongAdder());
+            }
+            this.remoteOperations.put(operation, counts);
+        }
+        for (RemoteOperation operation : RemoteOperation.values()) {
+            this.remoteLatencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void remoteOperationCompleted(RemoteOperation operation, long duration) {
+        this.remoteLatencies.get(operation).record(duration);
+    }
+
+    @Override
+    public void sessionOperationCompleted(SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails operations) {
+        this.sessionLatencies.get(operation).record(duration);
+        for (Map.Entry<RemoteOperation, LongAdder> entry : this.remoteOperations.get(operation).entrySet()) {
+            int count = operations.getCount(entry.getKey());
+            if (count > 0) {
+                entry.getValue().add(count);
+            }
+        }
+    }
+
+    /**
+     * Returns the latency histogram of the specified session operation.
+     * @param operation a session operation
+     * @return a latency histogram
+     */
+    public LatencyHistogram getLatencies(SessionOperation operation) {
+        return this.sessionLatencies.get(operation);
+    }
+
+    /**
+     * Returns the latency histogram of the specified type of remote operation.
+     * @param operation a remote operation type
+     * @return a latency histogram
+     */
+    public LatencyHistogram getLatencies(RemoteOperation operation) {
+        return this.remoteLatencies.get(operation);
+    }
+
+    /**
+     * Returns the mean number of remote operations of the specified type performed per session operation.
+     * @param operation a session operation
+     * @param remoteOperation a remote operation type
+     * @return a mean number of remote operations
+     */
+    public double getRemoteOperationsPerOperation(SessionOperation operation, RemoteOperation remoteOperation) {
+        long count = this.sessionLatencies.get(operation).getCount();
+        return (count > 0) ? (double) this.remoteOperations.get(operation).get(remoteOperation).sum() / count : 0;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies, using power-of-two nanosecond buckets.
+ * Percentiles are therefore approximate, i.e. reported as the upper bound of their bucket.
+ * @author Paul Ferraro
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Records the specified latency.
+     * @param duration a duration in nanoseconds
+     */
+    public void record(long duration) {
+        long nanos = Math.max(duration, 0L);
+        this.buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos) - 1 + ((nanos == 0) ? 1 : 0));
+        this.count.increment();
+        this.total.add(nanos);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     * @return a number of latencies
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     * @param unit the desired unit
+     * @return a mean latency
+     */
+    public double getMean(TimeUnit unit) {
+        long count = this.count.sum();
+        return (count > 0) ? (double) this.total.sum() / count / unit.toNanos(1) : 0;
+    }
+
+    /**
+     * Returns the approximate latency below which the specified percentage of recorded latencies fall.
+     * @param percentile a percentage between 0 and 100
+     * @param unit the desired unit
+     * @return an approximate latency
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            buckets[i] = this.buckets.get(i);
+            count += buckets[i];
+        }
+        long threshold = (long) Math.ceil(count * percentile / 100);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            cumulative += buckets[i];
+            if ((cumulative >= threshold) && (cumulative > 0)) {
+                // Upper bound of bucket
+                long nanos = (i < BUCKETS - 1) ? (1L << (i + 1)) - 1 : Long.MAX_VALUE;
+                return unit.convert(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+}
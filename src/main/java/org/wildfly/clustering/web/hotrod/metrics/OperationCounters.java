@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * Cumulative per-thread counters of remote operations, remote operation time, and marshalled bytes.
+ * Counters are only maintained once enabled, e.g. once some remote cache is instrumented for the metrics of a session manager.
+ * @author Paul Ferraro
+ */
+public final class OperationCounters {
+
+    static final int REMOTE_OPERATIONS = RemoteOperation.values().length;
+    static final int REMOTE_TIME = REMOTE_OPERATIONS;
+    static final int BYTES_READ = REMOTE_OPERATIONS + 1;
+    static final int BYTES_WRITTEN = REMOTE_OPERATIONS + 2;
+    static final int SIZE = REMOTE_OPERATIONS + 3;
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[SIZE]);
+
+    private static volatile boolean enabled = false;
+
+    /**
+     * Indicates whether counters are maintained.
+     * @return true, if counters are maintained, false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts the specified number of bytes unmarshalled by the current thread.
+     * @param bytes a number of bytes
+     */
+    public static void read(int bytes) {
+        COUNTERS.get()[BYTES_READ] += bytes;
+    }
+
+    /**
+     * Counts the specified number of bytes marshalled by the current thread.
+     * @param bytes a number of bytes
+     */
+    public static void written(int bytes) {
+        COUNTERS.get()[BYTES_WRITTEN] += bytes;
+    }
+
+    /**
+     * Returns the number of bytes marshalled by the current thread thus far.
+     * @return a number of bytes
+     */
+    public static long getBytesWritten() {
+        return COUNTERS.get()[BYTES_WRITTEN];
+    }
+
+    /**
+     * Enables these counters, if not already enabled.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    static long[] get() {
+        return COUNTERS.get();
+    }
+
+    private OperationCounters() {
+        // Hide
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+
+import org.infinispan.client.hotrod.RemoteCache;
+
+/**
+ * Instruments a remote cache such that each remote operation is timed, and counted per thread via {@link OperationCounters}.
+ * Asynchronous operations are counted by the calling thread, and timed until their completion, but do not contribute to the remote time of the calling thread.
+ * @author Paul Ferraro
+ */
+public class RemoteCacheInstrumentation implements InvocationHandler {
+
+    /**
+     * Returns an instrumented view of the specified remote cache.
+     * @param cache a remote cache
+     * @param metrics the recipient of remote operation metrics
+     * @return an instrumented remote cache
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> RemoteCache<K, V> instrument(RemoteCache<K, V> cache, SessionMetrics metrics) {
+        OperationCounters.enable();
+        return (RemoteCache<K, V>) Proxy.newProxyInstance(RemoteCache.class.getClassLoader(), new Class<?>[] { RemoteCache.class }, new RemoteCacheInstrumentation(cache, metrics));
+    }
+
+    private final RemoteCache<?, ?> cache;
+    private final SessionMetrics metrics;
+
+    private RemoteCacheInstrumentation(RemoteCache<?, ?> cache, SessionMetrics metrics) {
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        RemoteOperation operation = RemoteOperation.forMethod(method.getName());
+        if ((operation == null) || !this.metrics.isEnabled(operation)) {
+            Object result = delegate(this.cache, method, args);
+            // The HotRod client applies flags to the current thread and returns the same cache, which must remain instrumented
+            if (result == this.cache) return proxy;
+            // Otherwise, e.g. a cache view using a different data format, which must also be instrumented
+            return (result instanceof RemoteCache) ? instrument((RemoteCache<?, ?>) result, this.metrics) : result;
+        }
+        long[] counters = OperationCounters.get();
+        counters[operation.ordinal()] += 1;
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = delegate(this.cache, method, args);
+        } catch (Throwable e) {
+            this.metrics.remoteOperationCompleted(operation, System.nanoTime() - start);
+            throw e;
+        }
+        if (result instanceof CompletableFuture) {
+            return ((CompletableFuture<?>) result).whenComplete((value, exception) -> this.metrics.remoteOperationCompleted(operation, System.nanoTime() - start));
+        }
+        long duration = System.nanoTime() - start;
+        counters[OperationCounters.REMOTE_TIME] += duration;
+        this.metrics.remoteOperationCompleted(operation, duration);
+        return result;
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
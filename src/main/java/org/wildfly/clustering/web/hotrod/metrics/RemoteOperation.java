@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * Enumerates the types of remote cache operations.
+ * @author Paul Ferraro
+ */
+public enum RemoteOperation {
+    GET,
+    GET_ALL,
+    PUT,
+    PUT_ALL,
+    PUT_IF_ABSENT,
+    REPLACE,
+    REMOVE,
+    COMPUTE,
+    OTHER,
+    ;
+
+    private static final String ASYNC_SUFFIX = "Async";
+
+    /**
+     * Returns the type of remote operation performed by the specified {@link org.infinispan.client.hotrod.RemoteCache} method.
+     * @param methodName the name of a remote cache method
+     * @return a remote operation, or null, if the specified method does not perform a remote operation
+     */
+    public static RemoteOperation forMethod(String methodName) {
+        String name = methodName.endsWith(ASYNC_SUFFIX) ? methodName.substring(0, methodName.length() - ASYNC_SUFFIX.length()) : methodName;
+        switch (name) {
+            case "get":
+            case "getWithMetadata":
+            case "getVersioned":
+            case "containsKey":
+                return GET;
+            case "getAll":
+                return GET_ALL;
+            case "put":
+                return PUT;
+            case "putAll":
+                return PUT_ALL;
+            case "putIfAbsent":
+                return PUT_IF_ABSENT;
+            case "replace":
+            case "replaceWithVersion":
+                return REPLACE;
+            case "remove":
+            case "removeWithVersion":
+                return REMOVE;
+            case "compute":
+            case "computeIfAbsent":
+            case "computeIfPresent":
+            case "merge":
+                return COMPUTE;
+            // Local operations
+            case "withFlags":
+            case "getName":
+            case "getVersion":
+            case "getProtocolVersion":
+            case "getRemoteCacheManager":
+            case "getRemoteCacheContainer":
+            case "getTransactionManager":
+            case "isTransactional":
+            case "getDataFormat":
+            case "withDataFormat":
+            case "start":
+            case "stop":
+            case "equals":
+            case "hashCode":
+            case "toString":
+                return null;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * Counts of the remote operations and marshalled bytes of a session operation.
+ * @author Paul Ferraro
+ */
+public interface RemoteOperationCounts {
+
+    /**
+     * Returns the number of remote operations of the specified type.
+     * @param operation a remote operation type
+     * @return a number of remote operations
+     */
+    int getCount(RemoteOperation operation);
+
+    /**
+     * Returns the total number of remote operations.
+     * @return a number of remote operations
+     */
+    int getTotal();
+
+    /**
+     * Returns the total duration of the synchronous remote operations.
+     * @return a duration in nanoseconds
+     */
+    long getRemoteTime();
+
+    /**
+     * Returns the number of marshalled bytes read, i.e. unmarshalled.
+     * @return a number of bytes
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the number of marshalled bytes written.
+     * @return a number of bytes
+     */
+    long getBytesWritten();
+}
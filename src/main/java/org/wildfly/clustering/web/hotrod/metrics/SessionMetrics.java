@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * SPI for recording the metrics of a session manager.
+ * Metrics are disabled if no implementation is configured, in which case no instrumentation is performed.
+ * Implementations must be thread-safe, and should not block.
+ * @author Paul Ferraro
+ */
+public interface SessionMetrics {
+
+    /**
+     * Indicates whether the specified remote operation should be measured.
+     * @param operation the type of remote operation
+     * @return true, if the remote operation should be measured, false otherwise
+     */
+    default boolean isEnabled(RemoteOperation operation) {
+        return true;
+    }
+
+    /**
+     * Indicates whether the specified session operation should be measured.
+     * Session operations that are not enabled are neither measured nor recorded.
+     * @param operation the session operation
+     * @return true, if the session operation should be measured, false otherwise
+     */
+    default boolean isEnabled(SessionOperation operation) {
+        return true;
+    }
+
+    /**
+     * Records a completed remote cache operation.
+     * @param operation the type of remote operation
+     * @param duration the duration of the operation, in nanoseconds
+     */
+    void remoteOperationCompleted(RemoteOperation operation, long duration);
+
+    /**
+     * Records a completed session operation.
+     * The specified operation details are only valid for the duration of this method.
+     * @param operation the session operation
+     * @param id a session identifier
+     * @param attributes the number of attributes of the session, or -1, if unknown
+     * @param duration the duration of the operation, in nanoseconds
+     * @param details the remote operations performed by the calling thread during the session operation, and the attributes accessed by the application
+     */
+    void sessionOperationCompleted(SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails details);
+}
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures the duration, remote operations, and marshalled bytes of a single session operation performed by the current thread.
+ * Remote operations are counted by an instrumented remote cache, see {@link RemoteCacheInstrumentation}.
+ * Measurements are preallocated per thread and reused, such that measuring a session operation does not allocate.
+ * Consequently, a measurement must be stopped by the thread that started it, and nested measurements must be stopped in reverse order.
+ * The details passed to {@link SessionMetrics#sessionOperationCompleted(SessionOperation, String, int, long, SessionOperationDetails)} are only valid for the duration of that callback.
+ * @author Paul Ferraro
+ */
+public class SessionOperationMeasurement implements SessionOperationDetails {
+
+    // Session operations nest at most 3 deep, e.g. activation of an expired session found by a request
+    private static final int INITIAL_DEPTH = 3;
+    private static final ThreadLocal<ThreadState> STATE = ThreadLocal.withInitial(ThreadState::new);
+
+    /**
+     * Starts measuring a session operation using a measurement preallocated for the current thread.
+     * @param metrics the recipient of this measurement
+     * @return a measurement
+     */
+    public static SessionOperationMeasurement start(SessionMetrics metrics) {
+        SessionOperationMeasurement measurement = STATE.get().push();
+        measurement.metrics = metrics;
+        System.arraycopy(measurement.state.counters, 0, measurement.counters, 0, OperationCounters.SIZE);
+        measurement.start = System.nanoTime();
+        return measurement;
+    }
+
+    /**
+     * Records the name of a session attribute accessed by the application on the current thread.
+     * @param name an attribute name
+     */
+    public static void attributeAccessed(String name) {
+        STATE.get().accessedAttributes.add(name);
+    }
+
+    /**
+     * Returns the names of the session attributes accessed by the application on the current thread since they were last cleared.
+     * The returned set is reused by the current thread, and must not be retained.
+     * @return a set of attribute names
+     */
+    public static Set<String> getAttributesAccessed() {
+        return STATE.get().accessedAttributes;
+    }
+
+    /**
+     * Clears the names of the session attributes accessed by the application on the current thread.
+     */
+    public static void clearAttributesAccessed() {
+        STATE.get().accessedAttributes.clear();
+    }
+
+    private final ThreadState state;
+    private final long[] counters = new long[OperationCounters.SIZE];
+    private SessionMetrics metrics;
+    private long start;
+    private Set<String> accessedAttributes = Collections.emptySet();
+
+    private SessionOperationMeasurement(ThreadState state) {
+        this.state = state;
+    }
+
+    /**
+     * Completes this measurement.
+     * @param operation the measured session operation
+     * @param id a session identifier
+     */
+    public void stop(SessionOperation operation, String id) {
+        this.stop(operation, id, -1);
+    }
+
+    /**
+     * Completes this measurement.
+     * @param operation the measured session operation
+     * @param id a session identifier
+     * @param attributes the number of attributes of the session, or -1, if unknown
+     */
+    public void stop(SessionOperation operation, String id, int attributes) {
+        this.stop(operation, id, attributes, Collections.emptySet());
+    }
+
+    /**
+     * Completes this measurement.
+     * @param operation the measured session operation
+     * @param id a session identifier
+     * @param attributes the number of attributes of the session, or -1, if unknown
+     * @param accessedAttributes the names of the attributes accessed by the application
+     */
+    public void stop(SessionOperation operation, String id, int attributes, Set<String> accessedAttributes) {
+        try {
+            long duration = System.nanoTime() - this.start;
+            long[] counters = this.state.counters;
+            // Convert snapshot into deltas
+            for (int i = 0; i < counters.length; ++i) {
+                this.counters[i] = counters[i] - this.counters[i];
+            }
+            this.accessedAttributes = accessedAttributes;
+            this.metrics.sessionOperationCompleted(operation, id, attributes, duration, this);
+        } finally {
+            this.metrics = null;
+            this.accessedAttributes = Collections.emptySet();
+            this.state.pop();
+        }
+    }
+    @Override
+    public Set<String> getAccessedAttributes() {
+        return this.accessedAttributes;
+    }
+
+    @Override
+    public int getCount(RemoteOperation operation) {
+        return (int) this.counters[operation.ordinal()];
+    }
+
+    @Override
+    public int getTotal() {
+        long total = 0;
+        for (int i = 0; i < OperationCounters.REMOTE_OPERATIONS; ++i) {
+            total += this.counters[i];
+        }
+        return (int) total;
+    }
+
+    @Override
+    public long getRemoteTime() {
+        return this.counters[OperationCounters.REMOTE_TIME];
+    }
+
+    @Override
+    public long getBytesRead() {
+        return this.counters[OperationCounters.BYTES_READ];
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return this.counters[OperationCounters.BYTES_WRITTEN];
+    }
+
+    // Per-thread stack of reusable measurements, and the names of the attributes accessed by the application
+    private static class ThreadState {
+        final long[] counters = OperationCounters.get();
+        final Set<String> accessedAttributes = new HashSet<>();
+        private SessionOperationMeasurement[] measurements = new SessionOperationMeasurement[INITIAL_DEPTH];
+        private int depth = 0;
+
+        ThreadState() {
+            for (int i = 0; i < this.measurements.length; ++i) {
+                this.measurements[i] = new SessionOperationMeasurement(this);
+            }
+        }
+
+        SessionOperationMeasurement push() {
+            if (this.depth == this.measurements.length) {
+                this.measurements = Arrays.copyOf(this.measurements, this.depth + 1);
+                this.measurements[this.depth] = new SessionOperationMeasurement(this);
+            }
+            return this.measurements[this.depth++];
+        }
+
+        void pop() {
+            if (this.depth > 0) {
+                this.depth -= 1;
+            }
+        }
+    }
+}
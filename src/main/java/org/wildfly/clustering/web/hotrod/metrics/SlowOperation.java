@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable description of a session operation that exceeded the threshold of a {@link SlowOperationLog}.
+ * @author Paul Ferraro
+ */
+public class SlowOperation {
+
+    private final long sequence;
+    private final Instant timestamp;
+    private final SessionOperation operation;
+    private final String id;
+    private final int attributes;
+    private final Duration duration;
+    private final Map<RemoteOperation, Integer> remoteOperations = new EnumMap<>(RemoteOperation.class);
+    private final Duration remoteTime;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final Set<String> accessedAttributes;
+
+    SlowOperation(long sequence, SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails details) {
+        this.sequence = sequence;
+        this.timestamp = Instant.now();
+        this.operation = operation;
+        this.id = id;
+        this.attributes = attributes;
+        this.duration = Duration.ofNanos(duration);
+        for (RemoteOperation remoteOperation : RemoteOperation.values()) {
+            int count = details.getCount(remoteOperation);
+            if (count > 0) {
+                this.remoteOperations.put(remoteOperation, count);
+            }
+        }
+        this.remoteTime = Duration.ofNanos(details.getRemoteTime());
+        this.bytesRead = details.getBytesRead();
+        this.bytesWritten = details.getBytesWritten();
+        Set<String> accessed = details.getAccessedAttributes();
+        this.accessedAttributes = accessed.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new TreeSet<>(accessed));
+    }
+
+    long getSequence() {
+        return this.sequence;
+    }
+
+    public Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    public SessionOperation getOperation() {
+        return this.operation;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the number of attributes of the session.
+     * @return a number of attributes, or -1, if unknown
+     */
+    public int getAttributes() {
+        return this.attributes;
+    }
+
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Returns the number of remote operations performed, per remote operation type.
+     * @return a map of remote operation counts, excluding remote operations that were not performed
+     */
+    public Map<RemoteOperation, Integer> getRemoteOperations() {
+        return Collections.unmodifiableMap(this.remoteOperations);
+    }
+
+    public Duration getRemoteTime() {
+        return this.remoteTime;
+    }
+
+    public long getBytesRead() {
+        return this.bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    public Set<String> getAccessedAttributes() {
+        return this.accessedAttributes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s of session %s took %d ms (attributes = %d, remote operations = %s, remote time = %d ms, bytes read = %d, bytes written = %d, accessed attributes = %s)",
+                this.timestamp, this.operation, this.id, this.duration.toMillis(), this.attributes, this.remoteOperations, this.remoteTime.toMillis(), this.bytesRead, this.bytesWritten, this.accessedAttributes);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.wildfly.clustering.web.hotrod.Logger;
+
+/**
+ * Session metrics that retain the details of the most recent session operations whose latency exceeds a threshold.
+ * Slow operations are stored in a lock-free, bounded ring buffer, overwriting the oldest entries when full.
+ * Operations below the threshold return without allocating.
+ * @author Paul Ferraro
+ */
+public class SlowOperationLog implements SessionMetrics, SlowOperationLogMBean {
+
+    private final long threshold;
+    private final AtomicReferenceArray<SlowOperation> operations;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a slow operation log.
+     * @param threshold the latency above which session operations are recorded
+     * @param capacity the maximum number of retained slow operations, rounded up to the next power of two
+     */
+    public SlowOperationLog(Duration threshold, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(Integer.toString(capacity));
+        }
+        this.threshold = threshold.toNanos();
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.operations = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void remoteOperationCompleted(RemoteOperation operation, long duration) {
+        // Remote operations are recorded as part of their session operation
+    }
+
+    @Override
+    public void sessionOperationCompleted(SessionOperation operation, String id, int attributes, long duration, SessionOperationDetails details) {
+        if (duration < this.threshold) return;
+        long sequence = this.sequence.getAndIncrement();
+        this.operations.set((int) (sequence & this.mask), new SlowOperation(sequence, operation, id, attributes, duration, details));
+    }
+
+    /**
+     * Returns the retained slow operations, oldest first.
+     * @return a list of slow operations
+     */
+    public List<SlowOperation> getSlowOperations() {
+        int size = this.operations.length();
+        List<SlowOperation> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            SlowOperation operation = this.operations.get(i);
+            if (operation != null) {
+                result.add(operation);
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowOperation::getSequence));
+        return result;
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return Duration.ofNanos(this.threshold).toMillis();
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.operations.length();
+    }
+
+    @Override
+    public long getRecordedCount() {
+        return this.sequence.get();
+    }
+
+    @Override
+    public String[] dump() {
+        return this.getSlowOperations().stream().map(SlowOperation::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void log() {
+        for (SlowOperation operation : this.getSlowOperations()) {
+            Logger.ROOT_LOGGER.slowSessionOperation(operation);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.operations.length(); ++i) {
+            this.operations.set(i, null);
+        }
+    }
+}
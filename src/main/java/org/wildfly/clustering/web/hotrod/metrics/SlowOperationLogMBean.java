@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+/**
+ * Management interface of a {@link SlowOperationLog}, suitable for registration as a standard MBean.
+ * @author Paul Ferraro
+ */
+public interface SlowOperationLogMBean {
+
+    /**
+     * Returns the latency threshold above which session operations are recorded.
+     * @return a threshold in milliseconds
+     */
+    long getThresholdMillis();
+
+    /**
+     * Returns the maximum number of retained slow operations.
+     * @return a capacity
+     */
+    int getCapacity();
+
+    /**
+     * Returns the number of slow operations recorded since creation, including those no longer retained.
+     * @return a number of slow operations
+     */
+    long getRecordedCount();
+
+    /**
+     * Returns a description of each retained slow operation, oldest first.
+     * @return an array of descriptions
+     */
+    String[] dump();
+
+    /**
+     * Logs each retained slow operation, oldest first.
+     */
+    void log();
+
+    /**
+     * Discards all retained slow operations.
+     */
+    void clear();
+}
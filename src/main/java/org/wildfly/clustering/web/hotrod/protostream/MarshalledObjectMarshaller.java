@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.protostream.MessageMarshaller;
+
+/**
+ * ProtoStream marshaller for a {@link MarshalledObject}, whose content is written as opaque bytes using an arbitrary marshaller.
+ * @author Paul Ferraro
+ */
+public class MarshalledObjectMarshaller implements MessageMarshaller<MarshalledObject> {
+
+    private final Marshaller marshaller;
+
+    public MarshalledObjectMarshaller(Marshaller marshaller) {
+        this.marshaller = marshaller;
+    }
+
+    @Override
+    public MarshalledObject readFrom(ProtoStreamReader reader) throws IOException {
+        byte[] bytes = reader.readBytes("value");
+        try {
+            return new MarshalledObject(this.marshaller.objectFromByteBuffer(bytes));
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, MarshalledObject object) throws IOException {
+        try {
+            writer.writeBytes("value", this.marshaller.objectToByteBuffer(object.getObject()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public Class<? extends MarshalledObject> getJavaClass() {
+        return MarshalledObject.class;
+    }
+
+    @Override
+    public String getTypeName() {
+        return ProtoStreamHotRodMarshaller.PACKAGE + ".MarshalledObject";
+    }
+}
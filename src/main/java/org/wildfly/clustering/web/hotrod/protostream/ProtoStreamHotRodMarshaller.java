@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+
+import org.infinispan.client.hotrod.marshall.ProtoStreamMarshaller;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.protostream.FileDescriptorSource;
+import org.infinispan.protostream.SerializationContext;
+import org.wildfly.clustering.infinispan.client.Key;
+import org.wildfly.clustering.web.hotrod.PreMarshalled;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+
+/**
+ * Marshaller for a remote session cache that encodes keys and session meta data as ProtoStream messages,
+ * making them readable by the server, e.g. for use by server-side filters and converters.
+ * All other objects (i.e. session attributes) are written as opaque bytes by a separate marshaller.
+ * @author Paul Ferraro
+ */
+public class ProtoStreamHotRodMarshaller extends ProtoStreamMarshaller {
+
+    static final String PACKAGE = "org.wildfly.clustering.web.hotrod";
+    static final String PROTO_FILE = "wildfly-clustering-web-hotrod.proto";
+
+    private final Marshaller marshaller;
+
+    /**
+     * Creates a ProtoStream marshaller.
+     * @param marshaller marshaller for objects for which there is no ProtoStream message marshaller
+     */
+    public ProtoStreamHotRodMarshaller(Marshaller marshaller) {
+        this.marshaller = marshaller;
+        SerializationContext context = this.getSerializationContext();
+        try {
+            context.registerProtoFiles(FileDescriptorSource.fromResources(ProtoStreamHotRodMarshaller.class.getClassLoader(), PROTO_FILE));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        context.registerMarshaller(new SessionKeyMarshaller<>(SessionCreationMetaDataKey.class, SessionCreationMetaDataKey::new));
+        context.registerMarshaller(new SessionKeyMarshaller<>(SessionAccessMetaDataKey.class, SessionAccessMetaDataKey::new));
+        context.registerMarshaller(new SessionKeyMarshaller<>(SessionAttributesKey.class, SessionAttributesKey::new));
+        context.registerMarshaller(new SessionKeyMarshaller<>(SessionAttributeNamesKey.class, SessionAttributeNamesKey::new));
+        context.registerMarshaller(new SessionAttributeKeyMarshaller());
+        context.registerMarshaller(new SessionCreationMetaDataEntryMarshaller());
+        context.registerMarshaller(new SessionAccessMetaDataMarshaller());
+        context.registerMarshaller(new MarshalledObjectMarshaller(marshaller));
+    }
+
+    @Override
+    public byte[] objectToByteBuffer(Object object, int estimatedSize) throws IOException, InterruptedException {
+        if (object instanceof PreMarshalled) {
+            return ((PreMarshalled) object).getBytes();
+        }
+        if (object instanceof Key) {
+            return ((Key<?>) object).getBytes(key -> super.objectToByteBuffer(key, estimatedSize));
+        }
+        return super.objectToByteBuffer(object, estimatedSize);
+    }
+
+    @Override
+    protected ByteBuffer objectToBuffer(Object object, int estimatedSize) throws IOException, InterruptedException {
+        return super.objectToBuffer(this.isMessage(object) ? object : new MarshalledObject(object), estimatedSize);
+    }
+
+    @Override
+    public Object objectFromByteBuffer(byte[] buffer, int offset, int length) throws IOException, ClassNotFoundException {
+        Object object = super.objectFromByteBuffer(buffer, offset, length);
+        return (object instanceof MarshalledObject) ? ((MarshalledObject) object).getObject() : object;
+    }
+
+    @Override
+    public boolean isMarshallable(Object object) throws Exception {
+        return (object instanceof PreMarshalled) || this.isMessage(object) || this.marshaller.isMarshallable(object);
+    }
+
+    private boolean isMessage(Object object) {
+        return (object == null) || this.getSerializationContext().canMarshall(object.getClass());
+    }
+}
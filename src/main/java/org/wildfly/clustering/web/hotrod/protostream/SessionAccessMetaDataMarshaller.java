@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.infinispan.protostream.MessageMarshaller;
+import org.wildfly.clustering.web.cache.session.SimpleSessionAccessMetaData;
+
+/**
+ * ProtoStream marshaller for a {@link SimpleSessionAccessMetaData}.
+ * @author Paul Ferraro
+ */
+public class SessionAccessMetaDataMarshaller implements MessageMarshaller<SimpleSessionAccessMetaData> {
+
+    @Override
+    public SimpleSessionAccessMetaData readFrom(ProtoStreamReader reader) throws IOException {
+        SimpleSessionAccessMetaData metaData = new SimpleSessionAccessMetaData();
+        metaData.setLastAccessedDuration(Duration.ofSeconds(reader.readInt("lastAccessedDuration")));
+        return metaData;
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, SimpleSessionAccessMetaData metaData) throws IOException {
+        writer.writeInt("lastAccessedDuration", (int) metaData.getLastAccessedDuration().getSeconds());
+    }
+
+    @Override
+    public Class<? extends SimpleSessionAccessMetaData> getJavaClass() {
+        return SimpleSessionAccessMetaData.class;
+    }
+
+    @Override
+    public String getTypeName() {
+        return ProtoStreamHotRodMarshaller.PACKAGE + ".SessionAccessMetaData";
+    }
+}
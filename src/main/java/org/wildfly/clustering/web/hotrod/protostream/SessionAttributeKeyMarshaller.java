@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.infinispan.protostream.MessageMarshaller;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+
+/**
+ * ProtoStream marshaller for a {@link SessionAttributeKey}.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeKeyMarshaller implements MessageMarshaller<SessionAttributeKey> {
+
+    @Override
+    public SessionAttributeKey readFrom(ProtoStreamReader reader) throws IOException {
+        String id = reader.readString("id");
+        UUID attributeId = new UUID(reader.readLong("attributeIdHigh"), reader.readLong("attributeIdLow"));
+        return new SessionAttributeKey(id, attributeId);
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, SessionAttributeKey key) throws IOException {
+        writer.writeString("id", key.getId());
+        writer.writeLong("attributeIdHigh", key.getAttributeId().getMostSignificantBits());
+        writer.writeLong("attributeIdLow", key.getAttributeId().getLeastSignificantBits());
+    }
+
+    @Override
+    public Class<? extends SessionAttributeKey> getJavaClass() {
+        return SessionAttributeKey.class;
+    }
+
+    @Override
+    public String getTypeName() {
+        return ProtoStreamHotRodMarshaller.PACKAGE + ".SessionAttributeKey";
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.infinispan.protostream.MessageMarshaller;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SimpleSessionCreationMetaData;
+
+/**
+ * ProtoStream marshaller for a {@link SessionCreationMetaDataEntry}.
+ * @author Paul Ferraro
+ */
+public class SessionCreationMetaDataEntryMarshaller implements MessageMarshaller<SessionCreationMetaDataEntry<Object>> {
+
+    @Override
+    public SessionCreationMetaDataEntry<Object> readFrom(ProtoStreamReader reader) throws IOException {
+        Instant creationTime = Instant.ofEpochSecond(reader.readLong("creationTimeSeconds"), reader.readInt("creationTimeNanos"));
+        SessionCreationMetaData metaData = new SimpleSessionCreationMetaData(creationTime);
+        metaData.setMaxInactiveInterval(Duration.ofSeconds(reader.readInt("maxInactiveInterval")));
+        return new SessionCreationMetaDataEntry<>(metaData);
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, SessionCreationMetaDataEntry<Object> entry) throws IOException {
+        SessionCreationMetaData metaData = entry.getMetaData();
+        Instant creationTime = metaData.getCreationTime();
+        writer.writeLong("creationTimeSeconds", creationTime.getEpochSecond());
+        writer.writeInt("creationTimeNanos", creationTime.getNano());
+        writer.writeInt("maxInactiveInterval", (int) metaData.getMaxInactiveInterval().getSeconds());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Class<? extends SessionCreationMetaDataEntry<Object>> getJavaClass() {
+        return (Class<SessionCreationMetaDataEntry<Object>>) (Class<?>) SessionCreationMetaDataEntry.class;
+    }
+
+    @Override
+    public String getTypeName() {
+        return ProtoStreamHotRodMarshaller.PACKAGE + ".SessionCreationMetaData";
+    }
+}
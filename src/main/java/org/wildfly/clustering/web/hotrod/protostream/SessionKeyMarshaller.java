@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+import org.infinispan.protostream.MessageMarshaller;
+import org.wildfly.clustering.infinispan.client.Key;
+
+/**
+ * ProtoStream marshaller for keys that consist solely of a session identifier.
+ * @author Paul Ferraro
+ */
+public class SessionKeyMarshaller<K extends Key<String>> implements MessageMarshaller<K> {
+
+    private final Class<K> targetClass;
+    private final Function<String, K> resolver;
+
+    public SessionKeyMarshaller(Class<K> targetClass, Function<String, K> resolver) {
+        this.targetClass = targetClass;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public K readFrom(ProtoStreamReader reader) throws IOException {
+        return this.resolver.apply(reader.readString("id"));
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, K key) throws IOException {
+        writer.writeString("id", key.getId());
+    }
+
+    @Override
+    public Class<? extends K> getJavaClass() {
+        return this.targetClass;
+    }
+
+    @Override
+    public String getTypeName() {
+        return ProtoStreamHotRodMarshaller.PACKAGE + "." + this.targetClass.getSimpleName();
+    }
+}
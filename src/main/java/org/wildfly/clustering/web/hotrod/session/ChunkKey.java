@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.UUID;
+
+import org.wildfly.clustering.infinispan.client.Key;
+
+/**
+ * Cache key for a chunk of a value whose marshalled form was split into a sequence of chunks.
+ * @author Paul Ferraro
+ */
+public class ChunkKey extends Key<String> {
+
+    private final UUID valueId;
+    private final int index;
+    private final int hashCode;
+
+    public ChunkKey(String id, UUID valueId, int index) {
+        super(id);
+        this.valueId = valueId;
+        this.index = index;
+        this.hashCode = 31 * (31 * super.hashCode() + valueId.hashCode()) + index;
+    }
+
+    /**
+     * The identifier of the chunked value.
+     * @return a unique identifier
+     */
+    public UUID getValueId() {
+        return this.valueId;
+    }
+
+    /**
+     * The position of this chunk within its value.
+     * @return a chunk index
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!super.equals(object)) return false;
+        ChunkKey key = (ChunkKey) object;
+        return (this.index == key.index) && this.valueId.equals(key.valueId);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s[%s][%d])", ChunkKey.class.getSimpleName(), this.getId(), this.valueId, this.index);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.UUID;
+
+import org.kohsuke.MetaInfServices;
+import org.wildfly.clustering.marshalling.Externalizer;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+import org.wildfly.clustering.web.cache.SessionIdentifierSerializer;
+import org.wildfly.clustering.web.hotrod.KeyFormat;
+
+/**
+ * Externalizer, and binary format, for a {@link ChunkKey}.
+ * @author Paul Ferraro
+ */
+@MetaInfServices(Externalizer.class)
+public class ChunkKeyExternalizer implements Externalizer<ChunkKey>, KeyFormat<ChunkKey> {
+
+    @Override
+    public void writeObject(ObjectOutput output, ChunkKey key) throws IOException {
+        this.write(output, key);
+    }
+
+    @Override
+    public ChunkKey readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        return this.read(input);
+    }
+
+    @Override
+    public void write(DataOutput output, ChunkKey key) throws IOException {
+        SessionIdentifierSerializer.INSTANCE.write(output, key.getId());
+        UUID valueId = key.getValueId();
+        output.writeLong(valueId.getMostSignificantBits());
+        output.writeLong(valueId.getLeastSignificantBits());
+        IndexSerializer.VARIABLE.writeInt(output, key.getIndex());
+    }
+
+    @Override
+    public ChunkKey read(DataInput input) throws IOException {
+        String id = SessionIdentifierSerializer.INSTANCE.read(input);
+        UUID valueId = new UUID(input.readLong(), input.readLong());
+        int index = IndexSerializer.VARIABLE.readInt(input);
+        return new ChunkKey(id, valueId, index);
+    }
+
+    @Override
+    public int getFormatId() {
+        return 6;
+    }
+
+    @Override
+    public Class<ChunkKey> getTargetClass() {
+        return ChunkKey.class;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.UUID;
+
+/**
+ * Cache value stored in place of a value whose marshalled form was split into a sequence of chunks.
+ * Each chunk is stored as a byte array using a {@link ChunkKey}.
+ * @author Paul Ferraro
+ */
+public class ChunkedValue {
+
+    private final UUID id;
+    private final int length;
+    private final int chunks;
+
+    public ChunkedValue(UUID id, int length, int chunks) {
+        this.id = id;
+        this.length = length;
+        this.chunks = chunks;
+    }
+
+    /**
+     * The identifier of this value, referenced by the keys of its chunks.
+     * @return a unique identifier
+     */
+    public UUID getId() {
+        return this.id;
+    }
+
+    /**
+     * The total length of the marshalled value.
+     * @return a number of bytes
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * The number of chunks of the marshalled value.
+     * @return a number of chunks
+     */
+    public int getChunks() {
+        return this.chunks;
+    }
+}
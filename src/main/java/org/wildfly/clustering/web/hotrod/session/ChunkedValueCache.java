@@ -0,0 +1,668 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.commons.marshall.Marshaller;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.infinispan.client.Key;
+import org.wildfly.clustering.web.hotrod.BufferPool;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.PreMarshalled;
+
+/**
+ * Reads and writes the values of a remote cache, storing values whose marshalled form exceeds a given chunk size as a sequence of chunks.
+ * A chunked value is stored as a {@link ChunkedValue} referencing its chunks, each stored as a byte array of at most the chunk size using a {@link ChunkKey}.
+ * Chunks are written before the value that references them, and are only read when the value itself is read.
+ * Since each write of a chunked value uses new chunk keys, a concurrent reader never observes chunks of different writes.
+ * The chunks of an overwritten value are retained for a grace period, and removed by a subsequent write (or on {@link #close()}), such that a concurrent reader can still read them.
+ * A reader that nevertheless finds chunks missing re-reads the value, and fails if the value was not replaced, rather than reporting the value as absent.
+ * If the marshaller of the remote cache is a {@link HotRodMarshaller}, values are marshalled directly into chunks and unmarshalled as their chunks are read,
+ * such that the complete marshalled form of a value is never materialized.
+ * In either case, a value is only marshalled once, i.e. the marshalled form of a value not exceeding the chunk size is written as is.
+ * N.B. When chunking is enabled, a write returns the previous value (at most one chunk in size) so that the chunks it references can be removed.
+ * If disabled, all operations delegate to the remote cache directly.
+ * @author Paul Ferraro
+ */
+public class ChunkedValueCache<K extends Key<String>, V> implements AutoCloseable {
+
+    /** The default duration for which the chunks of an overwritten value are retained */
+    public static final Duration DEFAULT_PURGE_DELAY = Duration.ofSeconds(10);
+    // Maximum number of times to read a value whose chunks were removed by concurrent writes
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    private final RemoteCache<K, V> cache;
+    private final RemoteCache<Object, Object> chunkCache;
+    private final int chunkSize;
+    private final long purgeDelay;
+    private final Queue<RetiredValue> retired = new ConcurrentLinkedQueue<>();
+
+    public ChunkedValueCache(RemoteCache<K, V> cache, int chunkSize) {
+        this(cache, chunkSize, DEFAULT_PURGE_DELAY);
+    }
+
+    /**
+     * Creates a chunked value cache.
+     * @param cache a remote cache
+     * @param chunkSize the maximum size of a marshalled value or chunk, or 0, if values are never chunked
+     * @param purgeDelay the duration for which the chunks of an overwritten value are retained
+     */
+    @SuppressWarnings("unchecked")
+    public ChunkedValueCache(RemoteCache<K, V> cache, int chunkSize, Duration purgeDelay) {
+        this.cache = cache;
+        this.chunkCache = (RemoteCache<Object, Object>) (RemoteCache<?, ?>) cache;
+        this.chunkSize = chunkSize;
+        this.purgeDelay = purgeDelay.toNanos();
+    }
+
+    /**
+     * Indicates whether values are chunked.
+     * @return true, if large values are chunked, false otherwise
+     */
+    public boolean isEnabled() {
+        return this.chunkSize > 0;
+    }
+
+    /**
+     * Returns the value of the specified key, reassembling its chunks, if necessary.
+     * @param key a cache key
+     * @return the value of the specified key, or null, if no such value exists
+     * @throws IllegalStateException if the chunks of the value no longer exist
+     */
+    public V get(K key) {
+        return this.isEnabled() ? this.resolve(key, this.chunkCache.get(key)) : this.cache.get(key);
+    }
+
+    /**
+     * Returns the values of the specified keys, reassembling their chunks, if necessary.
+     * @param keys a set of cache keys
+     * @return a map of keys to values, excluding keys with no value
+     * @throws IllegalStateException if the chunks of a value no longer exist
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Set<K> keys) {
+        if (!this.isEnabled()) return this.cache.getAll(keys);
+        Map<K, V> result = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : this.chunkCache.getAll(keys).entrySet()) {
+            K key = (K) entry.getKey();
+            V value = this.resolve(key, entry.getValue());
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of the specified key along with its version, reassembling its chunks, if necessary.
+     * @param key a cache key
+     * @return the versioned value of the specified key, or null, if no such value exists
+     * @throws IllegalStateException if the chunks of the value no longer exist
+     */
+    @SuppressWarnings("unchecked")
+    public VersionedValue<V> getVersioned(K key) {
+        MetadataValue<Object> metadata = this.chunkCache.getWithMetadata(key);
+        for (int attempt = 1; metadata != null; ++attempt) {
+            Object stored = metadata.getValue();
+            V value = (stored instanceof ChunkedValue) ? this.read(key, (ChunkedValue) stored) : (V) stored;
+            if (value != null) {
+                return new StoredValue<>(value, metadata.getVersion(), stored);
+            }
+            // Chunks were removed, presumably by a concurrent write
+            MetadataValue<Object> latest = this.chunkCache.getWithMetadata(key);
+            if ((latest != null) && ((latest.getVersion() == metadata.getVersion()) || (attempt == MAX_READ_ATTEMPTS))) {
+                throw Logger.ROOT_LOGGER.missingChunks(key);
+            }
+            metadata = latest;
+        }
+        return null;
+    }
+
+    /**
+     * Writes the specified value, only if the current version of the specified key matches the specified versioned value.
+     * @param key a cache key
+     * @param value a cache value
+     * @param previous a versioned value, as returned by {@link #getVersioned(Key)}
+     * @return true, if the value was written, false if the version of the specified key did not match
+     */
+    @SuppressWarnings("unchecked")
+    public boolean replace(K key, V value, VersionedValue<V> previous) {
+        if (!this.isEnabled()) {
+            return this.cache.replaceWithVersion(key, value, previous.getVersion());
+        }
+        this.purgeRetired();
+        Object stored = this.store(key, value);
+        boolean replaced = this.chunkCache.replaceWithVersion(key, stored, previous.getVersion());
+        if (replaced) {
+            this.retire(key, ((StoredValue<V>) previous).getStoredObject());
+        } else {
+            // Chunks of the rejected value were never referenced
+            this.purge(key.getId(), stored);
+        }
+        return replaced;
+    }
+
+    /**
+     * Writes the specified value, only if the specified key has a value.
+     * N.B. If chunking is disabled, this returns the previous value from the remote cache, in order to determine whether the value was written.
+     * @param key a cache key
+     * @param value a cache value
+     * @return true, if the value was written, false if the specified key has no value
+     */
+    public boolean replace(K key, V value) {
+        if (!this.isEnabled()) {
+            return this.cache.withFlags(Flag.FORCE_RETURN_VALUE).replace(key, value) != null;
+        }
+        this.purgeRetired();
+        Object stored = this.store(key, value);
+        Object previous = this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).replace(key, stored);
+        if (previous == null) {
+            // Chunks of the rejected value were never referenced
+            this.purge(key.getId(), stored);
+            return false;
+        }
+        this.retire(key, previous);
+        return true;
+    }
+
+    /**
+     * Writes the specified value, only if the specified key has no value.
+     * N.B. This returns the existing value, if any, from the remote cache, in order to determine whether the value was written.
+     * @param key a cache key
+     * @param value a cache value
+     * @return true, if the value was written, false if the specified key already has a value
+     */
+    public boolean putIfAbsent(K key, V value) {
+        if (!this.isEnabled()) {
+            return this.cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value) == null;
+        }
+        this.purgeRetired();
+        Object stored = this.store(key, value);
+        if (this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, stored) != null) {
+            this.purge(key.getId(), stored);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the specified value, returning the previous value.
+     * @param key a cache key
+     * @param value a cache value
+     * @return the previous value of the specified key
+     */
+    public V put(K key, V value) {
+        if (!this.isEnabled()) {
+            return this.cache.withFlags(Flag.FORCE_RETURN_VALUE).put(key, value);
+        }
+        this.purgeRetired();
+        Object previous = this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).put(key, this.store(key, value));
+        V result = this.readPrevious(key, previous);
+        this.retire(key, previous);
+        return result;
+    }
+
+    /**
+     * Writes the specified value.
+     * @param key a cache key
+     * @param value a cache value
+     */
+    public void write(K key, V value) {
+        if (!this.isEnabled()) {
+            this.cache.put(key, value);
+        } else {
+            this.purgeRetired();
+            this.retire(key, this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).put(key, this.store(key, value)));
+        }
+    }
+
+    /**
+     * Removes the specified value, returning the previous value.
+     * @param key a cache key
+     * @return the previous value of the specified key
+     */
+    public V remove(K key) {
+        if (!this.isEnabled()) {
+            return this.cache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key);
+        }
+        Object previous = this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key);
+        V result = this.readPrevious(key, previous);
+        // A concurrent reader of a removed value will find it absent
+        this.purge(key.getId(), previous);
+        return result;
+    }
+
+    /**
+     * Removes the specified value, only if the current version of the specified key matches the specified versioned value.
+     * @param key a cache key
+     * @param previous a versioned value, as returned by {@link #getVersioned(Key)}
+     * @return true, if the value was removed, false if the version of the specified key did not match
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(K key, VersionedValue<V> previous) {
+        if (!this.isEnabled()) {
+            return this.cache.removeWithVersion(key, previous.getVersion());
+        }
+        boolean removed = this.chunkCache.removeWithVersion(key, previous.getVersion());
+        if (removed) {
+            // A concurrent reader of a removed value will find it absent
+            this.purge(key.getId(), ((StoredValue<V>) previous).getStoredObject());
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the specified value.
+     * @param key a cache key
+     */
+    public void delete(K key) {
+        if (!this.isEnabled()) {
+            this.cache.remove(key);
+        } else {
+            this.purge(key.getId(), this.chunkCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key));
+        }
+    }
+
+    /**
+     * Creates a mutator that writes the specified value.
+     * If the writes of the session are captured by a {@link SessionWriteBehindQueue}, the value is marshalled on mutation, and its write deferred.
+     * @param key a cache key
+     * @param value a cache value
+     * @return a mutator
+     */
+    public Mutator createMutator(K key, V value) {
+        if (!this.isEnabled()) return new DeferrableMutator<>(this.cache, key, value);
+        return () -> {
+            if (SessionWriteBehindQueue.isCapturing()) {
+                // The marshalled form of a value is written as is by the marshaller of the remote cache
+                @SuppressWarnings("unchecked")
+                V snapshot = (V) SessionWriteBehindQueue.snapshot(this.cache, key, value);
+                SessionWriteBehindQueue.defer(key, () -> this.write(key, snapshot));
+            } else {
+                this.write(key, value);
+            }
+        };
+    }
+
+    /**
+     * Removes the chunks of all overwritten values, regardless of the grace period.
+     */
+    @Override
+    public void close() {
+        for (RetiredValue value = this.retired.poll(); value != null; value = this.retired.poll()) {
+            this.purge(value.getId(), value.getValue());
+        }
+    }
+
+    /**
+     * Marshals the specified value, writing its chunks, if its marshalled form exceeds the chunk size.
+     * @return the object to store using the specified key, i.e. either the marshalled value itself or its {@link ChunkedValue}.
+     */
+    private Object store(K key, V value) {
+        Marshaller marshaller = this.getMarshaller();
+        try {
+            if (marshaller instanceof HotRodMarshaller) {
+                try (ChunkOutputStream output = new ChunkOutputStream(key.getId())) {
+                    try {
+                        ((HotRodMarshaller) marshaller).writeObject(value, output);
+                        return output.finish();
+                    } catch (IOException | RuntimeException e) {
+                        output.discard();
+                        throw e;
+                    }
+                }
+            }
+            byte[] bytes = marshaller.objectToByteBuffer(value);
+            if (bytes.length <= this.chunkSize) return new PreMarshalled(bytes);
+
+            UUID valueId = UUID.randomUUID();
+            int chunks = (bytes.length + this.chunkSize - 1) / this.chunkSize;
+            Map<Object, Object> entries = new HashMap<>();
+            for (int i = 0; i < chunks; ++i) {
+                int offset = i * this.chunkSize;
+                entries.put(new ChunkKey(key.getId(), valueId, i), Arrays.copyOfRange(bytes, offset, Math.min(offset + this.chunkSize, bytes.length)));
+            }
+            this.chunkCache.putAll(entries);
+            return new ChunkedValue(valueId, bytes.length, chunks);
+        } catch (IOException e) {
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        }
+    }
+
+    /**
+     * Resolves the specified stored object, reassembling the value from its chunks, if necessary.
+     * If its chunks were removed by a concurrent write, the stored object is re-read.
+     */
+    @SuppressWarnings("unchecked")
+    private V resolve(K key, Object stored) {
+        Object current = stored;
+        for (int attempt = 1; current instanceof ChunkedValue; ++attempt) {
+            ChunkedValue value = (ChunkedValue) current;
+            V result = this.read(key, value);
+            if (result != null) return result;
+            Object latest = this.chunkCache.get(key);
+            if ((latest instanceof ChunkedValue) && (((ChunkedValue) latest).getId().equals(value.getId()) || (attempt == MAX_READ_ATTEMPTS))) {
+                throw Logger.ROOT_LOGGER.missingChunks(key);
+            }
+            current = latest;
+        }
+        return (V) current;
+    }
+
+    /**
+     * Resolves the specified object previously stored by the specified key, whose chunks are not yet removed.
+     */
+    @SuppressWarnings("unchecked")
+    private V readPrevious(K key, Object previous) {
+        if (!(previous instanceof ChunkedValue)) return (V) previous;
+        V result = this.read(key, (ChunkedValue) previous);
+        if (result == null) {
+            throw Logger.ROOT_LOGGER.missingChunks(key);
+        }
+        return result;
+    }
+
+    /**
+     * Reassembles the specified value from its chunks.
+     * @return the reassembled value, or null, if any of its chunks are missing
+     */
+    @SuppressWarnings("unchecked")
+    private V read(K key, ChunkedValue value) {
+        Marshaller marshaller = this.getMarshaller();
+        if (marshaller instanceof HotRodMarshaller) {
+            ChunkInputStream input = new ChunkInputStream(key.getId(), value);
+            try {
+                return (V) ((HotRodMarshaller) marshaller).readObject(input);
+            } catch (IOException | ClassNotFoundException e) {
+                if (input.isMissingChunk()) return null;
+                throw Logger.ROOT_LOGGER.failedToUnmarshalCacheEntry(e, key);
+            }
+        }
+        Map<Object, Object> chunks = this.chunkCache.getAll(this.chunkKeys(key.getId(), value));
+        if (chunks.size() < value.getChunks()) return null;
+        // Reassemble into a pooled buffer, since only the unmarshalled value is retained
+        byte[] bytes = BufferPool.DEFAULT.acquire(value.getLength());
+        try {
+            int offset = 0;
+            for (int i = 0; i < value.getChunks(); ++i) {
+                byte[] chunk = (byte[]) chunks.get(new ChunkKey(key.getId(), value.getId(), i));
+                System.arraycopy(chunk, 0, bytes, offset, chunk.length);
+                offset += chunk.length;
+            }
+            return (V) marshaller.objectFromByteBuffer(bytes, 0, value.getLength());
+        } catch (IOException | ClassNotFoundException e) {
+            throw Logger.ROOT_LOGGER.failedToUnmarshalCacheEntry(e, key);
+        } finally {
+            BufferPool.DEFAULT.release(bytes);
+        }
+    }
+
+    /**
+     * Schedules removal of the chunks of the specified overwritten object, if any, once the grace period elapses.
+     */
+    private void retire(K key, Object object) {
+        if (object instanceof ChunkedValue) {
+            this.retired.add(new RetiredValue(key.getId(), (ChunkedValue) object));
+        }
+    }
+
+    /**
+     * Removes the chunks of overwritten values whose grace period has elapsed.
+     */
+    private void purgeRetired() {
+        long now = System.nanoTime();
+        for (RetiredValue value = this.retired.peek(); (value != null) && (now - value.getTime() >= this.purgeDelay); value = this.retired.peek()) {
+            if (this.retired.remove(value)) {
+                this.purge(value.getId(), value.getValue());
+            }
+        }
+    }
+
+    /**
+     * Removes the chunks of the specified stored object, if any.
+     */
+    private void purge(String id, Object object) {
+        if (object instanceof ChunkedValue) {
+            for (ChunkKey chunkKey : this.chunkKeys(id, (ChunkedValue) object)) {
+                this.chunkCache.remove(chunkKey);
+            }
+        }
+    }
+
+    private Set<ChunkKey> chunkKeys(String id, ChunkedValue value) {
+        Set<ChunkKey> keys = new HashSet<>();
+        for (int i = 0; i < value.getChunks(); ++i) {
+            keys.add(new ChunkKey(id, value.getId(), i));
+        }
+        return keys;
+    }
+
+    private Marshaller getMarshaller() {
+        return this.cache.getRemoteCacheManager().getMarshaller();
+    }
+
+    /**
+     * A versioned value that retains the object from which it was read, i.e. either the value itself or its {@link ChunkedValue}.
+     */
+    private static class StoredValue<V> implements VersionedValue<V> {
+        private final V value;
+        private final long version;
+        private final Object stored;
+
+        StoredValue(V value, long version, Object stored) {
+            this.value = value;
+            this.version = version;
+            this.stored = stored;
+        }
+
+        @Override
+        public V getValue() {
+            return this.value;
+        }
+
+        @Override
+        public long getVersion() {
+            return this.version;
+        }
+
+        Object getStoredObject() {
+            return this.stored;
+        }
+    }
+
+    /**
+     * An overwritten chunked value, whose chunks are pending removal.
+     */
+    private static class RetiredValue {
+        private final String id;
+        private final ChunkedValue value;
+        private final long time = System.nanoTime();
+
+        RetiredValue(String id, ChunkedValue value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        String getId() {
+            return this.id;
+        }
+
+        ChunkedValue getValue() {
+            return this.value;
+        }
+
+        long getTime() {
+            return this.time;
+        }
+    }
+
+    /**
+     * Output stream that writes each chunk of a marshalled value as soon as it is complete, such that at most one chunk is buffered.
+     * A value not exceeding the chunk size is never written as a chunk.
+     */
+    private class ChunkOutputStream extends OutputStream {
+        private final String id;
+        private final byte[] single = new byte[1];
+        private final byte[] buffer;
+        private UUID valueId = null;
+        private int position = 0;
+        private int chunks = 0;
+        private int length = 0;
+
+        ChunkOutputStream(String id) {
+            this.id = id;
+            this.buffer = BufferPool.DEFAULT.acquire(ChunkedValueCache.this.chunkSize);
+        }
+
+        @Override
+        public void write(int value) {
+            this.single[0] = (byte) value;
+            this.write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            int index = offset;
+            int remaining = length;
+            while (remaining > 0) {
+                if (this.position == ChunkedValueCache.this.chunkSize) {
+                    this.emit();
+                }
+                int size = Math.min(remaining, ChunkedValueCache.this.chunkSize - this.position);
+                System.arraycopy(bytes, index, this.buffer, this.position, size);
+                this.position += size;
+                this.length += size;
+                index += size;
+                remaining -= size;
+            }
+        }
+
+        private void emit() {
+            if (this.valueId == null) {
+                this.valueId = UUID.randomUUID();
+            }
+            ChunkedValueCache.this.chunkCache.put(new ChunkKey(this.id, this.valueId, this.chunks++), Arrays.copyOf(this.buffer, this.position));
+            this.position = 0;
+        }
+
+        /**
+         * Completes this stream.
+         * @return the object to store, i.e. either the marshalled value itself or its {@link ChunkedValue}.
+         */
+        Object finish() {
+            if (this.valueId == null) {
+                return new PreMarshalled(Arrays.copyOf(this.buffer, this.position));
+            }
+            this.emit();
+            return new ChunkedValue(this.valueId, this.length, this.chunks);
+        }
+
+        /**
+         * Removes any chunks written by this stream.
+         */
+        void discard() {
+            if (this.valueId != null) {
+                ChunkedValueCache.this.purge(this.id, new ChunkedValue(this.valueId, this.length, this.chunks));
+            }
+        }
+
+        @Override
+        public void close() {
+            BufferPool.DEFAULT.release(this.buffer);
+        }
+    }
+
+    /**
+     * Input stream that reads each chunk of a marshalled value as it is consumed, such that at most one chunk is retained.
+     */
+    private class ChunkInputStream extends InputStream {
+        private final String id;
+        private final ChunkedValue value;
+        private byte[] chunk = new byte[0];
+        private int position = 0;
+        private int index = 0;
+        private boolean missingChunk = false;
+
+        ChunkInputStream(String id, ChunkedValue value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.next() ? (this.chunk[this.position++] & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!this.next()) return -1;
+            int size = Math.min(length, this.chunk.length - this.position);
+            System.arraycopy(this.chunk, this.position, bytes, offset, size);
+            this.position += size;
+            return size;
+        }
+
+        /**
+         * Indicates whether a chunk was missing, i.e. removed by a concurrent write.
+         * @return true, if a chunk was missing, false otherwise
+         */
+        boolean isMissingChunk() {
+            return this.missingChunk;
+        }
+
+        private boolean next() throws IOException {
+            while (this.position == this.chunk.length) {
+                if (this.index == this.value.getChunks()) return false;
+                byte[] chunk = (byte[]) ChunkedValueCache.this.chunkCache.get(new ChunkKey(this.id, this.value.getId(), this.index++));
+                if (chunk == null) {
+                    this.missingChunk = true;
+                    throw new IOException(Integer.toString(this.index - 1));
+                }
+                this.chunk = chunk;
+                this.position = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.UUID;
+
+import org.kohsuke.MetaInfServices;
+import org.wildfly.clustering.marshalling.Externalizer;
+import org.wildfly.clustering.marshalling.spi.IndexSerializer;
+
+/**
+ * Externalizer for a {@link ChunkedValue}.
+ * @author Paul Ferraro
+ */
+@MetaInfServices(Externalizer.class)
+public class ChunkedValueExternalizer implements Externalizer<ChunkedValue> {
+
+    @Override
+    public void writeObject(ObjectOutput output, ChunkedValue value) throws IOException {
+        output.writeLong(value.getId().getMostSignificantBits());
+        output.writeLong(value.getId().getLeastSignificantBits());
+        IndexSerializer.VARIABLE.writeInt(output, value.getLength());
+        IndexSerializer.VARIABLE.writeInt(output, value.getChunks());
+    }
+
+    @Override
+    public ChunkedValue readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        UUID id = new UUID(input.readLong(), input.readLong());
+        int length = IndexSerializer.VARIABLE.readInt(input);
+        int chunks = IndexSerializer.VARIABLE.readInt(input);
+        return new ChunkedValue(id, length, chunks);
+    }
+
+    @Override
+    public Class<ChunkedValue> getTargetClass() {
+        return ChunkedValue.class;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.clustering.ee.Locator;
+
+/**
+ * Locator decorator that coalesces concurrent lookups of the same identifier into a single lookup.
+ * Threads that request an identifier whose lookup is already in progress wait for, and share, the result of that lookup.
+ * Only in-flight lookups are shared - completed results are never cached.
+ * Since callers share the located value, any mutable state of that value is shared as well.
+ * Consequently, callers must serialize the mutation and writing of a shared value, e.g. {@link HotRodSessionManager} does so per session.
+ * @author Paul Ferraro
+ */
+public class CoalescingLocator<K, V> implements Locator<K, V> {
+
+    private final Locator<K, V> locator;
+    private final Map<K, CompletableFuture<V>> lookups = new ConcurrentHashMap<>();
+
+    public CoalescingLocator(Locator<K, V> locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public V findValue(K id) {
+        CompletableFuture<V> lookup = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.lookups.putIfAbsent(id, lookup);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = this.locator.findValue(id);
+            lookup.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.lookups.remove(id, lookup);
+        }
+    }
+
+    @Override
+    public V tryValue(K id) {
+        return this.locator.tryValue(id);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.hotrod.RemoteCacheEntryMutator;
+
+/**
+ * Mutator that writes an entry of a remote cache, or, if the writes of its session are captured by a {@link SessionWriteBehindQueue},
+ * marshals its value and defers its write, such that subsequent changes to the value are not written.
+ * @author Paul Ferraro
+ */
+public class DeferrableMutator<K, V> implements Mutator {
+
+    private final RemoteCache<K, V> cache;
+    private final K key;
+    private final V value;
+
+    public DeferrableMutator(RemoteCache<K, V> cache, K key, V value) {
+        this.cache = cache;
+        this.key = key;
+        this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void mutate() {
+        if (SessionWriteBehindQueue.isCapturing()) {
+            // The marshalled form of a value is written as is by the marshaller of the remote cache
+            V snapshot = (V) SessionWriteBehindQueue.snapshot(this.cache, this.key, this.value);
+            SessionWriteBehindQueue.defer(this.key, new RemoteCacheEntryMutator<>(this.cache, this.key, snapshot)::mutate);
+        } else {
+            new RemoteCacheEntryMutator<>(this.cache, this.key, this.value).mutate();
+        }
+    }
+}
@@ -29,6 +29,9 @@ import org.wildfly.clustering.Registration;
 import org.wildfly.clustering.ee.Remover;
 import org.wildfly.clustering.web.cache.session.SessionFactory;
 import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationMeasurement;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
@@ -42,13 +45,30 @@ public class ExpiredSessionRemover<MV, AV, L> implements Remover<String>, Regist
 
     private final SessionFactory<MV, AV, L> factory;
     private final Collection<SessionExpirationListener> listeners = new CopyOnWriteArraySet<>();
+    private final SessionMetrics metrics;
 
     public ExpiredSessionRemover(SessionFactory<MV, AV, L> factory) {
+        this(factory, null);
+    }
+
+    public ExpiredSessionRemover(SessionFactory<MV, AV, L> factory, SessionMetrics metrics) {
         this.factory = factory;
+        this.metrics = metrics;
     }
 
     @Override
     public boolean remove(String id) {
+        SessionOperationMeasurement measurement = (this.metrics != null) && this.metrics.isEnabled(SessionOperation.EXPIRE) ? SessionOperationMeasurement.start(this.metrics) : null;
+        try {
+            return this.removeExpired(id);
+        } finally {
+            if (measurement != null) {
+                measurement.stop(SessionOperation.EXPIRE, id);
+            }
+        }
+    }
+
+    private boolean removeExpired(String id) {
         MV metaDataValue = this.factory.getMetaDataFactory().tryValue(id);
         if (metaDataValue != null) {
             ImmutableSessionMetaData metaData = this.factory.getMetaDataFactory().createImmutableSessionMetaData(id, metaDataValue);
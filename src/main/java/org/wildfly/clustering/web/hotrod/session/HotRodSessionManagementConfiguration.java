@@ -22,6 +22,12 @@
 
 package org.wildfly.clustering.web.hotrod.session;
 
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
 import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration.SessionAttributePersistenceStrategy;
 
 /**
@@ -31,4 +37,134 @@ import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration.Ses
 public interface HotRodSessionManagementConfiguration {
 
     SessionAttributePersistenceStrategy getAttributePersistenceStrategy();
+
+    /**
+     * Indicates whether the remote cache entries of a newly created session should be deferred until the session is first closed.
+     * Sessions that are invalidated before they are first closed will never be written to the remote cache.
+     * @return true, if the creation of sessions is deferred, false otherwise.
+     */
+    default boolean isDeferredCreation() {
+        return false;
+    }
+
+    /**
+     * The number of buckets into which the attributes of a session using {@link SessionAttributePersistenceStrategy#COARSE} persistence are partitioned by name.
+     * Each bucket is stored as a separate cache entry, such that a change to an attribute only rewrites the attributes of its bucket.
+     * @return a number of buckets, or 1, if the attributes of a session are stored in a single cache entry.
+     */
+    default int getAttributeBuckets() {
+        return 1;
+    }
+
+    /**
+     * The marshalled size, in bytes, above which the attributes of a session migrate from coarse to fine granularity storage, if only some of them are written by a request.
+     * Conversely, the attributes of a session migrate back to coarse granularity storage if a request writes all of them and their marshalled size is at most half of this threshold.
+     * If enabled, this overrides the {@link #getAttributePersistenceStrategy()}.
+     * Ignored for transactional caches.
+     * @return a number of bytes, or 0, if the attributes of all sessions are stored using the {@link #getAttributePersistenceStrategy()}.
+     */
+    default int getAttributeLayoutThreshold() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of deltas logged per {@link org.wildfly.clustering.web.hotrod.session.delta.DeltaAware} session attribute, before the attribute is written in its entirety.
+     * Changes to such attributes are otherwise replicated by appending their delta to a log that is applied when the attribute is next read.
+     * Ignored for transactional caches, and for sessions using bucketed or adaptive attribute storage.
+     * @return a number of deltas, or 0, if delta aware session attributes are always written in their entirety.
+     */
+    default int getAttributeDeltaLimit() {
+        return 0;
+    }
+
+    /**
+     * Indicates whether the attributes of a session using {@link SessionAttributePersistenceStrategy#COARSE} persistence are written only if their cache entry was not written concurrently since it was read.
+     * If it was, the attributes changed by a request are merged into the current attributes of the session, such that concurrent requests for the same session do not silently overwrite each other's changes.
+     * If enabled, {@link #getAttributeDeltaLimit()} is ignored for such sessions.
+     * Ignored for transactional caches, and for sessions using bucketed or adaptive attribute storage.
+     * @return true, if attributes are written conditionally, false if the last writer wins.
+     */
+    default boolean isOptimisticAttributeWrites() {
+        return false;
+    }
+
+    /**
+     * The maximum size, in bytes, of a marshalled session attribute cache entry.
+     * Larger entries are split into a sequence of chunks of this size, each stored as a separate cache entry.
+     * @return a number of bytes, or 0, if session attribute cache entries are never chunked.
+     */
+    default int getChunkSize() {
+        return 0;
+    }
+
+    /**
+     * The maximum number of sessions whose local context is retained by this node between requests.
+     * The local context of the least recently used session is evicted if this capacity is exceeded.
+     * @return a number of sessions, or 0, if the local context of a session is recreated each time the session is read from the remote cache.
+     */
+    default int getLocalContextCapacity() {
+        return 0;
+    }
+
+    /**
+     * The recipient of session and remote cache operation metrics.
+     * @return session metrics, or null, if metrics are disabled.
+     */
+    default SessionMetrics getMetrics() {
+        return null;
+    }
+
+    /**
+     * Identifies the servers preferred as owners of newly created sessions, e.g. the server co-located with this node.
+     * If specified, session identifiers are pre-generated such that the creation meta data of a session is owned by a preferred server.
+     * @return a predicate matching preferred server addresses, or null, if session identifiers are generated without key affinity.
+     */
+    default Predicate<SocketAddress> getPreferredServers() {
+        return null;
+    }
+
+    /**
+     * The delay between consecutive scans of the remote cache for sessions whose expiration is not scheduled by any node, e.g. whose last request was handled by a node that has since crashed.
+     * The first scan starts when the session manager starts.
+     * Each node claims the sessions owned by its {@link #getPreferredServers()}, or, if no servers are preferred, a share of all sessions partitioned amongst the members of its {@link #getGroup()}.
+     * @return a scan interval, or null, if the remote cache is never scanned for orphaned sessions.
+     */
+    default Duration getOrphanScanInterval() {
+        return null;
+    }
+
+    /**
+     * The maximum number of remote cache entries per second retrieved by a scan of the remote cache for orphaned sessions.
+     * This also bounds the rate at which the expiration of orphaned sessions is scheduled.
+     * @return a number of entries per second
+     */
+    default int getOrphanScanRate() {
+        return 1000;
+    }
+
+    /**
+     * The name of a key/value filter converter factory deployed to the servers of the remote cache, whose converter discards the value of each entry.
+     * If specified, a scan of the remote cache for orphaned sessions retrieves keys only.
+     * @return the name of a filter converter factory, or null, if a scan retrieves entries in full.
+     */
+    default String getOrphanScanKeyConverterFactory() {
+        return null;
+    }
+
+    /**
+     * The group of nodes sharing the remote cache, amongst whose live members a scan for orphaned sessions partitions its claims, if no servers are preferred.
+     * @return a group, or null, if every node claims all sessions.
+     */
+    default Group getGroup() {
+        return null;
+    }
+
+    /**
+     * The maximum number of pending session writes, if sessions are written asynchronously on close.
+     * Ignored for transactional caches.
+     * @return a number of writes, or 0, if sessions are written synchronously on close.
+     */
+    default int getWriteBehindQueueSize() {
+        return 0;
+    }
 }
@@ -35,11 +35,15 @@ import javax.servlet.http.HttpSessionEvent;
 import org.wildfly.clustering.Registrar;
 import org.wildfly.clustering.Registration;
 import org.wildfly.clustering.ee.Batcher;
+import org.wildfly.clustering.ee.Locator;
 import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
 import org.wildfly.clustering.web.IdentifierFactory;
 import org.wildfly.clustering.web.cache.session.SessionFactory;
 import org.wildfly.clustering.web.cache.session.SimpleImmutableSession;
 import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationMeasurement;
 import org.wildfly.clustering.web.session.ImmutableHttpSessionAdapter;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
@@ -54,20 +58,34 @@ import org.wildfly.clustering.web.session.SessionMetaData;
  * @author Paul Ferraro
  */
 public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, TransactionBatch> {
+    // Number of locks across which the writes of sessions are striped
+    private static final int LOCK_STRIPES = 64;
+    // Identifies the deferred scheduling of the expiration of a session
+    private static final Object SCHEDULE = new Object();
+
     private final Registrar<SessionExpirationListener> expirationRegistrar;
     private final SessionExpirationListener expirationListener;
     private final Scheduler expirationScheduler;
     private final SessionFactory<MV, AV, L> factory;
+    private final Locator<String, Map.Entry<MV, AV>> locator;
     private final IdentifierFactory<String> identifierFactory;
     private final ServletContext context;
     private final Batcher<TransactionBatch> batcher;
     private final Duration stopTimeout;
+    private final SessionCreationBuffer creationBuffer;
+    private final SessionMetrics metrics;
+    private final SessionWriteBehindQueue writeBehindQueue;
+    private final OrphanedSessionScanner orphanScanner;
+    // Concurrent requests for the same session share a coalesced entry, so its mutations and writes are serialized per session
+    private final Object[] locks = new Object[LOCK_STRIPES];
 
     private volatile Duration defaultMaxInactiveInterval = Duration.ofMinutes(30L);
     private volatile Registration expirationRegistration;
 
     public HotRodSessionManager(SessionFactory<MV, AV, L> factory, HotRodSessionManagerConfiguration configuration) {
         this.factory = factory;
+        // Concurrent requests for the same session share a single remote lookup
+        this.locator = new CoalescingLocator<>(factory);
         this.expirationRegistrar = configuration.getExpirationRegistrar();
         this.expirationListener = configuration.getExpirationListener();
         this.expirationScheduler = configuration.getExpirationScheduler();
@@ -75,16 +93,34 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
         this.identifierFactory = configuration.getIdentifierFactory();
         this.batcher = configuration.getBatcher();
         this.stopTimeout = configuration.getStopTimeout();
+        this.creationBuffer = configuration.getCreationBuffer();
+        this.metrics = configuration.getMetrics();
+        this.writeBehindQueue = configuration.getWriteBehindQueue();
+        this.orphanScanner = configuration.getOrphanedSessionScanner();
+        for (int i = 0; i < this.locks.length; ++i) {
+            this.locks[i] = new Object();
+        }
     }
 
     @Override
     public void start() {
+        this.identifierFactory.start();
         this.expirationRegistration = this.expirationRegistrar.register(this.expirationListener);
+        if (this.orphanScanner != null) {
+            this.orphanScanner.start();
+        }
     }
 
     @Override
     public void stop() {
+        if (this.orphanScanner != null) {
+            this.orphanScanner.stop();
+        }
+        if ((this.writeBehindQueue != null) && !this.writeBehindQueue.drain(this.stopTimeout)) {
+            Logger.ROOT_LOGGER.pendingSessionWrites(this.stopTimeout);
+        }
         this.expirationRegistration.close();
+        this.identifierFactory.stop();
     }
 
     @Override
@@ -114,35 +150,59 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
 
     @Override
     public Session<L> findSession(String id) {
-        Map.Entry<MV, AV> entry = this.factory.findValue(id);
-        if (entry == null) {
-            Logger.ROOT_LOGGER.tracef("Session %s not found", id);
-            return null;
-        }
-        ImmutableSession session = this.factory.createImmutableSession(id, entry);
-        if (session.getMetaData().isExpired()) {
-            Logger.ROOT_LOGGER.tracef("Session %s was found, but has expired", id);
-            this.expirationListener.sessionExpired(session);
-            this.factory.remove(id);
-            return null;
+        SessionOperationMeasurement measurement = this.startMeasurement(SessionOperation.FIND);
+        int attributes = -1;
+        try {
+            this.flushWrites(id);
+            Map.Entry<MV, AV> entry = this.locator.findValue(id);
+            if (entry == null) {
+                Logger.ROOT_LOGGER.tracef("Session %s not found", id);
+                return null;
+            }
+            ImmutableSession session = this.factory.createImmutableSession(id, entry);
+            if (session.getMetaData().isExpired()) {
+                Logger.ROOT_LOGGER.tracef("Session %s was found, but has expired", id);
+                SessionOperationMeasurement expiration = this.startMeasurement(SessionOperation.EXPIRE);
+                try {
+                    // Concurrent requests for this session may share the same entry, so ensure that it is only expired once
+                    if (this.factory.getMetaDataFactory().createSessionMetaData(id, entry.getKey()).invalidate()) {
+                        this.expirationListener.sessionExpired(session);
+                        this.factory.remove(id);
+                    }
+                } finally {
+                    stopMeasurement(expiration, SessionOperation.EXPIRE, id);
+                }
+                return null;
+            }
+            this.expirationScheduler.cancel(id);
+            this.triggerPostActivationEvents(session);
+            if (measurement != null) {
+                attributes = session.getAttributes().getAttributeNames().size();
+            }
+            return new SchedulableSession(this.factory.createSession(id, entry), session);
+        } finally {
+            stopMeasurement(measurement, SessionOperation.FIND, id, attributes);
         }
-        this.expirationScheduler.cancel(id);
-        this.triggerPostActivationEvents(session);
-        return new SchedulableSession(this.factory.createSession(id, entry), session);
     }
 
     @Override
     public Session<L> createSession(String id) {
-        Map.Entry<MV, AV> entry = this.factory.createValue(id, null);
-        if (entry == null) return null;
-        Session<L> session = this.factory.createSession(id, entry);
-        session.getMetaData().setMaxInactiveInterval(this.defaultMaxInactiveInterval);
-        return new SchedulableSession(session, session);
+        SessionOperationMeasurement measurement = this.startMeasurement(SessionOperation.CREATE);
+        try {
+            Map.Entry<MV, AV> entry = this.factory.createValue(id, null);
+            if (entry == null) return null;
+            Session<L> session = this.factory.createSession(id, entry);
+            session.getMetaData().setMaxInactiveInterval(this.defaultMaxInactiveInterval);
+            return new SchedulableSession(session, session);
+        } finally {
+            stopMeasurement(measurement, SessionOperation.CREATE, id);
+        }
     }
 
     @Override
     public ImmutableSession viewSession(String id) {
-        Map.Entry<MV, AV> entry = this.factory.findValue(id);
+        this.flushWrites(id);
+        Map.Entry<MV, AV> entry = this.locator.findValue(id);
         return (entry != null) ? new SimpleImmutableSession(this.factory.createImmutableSession(id, entry)) : null;
     }
 
@@ -177,10 +237,58 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
         }
     }
 
+    void flush(String id) {
+        this.creationBuffer.flush(id);
+    }
+
+    void cancel(String id) {
+        this.creationBuffer.cancel(id);
+    }
+
+    // Ensures that any pending writes of the specified session are visible to this node
+    void flushWrites(String id) {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.flush(id);
+        }
+    }
+
+    void write(String id, Runnable write) {
+        if (this.writeBehindQueue != null) {
+            // Capture the writes of the session now, since subsequent requests may change it before they are applied
+            this.writeBehindQueue.enqueue(id, SessionWriteBehindQueue.capture(write));
+        } else {
+            write.run();
+        }
+    }
+
+    Object getLock(String id) {
+        return this.locks[(id.hashCode() & Integer.MAX_VALUE) % this.locks.length];
+    }
+
     void schedule(ImmutableSession session) {
         this.expirationScheduler.schedule(session.getId(), session.getMetaData());
     }
 
+    // Returns null if metrics, or the specified operation, are disabled
+    SessionOperationMeasurement startMeasurement(SessionOperation operation) {
+        return (this.metrics != null) && this.metrics.isEnabled(operation) ? SessionOperationMeasurement.start(this.metrics) : null;
+    }
+
+    // Attributes accessed by the application are only tracked if metrics of session close operations are enabled
+    boolean isTrackingAttributes() {
+        return (this.metrics != null) && this.metrics.isEnabled(SessionOperation.CLOSE);
+    }
+
+    static void stopMeasurement(SessionOperationMeasurement measurement, SessionOperation operation, String id) {
+        stopMeasurement(measurement, operation, id, -1);
+    }
+
+    static void stopMeasurement(SessionOperationMeasurement measurement, SessionOperation operation, String id, int attributes) {
+        if (measurement != null) {
+            measurement.stop(operation, id, attributes);
+        }
+    }
+
     private static List<HttpSessionActivationListener> findListeners(ImmutableSession session) {
         ImmutableSessionAttributes attributes = session.getAttributes();
         return attributes.getAttributeNames().stream().map(name -> attributes.getAttribute(name))
@@ -196,6 +304,9 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
         SchedulableSession(Session<L> session, ImmutableSession immutableSession) {
             this.session = session;
             this.immutableSession = immutableSession;
+            if (HotRodSessionManager.this.isTrackingAttributes()) {
+                SessionOperationMeasurement.clearAttributesAccessed();
+            }
         }
 
         @Override
@@ -221,7 +332,14 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
             if (!this.session.isValid()) {
                 throw Logger.ROOT_LOGGER.invalidSession(this.getId());
             }
-            this.session.invalidate();
+            SessionOperationMeasurement measurement = HotRodSessionManager.this.startMeasurement(SessionOperation.REMOVE);
+            try {
+                // Apply any pending writes of the session first, otherwise they could recreate its entries once removed
+                HotRodSessionManager.this.flushWrites(this.getId());
+                this.session.invalidate();
+            } finally {
+                stopMeasurement(measurement, SessionOperation.REMOVE, this.getId());
+            }
         }
 
         @Override
@@ -229,19 +347,45 @@ public class HotRodSessionManager<MV, AV, L> implements SessionManager<L, Transa
             if (!this.session.isValid()) {
                 throw Logger.ROOT_LOGGER.invalidSession(this.getId());
             }
-            return this.session.getAttributes();
+            return new SynchronizedSessionAttributes(this.session.getAttributes(), HotRodSessionManager.this.getLock(this.getId()), HotRodSessionManager.this.isTrackingAttributes());
         }
 
         @Override
         public void close() {
-            boolean valid = this.session.isValid();
-            if (valid) {
-                HotRodSessionManager.this.triggerPrePassivationEvents(this.immutableSession);
+            SessionOperationMeasurement measurement = HotRodSessionManager.this.startMeasurement(SessionOperation.CLOSE);
+            int attributes = -1;
+            try {
+                boolean valid = this.session.isValid();
+                if (valid) {
+                    HotRodSessionManager.this.triggerPrePassivationEvents(this.immutableSession);
+                    if (measurement != null) {
+                        attributes = this.immutableSession.getAttributes().getAttributeNames().size();
+                    }
+                }
+                if (valid) {
+                    HotRodSessionManager.this.write(this.getId(), this::write);
+                } else {
+                    synchronized (HotRodSessionManager.this.getLock(this.getId())) {
+                        this.session.close();
+                    }
+                    HotRodSessionManager.this.cancel(this.getId());
+                }
+            } finally {
+                if (measurement != null) {
+                    measurement.stop(SessionOperation.CLOSE, this.getId(), attributes, SessionOperationMeasurement.getAttributesAccessed());
+                    SessionOperationMeasurement.clearAttributesAccessed();
+                }
             }
-            this.session.close();
-            if (valid) {
-                HotRodSessionManager.this.schedule(this.immutableSession);
+        }
+
+        private void write() {
+            synchronized (HotRodSessionManager.this.getLock(this.getId())) {
+                this.session.close();
             }
+            // Write entries of a newly created session, if deferred
+            HotRodSessionManager.this.flush(this.getId());
+            // Schedule expiration once all writes of the session are applied
+            SessionWriteBehindQueue.defer(SCHEDULE, () -> HotRodSessionManager.this.schedule(this.immutableSession));
         }
 
         @Override
@@ -29,6 +29,7 @@ import org.wildfly.clustering.Registrar;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
 import org.wildfly.clustering.web.IdentifierFactory;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
 import org.wildfly.clustering.web.session.SessionExpirationListener;
 
 /**
@@ -43,4 +44,8 @@ public interface HotRodSessionManagerConfiguration {
     IdentifierFactory<String> getIdentifierFactory();
     Batcher<TransactionBatch> getBatcher();
     Duration getStopTimeout();
+    SessionCreationBuffer getCreationBuffer();
+    SessionMetrics getMetrics();
+    SessionWriteBehindQueue getWriteBehindQueue();
+    OrphanedSessionScanner getOrphanedSessionScanner();
 }
@@ -21,31 +21,51 @@
  */
 package org.wildfly.clustering.web.hotrod.session;
 
+import java.net.SocketAddress;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import javax.servlet.ServletContext;
 
+import org.infinispan.client.hotrod.RemoteCache;
+import org.jboss.threads.JBossThreadFactory;
 import org.wildfly.clustering.Registrar;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.ee.cache.CacheProperties;
 import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
 import org.wildfly.clustering.ee.hotrod.RemoteCacheManagerProperties;
 import org.wildfly.clustering.ee.hotrod.tx.HotRodBatcher;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.infinispan.client.Key;
 import org.wildfly.clustering.marshalling.spi.Marshallability;
 import org.wildfly.clustering.marshalling.spi.MarshalledValueFactory;
 import org.wildfly.clustering.marshalling.spi.MarshalledValueMarshaller;
 import org.wildfly.clustering.web.IdentifierFactory;
 import org.wildfly.clustering.web.cache.session.CompositeSessionFactory;
-import org.wildfly.clustering.web.cache.session.CompositeSessionMetaDataEntry;
 import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
 import org.wildfly.clustering.web.cache.session.SessionFactory;
-import org.wildfly.clustering.web.cache.session.SessionMetaDataFactory;
+import org.wildfly.clustering.web.hotrod.metrics.RemoteCacheInstrumentation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.session.adaptive.AdaptiveSessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.session.bucket.BucketedSessionAttributesFactory;
 import org.wildfly.clustering.web.hotrod.session.coarse.CoarseSessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltasFactory;
 import org.wildfly.clustering.web.hotrod.session.fine.FineSessionAttributesFactory;
 import org.wildfly.clustering.web.session.SessionExpirationListener;
 import org.wildfly.clustering.web.session.SessionManager;
 import org.wildfly.clustering.web.session.SessionManagerConfiguration;
 import org.wildfly.clustering.web.session.SessionManagerFactory;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Factory for creating session managers.
@@ -57,22 +77,55 @@ public class HotRodSessionManagerFactory<L, C extends Marshallability> implement
     final Scheduler expirationScheduler;
     final Batcher<TransactionBatch> batcher;
     final Duration transactionTimeout;
+    final SessionCreationBuffer creationBuffer;
+    final SessionMetrics metrics;
+    final RemoteCache<?, ?> cache;
+    final Predicate<SocketAddress> preferredServers;
+    final SessionWriteBehindQueue writeBehindQueue;
+    final Duration orphanScanInterval;
+    final int orphanScanRate;
+    final String orphanScanKeyConverterFactory;
+    final Group group;
+    final Executor executor;
+    // The executor created by this factory, if no shared executor was configured
+    private final ExecutorService ownedExecutor;
+    // Retain chunked value caches, so that their retired chunks can be removed on close
+    private final List<ChunkedValueCache<?, ?>> chunkedValueCaches = new ArrayList<>();
 
-    private final SessionFactory<CompositeSessionMetaDataEntry<L>, ?, L> sessionFactory;
+    private final HotRodSessionMetaDataFactory<L> metaDataFactory;
+    private final SessionFactory<HotRodSessionMetaDataEntry<L>, ?, L> sessionFactory;
 
     public HotRodSessionManagerFactory(HotRodSessionManagerFactoryConfiguration<C, L> config) {
-        CacheProperties properties = new RemoteCacheManagerProperties(config.getCache().getRemoteCacheManager().getConfiguration());
-        SessionMetaDataFactory<CompositeSessionMetaDataEntry<L>, L> metaDataFactory = new HotRodSessionMetaDataFactory<>(config.getCache(), properties);
-        this.sessionFactory = new CompositeSessionFactory<>(metaDataFactory, this.createSessionAttributesFactory(config, properties), config.getLocalContextFactory());
-        ExpiredSessionRemover<CompositeSessionMetaDataEntry<L>, ?, L> remover = new ExpiredSessionRemover<>(this.sessionFactory);
+        this.metrics = config.getMetrics();
+        this.cache = config.getCache();
+        this.preferredServers = config.getPreferredServers();
+        this.orphanScanInterval = config.getOrphanScanInterval();
+        this.orphanScanRate = config.getOrphanScanRate();
+        this.orphanScanKeyConverterFactory = config.getOrphanScanKeyConverterFactory();
+        this.group = config.getGroup();
+        Executor executor = config.getExecutor();
+        this.ownedExecutor = (executor == null) ? createExecutor() : null;
+        this.executor = (executor != null) ? executor : this.ownedExecutor;
+        // Only instrument remote cache operations if metrics are enabled
+        RemoteCache<?, ?> cache = (this.metrics != null) ? RemoteCacheInstrumentation.instrument(config.getCache(), this.metrics) : config.getCache();
+        CacheProperties properties = new RemoteCacheManagerProperties(cache.getRemoteCacheManager().getConfiguration());
+        this.transactionTimeout = Duration.ofMillis(config.getCache().getRemoteCacheManager().getConfiguration().transaction().timeout());
+        this.creationBuffer = new SessionCreationBuffer(cast(cache), config.isDeferredCreation());
+        // Writes of a transactional cache must be applied within the batch of the request
+        this.writeBehindQueue = (config.getWriteBehindQueueSize() > 0) && !properties.isTransactional() ? new SessionWriteBehindQueue(config.getWriteBehindQueueSize(), this.executor, this.transactionTimeout) : null;
+        this.metaDataFactory = new HotRodSessionMetaDataFactory<>(cast(cache), properties, this.creationBuffer, (config.getLocalContextCapacity() > 0) ? new LocalContextRegistry<>(config.getLocalContextCapacity()) : null);
+        this.sessionFactory = new CompositeSessionFactory<>(this.metaDataFactory, this.measure(this.createSessionAttributesFactory(config, cache, properties)), config.getLocalContextFactory());
+        ExpiredSessionRemover<HotRodSessionMetaDataEntry<L>, ?, L> remover = new ExpiredSessionRemover<>(this.sessionFactory, this.metrics);
         this.expirationRegistrar = remover;
-        this.expirationScheduler = new SessionExpirationScheduler(remover);
+        SessionExpirationSchedulerService expirationService = config.getExpirationSchedulerService();
+        this.expirationScheduler = (expirationService != null) ? expirationService.createScheduler(remover) : new SessionExpirationScheduler(remover);
         this.batcher = new HotRodBatcher(config.getCache());
-        this.transactionTimeout = Duration.ofMillis(config.getCache().getRemoteCacheManager().getConfiguration().transaction().timeout());
     }
 
     @Override
     public SessionManager<L, TransactionBatch> createSessionManager(SessionManagerConfiguration configuration) {
+        IdentifierFactory<String> identifierFactory = (this.preferredServers != null) ? new KeyAffinityIdentifierFactory(configuration.getIdentifierFactory(), this.cache, this.preferredServers, this.executor) : configuration.getIdentifierFactory();
+        OrphanedSessionScanner orphanScanner = (this.orphanScanInterval != null) ? new OrphanedSessionScanner(this.cache, this.preferredServers, this.group, this.metaDataFactory::findImmutableSessionMetaData, this.expirationScheduler, this.orphanScanInterval, this.orphanScanRate, this.orphanScanKeyConverterFactory, OrphanedSessionScanner.DEFAULT_PARALLELISM) : null;
         HotRodSessionManagerConfiguration config = new HotRodSessionManagerConfiguration() {
             @Override
             public SessionExpirationListener getExpirationListener() {
@@ -91,7 +144,7 @@ public class HotRodSessionManagerFactory<L, C extends Marshallability> implement
 
             @Override
             public IdentifierFactory<String> getIdentifierFactory() {
-                return configuration.getIdentifierFactory();
+                return identifierFactory;
             }
 
             @Override
@@ -108,25 +161,83 @@ public class HotRodSessionManagerFactory<L, C extends Marshallability> implement
             public Duration getStopTimeout() {
                 return HotRodSessionManagerFactory.this.transactionTimeout;
             }
+
+            @Override
+            public SessionCreationBuffer getCreationBuffer() {
+                return HotRodSessionManagerFactory.this.creationBuffer;
+            }
+
+            @Override
+            public SessionMetrics getMetrics() {
+                return HotRodSessionManagerFactory.this.metrics;
+            }
+
+            @Override
+            public SessionWriteBehindQueue getWriteBehindQueue() {
+                return HotRodSessionManagerFactory.this.writeBehindQueue;
+            }
+
+            @Override
+            public OrphanedSessionScanner getOrphanedSessionScanner() {
+                return orphanScanner;
+            }
         };
         return new HotRodSessionManager<>(this.sessionFactory, config);
     }
 
     @Override
     public void close() {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.close();
+        }
         this.expirationScheduler.close();
+        for (ChunkedValueCache<?, ?> cache : this.chunkedValueCaches) {
+            cache.close();
+        }
+        if (this.ownedExecutor != null) {
+            PrivilegedAction<Void> shutdownAction = () -> {
+                this.ownedExecutor.shutdown();
+                return null;
+            };
+            WildFlySecurityManager.doUnchecked(shutdownAction);
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadFactory factory = AccessController.doPrivileged(new PrivilegedAction<ThreadFactory>() {
+            @Override
+            public ThreadFactory run() {
+                return new JBossThreadFactory(new ThreadGroup(HotRodSessionManagerFactory.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
+            }
+        });
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        // Threads are only needed while there are background tasks
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    private SessionAttributesFactory<?> createSessionAttributesFactory(HotRodSessionManagerFactoryConfiguration<C, L> configuration, CacheProperties properties) {
+    private SessionAttributesFactory<?> createSessionAttributesFactory(HotRodSessionManagerFactoryConfiguration<C, L> configuration, RemoteCache<?, ?> cache, CacheProperties properties) {
         MarshalledValueFactory<C> factory = configuration.getMarshalledValueFactory();
         C context = configuration.getMarshallingContext();
 
+        // Attributes of a transactional cache are written within the batch of a request, thus cannot be migrated on close
+        if ((configuration.getAttributeLayoutThreshold() > 0) && !properties.isTransactional()) {
+            return new AdaptiveSessionAttributesFactory<>(this.createChunkedValueCache(cache, configuration.getChunkSize()), new MarshalledValueMarshaller<>(factory, context), cast(cache), this.createChunkedValueCache(cache, configuration.getChunkSize()), new MarshalledValueMarshaller<>(factory, context), properties, this.creationBuffer, configuration.getAttributeLayoutThreshold());
+        }
+
+        // Deltas of a transactional cache would be appended before the attribute is mutated
+        SessionAttributeDeltasFactory<?> deltasFactory = (configuration.getAttributeDeltaLimit() > 0) && !properties.isTransactional() ? new SessionAttributeDeltasFactory<>(cast(cache), cast(cache), new MarshalledValueMarshaller<>(factory, context), configuration.getAttributeDeltaLimit()) : null;
+
         switch (configuration.getAttributePersistenceStrategy()) {
             case FINE: {
-                return new FineSessionAttributesFactory<>(configuration.getCache(), configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), properties);
+                return new FineSessionAttributesFactory<>(cast(cache), this.createChunkedValueCache(cache, configuration.getChunkSize()), new MarshalledValueMarshaller<>(factory, context), properties, deltasFactory);
             }
             case COARSE: {
-                return new CoarseSessionAttributesFactory<>(configuration.getCache(), new MarshalledValueMarshaller<>(factory, context), properties);
+                if (configuration.getAttributeBuckets() > 1) {
+                    return new BucketedSessionAttributesFactory<>(this.createChunkedValueCache(cache, configuration.getChunkSize()), new MarshalledValueMarshaller<>(factory, context), properties, this.creationBuffer, configuration.getAttributeBuckets());
+                }
+                return new CoarseSessionAttributesFactory<>(this.createChunkedValueCache(cache, configuration.getChunkSize()), new MarshalledValueMarshaller<>(factory, context), properties, this.creationBuffer, deltasFactory, configuration.isOptimisticAttributeWrites() && !properties.isTransactional());
             }
             default: {
                 // Impossible
@@ -134,4 +245,19 @@ public class HotRodSessionManagerFactory<L, C extends Marshallability> implement
             }
         }
     }
+
+    private <K extends Key<String>, V> ChunkedValueCache<K, V> createChunkedValueCache(RemoteCache<?, ?> cache, int chunkSize) {
+        ChunkedValueCache<K, V> result = new ChunkedValueCache<>(cast(cache), chunkSize);
+        this.chunkedValueCaches.add(result);
+        return result;
+    }
+
+    private <V> SessionAttributesFactory<V> measure(SessionAttributesFactory<V> factory) {
+        return (this.metrics != null) ? new MeasuredSessionAttributesFactory<>(factory, this.metrics) : factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> RemoteCache<K, V> cast(RemoteCache<?, ?> cache) {
+        return (RemoteCache<K, V>) cache;
+    }
 }
@@ -21,6 +21,8 @@
  */
 package org.wildfly.clustering.web.hotrod.session;
 
+import java.util.concurrent.Executor;
+
 import org.infinispan.client.hotrod.RemoteCache;
 import org.wildfly.clustering.marshalling.spi.Marshallability;
 import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration;
@@ -28,4 +30,20 @@ import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration;
 public interface HotRodSessionManagerFactoryConfiguration<C extends Marshallability, L> extends HotRodSessionManagementConfiguration, SessionManagerFactoryConfiguration<C, L> {
 
     <K, V> RemoteCache<K, V> getCache();
+
+    /**
+     * The server-wide service that expires the sessions of all deployments.
+     * @return a shared expiration service, or null, if this session manager factory expires its sessions using a dedicated thread.
+     */
+    default SessionExpirationSchedulerService getExpirationSchedulerService() {
+        return null;
+    }
+
+    /**
+     * The server-wide executor of background tasks, e.g. the pre-generation of session identifiers, or the application of deferred session writes.
+     * @return a shared executor, or null, if this session manager factory uses a bounded pool of threads that time out when idle.
+     */
+    default Executor getExecutor() {
+        return null;
+    }
 }
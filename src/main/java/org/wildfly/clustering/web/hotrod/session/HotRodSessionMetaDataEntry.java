@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.wildfly.clustering.web.cache.session.CompositeSessionMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+
+/**
+ * Session meta data entry that retains the cache keys of its constituent entries,
+ * so that they are created once per lookup and shared by the meta data factory and its mutators.
+ * @author Paul Ferraro
+ */
+public class HotRodSessionMetaDataEntry<L> extends CompositeSessionMetaDataEntry<L> {
+
+    private final SessionCreationMetaDataKey creationMetaDataKey;
+    private final SessionAccessMetaDataKey accessMetaDataKey;
+    private final SessionCreationMetaDataEntry<L> creationMetaDataEntry;
+
+    public HotRodSessionMetaDataEntry(SessionCreationMetaDataKey creationMetaDataKey, SessionCreationMetaDataEntry<L> creationMetaDataEntry, SessionAccessMetaDataKey accessMetaDataKey, SessionAccessMetaData accessMetaData) {
+        this(creationMetaDataKey, creationMetaDataEntry, accessMetaDataKey, accessMetaData, creationMetaDataEntry.getLocalContext());
+    }
+
+    /**
+     * Creates a session meta data entry whose local context is retained independently of its creation meta data entry.
+     */
+    public HotRodSessionMetaDataEntry(SessionCreationMetaDataKey creationMetaDataKey, SessionCreationMetaDataEntry<L> creationMetaDataEntry, SessionAccessMetaDataKey accessMetaDataKey, SessionAccessMetaData accessMetaData, AtomicReference<L> localContext) {
+        super(creationMetaDataEntry.getMetaData(), accessMetaData, localContext);
+        this.creationMetaDataKey = creationMetaDataKey;
+        this.creationMetaDataEntry = creationMetaDataEntry;
+        this.accessMetaDataKey = accessMetaDataKey;
+    }
+
+    public SessionCreationMetaDataKey getCreationMetaDataKey() {
+        return this.creationMetaDataKey;
+    }
+
+    /**
+     * Returns the cache entry from which the creation meta data of this session was read.
+     * @return a creation meta data entry
+     */
+    public SessionCreationMetaDataEntry<L> getCreationMetaDataEntry() {
+        return this.creationMetaDataEntry;
+    }
+
+    public SessionAccessMetaDataKey getAccessMetaDataKey() {
+        return this.accessMetaDataKey;
+    }
+}
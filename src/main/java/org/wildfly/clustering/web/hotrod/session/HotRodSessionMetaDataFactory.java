@@ -29,9 +29,7 @@ import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.cache.CacheProperties;
-import org.wildfly.clustering.ee.hotrod.RemoteCacheEntryMutator;
 import org.wildfly.clustering.web.cache.session.CompositeSessionMetaData;
-import org.wildfly.clustering.web.cache.session.CompositeSessionMetaDataEntry;
 import org.wildfly.clustering.web.cache.session.InvalidatableSessionMetaData;
 import org.wildfly.clustering.web.cache.session.SessionAccessMetaData;
 import org.wildfly.clustering.web.cache.session.SessionCreationMetaData;
@@ -44,66 +42,113 @@ import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
 /**
  * @author Paul Ferraro
  */
-public class HotRodSessionMetaDataFactory<L> implements SessionMetaDataFactory<CompositeSessionMetaDataEntry<L>, L> {
+public class HotRodSessionMetaDataFactory<L> implements SessionMetaDataFactory<HotRodSessionMetaDataEntry<L>, L> {
 
     private final RemoteCache<SessionCreationMetaDataKey, SessionCreationMetaDataEntry<L>> creationMetaDataCache;
     private final RemoteCache<SessionAccessMetaDataKey, SessionAccessMetaData> accessMetaDataCache;
     private final CacheProperties properties;
+    private final SessionCreationBuffer buffer;
+    private final LocalContextRegistry<L> localContexts;
+
+    public HotRodSessionMetaDataFactory(RemoteCache<?, ?> cache, CacheProperties properties, SessionCreationBuffer buffer) {
+        this(cache, properties, buffer, null);
+    }
 
     @SuppressWarnings("unchecked")
-    public HotRodSessionMetaDataFactory(RemoteCache<?, ?> cache, CacheProperties properties) {
+    public HotRodSessionMetaDataFactory(RemoteCache<?, ?> cache, CacheProperties properties, SessionCreationBuffer buffer, LocalContextRegistry<L> localContexts) {
         this.creationMetaDataCache = (RemoteCache<SessionCreationMetaDataKey, SessionCreationMetaDataEntry<L>>) cache;
         this.accessMetaDataCache = (RemoteCache<SessionAccessMetaDataKey, SessionAccessMetaData>) cache;
         this.properties = properties;
+        this.buffer = buffer;
+        this.localContexts = localContexts;
     }
 
     @Override
-    public CompositeSessionMetaDataEntry<L> createValue(String id, Void context) {
+    public HotRodSessionMetaDataEntry<L> createValue(String id, Void context) {
         SessionCreationMetaDataEntry<L> creationMetaDataEntry = new SessionCreationMetaDataEntry<>(new SimpleSessionCreationMetaData());
-        if (this.creationMetaDataCache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(new SessionCreationMetaDataKey(id), creationMetaDataEntry) != null) {
-            return null;
-        }
         SessionAccessMetaData accessMetaData = new SimpleSessionAccessMetaData();
-        this.accessMetaDataCache.put(new SessionAccessMetaDataKey(id), accessMetaData);
-        return new CompositeSessionMetaDataEntry<>(creationMetaDataEntry.getMetaData(), accessMetaData, creationMetaDataEntry.getLocalContext());
+        SessionCreationMetaDataKey creationMetaDataKey = new SessionCreationMetaDataKey(id);
+        SessionAccessMetaDataKey accessMetaDataKey = new SessionAccessMetaDataKey(id);
+        if (this.buffer.isEnabled()) {
+            // Reserve identifier locally - entries are written when the session is first closed
+            if (!this.buffer.reserve(id, creationMetaDataKey, creationMetaDataEntry)) {
+                return null;
+            }
+            this.buffer.buffer(id, accessMetaDataKey, accessMetaData);
+        } else {
+            if (this.creationMetaDataCache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(creationMetaDataKey, creationMetaDataEntry) != null) {
+                return null;
+            }
+            this.accessMetaDataCache.put(accessMetaDataKey, accessMetaData);
+        }
+        if (this.localContexts != null) {
+            return new HotRodSessionMetaDataEntry<>(creationMetaDataKey, creationMetaDataEntry, accessMetaDataKey, accessMetaData, this.localContexts.create(id));
+        }
+        return new HotRodSessionMetaDataEntry<>(creationMetaDataKey, creationMetaDataEntry, accessMetaDataKey, accessMetaData);
     }
 
     @Override
-    public CompositeSessionMetaDataEntry<L> findValue(String id) {
-        SessionCreationMetaDataKey key = new SessionCreationMetaDataKey(id);
-        MetadataValue<SessionCreationMetaDataEntry<L>> value = this.creationMetaDataCache.getWithMetadata(key);
-        SessionCreationMetaDataEntry<L> creationMetaDataEntry = this.creationMetaDataCache.get(key);
-        if (creationMetaDataEntry != null) {
-            SessionAccessMetaData accessMetaData = this.accessMetaDataCache.get(new SessionAccessMetaDataKey(id));
+    public HotRodSessionMetaDataEntry<L> findValue(String id) {
+        SessionCreationMetaDataKey creationMetaDataKey = new SessionCreationMetaDataKey(id);
+        // Version is only needed to purge an orphaned entry, so avoid a second read of the same entry
+        MetadataValue<SessionCreationMetaDataEntry<L>> value = this.creationMetaDataCache.getWithMetadata(creationMetaDataKey);
+        if (value != null) {
+            SessionCreationMetaDataEntry<L> creationMetaDataEntry = value.getValue();
+            SessionAccessMetaDataKey accessMetaDataKey = new SessionAccessMetaDataKey(id);
+            SessionAccessMetaData accessMetaData = this.accessMetaDataCache.get(accessMetaDataKey);
             if (accessMetaData != null) {
-                return new CompositeSessionMetaDataEntry<>(creationMetaDataEntry.getMetaData(), accessMetaData, creationMetaDataEntry.getLocalContext());
+                if (this.localContexts != null) {
+                    return new HotRodSessionMetaDataEntry<>(creationMetaDataKey, creationMetaDataEntry, accessMetaDataKey, accessMetaData, this.localContexts.getLocalContext(id));
+                }
+                return new HotRodSessionMetaDataEntry<>(creationMetaDataKey, creationMetaDataEntry, accessMetaDataKey, accessMetaData);
             }
-            this.creationMetaDataCache.removeWithVersion(key, value.getVersion());
+            this.creationMetaDataCache.removeWithVersion(creationMetaDataKey, value.getVersion());
+        }
+        if (this.localContexts != null) {
+            this.localContexts.remove(id);
         }
         return null;
     }
 
+    /**
+     * Reads the meta data of the specified session without side effects, i.e. without registering a local context, and without purging a creation meta data entry whose access meta data is missing.
+     * Such a creation meta data entry may belong to a session whose creation is in progress on another node, between the writes of its creation and access meta data.
+     * @param id a session identifier
+     * @return the meta data of the session, or null, if the session does not exist, or is not yet fully written
+     */
+    public ImmutableSessionMetaData findImmutableSessionMetaData(String id) {
+        SessionCreationMetaDataEntry<L> creationMetaDataEntry = this.creationMetaDataCache.get(new SessionCreationMetaDataKey(id));
+        if (creationMetaDataEntry == null) return null;
+        SessionAccessMetaData accessMetaData = this.accessMetaDataCache.get(new SessionAccessMetaDataKey(id));
+        return (accessMetaData != null) ? new CompositeSessionMetaData(creationMetaDataEntry.getMetaData(), accessMetaData) : null;
+    }
+
     @Override
-    public InvalidatableSessionMetaData createSessionMetaData(String id, CompositeSessionMetaDataEntry<L> entry) {
-        SessionCreationMetaDataKey creationMetaDataKey = new SessionCreationMetaDataKey(id);
+    public InvalidatableSessionMetaData createSessionMetaData(String id, HotRodSessionMetaDataEntry<L> entry) {
+        // Buffered entries of a new session are retained by reference, thus need not be mutated
+        boolean reserved = this.buffer.isReserved(id);
         boolean created = entry.getAccessMetaData().getLastAccessedDuration() == Duration.ZERO;
-        Mutator creationMutator = this.properties.isTransactional() && created ? Mutator.PASSIVE : new RemoteCacheEntryMutator<>(this.creationMetaDataCache, creationMetaDataKey, new SessionCreationMetaDataEntry<>(entry.getCreationMetaData(), entry.getLocalContext()));
+        Mutator creationMutator = reserved || (this.properties.isTransactional() && created) ? Mutator.PASSIVE : new DeferrableMutator<>(this.creationMetaDataCache, entry.getCreationMetaDataKey(), entry.getCreationMetaDataEntry());
         SessionCreationMetaData creationMetaData = new MutableSessionCreationMetaData(entry.getCreationMetaData(), creationMutator);
 
-        SessionAccessMetaDataKey accessMetaDataKey = new SessionAccessMetaDataKey(id);
-        Mutator accessMutator = this.properties.isTransactional() && created ? Mutator.PASSIVE : new RemoteCacheEntryMutator<>(this.accessMetaDataCache, accessMetaDataKey, entry.getAccessMetaData());
+        Mutator accessMutator = reserved || (this.properties.isTransactional() && created) ? Mutator.PASSIVE : new DeferrableMutator<>(this.accessMetaDataCache, entry.getAccessMetaDataKey(), entry.getAccessMetaData());
         SessionAccessMetaData accessMetaData = new MutableSessionAccessMetaData(entry.getAccessMetaData(), accessMutator);
 
         return new CompositeSessionMetaData(creationMetaData, accessMetaData);
     }
 
     @Override
-    public ImmutableSessionMetaData createImmutableSessionMetaData(String id, CompositeSessionMetaDataEntry<L> entry) {
+    public ImmutableSessionMetaData createImmutableSessionMetaData(String id, HotRodSessionMetaDataEntry<L> entry) {
         return new CompositeSessionMetaData(entry.getCreationMetaData(), entry.getAccessMetaData());
     }
 
     @Override
     public boolean remove(String id) {
+        if (this.localContexts != null) {
+            this.localContexts.remove(id);
+        }
+        // A session that was never written need not be removed
+        if (this.buffer.isReserved(id)) return true;
         SessionCreationMetaDataKey key = new SessionCreationMetaDataKey(id);
         SessionCreationMetaDataEntry<L> creationMetaData = this.creationMetaDataCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(key);
         if (creationMetaData == null) return false;
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.wildfly.clustering.web.IdentifierFactory;
+import org.wildfly.clustering.web.hotrod.KeyOwnerLocator;
+import org.wildfly.clustering.web.hotrod.Logger;
+
+/**
+ * Identifier factory decorator that generates session identifiers whose creation meta data key is owned by a preferred server.
+ * Identifiers are pre-generated in the background, such that {@link #createIdentifier()} never blocks.
+ * If no pre-generated identifier is available, e.g. if the client has not yet received a topology, an arbitrary identifier is returned.
+ * The pool of pre-generated identifiers is refilled on demand, via a shared executor, whenever it falls below a low-water mark, or whenever the topology of the remote cache changes,
+ * in which case pre-generated identifiers are discarded.
+ * If an attempt to fill the pool yields no identifiers, e.g. if no preferred server owns any segments, subsequent attempts back off exponentially.
+ * @author Paul Ferraro
+ */
+public class KeyAffinityIdentifierFactory implements IdentifierFactory<String> {
+
+    public static final int DEFAULT_POOL_SIZE = 100;
+    // Limits the number of identifiers generated per attempt to fill the pool, in case a preferred server owns few or no segments
+    private static final int MAX_ATTEMPTS_PER_IDENTIFIER = 64;
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final IdentifierFactory<String> factory;
+    private final KeyOwnerLocator locator;
+    private final Predicate<SocketAddress> preferred;
+    private final Executor executor;
+    private final BlockingQueue<String> identifiers;
+    private final int poolSize;
+    private final int lowWaterMark;
+    private final AtomicBoolean filling = new AtomicBoolean();
+
+    private volatile boolean started = false;
+    private volatile ConsistentHash hash;
+    // The time before which the pool will not be refilled, following an attempt that yielded no identifiers
+    private volatile long retryTime = System.nanoTime();
+    // Only accessed while filling
+    private long backoff = 0;
+
+    public KeyAffinityIdentifierFactory(IdentifierFactory<String> factory, RemoteCache<?, ?> cache, Predicate<SocketAddress> preferred, Executor executor) {
+        this(factory, cache, preferred, executor, DEFAULT_POOL_SIZE);
+    }
+
+    public KeyAffinityIdentifierFactory(IdentifierFactory<String> factory, RemoteCache<?, ?> cache, Predicate<SocketAddress> preferred, Executor executor, int poolSize) {
+        this.factory = factory;
+        this.locator = new KeyOwnerLocator(cache);
+        this.preferred = preferred;
+        this.executor = executor;
+        this.poolSize = poolSize;
+        this.lowWaterMark = Math.max(poolSize / 2, 1);
+        this.identifiers = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public String createIdentifier() {
+        String id = this.identifiers.poll();
+        this.refill();
+        return (id != null) ? id : this.factory.createIdentifier();
+    }
+
+    @Override
+    public void start() {
+        this.factory.start();
+        this.started = true;
+        this.refill();
+    }
+
+    @Override
+    public void stop() {
+        this.started = false;
+        this.identifiers.clear();
+        this.factory.stop();
+    }
+
+    // Submits a fill of the pool, if it fell below its low-water mark, or if the topology changed
+    private void refill() {
+        if (!this.started) return;
+        if ((this.identifiers.size() >= this.lowWaterMark) && (this.locator.getConsistentHash() == this.hash)) return;
+        // Back off following an unproductive attempt
+        if (System.nanoTime() - this.retryTime < 0) return;
+        if (this.filling.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                this.filling.set(false);
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            if (!this.started) return;
+            boolean filled = false;
+            try {
+                filled = this.fill();
+            } catch (RuntimeException e) {
+                Logger.ROOT_LOGGER.failedToGenerateIdentifiers(e);
+            }
+            this.backoff = filled ? 0 : Math.min(Math.max(this.backoff * 2, MIN_BACKOFF_NANOS), MAX_BACKOFF_NANOS);
+            this.retryTime = System.nanoTime() + this.backoff;
+        } finally {
+            this.filling.set(false);
+        }
+    }
+
+    /**
+     * Tops up the pool of pre-generated identifiers.
+     * @return true, if the pool is full or gained identifiers, false otherwise
+     */
+    boolean fill() {
+        ConsistentHash hash = this.locator.getConsistentHash();
+        if (hash == null) return false;
+        if (hash != this.hash) {
+            // Topology changed, so pre-generated identifiers may no longer be owned by a preferred server
+            this.identifiers.clear();
+            this.hash = hash;
+        }
+        if (this.identifiers.remainingCapacity() == 0) return true;
+        boolean filled = false;
+        int attempts = this.poolSize * MAX_ATTEMPTS_PER_IDENTIFIER;
+        while ((this.identifiers.remainingCapacity() > 0) && (attempts-- > 0) && !Thread.currentThread().isInterrupted()) {
+            String id = this.factory.createIdentifier();
+            SocketAddress owner = hash.getServer(this.locator.marshal(new SessionCreationMetaDataKey(id)));
+            if ((owner != null) && this.preferred.test(owner)) {
+                filled |= this.identifiers.offer(id);
+            }
+        }
+        return filled;
+    }
+}
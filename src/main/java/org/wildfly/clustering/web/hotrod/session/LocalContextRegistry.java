@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded node-local registry of the local context of each session, such that the local context of a session survives between requests handled by this node.
+ * Otherwise, the local context of a session would be recreated each time its creation meta data is read from the remote cache.
+ * The local context of a session is evicted when the session is removed, when it is no longer found, or when the registry exceeds its capacity, in order of least recent use.
+ * To avoid contention between concurrent requests, the registry is striped into independently locked segments, each of which evicts in order of least recent use within that segment.
+ * @author Paul Ferraro
+ */
+public class LocalContextRegistry<L> {
+
+    static final int DEFAULT_CONCURRENCY = 16;
+
+    private final Map<String, AtomicReference<L>>[] segments;
+
+    public LocalContextRegistry(int capacity) {
+        this(capacity, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Creates a registry whose capacity is divided among a number of segments.
+     * @param capacity the maximum number of local contexts
+     * @param concurrency the anticipated number of concurrent accessors, rounded up to a power of 2 and bounded by the capacity
+     */
+    @SuppressWarnings("unchecked")
+    public LocalContextRegistry(int capacity, int concurrency) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, capacity)));
+        if (count < Math.min(concurrency, capacity)) {
+            count <<= 1;
+            // Ensure that every segment can hold at least one entry
+            if (count > capacity) {
+                count >>>= 1;
+            }
+        }
+        this.segments = new Map[count];
+        for (int i = 0; i < count; ++i) {
+            // Distribute the remainder, such that the segment capacities sum to the total capacity
+            int segmentCapacity = (capacity / count) + ((i < (capacity % count)) ? 1 : 0);
+            this.segments[i] = new LinkedHashMap<String, AtomicReference<L>>(16, 0.75f, true) {
+                private static final long serialVersionUID = -2781283009138372286L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AtomicReference<L>> eldest) {
+                    return this.size() > segmentCapacity;
+                }
+            };
+        }
+    }
+
+    private Map<String, AtomicReference<L>> segment(String id) {
+        int hash = id.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+    }
+
+    /**
+     * Registers an empty local context for a newly created session, replacing any local context previously registered for the same identifier.
+     * @param id a session identifier
+     * @return the local context of the session
+     */
+    public AtomicReference<L> create(String id) {
+        AtomicReference<L> context = new AtomicReference<>();
+        Map<String, AtomicReference<L>> segment = this.segment(id);
+        synchronized (segment) {
+            segment.put(id, context);
+        }
+        return context;
+    }
+
+    /**
+     * Returns the local context of an existing session, registering an empty local context if none exists.
+     * @param id a session identifier
+     * @return the local context of the session
+     */
+    public AtomicReference<L> getLocalContext(String id) {
+        Map<String, AtomicReference<L>> segment = this.segment(id);
+        synchronized (segment) {
+            return segment.computeIfAbsent(id, key -> new AtomicReference<>());
+        }
+    }
+
+    /**
+     * Evicts the local context of a session.
+     * @param id a session identifier
+     */
+    public void remove(String id) {
+        Map<String, AtomicReference<L>> segment = this.segment(id);
+        synchronized (segment) {
+            segment.remove(id);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicReference<L>> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.metrics.SessionMetrics;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperation;
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationMeasurement;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+
+/**
+ * {@link SessionAttributesFactory} decorator that measures the activation, i.e. retrieval and deserialization, of session attributes.
+ * @author Paul Ferraro
+ */
+public class MeasuredSessionAttributesFactory<V> implements SessionAttributesFactory<V> {
+
+    private final SessionAttributesFactory<V> factory;
+    private final SessionMetrics metrics;
+
+    public MeasuredSessionAttributesFactory(SessionAttributesFactory<V> factory, SessionMetrics metrics) {
+        this.factory = factory;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public V createValue(String id, Void context) {
+        return this.factory.createValue(id, context);
+    }
+
+    @Override
+    public V findValue(String id) {
+        if (!this.metrics.isEnabled(SessionOperation.ACTIVATE)) {
+            return this.factory.findValue(id);
+        }
+        SessionOperationMeasurement measurement = SessionOperationMeasurement.start(this.metrics);
+        V value = null;
+        try {
+            value = this.factory.findValue(id);
+            return value;
+        } finally {
+            measurement.stop(SessionOperation.ACTIVATE, id, (value != null) ? this.factory.createImmutableSessionAttributes(id, value).getAttributeNames().size() : -1);
+        }
+    }
+
+    @Override
+    public V tryValue(String id) {
+        return this.factory.tryValue(id);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return this.factory.remove(id);
+    }
+
+    @Override
+    public boolean purge(String id) {
+        return this.factory.purge(id);
+    }
+
+    @Override
+    public SessionAttributes createSessionAttributes(String id, V value) {
+        return this.factory.createSessionAttributes(id, value);
+    }
+
+    @Override
+    public ImmutableSessionAttributes createImmutableSessionAttributes(String id, V value) {
+        return this.factory.createImmutableSessionAttributes(id, value);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.net.SocketAddress;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.infinispan.client.hotrod.CacheTopologyInfo;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.CloseableIterator;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.web.hotrod.KeyOwnerLocator;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Periodically scans the remote cache for sessions and schedules their expiration, such that sessions whose expiration was scheduled by a node that has since crashed or was redeployed are eventually expired.
+ * Each node claims those sessions whose creation meta data entry is owned by a preferred server.
+ * If no servers are preferred, sessions are partitioned amongst the live members of the group of nodes by the hash of their identifier, such that each session is claimed by a single node.
+ * Sessions whose expiration is already scheduled by this node are skipped.
+ * Session meta data is read without side effects, such that a scan never interferes with sessions created concurrently by other nodes, nor with the local contexts of this node.
+ * The segments of the remote cache are retrieved in parallel, one task per server, and the rate at which entries are retrieved is throttled.
+ * @author Paul Ferraro
+ */
+public class OrphanedSessionScanner {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    private static final int BATCH_SIZE = 100;
+
+    private final RemoteCache<?, ?> cache;
+    private final KeyOwnerLocator locator;
+    private final Predicate<SocketAddress> preferred;
+    private final Group group;
+    private final Function<String, ImmutableSessionMetaData> reader;
+    private final Scheduler scheduler;
+    private final Duration interval;
+    private final int rate;
+    private final String keyConverterFactory;
+    private final int parallelism;
+
+    private volatile ScheduledExecutorService timer;
+    private volatile ExecutorService workers;
+
+    /**
+     * Creates an orphaned session scanner.
+     * @param cache the remote cache of the session manager
+     * @param preferred a predicate matching preferred servers, or null, if sessions are partitioned amongst the members of the group
+     * @param group the group of nodes sharing the remote cache, or null, if all sessions are claimed
+     * @param reader a side effect free reader of the meta data of a session, returning null if the session does not exist
+     * @param scheduler the expiration scheduler of the session manager
+     * @param interval the delay between consecutive scans
+     * @param rate the maximum number of entries retrieved per second
+     * @param keyConverterFactory the name of a server-side filter converter factory that discards entry values, or null, if entries are retrieved in full
+     * @param parallelism the maximum number of servers whose segments are retrieved concurrently
+     */
+    public OrphanedSessionScanner(RemoteCache<?, ?> cache, Predicate<SocketAddress> preferred, Group group, Function<String, ImmutableSessionMetaData> reader, Scheduler scheduler, Duration interval, int rate, String keyConverterFactory, int parallelism) {
+        this.cache = cache;
+        this.locator = new KeyOwnerLocator(cache);
+        this.preferred = preferred;
+        this.group = group;
+        this.reader = reader;
+        this.scheduler = scheduler;
+        this.interval = interval;
+        this.rate = rate;
+        this.keyConverterFactory = keyConverterFactory;
+        this.parallelism = parallelism;
+    }
+
+    public void start() {
+        ThreadFactory factory = createThreadFactory();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, factory);
+        this.timer = Executors.newSingleThreadScheduledExecutor(factory);
+        this.timer.scheduleWithFixedDelay(() -> this.scan(this.workers), 0, this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        PrivilegedAction<Void> shutdownAction = () -> {
+            this.timer.shutdownNow();
+            this.workers.shutdownNow();
+            return null;
+        };
+        WildFlySecurityManager.doUnchecked(shutdownAction);
+    }
+
+    /**
+     * Schedules the expiration of all claimed sessions.
+     * @param workers the executor of the retrieval of each partition of segments
+     */
+    void scan(ExecutorService workers) {
+        Predicate<String> partition = this.partition();
+        if (partition == null) return;
+        CacheTopologyInfo topology = this.cache.getCacheTopologyInfo();
+        // Assign each segment to a single server, so that no segment is retrieved twice
+        Set<Integer> assigned = new HashSet<>();
+        List<Set<Integer>> partitions = new ArrayList<>();
+        for (Map.Entry<SocketAddress, Set<Integer>> entry : topology.getSegmentsPerServer().entrySet()) {
+            if ((this.preferred == null) || this.preferred.test(entry.getKey())) {
+                Set<Integer> segments = new HashSet<>(entry.getValue());
+                segments.removeAll(assigned);
+                if (!segments.isEmpty()) {
+                    assigned.addAll(segments);
+                    partitions.add(segments);
+                }
+            }
+        }
+        if (partitions.isEmpty()) return;
+        // Divide the rate evenly amongst concurrent retrievals
+        int rate = Math.max(this.rate / Math.min(partitions.size(), this.parallelism), 1);
+        List<Future<Integer>> futures = new ArrayList<>(partitions.size());
+        for (Set<Integer> segments : partitions) {
+            futures.add(workers.submit(() -> this.scan(segments, partition, rate)));
+        }
+        int scheduled = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                scheduled += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                return;
+            } catch (ExecutionException e) {
+                Logger.ROOT_LOGGER.debug(e.getLocalizedMessage(), e.getCause());
+            }
+        }
+        Logger.ROOT_LOGGER.debugf("Scheduled expiration of %d sessions", scheduled);
+    }
+
+    private int scan(Set<Integer> segments, Predicate<String> partition, int rate) {
+        int retrieved = 0;
+        int scheduled = 0;
+        long start = System.nanoTime();
+        try (CloseableIterator<Map.Entry<Object, Object>> entries = this.cache.retrieveEntries(this.keyConverterFactory, segments, BATCH_SIZE)) {
+            while (entries.hasNext() && !Thread.currentThread().isInterrupted()) {
+                Object key = entries.next().getKey();
+                retrieved += 1;
+                if (key instanceof SessionCreationMetaDataKey) {
+                    String id = ((SessionCreationMetaDataKey) key).getId();
+                    // Skip sessions whose expiration is already scheduled by this node
+                    if (partition.test(id) && this.isClaimed(key) && !this.scheduler.isScheduled(id)) {
+                        ImmutableSessionMetaData metaData = this.reader.apply(id);
+                        if (metaData != null) {
+                            this.scheduler.schedule(id, metaData);
+                            scheduled += 1;
+                        }
+                    }
+                }
+                // Throttle the iteration itself to the specified rate, such that subsequent batches are requested no sooner than necessary
+                long delay = TimeUnit.SECONDS.toNanos(retrieved) / rate - (System.nanoTime() - start);
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return scheduled;
+    }
+
+    /**
+     * Returns the predicate matching the identifiers of sessions claimed by this node, according to the current membership of its group.
+     * @return a predicate matching session identifiers, or null, if this node is not a member of its group
+     */
+    private Predicate<String> partition() {
+        // Sessions claimed via preferred servers are already partitioned by owner
+        if ((this.preferred != null) || (this.group == null)) return id -> true;
+        // All members observe the same membership, so each session is claimed by a single member
+        List<Node> members = this.group.getMembership().getMembers();
+        int index = members.indexOf(this.group.getLocalMember());
+        if (index < 0) return null;
+        int size = members.size();
+        return id -> Math.floorMod(id.hashCode(), size) == index;
+    }
+
+    private boolean isClaimed(Object key) {
+        if (this.preferred == null) return true;
+        // A segment may be retrieved from a backup owner, so verify that the primary owner is preferred
+        SocketAddress owner = this.locator.getOwner(key);
+        return (owner == null) || this.preferred.test(owner);
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return AccessController.doPrivileged(new PrivilegedAction<ThreadFactory>() {
+            @Override
+            public ThreadFactory run() {
+                return new JBossThreadFactory(new ThreadGroup(OrphanedSessionScanner.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
+            }
+        });
+    }
+}
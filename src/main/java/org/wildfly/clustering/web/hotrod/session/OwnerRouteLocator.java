@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.net.SocketAddress;
+import java.util.function.Function;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.web.hotrod.KeyOwnerLocator;
+import org.wildfly.clustering.web.session.RouteLocator;
+
+/**
+ * Route locator that routes a session to the web node associated with the server owning its creation meta data entry.
+ * The association between servers and routes is pluggable, e.g. a map of co-located or otherwise preferred web nodes.
+ * If the owner is unknown, or not associated with a route, the session is routed to this node.
+ * @author Paul Ferraro
+ */
+public class OwnerRouteLocator implements RouteLocator {
+
+    private final KeyOwnerLocator locator;
+    private final Function<SocketAddress, String> routes;
+    private final String localRoute;
+
+    /**
+     * Creates a route locator.
+     * @param cache the remote cache of the session manager
+     * @param routes a mapping from server address to route, returning null for servers without a route
+     * @param localRoute the route of this node
+     */
+    public OwnerRouteLocator(RemoteCache<?, ?> cache, Function<SocketAddress, String> routes, String localRoute) {
+        this.locator = new KeyOwnerLocator(cache);
+        this.routes = routes;
+        this.localRoute = localRoute;
+    }
+
+    @Override
+    public String locate(String sessionId) {
+        SocketAddress owner = this.locator.getOwner(new SessionCreationMetaDataKey(sessionId));
+        String route = (owner != null) ? this.routes.apply(owner) : null;
+        return (route != null) ? route : this.localRoute;
+    }
+}
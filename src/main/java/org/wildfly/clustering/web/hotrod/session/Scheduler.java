@@ -35,6 +35,13 @@ public interface Scheduler extends AutoCloseable {
      */
     void schedule(String sessionId, ImmutableSessionMetaData metaData);
 
+    /**
+     * Indicates whether a task is currently scheduled for the specified session.
+     * @param sessionId the web session identifier
+     * @return true, if a task is scheduled for the specified session, false otherwise
+     */
+    boolean isScheduled(String sessionId);
+
     /**
      * Cancels a previously scheduled task for the specified session
      * @param sessionId the web session identifier
@@ -34,6 +34,6 @@ import org.wildfly.clustering.web.hotrod.SessionKeyExternalizer;
 public class SessionAccessMetaDataKeyExternalizer extends SessionKeyExternalizer<SessionAccessMetaDataKey> {
 
     public SessionAccessMetaDataKeyExternalizer() {
-        super(SessionAccessMetaDataKey.class, SessionAccessMetaDataKey::new);
+        super(2, SessionAccessMetaDataKey.class, SessionAccessMetaDataKey::new);
     }
 }
@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.web.hotrod.Logger;
+
+/**
+ * Buffers the cache entries of newly created sessions until the session is first closed.
+ * The identifier of a new session is reserved locally when the session is created, after verifying that no session with that identifier exists.
+ * When the session is first closed, its creation meta data entry is written via {@link RemoteCache#putIfAbsent(Object, Object)},
+ * guarding against identifier collisions, followed by its remaining entries via a single {@link RemoteCache#putAll(Map)}, and any buffered mutators.
+ * A reservation is only released when its session is closed or invalidated, since its buffered entries are the only copy of the session.
+ * Reservations of sessions that are not closed within a timeout, e.g. by a long running request, are logged, but retained.
+ * Since buffered entries are retained by reference, any changes made to them by the request creating the session are written on close.
+ * If the writes of the session are captured by a {@link SessionWriteBehindQueue}, buffered entries are marshalled on flush, and their write deferred.
+ * N.B. Attributes of sessions using FINE granularity are still written as they are set.
+ * @author Paul Ferraro
+ */
+public class SessionCreationBuffer {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    private final RemoteCache<Object, Object> cache;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    // Reservations in order of creation, thus also in order of age
+    private final Queue<Reservation> queue = new ConcurrentLinkedQueue<>();
+
+    public SessionCreationBuffer(RemoteCache<Object, Object> cache, boolean enabled) {
+        this(cache, enabled, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Creates a session creation buffer.
+     * @param cache a remote cache
+     * @param enabled indicates whether session creation is deferred
+     * @param timeout the duration after which the reservation of a session that was not yet closed is logged
+     */
+    public SessionCreationBuffer(RemoteCache<Object, Object> cache, boolean enabled, Duration timeout) {
+        this.cache = cache;
+        this.enabled = enabled;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Indicates whether the creation of sessions is deferred.
+     * @return true, if session creation is deferred, false otherwise.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Reserves the specified session identifier, retaining the specified cache entry, whose absence will be verified on {@link #flush(String)}.
+     * @param id a session identifier
+     * @param key the cache key of the session creation meta data
+     * @param value the session creation meta data
+     * @return true, if the identifier was reserved, false if it was already reserved, or is already used by an existing session.
+     */
+    public boolean reserve(String id, Object key, Object value) {
+        this.audit();
+        // Detect collisions while the session can still be created with a different identifier
+        if (this.cache.containsKey(key)) return false;
+        Reservation reservation = new Reservation(id, key, value);
+        if (this.reservations.putIfAbsent(id, reservation) != null) return false;
+        this.queue.add(reservation);
+        return true;
+    }
+
+    // Dequeues reservations that were already flushed or cancelled, and logs reservations older than the timeout.
+    // Reservations of sessions that are still open are never discarded, otherwise the session would never be written.
+    private void audit() {
+        long now = System.nanoTime();
+        Reservation reservation = this.queue.peek();
+        while (reservation != null) {
+            String id = reservation.getId();
+            if (this.reservations.get(id) == reservation) {
+                if (now - reservation.getCreated() <= this.timeout.toNanos()) return;
+                // Overdue reservation remains reserved until its session is closed or invalidated, but is no longer audited
+                Logger.ROOT_LOGGER.sessionReservationOverdue(id, this.timeout);
+            }
+            this.queue.remove(reservation);
+            reservation = this.queue.peek();
+        }
+    }
+
+    /**
+     * Indicates whether the specified session identifier is reserved, i.e. whether the session was created, but not yet written.
+     * @param id a session identifier
+     * @return true, if the specified session is reserved, false otherwise.
+     */
+    public boolean isReserved(String id) {
+        return this.reservations.containsKey(id);
+    }
+
+    /**
+     * Buffers the specified cache entry of the specified session, if the session is reserved.
+     * @param id a session identifier
+     * @param key a cache key
+     * @param value a cache value
+     * @return true, if the entry was buffered, false if the session is not reserved and should be written directly.
+     */
+    public boolean buffer(String id, Object key, Object value) {
+        Reservation reservation = this.reservations.get(id);
+        if (reservation == null) return false;
+        reservation.getEntries().put(key, value);
+        return true;
+    }
+
+    /**
+     * Buffers the specified mutator of the specified session, if the session is reserved.
+     * Used for entries that cannot be written via {@link RemoteCache#putAll(Map)}, e.g. chunked entries.
+     * @param id a session identifier
+     * @param mutator a mutator to execute when the session is flushed
+     * @return true, if the mutator was buffered, false if the session is not reserved and the mutation should be applied directly.
+     */
+    public boolean buffer(String id, Mutator mutator) {
+        Reservation reservation = this.reservations.get(id);
+        if (reservation == null) return false;
+        reservation.getMutators().add(mutator);
+        return true;
+    }
+
+    /**
+     * Releases the reservation of the specified session identifier, discarding any buffered entries.
+     * @param id a session identifier
+     */
+    public void cancel(String id) {
+        this.reservations.remove(id);
+    }
+
+    /**
+     * Writes the buffered entries of the specified session, if reserved.
+     * @param id a session identifier
+     * @throws IllegalStateException if the identifier of the session collided with that of a session created concurrently since its reservation
+     */
+    public void flush(String id) {
+        Reservation reservation = this.reservations.remove(id);
+        if (reservation == null) return;
+        if (SessionWriteBehindQueue.isCapturing()) {
+            // Marshal buffered entries now, since they are retained by reference and may change before the deferred write is applied
+            Object value = SessionWriteBehindQueue.snapshot(this.cache, reservation.getKey(), reservation.getValue());
+            Map<Object, Object> entries = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : reservation.getEntries().entrySet()) {
+                entries.put(entry.getKey(), SessionWriteBehindQueue.snapshot(this.cache, entry.getKey(), entry.getValue()));
+            }
+            Map<Object, Runnable> writes = SessionWriteBehindQueue.capture(() -> reservation.getMutators().forEach(Mutator::mutate));
+            SessionWriteBehindQueue.defer(reservation, () -> this.write(id, reservation.getKey(), value, entries, () -> writes.values().forEach(Runnable::run)));
+        } else {
+            this.write(id, reservation.getKey(), reservation.getValue(), reservation.getEntries(), () -> reservation.getMutators().forEach(Mutator::mutate));
+        }
+    }
+
+    private void write(String id, Object key, Object value, Map<Object, Object> entries, Runnable mutations) {
+        if (this.cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value) != null) {
+            throw Logger.ROOT_LOGGER.sessionIdentifierCollision(id);
+        }
+        if (!entries.isEmpty()) {
+            this.cache.putAll(entries);
+        }
+        mutations.run();
+    }
+
+    private static class Reservation {
+        private final String id;
+        private final Object key;
+        private final Object value;
+        private final long created = System.nanoTime();
+        private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+        private final List<Mutator> mutators = new CopyOnWriteArrayList<>();
+
+        Reservation(String id, Object key, Object value) {
+            this.id = id;
+            this.key = key;
+            this.value = value;
+        }
+
+        String getId() {
+            return this.id;
+        }
+
+        long getCreated() {
+            return this.created;
+        }
+
+        Object getKey() {
+            return this.key;
+        }
+
+        Object getValue() {
+            return this.value;
+        }
+
+        Map<Object, Object> getEntries() {
+            return this.entries;
+        }
+
+        List<Mutator> getMutators() {
+            return this.mutators;
+        }
+    }
+}
@@ -33,6 +33,6 @@ import org.wildfly.clustering.web.hotrod.SessionKeyExternalizer;
 public class SessionCreationMetaDataKeyExternalizer extends SessionKeyExternalizer<SessionCreationMetaDataKey> {
 
     public SessionCreationMetaDataKeyExternalizer() {
-        super(SessionCreationMetaDataKey.class, SessionCreationMetaDataKey::new);
+        super(1, SessionCreationMetaDataKey.class, SessionCreationMetaDataKey::new);
     }
 }
@@ -84,6 +84,11 @@ public class SessionExpirationScheduler implements Scheduler {
         }
     }
 
+    @Override
+    public boolean isScheduled(String sessionId) {
+        return this.expirationFutures.containsKey(sessionId);
+    }
+
     @Override
     public void schedule(String sessionId, ImmutableSessionMetaData metaData) {
         Duration maxInactiveInterval = metaData.getMaxInactiveInterval();
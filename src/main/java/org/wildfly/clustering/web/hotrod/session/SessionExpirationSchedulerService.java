@@ -0,0 +1,254 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.clustering.ee.Remover;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Server-wide session expiration service, shared by the session manager factories of all deployments.
+ * A single timer thread tracks the expiration of all sessions, while expired sessions are removed by a bounded pool of worker threads.
+ * The expired sessions of each deployment are removed in batches, each of which is resubmitted to the back of the worker queue,
+ * such that a deployment with many expired sessions cannot starve the expiration of sessions of other deployments.
+ * @author Paul Ferraro
+ */
+public class SessionExpirationSchedulerService implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 16;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    /**
+     * Creates a session expiration service.
+     * @param workers the maximum number of threads removing expired sessions
+     */
+    public SessionExpirationSchedulerService(int workers) {
+        this(createScheduledExecutor(createThreadFactory()), createWorkerExecutor(workers, createThreadFactory()));
+    }
+
+    public SessionExpirationSchedulerService(ScheduledExecutorService timer, ExecutorService workers) {
+        this.timer = timer;
+        this.workers = workers;
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return AccessController.doPrivileged(new PrivilegedAction<ThreadFactory>() {
+            @Override
+            public ThreadFactory run() {
+                return new JBossThreadFactory(new ThreadGroup(SessionExpirationSchedulerService.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null);
+            }
+        });
+    }
+
+    private static ScheduledExecutorService createScheduledExecutor(ThreadFactory factory) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, factory);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    private static ExecutorService createWorkerExecutor(int workers, ThreadFactory factory) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        // Workers are only needed while sessions are expiring
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates the expiration scheduler of a single deployment.
+     * Closing the returned scheduler cancels the expiration of the sessions of that deployment only.
+     * @param remover the remover of expired sessions of the deployment
+     * @return a session expiration scheduler
+     */
+    public Scheduler createScheduler(Remover<String> remover) {
+        return new DeploymentScheduler(remover, this.timer, this.workers);
+    }
+
+    @Override
+    public void close() {
+        PrivilegedAction<Void> shutdownAction = () -> {
+            this.timer.shutdown();
+            this.workers.shutdown();
+            return null;
+        };
+        WildFlySecurityManager.doUnchecked(shutdownAction);
+    }
+
+    private static class DeploymentScheduler implements Scheduler {
+        private final Map<String, Expiration> expirations = new ConcurrentHashMap<>();
+        private final Queue<Expiration> expired = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Remover<String> remover;
+        private final ScheduledExecutorService timer;
+        private final Executor workers;
+        private volatile boolean closed = false;
+
+        DeploymentScheduler(Remover<String> remover, ScheduledExecutorService timer, Executor workers) {
+            this.remover = remover;
+            this.timer = timer;
+            this.workers = workers;
+        }
+
+        @Override
+        public void schedule(String sessionId, ImmutableSessionMetaData metaData) {
+            Duration maxInactiveInterval = metaData.getMaxInactiveInterval();
+            if (!maxInactiveInterval.isZero() && !this.closed) {
+                Instant lastAccessed = metaData.getLastAccessedTime();
+                Duration delay = Duration.between(Instant.now(), lastAccessed.plus(maxInactiveInterval));
+                long seconds = !delay.isNegative() ? delay.getSeconds() + 1 : 0;
+                Logger.ROOT_LOGGER.tracef("Session %s will expire in %d sec", sessionId, seconds);
+                Expiration expiration = new Expiration(sessionId);
+                Expiration previous = this.expirations.put(sessionId, expiration);
+                // Cancel any previously scheduled expiration, so that rescheduling does not leak timer tasks
+                if (previous != null) {
+                    previous.cancel();
+                }
+                try {
+                    expiration.setFuture(this.timer.schedule(expiration, seconds, TimeUnit.SECONDS));
+                } catch (RejectedExecutionException e) {
+                    // Service was shutdown
+                    this.expirations.remove(sessionId, expiration);
+                }
+            }
+        }
+
+        @Override
+        public boolean isScheduled(String sessionId) {
+            return this.expirations.containsKey(sessionId);
+        }
+
+        @Override
+        public void cancel(String sessionId) {
+            Expiration expiration = this.expirations.remove(sessionId);
+            if (expiration != null) {
+                expiration.cancel();
+            }
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            this.expirations.values().forEach(Expiration::cancel);
+            // Wait for any in-progress batch to complete
+            synchronized (this) {
+                this.expirations.clear();
+                this.expired.clear();
+            }
+        }
+
+        void expire(Expiration expiration) {
+            this.expired.add(expiration);
+            this.submit();
+        }
+
+        private void submit() {
+            if (!this.closed && this.draining.compareAndSet(false, true)) {
+                try {
+                    this.workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Service was shutdown
+                    this.draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                synchronized (this) {
+                    for (int i = 0; (i < BATCH_SIZE) && !this.closed; ++i) {
+                        Expiration expiration = this.expired.poll();
+                        if (expiration == null) break;
+                        String id = expiration.getId();
+                        // Skip sessions whose expiration was cancelled or rescheduled since it was enqueued
+                        if (this.expirations.remove(id, expiration)) {
+                            try {
+                                this.remover.remove(id);
+                            } catch (RuntimeException e) {
+                                Logger.ROOT_LOGGER.failedToExpireSession(e, id);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                this.draining.set(false);
+            }
+            // Resubmit remaining expirations to the back of the worker queue, behind the batches of other deployments
+            if (!this.expired.isEmpty()) {
+                this.submit();
+            }
+        }
+
+        private class Expiration implements Runnable {
+            private final String id;
+            private volatile Future<?> future;
+
+            Expiration(String id) {
+                this.id = id;
+            }
+
+            String getId() {
+                return this.id;
+            }
+
+            void setFuture(Future<?> future) {
+                this.future = future;
+            }
+
+            void cancel() {
+                Future<?> future = this.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+
+            @Override
+            public void run() {
+                DeploymentScheduler.this.expire(this);
+            }
+        }
+    }
+}
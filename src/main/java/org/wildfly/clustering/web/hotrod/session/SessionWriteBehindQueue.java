@@ -0,0 +1,267 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.PreMarshalled;
+
+/**
+ * Applies the writes of closed sessions asynchronously, such that a request need not wait for its session to be written.
+ * The writes of a session are captured on close via {@link #capture(Runnable)}, during which each write is deferred via {@link #defer(Object, Runnable)},
+ * having marshalled its value via {@link #snapshot(RemoteCache, Object, Object)}, such that subsequent requests cannot change what is written.
+ * Writes of a given session are applied in order, and the pending write of a cache entry is superseded by any subsequent write of that entry,
+ * i.e. only the latest state of each entry of a session not yet flushed is written.
+ * Writes that are not deferred, e.g. conditional writes that depend on the current version of an entry, are applied directly by the closing request.
+ * The number of pending session writes is bounded - if full, the caller applies its writes directly, after any pending writes of the same session.
+ * Callers requiring the latest state of a session, e.g. a subsequent lookup, must first {@link #flush(String)} that session.
+ * Writes are applied by an executor that is not owned by this queue, e.g. shared by all deployments.
+ * N.B. Not suitable for transactional caches, whose writes must be applied within the batch of the request.
+ * @author Paul Ferraro
+ */
+public class SessionWriteBehindQueue implements AutoCloseable {
+
+    // The writes deferred by the current thread, if capturing
+    private static final ThreadLocal<Map<Object, Runnable>> CAPTURED_WRITES = new ThreadLocal<>();
+
+    /**
+     * Performs the specified operation, capturing the writes it defers via {@link #defer(Object, Runnable)}.
+     * @param operation an operation, e.g. closing a session
+     * @return the deferred writes, in order, keyed by the cache key they write
+     */
+    public static Map<Object, Runnable> capture(Runnable operation) {
+        Map<Object, Runnable> writes = new LinkedHashMap<>();
+        Map<Object, Runnable> captured = CAPTURED_WRITES.get();
+        CAPTURED_WRITES.set(writes);
+        try {
+            operation.run();
+        } finally {
+            if (captured != null) {
+                CAPTURED_WRITES.set(captured);
+            } else {
+                CAPTURED_WRITES.remove();
+            }
+        }
+        return writes;
+    }
+
+    /**
+     * Indicates whether the current thread is capturing writes, in which case values must be marshalled before their write is deferred.
+     * @return true, if the current thread is capturing writes, false otherwise
+     */
+    public static boolean isCapturing() {
+        return CAPTURED_WRITES.get() != null;
+    }
+
+    /**
+     * Defers the specified write of the specified cache key, if the current thread is capturing writes, superseding any write of the same key; otherwise applies the write directly.
+     * @param key a cache key, or some other object identifying the write
+     * @param write a write operation
+     */
+    public static void defer(Object key, Runnable write) {
+        Map<Object, Runnable> writes = CAPTURED_WRITES.get();
+        if (writes != null) {
+            supersede(writes, key, write);
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * Marshals the specified value of the specified remote cache, such that its write can be deferred.
+     * @param cache a remote cache
+     * @param key the cache key of the value
+     * @param value a cache value
+     * @return the marshalled value
+     */
+    public static PreMarshalled snapshot(RemoteCache<?, ?> cache, Object key, Object value) {
+        try {
+            return new PreMarshalled(cache.getRemoteCacheManager().getMarshaller().objectToByteBuffer(value));
+        } catch (IOException e) {
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Logger.ROOT_LOGGER.failedToMarshalCacheEntry(e, key);
+        }
+    }
+
+    // Moves a superseding write to the end, so that writes are still applied in the order they were last made
+    static void supersede(Map<Object, Runnable> writes, Object key, Runnable write) {
+        writes.remove(key);
+        writes.put(key, write);
+    }
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final Executor executor;
+    private final Duration closeTimeout;
+
+    /**
+     * Creates a write-behind queue.
+     * @param capacity the maximum number of pending session writes
+     * @param executor the executor applying pending session writes
+     * @param closeTimeout the maximum duration to wait for pending writes on {@link #close()}
+     */
+    public SessionWriteBehindQueue(int capacity, Executor executor, Duration closeTimeout) {
+        this.permits = new Semaphore(capacity);
+        this.executor = executor;
+        this.closeTimeout = closeTimeout;
+    }
+
+    /**
+     * Enqueues the specified writes of the specified session, as captured via {@link #capture(Runnable)}.
+     * @param id a session identifier
+     * @param writes the writes of the session, keyed by the cache key they write
+     */
+    public void enqueue(String id, Map<Object, Runnable> writes) {
+        if (writes.isEmpty()) return;
+        if (!this.permits.tryAcquire()) {
+            // Queue is full, so apply writes directly, preserving order
+            this.flush(id);
+            for (Runnable write : writes.values()) {
+                write.run();
+            }
+            return;
+        }
+        List<Batch> created = new ArrayList<>(1);
+        this.batches.compute(id, (key, batch) -> {
+            if ((batch != null) && batch.add(writes)) return batch;
+            Batch next = new Batch(id, writes, batch);
+            created.add(next);
+            return next;
+        });
+        for (Batch batch : created) {
+            this.executor.execute(batch);
+        }
+    }
+
+    /**
+     * Applies any pending writes of the specified session, waiting for any in progress.
+     * @param id a session identifier
+     */
+    public void flush(String id) {
+        Batch batch = this.batches.get(id);
+        if (batch != null) {
+            batch.await();
+        }
+    }
+
+    /**
+     * Waits for all pending writes to be applied.
+     * @param timeout the maximum duration to wait
+     * @return true, if all pending writes were applied, false if the timeout elapsed
+     */
+    public boolean drain(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!this.batches.isEmpty()) {
+            CompletableFuture<?> pending = CompletableFuture.allOf(this.batches.values().stream().map(batch -> batch.completion).toArray(CompletableFuture[]::new));
+            try {
+                pending.get(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException | TimeoutException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Do not wait indefinitely, e.g. if the remote cache is unreachable
+        if (!this.drain(this.closeTimeout)) {
+            Logger.ROOT_LOGGER.pendingSessionWrites(this.closeTimeout);
+        }
+    }
+
+    private class Batch implements Runnable {
+        private final String id;
+        private Batch previous;
+        private final Map<Object, Runnable> writes;
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        // The number of enqueued session writes coalesced by this batch, each holding a permit
+        private int count = 1;
+        private boolean started = false;
+
+        Batch(String id, Map<Object, Runnable> writes, Batch previous) {
+            this.id = id;
+            this.writes = new LinkedHashMap<>(writes);
+            this.previous = previous;
+        }
+
+        synchronized boolean add(Map<Object, Runnable> writes) {
+            if (this.started) return false;
+            for (Map.Entry<Object, Runnable> entry : writes.entrySet()) {
+                supersede(this.writes, entry.getKey(), entry.getValue());
+            }
+            this.count += 1;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.started) return;
+                this.started = true;
+            }
+            try {
+                if (this.previous != null) {
+                    this.previous.await();
+                    this.previous = null;
+                }
+                for (Runnable write : this.writes.values()) {
+                    try {
+                        write.run();
+                    } catch (RuntimeException e) {
+                        Logger.ROOT_LOGGER.failedToWriteSession(e, this.id);
+                    }
+                }
+            } finally {
+                SessionWriteBehindQueue.this.batches.remove(this.id, this);
+                SessionWriteBehindQueue.this.permits.release(this.count);
+                this.completion.complete(null);
+            }
+        }
+
+        void await() {
+            // Apply writes directly, if not yet started
+            this.run();
+            this.completion.join();
+        }
+    }
+}
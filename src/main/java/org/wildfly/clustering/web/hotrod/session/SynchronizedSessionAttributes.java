@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import java.util.Set;
+
+import org.wildfly.clustering.web.hotrod.metrics.SessionOperationMeasurement;
+import org.wildfly.clustering.web.session.SessionAttributes;
+
+/**
+ * {@link SessionAttributes} decorator that serializes access to attributes shared by concurrent requests for the same session.
+ * Uses the same lock that serializes the writes of the session on close, such that an attribute is never mutated while it is being marshalled.
+ * Optionally records the names of the attributes accessed by the application on the current thread, see {@link SessionOperationMeasurement#attributeAccessed(String)}.
+ * @author Paul Ferraro
+ */
+public class SynchronizedSessionAttributes implements SessionAttributes {
+
+    private final SessionAttributes attributes;
+    private final Object lock;
+    private final boolean tracking;
+
+    public SynchronizedSessionAttributes(SessionAttributes attributes, Object lock) {
+        this(attributes, lock, false);
+    }
+
+    public SynchronizedSessionAttributes(SessionAttributes attributes, Object lock, boolean tracking) {
+        this.attributes = attributes;
+        this.lock = lock;
+        this.tracking = tracking;
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        synchronized (this.lock) {
+            return this.attributes.getAttributeNames();
+        }
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        if (this.tracking) {
+            SessionOperationMeasurement.attributeAccessed(name);
+        }
+        synchronized (this.lock) {
+            return this.attributes.getAttribute(name);
+        }
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        if (this.tracking) {
+            SessionOperationMeasurement.attributeAccessed(name);
+        }
+        synchronized (this.lock) {
+            return this.attributes.setAttribute(name, value);
+        }
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        if (this.tracking) {
+            SessionOperationMeasurement.attributeAccessed(name);
+        }
+        synchronized (this.lock) {
+            return this.attributes.removeAttribute(name);
+        }
+    }
+}
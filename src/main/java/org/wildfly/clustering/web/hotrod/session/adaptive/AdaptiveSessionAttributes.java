@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.adaptive;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.wildfly.clustering.web.cache.session.SessionAttributeImmutability;
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+
+/**
+ * {@link SessionAttributes} decorator that records the attributes written by a request, i.e. those set, or mutable attributes that were read.
+ * Upon close, the written attributes, if any, are passed to a predicate that may choose to migrate the session to a different layout,
+ * in which case the migration supersedes the write of the decorated attributes.
+ * @author Paul Ferraro
+ */
+public class AdaptiveSessionAttributes implements SessionAttributes {
+
+    private final SessionAttributes attributes;
+    private final Map<String, Object> written;
+    private final Predicate<Map<String, Object>> migration;
+
+    /**
+     * Creates adaptive session attributes.
+     * @param attributes the decorated session attributes
+     * @param written a concurrent map into which the attributes written by the current request are recorded
+     * @param migration a predicate that migrates the session given its written attributes, returning true if the session was migrated, or false otherwise
+     */
+    public AdaptiveSessionAttributes(SessionAttributes attributes, Map<String, Object> written, Predicate<Map<String, Object>> migration) {
+        this.attributes = attributes;
+        this.written = written;
+        this.migration = migration;
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return this.attributes.getAttributeNames();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object value = this.attributes.getAttribute(name);
+        if ((value != null) && !SessionAttributeImmutability.INSTANCE.test(value)) {
+            this.written.put(name, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        Object old = this.attributes.setAttribute(name, value);
+        if (value != null) {
+            this.written.put(name, value);
+        } else {
+            this.written.remove(name);
+        }
+        return old;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        this.written.remove(name);
+        return this.attributes.removeAttribute(name);
+    }
+
+    @Override
+    public void close() {
+        if (this.written.isEmpty() || !this.migration.test(this.written)) {
+            this.attributes.close();
+        }
+    }
+}
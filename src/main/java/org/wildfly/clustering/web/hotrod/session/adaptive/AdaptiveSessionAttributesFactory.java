@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.adaptive;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
+import org.wildfly.clustering.web.cache.session.coarse.CoarseSessionAttributes;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.PreMarshalled;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationBuffer;
+import org.wildfly.clustering.web.hotrod.session.SessionWriteBehindQueue;
+import org.wildfly.clustering.web.hotrod.session.coarse.CoarseSessionAttributesEntry;
+import org.wildfly.clustering.web.hotrod.session.coarse.CoarseSessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.FineSessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+
+/**
+ * {@link SessionAttributesFactory} that chooses between coarse and fine granularity storage per session.
+ * New sessions are stored using coarse granularity, i.e. all attributes within a single cache entry.
+ * The layout of a session is implied by which of its attribute cache entries exists, thus a session is read using either layout.
+ * <ul>
+ * <li>A coarse session migrates to fine granularity if the observed marshalled size of its attributes exceeds a given threshold,
+ * and a request wrote only some of its attributes.</li>
+ * <li>A fine session migrates to coarse granularity if a request wrote all of its attributes,
+ * and their marshalled size does not exceed half of the threshold.</li>
+ * </ul>
+ * A migration writes the new layout before removing the old one, and since the coarse layout is read first, a concurrent reader never observes a partial migration.
+ * The old layout is only removed if it was not written concurrently, i.e. a coarse entry is removed using the version from which it was read,
+ * and a names entry is removed using the version from which the migration verified its attribute names; otherwise the migration is abandoned.
+ * Conversely, a coarse entry is only written if it still exists, such that a request that read the coarse layout of a session that migrated concurrently
+ * cannot shadow the fine layout, but instead applies its changes to the fine layout.
+ * The size of a coarse session is measured on close by marshalling its attributes, such that the same marshalled form is written if the session does not migrate.
+ * @param <CV> the marshalled form of the attributes of a coarse session
+ * @param <FV> the marshalled form of a single attribute of a fine session
+ * @author Paul Ferraro
+ */
+public class AdaptiveSessionAttributesFactory<CV, FV> implements SessionAttributesFactory<SessionAttributesLayout<CV>> {
+
+    private final CoarseSessionAttributesFactory<CV> coarseFactory;
+    private final FineSessionAttributesFactory<FV> fineFactory;
+    private final ChunkedValueCache<SessionAttributesKey, CV> coarseCache;
+    private final Marshaller<Map<String, Object>, CV> coarseMarshaller;
+    private final RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache;
+    private final ChunkedValueCache<SessionAttributeKey, FV> attributeCache;
+    private final Marshaller<Object, FV> attributeMarshaller;
+    private final CacheProperties properties;
+    private final SessionCreationBuffer buffer;
+    private final int threshold;
+
+    public AdaptiveSessionAttributesFactory(ChunkedValueCache<SessionAttributesKey, CV> coarseCache, Marshaller<Map<String, Object>, CV> coarseMarshaller, RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, ChunkedValueCache<SessionAttributeKey, FV> attributeCache, Marshaller<Object, FV> attributeMarshaller, CacheProperties properties, SessionCreationBuffer buffer, int threshold) {
+        this.coarseFactory = new CoarseSessionAttributesFactory<>(coarseCache, coarseMarshaller, properties, buffer);
+        this.fineFactory = new FineSessionAttributesFactory<>(namesCache, attributeCache, attributeMarshaller, properties);
+        this.coarseCache = coarseCache;
+        this.coarseMarshaller = coarseMarshaller;
+        this.namesCache = namesCache;
+        this.attributeCache = attributeCache;
+        this.attributeMarshaller = attributeMarshaller;
+        this.properties = properties;
+        this.buffer = buffer;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public SessionAttributesLayout<CV> createValue(String id, Void context) {
+        return new SessionAttributesLayout<>(this.coarseFactory.createValue(id, context));
+    }
+
+    @Override
+    public SessionAttributesLayout<CV> findValue(String id) {
+        SessionAttributesKey key = new SessionAttributesKey(id);
+        // Retain the version of the cache entry, since a migration only removes it if not written concurrently
+        VersionedValue<CV> version = this.coarseCache.getVersioned(key);
+        if (version != null) {
+            try {
+                Map<String, Object> attributes = this.coarseMarshaller.read(version.getValue());
+                return new SessionAttributesLayout<>(new CoarseSessionAttributesEntry<>(key, attributes, version.getValue()), version);
+            } catch (InvalidSerializedFormException e) {
+                Logger.ROOT_LOGGER.failedToActivateSession(e, id);
+                this.remove(id);
+                return null;
+            }
+        }
+        // A session without attributes migrates to coarse granularity on its next write
+        Map<String, UUID> names = this.fineFactory.findValue(id);
+        return (names != null) ? new SessionAttributesLayout<>(names) : null;
+    }
+
+    @Override
+    public SessionAttributes createSessionAttributes(String id, SessionAttributesLayout<CV> layout) {
+        switch (layout.getStrategy()) {
+            case COARSE: {
+                Map.Entry<Map<String, Object>, CV> entry = layout.getAttributes();
+                VersionedValue<CV> version = layout.getAttributesVersion();
+                // Attributes of a new session are not yet migrated, and buffered attributes are not yet written, thus need not be written conditionally
+                if ((version == null) || this.buffer.isReserved(id)) {
+                    return this.coarseFactory.createSessionAttributes(id, entry);
+                }
+                SessionAttributesKey key = new SessionAttributesKey(id);
+                Map<String, Object> attributes = entry.getKey();
+                Set<String> names = new HashSet<>(attributes.keySet());
+                Map<String, Object> written = new ConcurrentHashMap<>();
+                // The value to write, i.e. the marshalled form of the attributes, if measured on close
+                AtomicReference<CV> value = new AtomicReference<>(entry.getValue());
+                Mutator mutator = () -> SessionWriteBehindQueue.defer(key, this.updateCoarse(id, key, value.get(), names, attributes, written));
+                return new AdaptiveSessionAttributes(new CoarseSessionAttributes(attributes, mutator, this.coarseMarshaller, this.properties), written, changes -> {
+                    if (changes.keySet().containsAll(attributes.keySet())) return false;
+                    // Marshal once, to both measure and write
+                    PreMarshalled snapshot = SessionWriteBehindQueue.snapshot(this.namesCache, key, this.coarseMarshaller.write(attributes));
+                    @SuppressWarnings("unchecked")
+                    CV marshalled = (CV) snapshot;
+                    value.set(marshalled);
+                    if (snapshot.getBytes().length <= this.threshold) return false;
+                    this.migrateToFine(id, key, attributes, version, this.updateCoarse(id, key, marshalled, names, attributes, written));
+                    return true;
+                });
+            }
+            case FINE: {
+                SessionAttributes attributes = this.fineFactory.createSessionAttributes(id, layout.getNames());
+                return new AdaptiveSessionAttributes(attributes, new ConcurrentHashMap<>(), written -> written.keySet().containsAll(attributes.getAttributeNames()) && this.migrateToCoarse(id, written));
+            }
+            default: {
+                // Impossible
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Override
+    public ImmutableSessionAttributes createImmutableSessionAttributes(String id, SessionAttributesLayout<CV> layout) {
+        switch (layout.getStrategy()) {
+            case COARSE: {
+                return this.coarseFactory.createImmutableSessionAttributes(id, layout.getAttributes());
+            }
+            case FINE: {
+                return this.fineFactory.createImmutableSessionAttributes(id, layout.getNames());
+            }
+            default: {
+                // Impossible
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (this.buffer.isReserved(id)) return true;
+        // The layout of the session is unknown, so remove both
+        this.coarseFactory.remove(id);
+        return this.fineFactory.remove(id);
+    }
+
+    /**
+     * Creates a write of the coarse layout of a session, only if it still exists.
+     * If the session migrated to fine granularity concurrently, the attributes written or removed by the current request are applied to its fine layout instead.
+     */
+    private Runnable updateCoarse(String id, SessionAttributesKey key, CV value, Set<String> names, Map<String, Object> attributes, Map<String, Object> written) {
+        Set<String> writtenNames = new HashSet<>(written.keySet());
+        Set<String> removedNames = new HashSet<>(names);
+        removedNames.removeAll(attributes.keySet());
+        CV snapshot = this.snapshot(key, value);
+        return () -> {
+            if (!this.coarseCache.replace(key, snapshot)) {
+                // The coarse layout was removed, i.e. the session migrated to fine granularity, or was removed
+                this.updateFine(id, key, snapshot, writtenNames, removedNames);
+            }
+        };
+    }
+
+    /**
+     * Applies the specified written and removed attributes of the specified coarse value to the fine layout of a session, if it exists.
+     */
+    private void updateFine(String id, SessionAttributesKey key, CV value, Set<String> written, Set<String> removed) {
+        Map<String, UUID> names = this.namesCache.get(new SessionAttributeNamesKey(id));
+        // Session was removed
+        if (names == null) return;
+        Map<String, Object> attributes = this.read(key, value);
+        SessionAttributes fineAttributes = this.fineFactory.createSessionAttributes(id, names);
+        for (String name : written) {
+            Object attribute = attributes.get(name);
+            if (attribute != null) {
+                fineAttributes.setAttribute(name, attribute);
+            }
+        }
+        for (String name : removed) {
+            fineAttributes.removeAttribute(name);
+        }
+        fineAttributes.close();
+    }
+
+    private void migrateToFine(String id, SessionAttributesKey key, Map<String, Object> attributes, VersionedValue<CV> version, Runnable update) {
+        Map<String, UUID> names = new ConcurrentHashMap<>();
+        Map<SessionAttributeKey, FV> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            UUID attributeId = UUID.randomUUID();
+            SessionAttributeKey attributeKey = new SessionAttributeKey(id, attributeId);
+            values.put(attributeKey, this.snapshot(attributeKey, this.attributeMarshaller.write(entry.getValue())));
+            names.put(entry.getKey(), attributeId);
+        }
+        // Supersedes any deferred write of the coarse layout
+        SessionWriteBehindQueue.defer(key, () -> {
+            for (Map.Entry<SessionAttributeKey, FV> entry : values.entrySet()) {
+                this.attributeCache.write(entry.getKey(), entry.getValue());
+            }
+            SessionAttributeNamesKey namesKey = new SessionAttributeNamesKey(id);
+            if (this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(namesKey, names) == null) {
+                if (this.coarseCache.remove(key, version)) return;
+                this.namesCache.remove(namesKey);
+            }
+            // Migration is abandoned, since the coarse layout was written, or the session migrated, concurrently
+            for (SessionAttributeKey attributeKey : values.keySet()) {
+                this.attributeCache.delete(attributeKey);
+            }
+            update.run();
+        });
+    }
+
+    private boolean migrateToCoarse(String id, Map<String, Object> written) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>(written);
+        SessionAttributesKey key = new SessionAttributesKey(id);
+        // Marshal once, to both measure and write
+        PreMarshalled snapshot = SessionWriteBehindQueue.snapshot(this.namesCache, key, this.coarseMarshaller.write(attributes));
+        if (snapshot.getBytes().length > this.threshold / 2) return false;
+        @SuppressWarnings("unchecked")
+        CV value = (CV) snapshot;
+        SessionWriteBehindQueue.defer(key, () -> {
+            SessionAttributeNamesKey namesKey = new SessionAttributeNamesKey(id);
+            MetadataValue<Map<String, UUID>> version = this.namesCache.getWithMetadata(namesKey);
+            Map<String, UUID> names = (version != null) ? version.getValue() : Collections.emptyMap();
+            // Verify that no attributes were added or removed concurrently
+            if (names.keySet().equals(attributes.keySet()) && this.coarseCache.putIfAbsent(key, value)) {
+                if ((version == null) || this.namesCache.removeWithVersion(namesKey, version.getVersion())) {
+                    this.fineFactory.remove(id, names);
+                    return;
+                }
+                this.coarseCache.delete(key);
+            }
+            // Migration is abandoned, so write the attributes to the fine layout instead
+            this.updateFine(id, key, value, attributes.keySet(), Collections.emptySet());
+        });
+        return true;
+    }
+
+    /**
+     * Returns the marshalled form of the specified value, if the writes of the current thread are captured, such that their write can be deferred.
+     */
+    @SuppressWarnings("unchecked")
+    private <V> V snapshot(Object key, V value) {
+        return SessionWriteBehindQueue.isCapturing() && !(value instanceof PreMarshalled) ? (V) SessionWriteBehindQueue.snapshot(this.namesCache, key, value) : value;
+    }
+
+    /**
+     * Reads the attributes of the specified coarse value, unmarshalling it first if necessary.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> read(SessionAttributesKey key, CV value) {
+        try {
+            CV result = (value instanceof PreMarshalled) ? (CV) this.namesCache.getRemoteCacheManager().getMarshaller().objectFromByteBuffer(((PreMarshalled) value).getBytes()) : value;
+            return this.coarseMarshaller.read(result);
+        } catch (IOException | ClassNotFoundException | InvalidSerializedFormException e) {
+            throw Logger.ROOT_LOGGER.failedToUnmarshalCacheEntry(e, key);
+        }
+    }
+}
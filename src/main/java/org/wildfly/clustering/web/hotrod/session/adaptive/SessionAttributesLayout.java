@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.adaptive;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.infinispan.client.hotrod.VersionedValue;
+import org.wildfly.clustering.web.session.SessionManagerFactoryConfiguration.SessionAttributePersistenceStrategy;
+
+/**
+ * The attributes of a session along with the layout in which they are stored.
+ * A {@link SessionAttributePersistenceStrategy#COARSE} session retains its attributes and the marshalled value that references them,
+ * while a {@link SessionAttributePersistenceStrategy#FINE} session retains the identifiers of its attributes.
+ * A coarse session read from the cache also retains the version of its cache entry, such that a migration to fine granularity only removes this entry if it was not written concurrently.
+ * @author Paul Ferraro
+ */
+public class SessionAttributesLayout<V> {
+
+    private final SessionAttributePersistenceStrategy strategy;
+    private final Map.Entry<Map<String, Object>, V> attributes;
+    private final VersionedValue<V> attributesVersion;
+    private final Map<String, UUID> names;
+
+    /**
+     * Creates the layout of a new {@link SessionAttributePersistenceStrategy#COARSE} session.
+     * @param attributes an entry of attributes and their marshalled value
+     */
+    public SessionAttributesLayout(Map.Entry<Map<String, Object>, V> attributes) {
+        this(SessionAttributePersistenceStrategy.COARSE, attributes, null, null);
+    }
+
+    /**
+     * Creates the layout of a {@link SessionAttributePersistenceStrategy#COARSE} session read from the cache.
+     * @param attributes an entry of attributes and their marshalled value
+     * @param version the versioned cache entry from which the attributes were read
+     */
+    public SessionAttributesLayout(Map.Entry<Map<String, Object>, V> attributes, VersionedValue<V> version) {
+        this(SessionAttributePersistenceStrategy.COARSE, attributes, version, null);
+    }
+
+    /**
+     * Creates the layout of a {@link SessionAttributePersistenceStrategy#FINE} session.
+     * @param names a map of attribute names to identifiers
+     */
+    public SessionAttributesLayout(Map<String, UUID> names) {
+        this(SessionAttributePersistenceStrategy.FINE, null, null, names);
+    }
+
+    private SessionAttributesLayout(SessionAttributePersistenceStrategy strategy, Map.Entry<Map<String, Object>, V> attributes, VersionedValue<V> attributesVersion, Map<String, UUID> names) {
+        this.strategy = strategy;
+        this.attributes = attributes;
+        this.attributesVersion = attributesVersion;
+        this.names = names;
+    }
+
+    /**
+     * Returns the layout in which the attributes of this session are stored.
+     * @return an attribute persistence strategy
+     */
+    public SessionAttributePersistenceStrategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Returns the attributes of a {@link SessionAttributePersistenceStrategy#COARSE} session.
+     * @return an entry of attributes and their marshalled value, or null, if this session is stored using {@link SessionAttributePersistenceStrategy#FINE} persistence.
+     */
+    public Map.Entry<Map<String, Object>, V> getAttributes() {
+        return this.attributes;
+    }
+
+    /**
+     * Returns the version of the cache entry from which the attributes of a {@link SessionAttributePersistenceStrategy#COARSE} session were read.
+     * @return a versioned value, or null, if this session is new, or is stored using {@link SessionAttributePersistenceStrategy#FINE} persistence.
+     */
+    public VersionedValue<V> getAttributesVersion() {
+        return this.attributesVersion;
+    }
+
+    /**
+     * Returns the attribute identifiers of a {@link SessionAttributePersistenceStrategy#FINE} session.
+     * @return a map of attribute names to identifiers, or null, if this session is stored using {@link SessionAttributePersistenceStrategy#COARSE} persistence.
+     */
+    public Map<String, UUID> getNames() {
+        return this.names;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.bucket;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+
+/**
+ * Exposes session attributes partitioned into buckets.
+ * @author Paul Ferraro
+ */
+public class BucketedImmutableSessionAttributes implements ImmutableSessionAttributes {
+    private final SessionAttributeBuckets<?> buckets;
+
+    public BucketedImmutableSessionAttributes(SessionAttributeBuckets<?> buckets) {
+        this.buckets = buckets;
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < this.buckets.size(); ++i) {
+            names.addAll(this.buckets.getAttributes(i).keySet());
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return this.buckets.getAttributes(this.buckets.bucketOf(name)).get(name);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.bucket;
+
+import java.io.NotSerializableException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshallability;
+import org.wildfly.clustering.web.cache.session.SessionAttributeImmutability;
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+
+/**
+ * Exposes session attributes partitioned into buckets, where a change to an attribute only rewrites its bucket.
+ * @author Paul Ferraro
+ */
+public class BucketedSessionAttributes extends BucketedImmutableSessionAttributes implements SessionAttributes {
+    private final SessionAttributeBuckets<?> buckets;
+    private final List<Mutator> mutators;
+    // Buckets containing mutable attributes that were read, but not since written
+    private final Set<Integer> mutations;
+    private final Marshallability marshallability;
+    private final CacheProperties properties;
+
+    public BucketedSessionAttributes(SessionAttributeBuckets<?> buckets, List<Mutator> mutators, Marshallability marshallability, CacheProperties properties) {
+        super(buckets);
+        this.buckets = buckets;
+        this.mutators = mutators;
+        this.mutations = !properties.isTransactional() ? ConcurrentHashMap.newKeySet() : null;
+        this.marshallability = marshallability;
+        this.properties = properties;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        int bucket = this.buckets.bucketOf(name);
+        Object value = this.buckets.getAttributes(bucket).remove(name);
+        if (value != null) {
+            this.mutate(bucket);
+        }
+        return value;
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        if (value == null) {
+            return this.removeAttribute(name);
+        }
+        if (this.properties.isMarshalling() && !this.marshallability.isMarshallable(value)) {
+            throw new IllegalArgumentException(new NotSerializableException(value.getClass().getName()));
+        }
+        int bucket = this.buckets.bucketOf(name);
+        Object old = this.buckets.getAttributes(bucket).put(name, value);
+        this.mutate(bucket);
+        return old;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        int bucket = this.buckets.bucketOf(name);
+        Object value = this.buckets.getAttributes(bucket).get(name);
+        if (!SessionAttributeImmutability.INSTANCE.test(value)) {
+            if (this.mutations != null) {
+                this.mutations.add(bucket);
+            } else {
+                this.mutators.get(bucket).mutate();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        if (this.mutations != null) {
+            for (Integer bucket : this.mutations) {
+                this.mutators.get(bucket).mutate();
+            }
+            this.mutations.clear();
+        }
+    }
+
+    private void mutate(int bucket) {
+        this.mutators.get(bucket).mutate();
+        if (this.mutations != null) {
+            this.mutations.remove(bucket);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.bucket;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationBuffer;
+import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
+
+/**
+ * {@link SessionAttributesFactory} for coarse granularity sessions whose attributes are partitioned into a fixed number of buckets by attribute name.
+ * A given session's attributes are mapped to at most B cache entries, where B is the number of buckets, each containing a map of attributes.
+ * Unlike fine granularity, no entry of attribute names is required; unlike coarse granularity, a change to an attribute only rewrites its bucket.
+ * Empty buckets are not stored, and all buckets are read via a single bulk operation.
+ * @author Paul Ferraro
+ */
+public class BucketedSessionAttributesFactory<V> implements SessionAttributesFactory<SessionAttributeBuckets<V>> {
+
+    private final ChunkedValueCache<SessionAttributeBucketKey, V> cache;
+    private final Marshaller<Map<String, Object>, V> marshaller;
+    private final CacheProperties properties;
+    private final SessionCreationBuffer buffer;
+    private final int buckets;
+
+    public BucketedSessionAttributesFactory(ChunkedValueCache<SessionAttributeBucketKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, SessionCreationBuffer buffer, int buckets) {
+        this.cache = cache;
+        this.marshaller = marshaller;
+        this.properties = properties;
+        this.buffer = buffer;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public SessionAttributeBuckets<V> createValue(String id, Void context) {
+        List<Map<String, Object>> attributes = new ArrayList<>(this.buckets);
+        List<V> values = new ArrayList<>(this.buckets);
+        for (int i = 0; i < this.buckets; ++i) {
+            Map<String, Object> bucket = new ConcurrentHashMap<>();
+            attributes.add(bucket);
+            values.add(this.marshaller.write(bucket));
+        }
+        SessionAttributeBuckets<V> buckets = new SessionAttributeBuckets<>(attributes, values);
+        // If creation is deferred, write the non-empty buckets of the new session when it is first closed
+        this.buffer.buffer(id, () -> {
+            for (int i = 0; i < this.buckets; ++i) {
+                if (!buckets.getAttributes(i).isEmpty()) {
+                    this.cache.write(new SessionAttributeBucketKey(id, i), buckets.getValue(i));
+                }
+            }
+        });
+        return buckets;
+    }
+
+    @Override
+    public SessionAttributeBuckets<V> findValue(String id) {
+        Map<SessionAttributeBucketKey, V> entries = this.cache.getAll(this.keys(id));
+        List<Map<String, Object>> attributes = new ArrayList<>(this.buckets);
+        List<V> values = new ArrayList<>(this.buckets);
+        for (int i = 0; i < this.buckets; ++i) {
+            V value = entries.get(new SessionAttributeBucketKey(id, i));
+            if (value != null) {
+                try {
+                    attributes.add(this.marshaller.read(value));
+                    values.add(value);
+                } catch (InvalidSerializedFormException e) {
+                    Logger.ROOT_LOGGER.failedToActivateSession(e, id);
+                    this.remove(id);
+                    return null;
+                }
+            } else {
+                Map<String, Object> bucket = new ConcurrentHashMap<>();
+                attributes.add(bucket);
+                values.add(this.marshaller.write(bucket));
+            }
+        }
+        return new SessionAttributeBuckets<>(attributes, values);
+    }
+
+    @Override
+    public SessionAttributes createSessionAttributes(String id, SessionAttributeBuckets<V> buckets) {
+        // Buffered buckets of a new session are retained by reference, thus need not be mutated
+        boolean reserved = this.buffer.isReserved(id);
+        List<Mutator> mutators = new ArrayList<>(this.buckets);
+        for (int i = 0; i < this.buckets; ++i) {
+            mutators.add(reserved ? Mutator.PASSIVE : this.cache.createMutator(new SessionAttributeBucketKey(id, i), buckets.getValue(i)));
+        }
+        return new BucketedSessionAttributes(buckets, mutators, this.marshaller, this.properties);
+    }
+
+    @Override
+    public ImmutableSessionAttributes createImmutableSessionAttributes(String id, SessionAttributeBuckets<V> buckets) {
+        return new BucketedImmutableSessionAttributes(buckets);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (this.buffer.isReserved(id)) return true;
+        for (SessionAttributeBucketKey key : this.keys(id)) {
+            this.cache.delete(key);
+        }
+        return true;
+    }
+
+    private Set<SessionAttributeBucketKey> keys(String id) {
+        Set<SessionAttributeBucketKey> keys = new HashSet<>();
+        for (int i = 0; i < this.buckets; ++i) {
+            keys.add(new SessionAttributeBucketKey(id, i));
+        }
+        return keys;
+    }
+}
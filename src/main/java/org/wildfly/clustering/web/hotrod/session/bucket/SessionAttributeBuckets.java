@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.bucket;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The attributes of a session, partitioned into a fixed number of buckets by attribute name.
+ * Each bucket retains its attributes along with the marshalled value that references them.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeBuckets<V> {
+
+    private final List<Map<String, Object>> attributes;
+    private final List<V> values;
+
+    public SessionAttributeBuckets(List<Map<String, Object>> attributes, List<V> values) {
+        this.attributes = attributes;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of buckets.
+     * @return a number of buckets
+     */
+    public int size() {
+        return this.attributes.size();
+    }
+
+    /**
+     * Returns the bucket of the specified attribute.
+     * @param name an attribute name
+     * @return a bucket index
+     */
+    public int bucketOf(String name) {
+        return Math.floorMod(name.hashCode(), this.attributes.size());
+    }
+
+    public Map<String, Object> getAttributes(int bucket) {
+        return this.attributes.get(bucket);
+    }
+
+    public V getValue(int bucket) {
+        return this.values.get(bucket);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshallability;
+import org.wildfly.clustering.web.cache.session.coarse.CoarseSessionAttributes;
+import org.wildfly.clustering.web.hotrod.session.delta.DeltaAware;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
+
+/**
+ * Exposes session attributes for a coarse granularity session whose {@link DeltaAware} attributes are replicated via a log of deltas.
+ * If only delta aware attributes were mutated, their deltas are appended to their logs upon close, otherwise all attributes are written, then their logs are discarded.
+ * @author Paul Ferraro
+ */
+public class CoarseDeltaSessionAttributes extends CoarseSessionAttributes {
+
+    private final Map<String, Object> attributes;
+    private final SessionAttributeDeltas<?> deltas;
+    private final CompactingMutator mutator;
+
+    public CoarseDeltaSessionAttributes(Map<String, Object> attributes, Mutator mutator, Marshallability marshallability, CacheProperties properties, SessionAttributeDeltas<?> deltas) {
+        this(attributes, new CompactingMutator(attributes, mutator, deltas), marshallability, properties, deltas);
+    }
+
+    private CoarseDeltaSessionAttributes(Map<String, Object> attributes, CompactingMutator mutator, Marshallability marshallability, CacheProperties properties, SessionAttributeDeltas<?> deltas) {
+        super(attributes, mutator, marshallability, properties);
+        this.attributes = attributes;
+        this.deltas = deltas;
+        this.mutator = mutator;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        this.replace(name);
+        return super.removeAttribute(name);
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        this.replace(name);
+        return super.setAttribute(name, value);
+    }
+
+    @Override
+    protected void mutate(Set<String> names) {
+        for (String name : names) {
+            Object value = this.attributes.get(name);
+            if (!(value instanceof DeltaAware) || !this.deltas.append(name, (DeltaAware<?>) value)) {
+                // Write all attributes, discarding any appended deltas
+                super.mutate(names);
+                return;
+            }
+        }
+        this.deltas.write();
+    }
+
+    private void replace(String name) {
+        if (this.attributes.get(name) instanceof DeltaAware) {
+            this.mutator.discard();
+        }
+    }
+
+    /**
+     * Mutator decorator that writes all attributes, then discards the delta logs, if necessary.
+     */
+    private static class CompactingMutator implements Mutator {
+        private final Map<String, Object> attributes;
+        private final Mutator mutator;
+        private final SessionAttributeDeltas<?> deltas;
+        private volatile boolean discard = false;
+
+        CompactingMutator(Map<String, Object> attributes, Mutator mutator, SessionAttributeDeltas<?> deltas) {
+            this.attributes = attributes;
+            this.mutator = mutator;
+            this.deltas = deltas;
+        }
+
+        /**
+         * Indicates that the log must be discarded upon the next mutation, e.g. since a delta aware attribute was replaced or removed.
+         */
+        void discard() {
+            this.discard = true;
+        }
+
+        @Override
+        public void mutate() {
+            boolean discard = this.discard;
+            for (Object value : this.attributes.values()) {
+                if (value instanceof DeltaAware) {
+                    // Pending changes are written in their entirety
+                    ((DeltaAware<?>) value).delta();
+                    discard = true;
+                }
+            }
+            this.mutator.mutate();
+            // Only a session with delta aware attributes can have logged deltas, which no longer apply to the written version
+            if (discard) {
+                this.deltas.clear();
+                this.deltas.write();
+                this.discard = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+
+/**
+ * The attributes of a coarse granularity session, along with their marshalled value and the cache key from which they were read,
+ * such that the key is created once per lookup and shared by the session attributes and their mutator.
+ * @author Paul Ferraro
+ */
+public class CoarseSessionAttributesEntry<V> extends SimpleImmutableEntry<Map<String, Object>, V> {
+    private static final long serialVersionUID = 3591036219383442377L;
+
+    private final transient SessionAttributesKey cacheKey;
+
+    public CoarseSessionAttributesEntry(SessionAttributesKey cacheKey, Map<String, Object> attributes, V value) {
+        super(attributes, value);
+        this.cacheKey = cacheKey;
+    }
+
+    public SessionAttributesKey getCacheKey() {
+        return this.cacheKey;
+    }
+}
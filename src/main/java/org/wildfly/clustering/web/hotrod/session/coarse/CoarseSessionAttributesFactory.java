@@ -22,14 +22,14 @@
 
 package org.wildfly.clustering.web.hotrod.session.coarse;
 
-import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.cache.CacheProperties;
-import org.wildfly.clustering.ee.hotrod.RemoteCacheEntryMutator;
 import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.cache.session.SessionAttributes;
@@ -37,6 +37,11 @@ import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
 import org.wildfly.clustering.web.cache.session.coarse.CoarseImmutableSessionAttributes;
 import org.wildfly.clustering.web.cache.session.coarse.CoarseSessionAttributes;
 import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationBuffer;
+import org.wildfly.clustering.web.hotrod.session.delta.DeltaAware;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltasFactory;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 
 /**
@@ -44,31 +49,71 @@ import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
  */
 public class CoarseSessionAttributesFactory<V> implements SessionAttributesFactory<Map.Entry<Map<String, Object>, V>> {
 
-    private final RemoteCache<SessionAttributesKey, V> cache;
+    private final ChunkedValueCache<SessionAttributesKey, V> cache;
     private final Marshaller<Map<String, Object>, V> marshaller;
     private final CacheProperties properties;
+    private final SessionCreationBuffer buffer;
+    private final SessionAttributeDeltasFactory<?> deltasFactory;
+    private final boolean optimistic;
 
-    public CoarseSessionAttributesFactory(RemoteCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties) {
+    public CoarseSessionAttributesFactory(ChunkedValueCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, SessionCreationBuffer buffer) {
+        this(cache, marshaller, properties, buffer, null);
+    }
+
+    public CoarseSessionAttributesFactory(ChunkedValueCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, SessionCreationBuffer buffer, SessionAttributeDeltasFactory<?> deltasFactory) {
+        this(cache, marshaller, properties, buffer, deltasFactory, false);
+    }
+
+    /**
+     * Creates a factory of coarse granularity session attributes.
+     * @param deltasFactory a factory of delta logs, or null, if {@link DeltaAware} attributes are always written in their entirety
+     * @param optimistic indicates whether attributes are only written if their cache entry was not written concurrently, in which case changes are merged; if so, deltas are not used
+     */
+    public CoarseSessionAttributesFactory(ChunkedValueCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, SessionCreationBuffer buffer, SessionAttributeDeltasFactory<?> deltasFactory, boolean optimistic) {
         this.cache = cache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.buffer = buffer;
+        this.deltasFactory = optimistic ? null : deltasFactory;
+        this.optimistic = optimistic;
     }
 
     @Override
     public Map.Entry<Map<String, Object>, V> createValue(String id, Void context) {
         Map<String, Object> attributes = new ConcurrentHashMap<>();
         V value = this.marshaller.write(attributes);
-        this.cache.put(new SessionAttributesKey(id), value);
-        return new SimpleImmutableEntry<>(attributes, value);
+        SessionAttributesKey key = new SessionAttributesKey(id);
+        // Chunked entries cannot be written via putAll(...), so buffer their mutation instead
+        boolean buffered = this.cache.isEnabled() ? this.buffer.buffer(id, this.cache.createMutator(key, value)) : this.buffer.buffer(id, key, value);
+        if (!buffered) {
+            this.cache.write(key, value);
+        }
+        return new CoarseSessionAttributesEntry<>(key, attributes, value);
     }
 
     @Override
     public Map.Entry<Map<String, Object>, V> findValue(String id) {
-        V value = this.cache.get(new SessionAttributesKey(id));
+        SessionAttributesKey key = new SessionAttributesKey(id);
+        VersionedValue<V> version = null;
+        V value = null;
+        if (this.optimistic || (this.deltasFactory != null)) {
+            // Retain the version of the cache entry, since attributes are written conditionally, or logged deltas apply to a specific version
+            version = this.cache.getVersioned(key);
+            if (version != null) {
+                value = version.getValue();
+            }
+        } else {
+            value = this.cache.get(key);
+        }
         if (value != null) {
             try {
                 Map<String, Object> attributes = this.marshaller.read(value);
-                return new SimpleImmutableEntry<>(attributes, value);
+                if (this.deltasFactory != null) {
+                    SessionAttributeDeltas<?> deltas = this.deltasFactory.createDeltas(id);
+                    deltas.apply(attributes, version.getVersion());
+                    return new DeltaSessionAttributesEntry<>(key, attributes, value, deltas);
+                }
+                return (version != null) ? new VersionedSessionAttributesEntry<>(key, attributes, version) : new CoarseSessionAttributesEntry<>(key, attributes, value);
             } catch (InvalidSerializedFormException e) {
                 Logger.ROOT_LOGGER.failedToActivateSession(e, id.toString());
                 this.remove(id);
@@ -79,7 +124,20 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
 
     @Override
     public SessionAttributes createSessionAttributes(String id, Map.Entry<Map<String, Object>, V> entry) {
-        Mutator mutator = new RemoteCacheEntryMutator<>(this.cache, new SessionAttributesKey(id), entry.getValue());
+        // Buffered attributes of a new session are retained by reference, thus need not be mutated
+        if (this.buffer.isReserved(id)) {
+            return new CoarseSessionAttributes(entry.getKey(), Mutator.PASSIVE, this.marshaller, this.properties);
+        }
+        SessionAttributesKey key = (entry instanceof CoarseSessionAttributesEntry) ? ((CoarseSessionAttributesEntry<V>) entry).getCacheKey() : new SessionAttributesKey(id);
+        if (entry instanceof VersionedSessionAttributesEntry) {
+            return new OptimisticCoarseSessionAttributes<>(key, (VersionedSessionAttributesEntry<V>) entry, this.cache, this.marshaller, this.properties);
+        }
+        Mutator mutator = this.cache.createMutator(key, entry.getValue());
+        if (this.deltasFactory != null) {
+            // Deltas of a new session cannot be logged, since the version of its cache entry is not known
+            SessionAttributeDeltas<?> deltas = (entry instanceof DeltaSessionAttributesEntry) ? ((DeltaSessionAttributesEntry<V>) entry).getDeltas() : this.deltasFactory.createDeltas(id);
+            return new CoarseDeltaSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties, deltas);
+        }
         return new CoarseSessionAttributes(entry.getKey(), mutator, this.marshaller, this.properties);
     }
 
@@ -90,7 +148,27 @@ public class CoarseSessionAttributesFactory<V> implements SessionAttributesFacto
 
     @Override
     public boolean remove(String id) {
-        this.cache.remove(new SessionAttributesKey(id));
+        if (this.buffer.isReserved(id)) return true;
+        SessionAttributesKey key = new SessionAttributesKey(id);
+        if (this.deltasFactory == null) {
+            this.cache.delete(key);
+            return true;
+        }
+        // Remove the delta logs of any delta aware attributes of the removed session
+        V value = this.cache.remove(key);
+        if (value != null) {
+            Set<String> names = new HashSet<>();
+            try {
+                for (Map.Entry<String, Object> entry : this.marshaller.read(value).entrySet()) {
+                    if (entry.getValue() instanceof DeltaAware) {
+                        names.add(entry.getKey());
+                    }
+                }
+            } catch (InvalidSerializedFormException e) {
+                // The delta aware attributes of an unreadable session cannot be determined
+            }
+            this.deltasFactory.remove(id, names);
+        }
         return true;
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import java.util.Map;
+
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
+
+/**
+ * The attributes of a coarse granularity session, along with their marshalled value and the delta logs applied to its {@link org.wildfly.clustering.web.hotrod.session.delta.DeltaAware} attributes,
+ * such that subsequent deltas are appended to the logs, as of the version from which the attributes were read.
+ * @author Paul Ferraro
+ */
+public class DeltaSessionAttributesEntry<V> extends CoarseSessionAttributesEntry<V> {
+    private static final long serialVersionUID = -6384727591093874318L;
+
+    private final transient SessionAttributeDeltas<?> deltas;
+
+    public DeltaSessionAttributesEntry(SessionAttributesKey cacheKey, Map<String, Object> attributes, V value, SessionAttributeDeltas<?> deltas) {
+        super(cacheKey, attributes, value);
+        this.deltas = deltas;
+    }
+
+    /**
+     * Returns the delta logs applied to the attributes of this entry.
+     * @return the delta logs of a session
+     */
+    public SessionAttributeDeltas<?> getDeltas() {
+        return this.deltas;
+    }
+}
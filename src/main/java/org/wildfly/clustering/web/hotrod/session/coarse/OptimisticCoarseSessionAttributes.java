@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.infinispan.client.hotrod.VersionedValue;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.cache.session.SessionAttributeImmutability;
+import org.wildfly.clustering.web.cache.session.coarse.CoarseSessionAttributes;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+
+/**
+ * Exposes session attributes for a coarse granularity session, whose attributes are written upon close only if their cache entry was not written concurrently.
+ * Otherwise, the attributes changed by this session, i.e. those set, removed, or mutable attributes that were read, are merged into the current attributes, and written conditionally,
+ * waiting a random, exponentially increasing, duration between attempts.
+ * If every attempt conflicts with a concurrent write, or if the current attributes cannot be read, the attributes are overwritten, unless the session was removed.
+ * @author Paul Ferraro
+ */
+public class OptimisticCoarseSessionAttributes<V> extends CoarseSessionAttributes {
+
+    // Maximum number of conditional writes, before concurrent changes are overwritten
+    static final int MAX_WRITE_ATTEMPTS = 8;
+
+    private final SessionAttributesKey key;
+    private final Map<String, Object> attributes;
+    private final VersionedValue<V> version;
+    private final ChunkedValueCache<SessionAttributesKey, V> cache;
+    private final Marshaller<Map<String, Object>, V> marshaller;
+    private final DeferredMutator mutator;
+    private final Set<String> changes = ConcurrentHashMap.newKeySet();
+
+    public OptimisticCoarseSessionAttributes(SessionAttributesKey key, VersionedSessionAttributesEntry<V> entry, ChunkedValueCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties) {
+        this(key, entry, cache, marshaller, properties, new DeferredMutator());
+    }
+
+    private OptimisticCoarseSessionAttributes(SessionAttributesKey key, VersionedSessionAttributesEntry<V> entry, ChunkedValueCache<SessionAttributesKey, V> cache, Marshaller<Map<String, Object>, V> marshaller, CacheProperties properties, DeferredMutator mutator) {
+        super(entry.getKey(), mutator, marshaller, properties);
+        this.key = key;
+        this.attributes = entry.getKey();
+        this.version = entry.getVersion();
+        this.cache = cache;
+        this.marshaller = marshaller;
+        this.mutator = mutator;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        this.changes.add(name);
+        return super.removeAttribute(name);
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        this.changes.add(name);
+        return super.setAttribute(name, value);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object value = super.getAttribute(name);
+        if ((value != null) && !SessionAttributeImmutability.INSTANCE.test(value)) {
+            this.changes.add(name);
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (this.mutator.isMutated()) {
+            this.write();
+        }
+    }
+
+    private void write() {
+        VersionedValue<V> version = this.version;
+        V value = version.getValue();
+        for (int attempt = 1; !this.cache.replace(this.key, value, version); ++attempt) {
+            if ((attempt == MAX_WRITE_ATTEMPTS) || !backoff(attempt)) {
+                Logger.ROOT_LOGGER.sessionWriteConflicts(this.key.getId(), attempt);
+                // Overwrite using the most recently merged attributes, unless the session was removed concurrently
+                this.cache.replace(this.key, value);
+                return;
+            }
+            try {
+                version = this.cache.getVersioned(this.key);
+            } catch (IllegalStateException e) {
+                // Current attributes exist, but cannot be read, e.g. since their chunks no longer exist, so overwrite them
+                Logger.ROOT_LOGGER.failedToActivateSession(e, this.key.getId());
+                this.cache.write(this.key, this.version.getValue());
+                return;
+            }
+            // Do not resurrect a session that was removed concurrently
+            if (version == null) return;
+            try {
+                Map<String, Object> attributes = this.marshaller.read(version.getValue());
+                for (String name : this.changes) {
+                    Object attribute = this.attributes.get(name);
+                    if (attribute != null) {
+                        attributes.put(name, attribute);
+                    } else {
+                        attributes.remove(name);
+                    }
+                }
+                value = this.marshaller.write(attributes);
+            } catch (InvalidSerializedFormException e) {
+                // Current attributes cannot be merged, so overwrite them
+                Logger.ROOT_LOGGER.failedToActivateSession(e, this.key.getId());
+                this.cache.write(this.key, this.version.getValue());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for a random duration, whose upper bound doubles with each failed attempt, such that concurrent writers are unlikely to conflict again.
+     * @return true, if the next attempt should proceed, false if the current thread was interrupted
+     */
+    private static boolean backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1L << attempt));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Mutator that defers writing the attributes until close.
+     */
+    private static class DeferredMutator implements Mutator {
+        private volatile boolean mutated = false;
+
+        @Override
+        public void mutate() {
+            this.mutated = true;
+        }
+
+        boolean isMutated() {
+            return this.mutated;
+        }
+    }
+}
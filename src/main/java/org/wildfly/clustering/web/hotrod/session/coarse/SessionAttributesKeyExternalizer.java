@@ -33,6 +33,6 @@ import org.wildfly.clustering.web.hotrod.SessionKeyExternalizer;
 public class SessionAttributesKeyExternalizer extends SessionKeyExternalizer<SessionAttributesKey> {
 
     public SessionAttributesKeyExternalizer() {
-        super(SessionAttributesKey.class, SessionAttributesKey::new);
+        super(3, SessionAttributesKey.class, SessionAttributesKey::new);
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import java.util.Map;
+
+import org.infinispan.client.hotrod.VersionedValue;
+
+/**
+ * The attributes of a coarse granularity session, along with their marshalled value and the version of the cache entry from which they were read.
+ * @author Paul Ferraro
+ */
+public class VersionedSessionAttributesEntry<V> extends CoarseSessionAttributesEntry<V> {
+    private static final long serialVersionUID = -2447263227271569151L;
+
+    private final transient VersionedValue<V> version;
+
+    public VersionedSessionAttributesEntry(SessionAttributesKey cacheKey, Map<String, Object> attributes, VersionedValue<V> version) {
+        super(cacheKey, attributes, version.getValue());
+        this.version = version;
+    }
+
+    /**
+     * Returns the versioned cache entry from which these attributes were read.
+     * @return a versioned value
+     */
+    public VersionedValue<V> getVersion() {
+        return this.version;
+    }
+}
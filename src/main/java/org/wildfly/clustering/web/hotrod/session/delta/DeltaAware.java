@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+/**
+ * Implemented by mutable session attribute types, e.g. large collections, whose changes can be replicated as a delta, rather than by rewriting the attribute in its entirety.
+ * Changes to such an attribute are appended to a log of deltas, which is applied to the attribute when it is next read.
+ * @param <T> the session attribute type
+ * @author Paul Ferraro
+ */
+public interface DeltaAware<T> {
+
+    /**
+     * Returns the changes to this object since it was read, or since this method was last invoked, and resets them.
+     * Changes made by the application of a {@link Delta} are discarded via this method.
+     * @return a delta, or null, if these changes cannot be expressed as a delta, in which case this object is written in its entirety.
+     */
+    Delta<T> delta();
+}
@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+/**
+ * The header of the log of deltas of an attribute of a session, i.e. the version of the cache entry of the attribute value to which its deltas apply,
+ * and the number of logged deltas, each of which is stored in a separate cache entry.
+ * Since writing an attribute in its entirety changes the version of its cache entry, a log that outlives a compaction is never applied.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeDeltaLog {
+
+    private final long version;
+    private final int size;
+
+    public SessionAttributeDeltaLog(long version, int size) {
+        this.version = version;
+        this.size = size;
+    }
+
+    /**
+     * Returns the version of the cache entry of the attribute value to which these deltas apply.
+     * @return a cache entry version
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the number of logged deltas, i.e. the index of the next delta.
+     * @return the number of logged deltas
+     */
+    public int getSize() {
+        return this.size;
+    }
+}
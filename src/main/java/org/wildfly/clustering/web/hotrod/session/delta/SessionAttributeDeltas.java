@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.DeferrableMutator;
+import org.wildfly.clustering.web.hotrod.session.SessionWriteBehindQueue;
+
+/**
+ * The logs of deltas of the {@link DeltaAware} attributes of a session.
+ * Each delta is stored as a separate cache entry, indexed by its position within the log of its attribute,
+ * while a small header entry per attribute records the number of logged deltas and the version of the cache entry of the attribute value to which they apply.
+ * Thus appending a delta writes only that delta and the header, regardless of the size of the log.
+ * A log is read only once its attribute is read, and is only applied to the attribute value of the same version, thus its deltas are never applied twice.
+ * The deltas of an attribute are compacted, i.e. discarded, whenever the attribute is written in its entirety,
+ * which happens if its changes cannot be expressed as a delta, or if its log had reached a given number of deltas when read, even if the attribute did not change.
+ * Since a full write changes the version of the attribute value, the log is only removed after the full write.
+ * Deltas are written before the header that references them, and the header is removed before its deltas, thus a header never references deltas that were not yet written.
+ * N.B. Like other session attribute writes, concurrent appends to the log of the same attribute are not merged, i.e. the last writer wins.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeDeltas<V> {
+
+    private final RemoteCache<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logCache;
+    private final RemoteCache<SessionAttributeDeltaKey, V> deltaCache;
+    private final String id;
+    private final Marshaller<Object, V> marshaller;
+    private final int limit;
+
+    // Versions of the attribute values to which logged deltas apply, by attribute name
+    private final Map<String, Long> versions = new HashMap<>();
+    // Number of logged deltas, including those appended but not yet written, by attribute name
+    private final Map<String, Integer> sizes = new HashMap<>();
+    // Deltas appended since the last write, by attribute name
+    private final Map<String, List<V>> appended = new HashMap<>();
+    // Number of deltas of logs to remove, by attribute name
+    private final Map<String, Integer> removed = new HashMap<>();
+    // Names of attributes whose log reached its limit when read
+    private final Set<String> compact = new HashSet<>();
+    // Names of attributes whose log was appended or discarded
+    private final Set<String> dirty = new HashSet<>();
+
+    public SessionAttributeDeltas(RemoteCache<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logCache, RemoteCache<SessionAttributeDeltaKey, V> deltaCache, String id, Marshaller<Object, V> marshaller, int limit) {
+        this.logCache = logCache;
+        this.deltaCache = deltaCache;
+        this.id = id;
+        this.marshaller = marshaller;
+        this.limit = limit;
+    }
+
+    /**
+     * Applies the logged deltas of the specified attribute, if it is delta aware.
+     * @param name an attribute name
+     * @param attribute an attribute value
+     * @param version the version of the cache entry from which the attribute was read
+     * @return the specified attribute value
+     */
+    public synchronized Object apply(String name, Object attribute, long version) {
+        if (attribute instanceof DeltaAware) {
+            SessionAttributeDeltaLog log = this.logCache.get(new SessionAttributeDeltasKey(this.id, name));
+            Set<SessionAttributeDeltaKey> keys = new HashSet<>();
+            this.addDeltaKeys(keys, name, log, version);
+            this.apply(name, (DeltaAware<?>) attribute, version, log, this.readDeltas(keys));
+        }
+        return attribute;
+    }
+
+    /**
+     * Applies the logged deltas of the delta aware attributes of the specified map, reading their logs, and then their deltas, in bulk.
+     * @param attributes a map of attribute names to values
+     * @param version the version of the cache entry from which the attributes were read
+     */
+    public synchronized void apply(Map<String, Object> attributes, long version) {
+        Set<SessionAttributeDeltasKey> keys = new HashSet<>();
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            if (entry.getValue() instanceof DeltaAware) {
+                keys.add(new SessionAttributeDeltasKey(this.id, entry.getKey()));
+            }
+        }
+        // Only read the logs if the session has delta aware attributes
+        if (keys.isEmpty()) return;
+        Map<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logs = this.logCache.getAll(keys);
+        Set<SessionAttributeDeltaKey> deltaKeys = new HashSet<>();
+        for (Map.Entry<SessionAttributeDeltasKey, SessionAttributeDeltaLog> entry : logs.entrySet()) {
+            this.addDeltaKeys(deltaKeys, entry.getKey().getName(), entry.getValue(), version);
+        }
+        Map<SessionAttributeDeltaKey, V> deltas = this.readDeltas(deltaKeys);
+        for (SessionAttributeDeltasKey key : keys) {
+            this.apply(key.getName(), (DeltaAware<?>) attributes.get(key.getName()), version, logs.get(key), deltas);
+        }
+    }
+
+    private void addDeltaKeys(Set<SessionAttributeDeltaKey> keys, String name, SessionAttributeDeltaLog log, long version) {
+        if ((log != null) && (log.getVersion() == version)) {
+            for (int i = 0; i < log.getSize(); ++i) {
+                keys.add(new SessionAttributeDeltaKey(this.id, name, i));
+            }
+        }
+    }
+
+    private Map<SessionAttributeDeltaKey, V> readDeltas(Set<SessionAttributeDeltaKey> keys) {
+        return keys.isEmpty() ? Collections.emptyMap() : this.deltaCache.getAll(keys);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void apply(String name, DeltaAware<?> attribute, long version, SessionAttributeDeltaLog log, Map<SessionAttributeDeltaKey, V> deltas) {
+        this.versions.put(name, version);
+        if (log != null) {
+            if (log.getVersion() == version) {
+                int size = log.getSize();
+                for (int i = 0; i < size; ++i) {
+                    V delta = deltas.get(new SessionAttributeDeltaKey(this.id, name, i));
+                    if (delta == null) {
+                        throw Logger.ROOT_LOGGER.missingSessionAttributeDelta(this.id, name, i);
+                    }
+                    try {
+                        ((Delta) this.marshaller.read(delta)).apply(attribute);
+                    } catch (InvalidSerializedFormException e) {
+                        throw Logger.ROOT_LOGGER.failedToReadSessionAttribute(e, this.id, name);
+                    }
+                }
+                this.sizes.put(name, size);
+                // Compact a full log, rather than reapplying its deltas on every read
+                if (size >= this.limit) {
+                    this.compact.add(name);
+                }
+            } else {
+                // A log of a different version either predates a full write of the attribute, or follows a concurrent full write
+                // Remove it with the next write, such that it cannot leave stale deltas behind
+                this.removed.merge(name, log.getSize(), Math::max);
+                this.dirty.add(name);
+            }
+        }
+        // Discard the changes made by the application of the logged deltas
+        attribute.delta();
+    }
+
+    /**
+     * Appends the pending changes of the specified attribute to its log.
+     * @param name an attribute name
+     * @param attribute a delta aware attribute value
+     * @return true, if the changes of the attribute were appended, or if there were none, false if the attribute must be written in its entirety.
+     */
+    public synchronized boolean append(String name, DeltaAware<?> attribute) {
+        Delta<?> delta = attribute.delta();
+        if (delta == null) return false;
+        // A log that reached its limit when read is compacted, even if the attribute did not change
+        if (this.compact.remove(name)) return false;
+        if (delta.isEmpty()) return true;
+        // Deltas can only be logged against an attribute value of known version
+        if (!this.versions.containsKey(name)) return false;
+
+        int size = this.sizes.getOrDefault(name, 0);
+        if (size >= this.limit) return false;
+
+        this.appended.computeIfAbsent(name, key -> new ArrayList<>()).add(this.marshaller.write(delta));
+        this.sizes.put(name, size + 1);
+        this.dirty.add(name);
+        return true;
+    }
+
+    /**
+     * Discards the logged deltas of the specified attribute, once it was replaced, removed, or written in its entirety.
+     * @param name an attribute name
+     */
+    public synchronized void discard(String name) {
+        // The version of the written attribute value is not known
+        this.versions.remove(name);
+        this.compact.remove(name);
+        this.appended.remove(name);
+        Integer size = this.sizes.remove(name);
+        if (size != null) {
+            this.removed.merge(name, size, Math::max);
+            this.dirty.add(name);
+        }
+    }
+
+    /**
+     * Discards the logged deltas of all attributes, once all attributes were written in their entirety.
+     */
+    public synchronized void clear() {
+        for (String name : new ArrayList<>(this.sizes.keySet())) {
+            this.discard(name);
+        }
+        this.versions.clear();
+        this.compact.clear();
+    }
+
+    /**
+     * Removes the logs that were discarded, and writes the deltas that were appended, followed by the headers of their logs.
+     */
+    public synchronized void write() {
+        for (String name : this.dirty) {
+            SessionAttributeDeltasKey logKey = new SessionAttributeDeltasKey(this.id, name);
+            Integer removed = this.removed.remove(name);
+            if (removed != null) {
+                SessionWriteBehindQueue.defer(logKey, () -> this.logCache.remove(logKey));
+                for (int i = 0; i < removed; ++i) {
+                    SessionAttributeDeltaKey key = new SessionAttributeDeltaKey(this.id, name, i);
+                    SessionWriteBehindQueue.defer(key, () -> this.deltaCache.remove(key));
+                }
+            }
+            List<V> deltas = this.appended.remove(name);
+            if (deltas != null) {
+                int size = this.sizes.get(name);
+                int index = size - deltas.size();
+                for (V delta : deltas) {
+                    new DeferrableMutator<>(this.deltaCache, new SessionAttributeDeltaKey(this.id, name, index++), delta).mutate();
+                }
+                new DeferrableMutator<>(this.logCache, logKey, new SessionAttributeDeltaLog(this.versions.get(name), size)).mutate();
+            }
+        }
+        this.dirty.clear();
+    }
+}
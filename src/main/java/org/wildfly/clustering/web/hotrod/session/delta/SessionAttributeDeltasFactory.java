@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+import java.util.Collection;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+
+/**
+ * Creates the log of deltas of the {@link DeltaAware} attributes of a session.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeDeltasFactory<V> {
+
+    private final RemoteCache<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logCache;
+    private final RemoteCache<SessionAttributeDeltaKey, V> deltaCache;
+    private final Marshaller<Object, V> marshaller;
+    private final int limit;
+
+    /**
+     * Creates a factory of delta logs.
+     * @param logCache a remote cache of log headers
+     * @param deltaCache a remote cache of logged deltas
+     * @param marshaller a marshaller of deltas
+     * @param limit the maximum number of deltas logged per attribute, before the attribute is written in its entirety
+     */
+    public SessionAttributeDeltasFactory(RemoteCache<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logCache, RemoteCache<SessionAttributeDeltaKey, V> deltaCache, Marshaller<Object, V> marshaller, int limit) {
+        this.logCache = logCache;
+        this.deltaCache = deltaCache;
+        this.marshaller = marshaller;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates the delta log of the specified session.
+     * @param id a session identifier
+     * @return a delta log
+     */
+    public SessionAttributeDeltas<V> createDeltas(String id) {
+        return new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, this.limit);
+    }
+
+    /**
+     * Removes the delta logs of the specified attributes of the specified session.
+     * @param id a session identifier
+     * @param names the names of attributes that may have logged deltas
+     */
+    public void remove(String id, Collection<String> names) {
+        for (String name : names) {
+            SessionAttributeDeltaLog log = this.logCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(new SessionAttributeDeltasKey(id, name));
+            // Remove the header before its deltas
+            if (log != null) {
+                for (int i = 0; i < log.getSize(); ++i) {
+                    this.deltaCache.remove(new SessionAttributeDeltaKey(id, name, i));
+                }
+            }
+        }
+    }
+}
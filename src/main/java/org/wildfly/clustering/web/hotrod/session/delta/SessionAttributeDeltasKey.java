@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+import org.wildfly.clustering.infinispan.client.Key;
+
+/**
+ * Cache key for the logged deltas of an attribute of a session.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeDeltasKey extends Key<String> {
+
+    private final String name;
+    private final int hashCode;
+
+    public SessionAttributeDeltasKey(String id, String name) {
+        super(id);
+        this.name = name;
+        this.hashCode = 31 * super.hashCode() + name.hashCode();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return super.equals(object) && (object instanceof SessionAttributeDeltasKey) && this.name.equals(((SessionAttributeDeltasKey) object).name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%s[%s])", SessionAttributeDeltasKey.class.getSimpleName(), this.getId(), this.name);
+    }
+}
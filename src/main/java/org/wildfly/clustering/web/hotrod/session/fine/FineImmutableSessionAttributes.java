@@ -24,11 +24,14 @@ package org.wildfly.clustering.web.hotrod.session.fine;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
 import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 
 /**
@@ -38,14 +41,22 @@ import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 public class FineImmutableSessionAttributes<V> implements ImmutableSessionAttributes {
     private final String id;
     private final Map<String, UUID> names;
-    private final RemoteCache<SessionAttributeKey, V> cache;
+    private final ChunkedValueCache<SessionAttributeKey, V> cache;
     private final Marshaller<Object, V> marshaller;
+    private final SessionAttributeDeltas<?> deltas;
+    // Reused by subsequent operations on the same attribute
+    private final Map<UUID, SessionAttributeKey> keys = new ConcurrentHashMap<>();
 
-    public FineImmutableSessionAttributes(String id, Map<String, UUID> names, RemoteCache<SessionAttributeKey, V> cache, Marshaller<Object, V> marshaller) {
+    public FineImmutableSessionAttributes(String id, Map<String, UUID> names, ChunkedValueCache<SessionAttributeKey, V> cache, Marshaller<Object, V> marshaller) {
+        this(id, names, cache, marshaller, null);
+    }
+
+    public FineImmutableSessionAttributes(String id, Map<String, UUID> names, ChunkedValueCache<SessionAttributeKey, V> cache, Marshaller<Object, V> marshaller, SessionAttributeDeltas<?> deltas) {
         this.id = id;
         this.names = names;
         this.cache = cache;
         this.marshaller = marshaller;
+        this.deltas = deltas;
     }
 
     @Override
@@ -56,7 +67,34 @@ public class FineImmutableSessionAttributes<V> implements ImmutableSessionAttrib
     @Override
     public Object getAttribute(String name) {
         UUID attributeId = this.names.get(name);
-        return (attributeId != null) ? this.read(name, this.cache.get(new SessionAttributeKey(this.id, attributeId))) : null;
+        if (attributeId == null) return null;
+        SessionAttributeKey key = this.getKey(attributeId);
+        if (this.deltas == null) return this.read(name, this.cache.get(key));
+        // Logged deltas apply to a specific version of the attribute value
+        VersionedValue<V> value = this.cache.getVersioned(key);
+        return (value != null) ? this.applyDeltas(name, this.read(name, value.getValue()), value.getVersion()) : null;
+    }
+
+    /**
+     * Returns the cache key of the specified attribute, created once per attribute.
+     */
+    protected SessionAttributeKey getKey(UUID attributeId) {
+        SessionAttributeKey key = this.keys.get(attributeId);
+        if (key == null) {
+            key = new SessionAttributeKey(this.id, attributeId);
+            SessionAttributeKey existing = this.keys.putIfAbsent(attributeId, key);
+            if (existing != null) {
+                key = existing;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Applies the logged deltas of the specified attribute, if delta aware.
+     */
+    protected Object applyDeltas(String name, Object attribute, long version) {
+        return (this.deltas != null) ? this.deltas.apply(name, attribute, version) : attribute;
     }
 
     protected Object read(String name, V value) {
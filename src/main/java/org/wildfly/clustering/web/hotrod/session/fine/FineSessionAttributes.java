@@ -29,16 +29,19 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
 import org.wildfly.clustering.ee.Mutator;
 import org.wildfly.clustering.ee.cache.CacheProperties;
 import org.wildfly.clustering.ee.cache.function.ConcurrentMapPutFunction;
 import org.wildfly.clustering.ee.cache.function.ConcurrentMapRemoveFunction;
 import org.wildfly.clustering.ee.cache.function.CopyOnWriteMapPutFunction;
 import org.wildfly.clustering.ee.cache.function.CopyOnWriteMapRemoveFunction;
-import org.wildfly.clustering.ee.hotrod.RemoteCacheEntryMutator;
 import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.cache.session.SessionAttributeImmutability;
 import org.wildfly.clustering.web.cache.session.SessionAttributes;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.delta.DeltaAware;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
 
 /**
  * Exposes session attributes for fine granularity sessions.
@@ -46,23 +49,29 @@ import org.wildfly.clustering.web.cache.session.SessionAttributes;
  */
 public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V> implements SessionAttributes {
 
-    private final String id;
+    private final SessionAttributeNamesKey namesKey;
     private final RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache;
-    private final RemoteCache<SessionAttributeKey, V> attributeCache;
+    private final ChunkedValueCache<SessionAttributeKey, V> attributeCache;
     private final Map<String, Mutator> mutations = new ConcurrentHashMap<>();
     private final Marshaller<Object, V> marshaller;
     private final CacheProperties properties;
+    private final SessionAttributeDeltas<?> deltas;
 
     private volatile Map<String, UUID> names;
 
-    public FineSessionAttributes(String id, Map<String, UUID> names, RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, RemoteCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties) {
-        super(id, names, attributeCache, marshaller);
-        this.id = id;
+    public FineSessionAttributes(String id, Map<String, UUID> names, RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, ChunkedValueCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties) {
+        this(id, names, namesCache, attributeCache, marshaller, properties, null);
+    }
+
+    public FineSessionAttributes(String id, Map<String, UUID> names, RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, ChunkedValueCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties, SessionAttributeDeltas<?> deltas) {
+        super(id, names, attributeCache, marshaller, deltas);
+        this.namesKey = new SessionAttributeNamesKey(id);
         this.names = names;
         this.namesCache = namesCache;
         this.attributeCache = attributeCache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.deltas = deltas;
     }
 
     @Override
@@ -70,9 +79,10 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         UUID attributeId = this.names.remove(name);
         if (attributeId == null) return null;
 
-        this.setNames(this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).computeIfPresent(this.createKey(), this.properties.isTransactional() ? new CopyOnWriteMapRemoveFunction<>(name) : new ConcurrentMapRemoveFunction<>(name)));
+        this.setNames(this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).computeIfPresent(this.namesKey, this.properties.isTransactional() ? new CopyOnWriteMapRemoveFunction<>(name) : new ConcurrentMapRemoveFunction<>(name)));
 
-        Object result = this.read(name, this.attributeCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(this.createKey(attributeId)));
+        Object result = this.read(name, this.attributeCache.remove(this.getKey(attributeId)));
+        this.discardDeltas(name);
         this.mutations.remove(name);
         return result;
     }
@@ -90,11 +100,13 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         UUID attributeId = this.names.get(name);
         if (attributeId == null) {
             UUID newAttributeId = UUID.randomUUID();
-            this.setNames(this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).compute(this.createKey(), this.properties.isTransactional() ? new CopyOnWriteMapPutFunction<>(name, newAttributeId) : new ConcurrentMapPutFunction<>(name, newAttributeId)));
+            this.setNames(this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).compute(this.namesKey, this.properties.isTransactional() ? new CopyOnWriteMapPutFunction<>(name, newAttributeId) : new ConcurrentMapPutFunction<>(name, newAttributeId)));
             attributeId = this.names.get(name);
         }
 
-        Object result = this.read(name, this.attributeCache.withFlags(Flag.FORCE_RETURN_VALUE).put(this.createKey(attributeId), value));
+        Object result = this.read(name, this.attributeCache.put(this.getKey(attributeId), value));
+        // Discard logged deltas only after the attribute is written
+        this.discardDeltas(name);
         this.mutations.remove(name);
         return result;
     }
@@ -104,13 +116,24 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         UUID attributeId = this.names.get(name);
         if (attributeId == null) return null;
 
-        SessionAttributeKey key = this.createKey(attributeId);
-        V value = this.attributeCache.get(key);
-        Object attribute = this.read(name, value);
+        SessionAttributeKey key = this.getKey(attributeId);
+        V value = null;
+        Object attribute = null;
+        if (this.deltas != null) {
+            // Logged deltas apply to a specific version of the attribute value
+            VersionedValue<V> version = this.attributeCache.getVersioned(key);
+            if (version != null) {
+                value = version.getValue();
+                attribute = this.applyDeltas(name, this.read(name, value), version.getVersion());
+            }
+        } else {
+            value = this.attributeCache.get(key);
+            attribute = this.read(name, value);
+        }
         if (attribute != null) {
             // If the object is mutable, we need to indicate that the attribute should be replicated
             if (!SessionAttributeImmutability.INSTANCE.test(attribute)) {
-                Mutator mutator = new RemoteCacheEntryMutator<>(this.attributeCache, key, value);
+                Mutator mutator = ((this.deltas != null) && (attribute instanceof DeltaAware)) ? this.createDeltaMutator(name, (DeltaAware<?>) attribute, this.attributeCache.createMutator(key, value)) : this.attributeCache.createMutator(key, value);
                 // If cache is not transactional, mutate on close instead.
                 if ((this.mutations.putIfAbsent(name, mutator) == null) && this.properties.isTransactional()) {
                     mutator.mutate();
@@ -130,15 +153,29 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         this.mutations.clear();
     }
 
-    private void setNames(Map<String, UUID> names) {
-        this.names = (names != null) ? Collections.unmodifiableMap(names) : Collections.emptyMap();
+    /**
+     * Creates a mutator that appends the deltas of the specified attribute to its log, or, if necessary, writes the attribute in its entirety.
+     */
+    private Mutator createDeltaMutator(String name, DeltaAware<?> attribute, Mutator mutator) {
+        SessionAttributeDeltas<?> deltas = this.deltas;
+        return () -> {
+            if (!deltas.append(name, attribute)) {
+                // Write the attribute before discarding its logged deltas, which no longer apply to the written version
+                mutator.mutate();
+                deltas.discard(name);
+            }
+            deltas.write();
+        };
     }
 
-    private SessionAttributeNamesKey createKey() {
-        return new SessionAttributeNamesKey(this.id);
+    private void discardDeltas(String name) {
+        if (this.deltas != null) {
+            this.deltas.discard(name);
+            this.deltas.write();
+        }
     }
 
-    private SessionAttributeKey createKey(UUID attributeId) {
-        return new SessionAttributeKey(this.id, attributeId);
+    private void setNames(Map<String, UUID> names) {
+        this.names = (names != null) ? Collections.unmodifiableMap(names) : Collections.emptyMap();
     }
 }
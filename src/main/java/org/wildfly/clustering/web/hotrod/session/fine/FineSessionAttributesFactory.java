@@ -34,6 +34,10 @@ import org.wildfly.clustering.marshalling.spi.Marshaller;
 import org.wildfly.clustering.web.cache.session.SessionAttributes;
 import org.wildfly.clustering.web.cache.session.SessionAttributesFactory;
 import org.wildfly.clustering.web.hotrod.Logger;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+import org.wildfly.clustering.web.hotrod.session.delta.DeltaAware;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltas;
+import org.wildfly.clustering.web.hotrod.session.delta.SessionAttributeDeltasFactory;
 import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 
 /**
@@ -45,15 +49,25 @@ import org.wildfly.clustering.web.session.ImmutableSessionAttributes;
 public class FineSessionAttributesFactory<V> implements SessionAttributesFactory<Map<String, UUID>> {
 
     private final RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache;
-    private final RemoteCache<SessionAttributeKey, V> attributeCache;
+    private final ChunkedValueCache<SessionAttributeKey, V> attributeCache;
     private final Marshaller<Object, V> marshaller;
     private final CacheProperties properties;
+    private final SessionAttributeDeltasFactory<?> deltasFactory;
 
-    public FineSessionAttributesFactory(RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, RemoteCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties) {
+    public FineSessionAttributesFactory(RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, ChunkedValueCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties) {
+        this(namesCache, attributeCache, marshaller, properties, null);
+    }
+
+    /**
+     * Creates a factory of fine granularity session attributes.
+     * @param deltasFactory a factory of delta logs, or null, if {@link DeltaAware} attributes are always written in their entirety
+     */
+    public FineSessionAttributesFactory(RemoteCache<SessionAttributeNamesKey, Map<String, UUID>> namesCache, ChunkedValueCache<SessionAttributeKey, V> attributeCache, Marshaller<Object, V> marshaller, CacheProperties properties, SessionAttributeDeltasFactory<?> deltasFactory) {
         this.namesCache = namesCache;
         this.attributeCache = attributeCache;
         this.marshaller = marshaller;
         this.properties = properties;
+        this.deltasFactory = deltasFactory;
     }
 
     @Override
@@ -64,45 +78,66 @@ public class FineSessionAttributesFactory<V> implements SessionAttributesFactory
     @Override
     public Map<String, UUID> findValue(String id) {
         Map<String, UUID> names = this.namesCache.get(new SessionAttributeNamesKey(id));
-        if (names != null) {
-            for (Map.Entry<String, UUID> nameEntry : names.entrySet()) {
-                V value = this.attributeCache.get(new SessionAttributeKey(id, nameEntry.getValue()));
-                if (value != null) {
-                    try {
-                        this.marshaller.read(value);
-                        continue;
-                    } catch (InvalidSerializedFormException e) {
-                        Logger.ROOT_LOGGER.failedToActivateSessionAttribute(e, id, nameEntry.getKey());
-                    }
-                } else {
-                    Logger.ROOT_LOGGER.missingSessionAttributeCacheEntry(id, nameEntry.getKey());
+        return (names != null) ? this.validate(id, names) : Collections.emptyMap();
+    }
+
+    /**
+     * Verifies that the attributes of the specified names can be read, removing the session if not.
+     * @param id a session identifier
+     * @param names a map of attribute names to identifiers, as read from the cache
+     * @return the specified names, or null, if an attribute could not be read
+     */
+    public Map<String, UUID> validate(String id, Map<String, UUID> names) {
+        for (Map.Entry<String, UUID> nameEntry : names.entrySet()) {
+            V value = this.attributeCache.get(new SessionAttributeKey(id, nameEntry.getValue()));
+            if (value != null) {
+                try {
+                    this.marshaller.read(value);
+                    continue;
+                } catch (InvalidSerializedFormException e) {
+                    Logger.ROOT_LOGGER.failedToActivateSessionAttribute(e, id, nameEntry.getKey());
                 }
-                this.remove(id);
-                return null;
+            } else {
+                Logger.ROOT_LOGGER.missingSessionAttributeCacheEntry(id, nameEntry.getKey());
             }
-            return names;
+            this.remove(id);
+            return null;
         }
-        return Collections.emptyMap();
+        return names;
     }
 
     @Override
     public boolean remove(String id) {
         Map<String, UUID> names = this.namesCache.withFlags(Flag.FORCE_RETURN_VALUE).remove(new SessionAttributeNamesKey(id));
-        if (names != null) {
-            for (UUID attributeId : names.values()) {
-                this.attributeCache.remove(new SessionAttributeKey(id, attributeId));
-            }
-        }
+        this.remove(id, (names != null) ? names : Collections.emptyMap());
         return true;
     }
 
+    /**
+     * Removes the attributes of the specified names, whose names entry was already removed.
+     * @param id a session identifier
+     * @param names a map of attribute names to identifiers
+     */
+    public void remove(String id, Map<String, UUID> names) {
+        for (UUID attributeId : names.values()) {
+            this.attributeCache.delete(new SessionAttributeKey(id, attributeId));
+        }
+        if (this.deltasFactory != null) {
+            this.deltasFactory.remove(id, names.keySet());
+        }
+    }
+
     @Override
     public SessionAttributes createSessionAttributes(String id, Map<String, UUID> names) {
-        return new FineSessionAttributes<>(id, names, this.namesCache, this.attributeCache, this.marshaller, this.properties);
+        return new FineSessionAttributes<>(id, names, this.namesCache, this.attributeCache, this.marshaller, this.properties, this.createDeltas(id));
     }
 
     @Override
     public ImmutableSessionAttributes createImmutableSessionAttributes(String id, Map<String, UUID> names) {
-        return new FineImmutableSessionAttributes<>(id, names, this.attributeCache, this.marshaller);
+        return new FineImmutableSessionAttributes<>(id, names, this.attributeCache, this.marshaller, this.createDeltas(id));
+    }
+
+    private SessionAttributeDeltas<?> createDeltas(String id) {
+        return (this.deltasFactory != null) ? this.deltasFactory.createDeltas(id) : null;
     }
 }
@@ -22,7 +22,6 @@
 package org.wildfly.clustering.web.hotrod.session.fine;
 
 import java.util.Map;
-import java.util.Objects;
 import java.util.UUID;
 
 import org.wildfly.clustering.infinispan.client.Key;
@@ -34,6 +33,7 @@ import org.wildfly.clustering.infinispan.client.Key;
 public class SessionAttributeKey extends Key<String> {
 
     private final UUID attributeId;
+    private final int hashCode;
 
     public SessionAttributeKey(Map.Entry<String, UUID> entry) {
         this(entry.getKey(), entry.getValue());
@@ -42,6 +42,7 @@ public class SessionAttributeKey extends Key<String> {
     public SessionAttributeKey(String id, UUID attributeId) {
         super(id);
         this.attributeId = attributeId;
+        this.hashCode = 31 * super.hashCode() + attributeId.hashCode();
     }
 
     public UUID getAttributeId() {
@@ -50,7 +51,7 @@ public class SessionAttributeKey extends Key<String> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.getClass(), this.getId(), this.attributeId);
+        return this.hashCode;
     }
 
     @Override
@@ -60,6 +61,6 @@ public class SessionAttributeKey extends Key<String> {
 
     @Override
     public String toString() {
-        return String.format("%s(%s[%d])", SessionAttributeKey.class.getSimpleName(), this.getId(), this.attributeId);
+        return String.format("%s(%s[%s])", SessionAttributeKey.class.getSimpleName(), this.getId(), this.attributeId);
     }
 }
\ No newline at end of file
@@ -21,6 +21,8 @@
  */
 package org.wildfly.clustering.web.hotrod.session.fine;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -30,13 +32,14 @@ import org.kohsuke.MetaInfServices;
 import org.wildfly.clustering.marshalling.Externalizer;
 import org.wildfly.clustering.marshalling.spi.DefaultExternalizer;
 import org.wildfly.clustering.web.cache.SessionIdentifierSerializer;
+import org.wildfly.clustering.web.hotrod.KeyFormat;
 
 /**
- * Externalizer for a {@link SessionAttributeKey}.
+ * Externalizer, and binary format, for a {@link SessionAttributeKey}.
  * @author Paul Ferraro
  */
 @MetaInfServices(Externalizer.class)
-public class SessionAttributeKeyExternalizer implements Externalizer<SessionAttributeKey> {
+public class SessionAttributeKeyExternalizer implements Externalizer<SessionAttributeKey>, KeyFormat<SessionAttributeKey> {
 
     @Override
     public void writeObject(ObjectOutput output, SessionAttributeKey key) throws IOException {
@@ -51,6 +54,26 @@ public class SessionAttributeKeyExternalizer implements Externalizer<SessionAttr
         return new SessionAttributeKey(id, attributeId);
     }
 
+    @Override
+    public void write(DataOutput output, SessionAttributeKey key) throws IOException {
+        SessionIdentifierSerializer.INSTANCE.write(output, key.getId());
+        UUID attributeId = key.getAttributeId();
+        output.writeLong(attributeId.getMostSignificantBits());
+        output.writeLong(attributeId.getLeastSignificantBits());
+    }
+
+    @Override
+    public SessionAttributeKey read(DataInput input) throws IOException {
+        String id = SessionIdentifierSerializer.INSTANCE.read(input);
+        UUID attributeId = new UUID(input.readLong(), input.readLong());
+        return new SessionAttributeKey(id, attributeId);
+    }
+
+    @Override
+    public int getFormatId() {
+        return 5;
+    }
+
     @Override
     public Class<SessionAttributeKey> getTargetClass() {
         return SessionAttributeKey.class;
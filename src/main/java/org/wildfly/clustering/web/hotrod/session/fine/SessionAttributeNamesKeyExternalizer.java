@@ -33,6 +33,6 @@ import org.wildfly.clustering.web.hotrod.SessionKeyExternalizer;
 public class SessionAttributeNamesKeyExternalizer extends SessionKeyExternalizer<SessionAttributeNamesKey> {
 
     public SessionAttributeNamesKeyExternalizer() {
-        super(SessionAttributeNamesKey.class, SessionAttributeNamesKey::new);
+        super(4, SessionAttributeNamesKey.class, SessionAttributeNamesKey::new);
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.sso;
+
+import java.util.Map;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.ee.Batcher;
+import org.wildfly.clustering.ee.cache.tx.TransactionBatch;
+import org.wildfly.clustering.ee.hotrod.tx.HotRodBatcher;
+import org.wildfly.clustering.marshalling.spi.Marshallability;
+import org.wildfly.clustering.marshalling.spi.MarshalledValue;
+import org.wildfly.clustering.marshalling.spi.MarshalledValueMarshaller;
+import org.wildfly.clustering.web.IdentifierFactory;
+import org.wildfly.clustering.web.LocalContextFactory;
+import org.wildfly.clustering.web.cache.sso.CompositeSSOManager;
+import org.wildfly.clustering.web.cache.sso.SSOFactory;
+import org.wildfly.clustering.web.cache.sso.SessionsFactory;
+import org.wildfly.clustering.web.hotrod.sso.coarse.CoarseSessionsFactory;
+import org.wildfly.clustering.web.sso.SSOManager;
+import org.wildfly.clustering.web.sso.SSOManagerFactory;
+
+/**
+ * Factory for creating single sign on managers backed by a remote cache.
+ * @author Paul Ferraro
+ * @param <A> authentication type
+ * @param <D> deployment type
+ * @param <C> marshalling context type
+ */
+public class HotRodSSOManagerFactory<A, D, C extends Marshallability> implements SSOManagerFactory<A, D, String, TransactionBatch> {
+
+    private final HotRodSSOManagerFactoryConfiguration<C> configuration;
+    private final Batcher<TransactionBatch> batcher;
+
+    public HotRodSSOManagerFactory(HotRodSSOManagerFactoryConfiguration<C> configuration) {
+        this.configuration = configuration;
+        this.batcher = new HotRodBatcher(configuration.getCache());
+    }
+
+    @Override
+    public <L> SSOManager<A, D, String, L, TransactionBatch> createSSOManager(IdentifierFactory<String> identifierFactory, LocalContextFactory<L> localContextFactory) {
+        RemoteCache<?, ?> cache = this.configuration.getCache();
+        SessionsFactory<Map<D, String>, D, String> sessionsFactory = new CoarseSessionsFactory<>(cast(cache), cast(cache));
+        SSOFactory<?, Map<D, String>, A, D, String, L> factory = new HotRodSSOFactory<MarshalledValue<A, C>, Map<D, String>, A, D, String, L>(cast(cache), new MarshalledValueMarshaller<>(this.configuration.getMarshalledValueFactory(), this.configuration.getMarshallingContext()), localContextFactory, sessionsFactory);
+        return new CompositeSSOManager<>(factory, identifierFactory, this.batcher);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> RemoteCache<K, V> cast(RemoteCache<?, ?> cache) {
+        return (RemoteCache<K, V>) cache;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.sso.coarse;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.ee.hotrod.RemoteCacheEntryMutator;
+import org.wildfly.clustering.web.cache.sso.SessionsFactory;
+import org.wildfly.clustering.web.cache.sso.coarse.CoarseSessions;
+import org.wildfly.clustering.web.sso.Sessions;
+
+/**
+ * {@link SessionsFactory} that stores the sessions of a single sign on within a single cache entry.
+ * The single sign on of a session is located via a reverse index entry keyed by session identifier, rather than by a query of all single sign on entries.
+ * Since index entries are maintained separately from the sessions they reference, an index entry is verified against the sessions of its single sign on, and removed if stale.
+ * @author Paul Ferraro
+ */
+public class CoarseSessionsFactory<D> implements SessionsFactory<Map<D, String>, D, String> {
+
+    private final RemoteCache<SessionsKey, Map<D, String>> cache;
+    private final RemoteCache<SessionSSOKey, String> indexCache;
+
+    public CoarseSessionsFactory(RemoteCache<SessionsKey, Map<D, String>> cache, RemoteCache<SessionSSOKey, String> indexCache) {
+        this.cache = cache;
+        this.indexCache = indexCache;
+    }
+
+    @Override
+    public Sessions<D, String> createSessions(String ssoId, Map<D, String> value) {
+        SessionsKey key = new SessionsKey(ssoId);
+        return new IndexedSessions<>(ssoId, new CoarseSessions<>(value, new RemoteCacheEntryMutator<>(this.cache, key, value)), this.indexCache);
+    }
+
+    @Override
+    public Map<D, String> createValue(String id, Void context) {
+        Map<D, String> sessions = new ConcurrentHashMap<>();
+        this.cache.put(new SessionsKey(id), sessions);
+        return sessions;
+    }
+
+    @Override
+    public Map<D, String> findValue(String id) {
+        return this.cache.get(new SessionsKey(id));
+    }
+
+    @Override
+    public Map.Entry<String, Map<D, String>> findEntryContaining(String session) {
+        SessionSSOKey indexKey = new SessionSSOKey(session);
+        MetadataValue<String> index = this.indexCache.getWithMetadata(indexKey);
+        if (index != null) {
+            String ssoId = index.getValue();
+            Map<D, String> sessions = this.cache.get(new SessionsKey(ssoId));
+            if ((sessions != null) && sessions.containsValue(session)) {
+                return new SimpleImmutableEntry<>(ssoId, sessions);
+            }
+            // Index entry is stale, e.g. its single sign on was removed before the index entry
+            // Only remove it if it was not concurrently re-indexed to a different single sign on, i.e. if its version is unchanged
+            this.indexCache.removeWithVersion(indexKey, index.getVersion());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(String id) {
+        Map<D, String> sessions = this.cache.withFlags(Flag.FORCE_RETURN_VALUE).remove(new SessionsKey(id));
+        if (sessions == null) return false;
+        for (String session : sessions.values()) {
+            // A session may have been concurrently re-indexed to a different single sign on
+            IndexedSessions.removeIndex(this.indexCache, new SessionSSOKey(session), id);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.sso.coarse;
+
+import java.util.Set;
+
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.wildfly.clustering.web.sso.Sessions;
+
+/**
+ * {@link Sessions} decorator that maintains the reverse index entry of each session added to, or removed from, a single sign on.
+ * The index entry of a session is written after, and removed after, the sessions of its single sign on, such that an index entry is never observed before its session.
+ * @author Paul Ferraro
+ */
+public class IndexedSessions<D> implements Sessions<D, String> {
+
+    private final String ssoId;
+    private final Sessions<D, String> sessions;
+    private final RemoteCache<SessionSSOKey, String> indexCache;
+
+    public IndexedSessions(String ssoId, Sessions<D, String> sessions, RemoteCache<SessionSSOKey, String> indexCache) {
+        this.ssoId = ssoId;
+        this.sessions = sessions;
+        this.indexCache = indexCache;
+    }
+
+    @Override
+    public Set<D> getDeployments() {
+        return this.sessions.getDeployments();
+    }
+
+    @Override
+    public String getSession(D deployment) {
+        return this.sessions.getSession(deployment);
+    }
+
+    @Override
+    public String removeSession(D deployment) {
+        String removed = this.sessions.removeSession(deployment);
+        if (removed != null) {
+            // The session may have been concurrently re-indexed to a different single sign on
+            removeIndex(this.indexCache, new SessionSSOKey(removed), this.ssoId);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean addSession(D deployment, String session) {
+        boolean added = this.sessions.addSession(deployment, session);
+        if (added) {
+            this.indexCache.put(new SessionSSOKey(session), this.ssoId);
+        }
+        return added;
+    }
+
+    /**
+     * Removes the specified index entry, only if it still references the specified single sign on.
+     * Hot Rod does not support a conditional removal by value, thus the index entry is removed by version instead.
+     * @param indexCache a remote cache of index entries
+     * @param key the key of an index entry
+     * @param ssoId a single sign on identifier
+     */
+    static void removeIndex(RemoteCache<SessionSSOKey, String> indexCache, SessionSSOKey key, String ssoId) {
+        MetadataValue<String> entry = indexCache.getWithMetadata(key);
+        if ((entry != null) && ssoId.equals(entry.getValue())) {
+            // Fails if the session was re-indexed since
+            indexCache.removeWithVersion(key, entry.getVersion());
+        }
+    }
+}
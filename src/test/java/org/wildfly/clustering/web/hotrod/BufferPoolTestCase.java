@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link BufferPool} and {@link PooledOutputStream}.
+ * @author Paul Ferraro
+ */
+public class BufferPoolTestCase {
+
+    private final BufferPool pool = new BufferPool(1 << 16, 1 << 16);
+
+    @Test
+    public void acquire() {
+        byte[] buffer = this.pool.acquire(1);
+        assertEquals(1 << 10, buffer.length);
+
+        this.pool.release(buffer);
+        assertSame(buffer, this.pool.acquire(1000));
+
+        buffer = this.pool.acquire((1 << 12) + 1);
+        assertEquals(1 << 13, buffer.length);
+
+        // Oversized buffers are not pooled
+        buffer = this.pool.acquire((1 << 16) + 1);
+        assertEquals((1 << 16) + 1, buffer.length);
+        this.pool.release(buffer);
+        assertNotSame(buffer, this.pool.acquire((1 << 16) + 1));
+    }
+
+    @Test
+    public void write() {
+        byte[] bytes = new byte[5000];
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = (byte) i;
+        }
+        byte[] buffer;
+        try (PooledOutputStream output = new PooledOutputStream(this.pool, 16)) {
+            output.write(bytes[0]);
+            output.write(bytes, 1, bytes.length - 1);
+            assertEquals(bytes.length, output.size());
+            assertArrayEquals(bytes, output.toByteArray());
+            buffer = output.getBuffer();
+        }
+        // Buffer is returned to the pool on close
+        assertSame(buffer, this.pool.acquire(bytes.length));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.wildfly.clustering.infinispan.client.Key;
+import org.wildfly.clustering.marshalling.spi.MarshalledValue;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+
+/**
+ * Unit test for the key format of {@link HotRodMarshaller}.
+ * @author Paul Ferraro
+ */
+public class HotRodMarshallerTestCase {
+
+    private final HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 0, BufferPool.DEFAULT, true);
+    private final HotRodMarshaller legacyMarshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader());
+
+    @Test
+    public void test() throws Exception {
+        String id = "ABCDEFGHIJKLMNOPQRSTUVWXYZ012345";
+        this.test(new SessionCreationMetaDataKey(id));
+        this.test(new SessionAccessMetaDataKey(id));
+        this.test(new SessionAttributesKey(id));
+        this.test(new SessionAttributeNamesKey(id));
+        this.test(new SessionAttributeKey(id, UUID.randomUUID()));
+    }
+
+    @Test
+    public void formatId() throws Exception {
+        // Format identifiers are persisted, and must never change
+        String id = "ABCDEFGHIJKLMNOPQRSTUVWXYZ012345";
+        assertEquals(-1, this.marshaller.objectToByteBuffer(new SessionCreationMetaDataKey(id))[0]);
+        assertEquals(-2, this.marshaller.objectToByteBuffer(new SessionAccessMetaDataKey(id))[0]);
+        assertEquals(-3, this.marshaller.objectToByteBuffer(new SessionAttributesKey(id))[0]);
+        assertEquals(-4, this.marshaller.objectToByteBuffer(new SessionAttributeNamesKey(id))[0]);
+        assertEquals(-5, this.marshaller.objectToByteBuffer(new SessionAttributeKey(id, UUID.randomUUID()))[0]);
+    }
+
+    @Test
+    public void reusedBuffer() throws Exception {
+        SessionCreationMetaDataKey key = new SessionCreationMetaDataKey("ABCDEFGHIJKLMNOPQRSTUVWXYZ012345");
+        byte[] expected = this.marshaller.objectToByteBuffer(key);
+        byte[] buffer = expected.clone();
+        Object result = this.marshaller.objectFromByteBuffer(buffer);
+        // Simulate reuse of the buffer by the caller
+        Arrays.fill(buffer, (byte) 0);
+        assertArrayEquals(expected, this.marshaller.objectToByteBuffer(result));
+    }
+
+    @Test
+    public void compression() throws Exception {
+        HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 1024);
+        char[] chars = new char[8192];
+        Arrays.fill(chars, 'a');
+
+        TestMarshalledValue small = new TestMarshalledValue("small");
+        byte[] bytes = marshaller.objectToByteBuffer(small);
+        assertNotEquals(HotRodMarshaller.COMPRESSED, bytes[0]);
+        assertEquals(small, marshaller.objectFromByteBuffer(bytes));
+
+        TestMarshalledValue large = new TestMarshalledValue(new String(chars));
+        bytes = marshaller.objectToByteBuffer(large);
+        assertEquals(HotRodMarshaller.COMPRESSED, bytes[0]);
+        assertTrue(bytes.length < chars.length);
+        assertEquals(large, marshaller.objectFromByteBuffer(bytes));
+
+        // Compressed and uncompressed payloads are interchangeable
+        assertEquals(large, marshaller.objectFromByteBuffer(this.marshaller.objectToByteBuffer(large)));
+        assertEquals(large, this.marshaller.objectFromByteBuffer(bytes));
+
+        CompressionStatistics statistics = marshaller.getCompressionStatistics();
+        assertEquals(1L, statistics.getCompressions());
+        assertEquals(1L, statistics.getDecompressions());
+        assertTrue(statistics.getCompressionRatio() > 1);
+    }
+
+    @Test
+    public void stream() throws Exception {
+        HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 1024);
+        char[] chars = new char[8192];
+        Arrays.fill(chars, 'a');
+
+        for (Object object : Arrays.asList(new TestMarshalledValue("small"), new TestMarshalledValue(new String(chars)), new SessionCreationMetaDataKey("ABCDEFGHIJKLMNOPQRSTUVWXYZ012345"))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            marshaller.writeObject(object, output);
+            byte[] bytes = output.toByteArray();
+
+            // Streamed payloads are readable either as a stream or as a buffer
+            assertEquals(object, marshaller.readObject(new ByteArrayInputStream(bytes)));
+            assertEquals(object, marshaller.objectFromByteBuffer(bytes));
+            // Buffered payloads are readable as a stream
+            assertEquals(object, marshaller.readObject(new ByteArrayInputStream(marshaller.objectToByteBuffer(object))));
+        }
+
+        // Large marshalled values are compressed as they are streamed
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        marshaller.writeObject(new TestMarshalledValue(new String(chars)), output);
+        byte[] bytes = output.toByteArray();
+        assertEquals(HotRodMarshaller.COMPRESSED, bytes[0]);
+        assertTrue(bytes.length < chars.length);
+    }
+
+    @Test
+    public void compressionStatistics() throws Exception {
+        CompressionStatistics statistics = new CompressionStatistics();
+        HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 1024, BufferPool.DEFAULT, false, statistics);
+        char[] chars = new char[8192];
+        Arrays.fill(chars, 'a');
+        marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(new TestMarshalledValue(new String(chars))));
+
+        assertSame(statistics, marshaller.getCompressionStatistics());
+        assertEquals(1L, statistics.getCompressions());
+        assertEquals(1L, statistics.getDecompressions());
+    }
+
+    @Test(expected = IOException.class)
+    public void implausibleDecompressedSize() throws Exception {
+        // Claims to inflate 1 byte to ~2GB
+        byte[] bytes = new byte[] { HotRodMarshaller.COMPRESSED, (byte) 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0 };
+        this.marshaller.objectFromByteBuffer(bytes);
+    }
+
+    private void test(Key<String> key) throws Exception {
+        byte[] bytes = this.marshaller.objectToByteBuffer(key);
+
+        // Key formats are distinguished from JBoss Marshalling streams by a negative leading byte
+        assertTrue(bytes[0] < 0);
+        // Bytes are cached per key
+        assertSame(bytes, this.marshaller.objectToByteBuffer(key));
+
+        Object result = this.marshaller.objectFromByteBuffer(bytes);
+        assertEquals(key, result);
+        assertNotSame(key, result);
+
+        // Key embedded within a larger buffer
+        byte[] buffer = new byte[bytes.length + 2];
+        System.arraycopy(bytes, 0, buffer, 1, bytes.length);
+        assertEquals(key, this.marshaller.objectFromByteBuffer(buffer, 1, bytes.length));
+
+        // Binary key format is opt-in, but either form is readable by either marshaller
+        byte[] legacyBytes = this.legacyMarshaller.objectToByteBuffer(result);
+        assertTrue(legacyBytes[0] >= 0);
+        assertEquals(key, this.marshaller.objectFromByteBuffer(legacyBytes));
+        assertEquals(key, this.legacyMarshaller.objectFromByteBuffer(bytes));
+    }
+
+    static class TestMarshalledValue implements MarshalledValue<String, Object>, Serializable {
+        private static final long serialVersionUID = 8186217478441440337L;
+
+        private final String value;
+
+        TestMarshalledValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String get(Object context) {
+            return this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return (object instanceof TestMarshalledValue) && this.value.equals(((TestMarshalledValue) object).value);
+        }
+    }
+}
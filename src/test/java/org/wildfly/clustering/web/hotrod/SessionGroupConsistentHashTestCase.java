@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.wildfly.clustering.web.hotrod.session.ChunkKey;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+
+/**
+ * Unit test for {@link SessionGroupConsistentHash}.
+ * Verifies that the client routes each marshalled key to the owner of the segment computed by {@link SessionKeyPartitioner}.
+ * @author Paul Ferraro
+ */
+public class SessionGroupConsistentHashTestCase {
+
+    private static final int SEGMENTS = 256;
+
+    private final HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 0, BufferPool.DEFAULT, true);
+    private final SessionKeyPartitioner partitioner = new SessionKeyPartitioner(SEGMENTS);
+    private final SocketAddress[][] owners = new SocketAddress[SEGMENTS][];
+    private final SessionGroupConsistentHash hash = new SessionGroupConsistentHash();
+
+    public SessionGroupConsistentHashTestCase() {
+        // Each segment is owned by a distinct server, so that routing identifies the segment
+        for (int i = 0; i < SEGMENTS; ++i) {
+            this.owners[i] = new SocketAddress[] { InetSocketAddress.createUnresolved("server" + i, 11222) };
+        }
+        this.hash.init(this.owners, SEGMENTS);
+    }
+
+    @Test
+    public void test() throws Exception {
+        for (int i = 0; i < 100; ++i) {
+            String id = String.format("%032d", i);
+            this.assertRouted(new SessionCreationMetaDataKey(id));
+            this.assertRouted(new SessionAccessMetaDataKey(id));
+            this.assertRouted(new SessionAttributesKey(id));
+            this.assertRouted(new SessionAttributeNamesKey(id));
+            this.assertRouted(new SessionAttributeKey(id, UUID.randomUUID()));
+            this.assertRouted(new ChunkKey(id, UUID.randomUUID(), 0));
+            // Non-key objects are routed by their entire marshalled form
+            this.assertRouted(id);
+        }
+    }
+
+    private void assertRouted(Object key) throws Exception {
+        byte[] bytes = this.marshaller.objectToByteBuffer(key);
+        int segment = this.partitioner.getSegment(bytes);
+        assertEquals(segment, this.hash.getSegment(bytes));
+        assertSame(this.owners[segment][0], this.hash.getServer(bytes));
+    }
+}
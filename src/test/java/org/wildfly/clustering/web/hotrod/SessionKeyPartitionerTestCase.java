@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.wildfly.clustering.web.hotrod.session.ChunkKey;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+
+/**
+ * Unit test for {@link SessionKeyPartitioner}.
+ * Uses a stand-in for a cluster of servers, each owning a subset of segments.
+ * @author Paul Ferraro
+ */
+public class SessionKeyPartitionerTestCase {
+
+    private static final int SEGMENTS = 256;
+    private static final int SERVERS = 3;
+
+    private final HotRodMarshaller marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader(), 0, BufferPool.DEFAULT, true);
+    private final SessionKeyPartitioner partitioner = new SessionKeyPartitioner(SEGMENTS);
+
+    @Test
+    public void test() throws Exception {
+        Set<Integer> sessionOwners = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            String id = String.format("%032d", i);
+            Set<Integer> owners = new HashSet<>();
+            owners.add(this.owner(new SessionCreationMetaDataKey(id)));
+            owners.add(this.owner(new SessionAccessMetaDataKey(id)));
+            owners.add(this.owner(new SessionAttributesKey(id)));
+            owners.add(this.owner(new SessionAttributeNamesKey(id)));
+            owners.add(this.owner(new SessionAttributeKey(id, UUID.randomUUID())));
+            owners.add(this.owner(new SessionAttributeKey(id, UUID.randomUUID())));
+            owners.add(this.owner(new ChunkKey(id, UUID.randomUUID(), 0)));
+            owners.add(this.owner(new ChunkKey(id, UUID.randomUUID(), 1)));
+            // All entries of a session are co-located
+            assertEquals(1, owners.size());
+            sessionOwners.addAll(owners);
+        }
+        // Sessions themselves are still distributed across servers
+        assertEquals(SERVERS, sessionOwners.size());
+    }
+
+    @Test
+    public void group() throws Exception {
+        String id = "ABCDEFGHIJKLMNOPQRSTUVWXYZ012345";
+        byte[] group = SessionKeyPartitioner.group(this.marshaller.objectToByteBuffer(new SessionCreationMetaDataKey(id)));
+        assertArrayEquals(group, SessionKeyPartitioner.group(this.marshaller.objectToByteBuffer(new SessionAttributeKey(id, UUID.randomUUID()))));
+
+        // Non-key objects are hashed in their entirety
+        byte[] value = this.marshaller.objectToByteBuffer(id);
+        assertSame(value, SessionKeyPartitioner.group(value));
+    }
+
+    private int owner(Object key) throws Exception {
+        return this.partitioner.getSegment(this.marshaller.objectToByteBuffer(key)) % SERVERS;
+    }
+}
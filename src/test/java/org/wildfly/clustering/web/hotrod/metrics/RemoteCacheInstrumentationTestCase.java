@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit test for {@link RemoteCacheInstrumentation} and {@link SessionOperationMeasurement}.
+ * @author Paul Ferraro
+ */
+public class RemoteCacheInstrumentationTestCase {
+
+    @Test
+    public void test() {
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        SessionMetrics metrics = mock(SessionMetrics.class);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+
+        when(metrics.isEnabled(any(RemoteOperation.class))).thenReturn(true);
+        // Like the HotRod client, flags are applied to, and return, the same cache
+        when(cache.withFlags(Flag.FORCE_RETURN_VALUE)).thenReturn(cache);
+        when(cache.get("key")).thenReturn("value");
+        when(cache.putAsync("key", "value")).thenReturn(future);
+        when(cache.putIfAbsent("key", "value")).thenReturn(null);
+
+        RemoteCache<Object, Object> subject = RemoteCacheInstrumentation.instrument(cache, metrics);
+
+        SessionOperationMeasurement measurement = SessionOperationMeasurement.start(metrics);
+
+        assertEquals("value", subject.get("key"));
+        assertSame(subject, subject.withFlags(Flag.FORCE_RETURN_VALUE));
+        assertNull(subject.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent("key", "value"));
+        CompletableFuture<Object> result = subject.putAsync("key", "value");
+
+        verify(metrics).remoteOperationCompleted(eq(RemoteOperation.GET), anyLong());
+        verify(metrics).remoteOperationCompleted(eq(RemoteOperation.PUT_IF_ABSENT), anyLong());
+        // Asynchronous operations are recorded on completion
+        verify(metrics, never()).remoteOperationCompleted(eq(RemoteOperation.PUT), anyLong());
+        future.complete(null);
+        assertTrue(result.isDone());
+        verify(metrics).remoteOperationCompleted(eq(RemoteOperation.PUT), anyLong());
+
+        measurement.stop(SessionOperation.FIND, "session");
+
+        ArgumentCaptor<SessionOperationDetails> counts = ArgumentCaptor.forClass(SessionOperationDetails.class);
+        verify(metrics).sessionOperationCompleted(eq(SessionOperation.FIND), eq("session"), eq(-1), anyLong(), counts.capture());
+
+        assertEquals(3, counts.getValue().getTotal());
+        assertEquals(1, counts.getValue().getCount(RemoteOperation.GET));
+        assertEquals(1, counts.getValue().getCount(RemoteOperation.PUT_IF_ABSENT));
+        assertEquals(1, counts.getValue().getCount(RemoteOperation.PUT));
+        assertEquals(0, counts.getValue().getCount(RemoteOperation.REMOVE));
+        assertTrue(counts.getValue().getAccessedAttributes().isEmpty());
+    }
+
+    @Test
+    public void reuse() {
+        SessionMetrics metrics = mock(SessionMetrics.class);
+
+        SessionOperationMeasurement measurement = SessionOperationMeasurement.start(metrics);
+        SessionOperationMeasurement nested = SessionOperationMeasurement.start(metrics);
+        assertNotSame(measurement, nested);
+        nested.stop(SessionOperation.ACTIVATE, "session");
+        measurement.stop(SessionOperation.FIND, "session");
+
+        // Measurements are reused by the same thread
+        assertSame(measurement, SessionOperationMeasurement.start(metrics));
+        SessionOperationMeasurement.attributeAccessed("foo");
+        measurement.stop(SessionOperation.CLOSE, "session", 1, SessionOperationMeasurement.getAttributesAccessed());
+        SessionOperationMeasurement.clearAttributesAccessed();
+
+        ArgumentCaptor<SessionOperationDetails> details = ArgumentCaptor.forClass(SessionOperationDetails.class);
+        verify(metrics).sessionOperationCompleted(eq(SessionOperation.CLOSE), eq("session"), eq(1), anyLong(), details.capture());
+        assertSame(measurement, details.getValue());
+        assertTrue(SessionOperationMeasurement.getAttributesAccessed().isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.metrics;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SlowOperationLog}.
+ * @author Paul Ferraro
+ */
+public class SlowOperationLogTestCase {
+
+    @Test
+    public void test() {
+        SlowOperationLog log = new SlowOperationLog(Duration.ofMillis(10), 3);
+        long slow = TimeUnit.MILLISECONDS.toNanos(20);
+
+        assertEquals(4, log.getCapacity());
+        assertEquals(10, log.getThresholdMillis());
+
+        // Fast operations are not recorded
+        SessionOperationMeasurement.start(log).stop(SessionOperation.FIND, "fast");
+        assertTrue(log.getSlowOperations().isEmpty());
+        assertEquals(0, log.getRecordedCount());
+
+        SessionOperationDetails details = new SessionOperationDetails() {
+            @Override
+            public int getCount(RemoteOperation operation) {
+                return (operation == RemoteOperation.PUT) ? 2 : 0;
+            }
+
+            @Override
+            public int getTotal() {
+                return 2;
+            }
+
+            @Override
+            public long getRemoteTime() {
+                return TimeUnit.MILLISECONDS.toNanos(15);
+            }
+
+            @Override
+            public long getBytesRead() {
+                return 0;
+            }
+
+            @Override
+            public long getBytesWritten() {
+                return 1024;
+            }
+
+            @Override
+            public Set<String> getAccessedAttributes() {
+                return Collections.singleton("foo");
+            }
+        };
+        log.sessionOperationCompleted(SessionOperation.CLOSE, "session", 2, slow, details);
+
+        List<SlowOperation> operations = log.getSlowOperations();
+        assertEquals(1, operations.size());
+        SlowOperation operation = operations.get(0);
+        assertSame(SessionOperation.CLOSE, operation.getOperation());
+        assertEquals("session", operation.getId());
+        assertEquals(2, operation.getAttributes());
+        assertEquals(Duration.ofNanos(slow), operation.getDuration());
+        assertEquals(Collections.singletonMap(RemoteOperation.PUT, 2), operation.getRemoteOperations());
+        assertEquals(Duration.ofMillis(15), operation.getRemoteTime());
+        assertEquals(1024, operation.getBytesWritten());
+        assertEquals(Collections.singleton("foo"), operation.getAccessedAttributes());
+
+        // Oldest operations are overwritten when full
+        for (int i = 0; i < 5; ++i) {
+            log.sessionOperationCompleted(SessionOperation.FIND, Integer.toString(i), -1, slow, details);
+        }
+        operations = log.getSlowOperations();
+        assertEquals(4, operations.size());
+        assertEquals(6, log.getRecordedCount());
+        for (int i = 0; i < 4; ++i) {
+            assertEquals(Integer.toString(i + 1), operations.get(i).getId());
+        }
+        assertEquals(4, log.dump().length);
+
+        log.clear();
+        assertTrue(log.getSlowOperations().isEmpty());
+        assertEquals(0, log.dump().length);
+    }
+}
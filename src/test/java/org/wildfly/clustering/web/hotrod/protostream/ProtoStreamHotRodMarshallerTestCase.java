@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.protostream;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SimpleSessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SimpleSessionCreationMetaData;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.session.SessionAccessMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.SessionCreationMetaDataKey;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeKey;
+import org.wildfly.clustering.web.hotrod.session.fine.SessionAttributeNamesKey;
+
+/**
+ * Unit test for {@link ProtoStreamHotRodMarshaller}.
+ * @author Paul Ferraro
+ */
+public class ProtoStreamHotRodMarshallerTestCase {
+
+    private final ProtoStreamHotRodMarshaller marshaller = new ProtoStreamHotRodMarshaller(new HotRodMarshaller(ProtoStreamHotRodMarshaller.class.getClassLoader()));
+
+    @Test
+    public void keys() throws Exception {
+        String id = "ABCDEFGHIJKLMNOPQRSTUVWXYZ012345";
+        this.test(new SessionCreationMetaDataKey(id));
+        this.test(new SessionAccessMetaDataKey(id));
+        this.test(new SessionAttributesKey(id));
+        this.test(new SessionAttributeNamesKey(id));
+        this.test(new SessionAttributeKey(id, UUID.randomUUID()));
+    }
+
+    @Test
+    public void metaData() throws Exception {
+        SessionCreationMetaData creationMetaData = new SimpleSessionCreationMetaData(Instant.now());
+        creationMetaData.setMaxInactiveInterval(Duration.ofMinutes(30));
+        SessionCreationMetaDataEntry<Object> creationEntry = new SessionCreationMetaDataEntry<>(creationMetaData);
+
+        @SuppressWarnings("unchecked")
+        SessionCreationMetaDataEntry<Object> creationResult = (SessionCreationMetaDataEntry<Object>) this.marshaller.objectFromByteBuffer(this.marshaller.objectToByteBuffer(creationEntry));
+        assertEquals(creationMetaData.getCreationTime(), creationResult.getMetaData().getCreationTime());
+        assertEquals(creationMetaData.getMaxInactiveInterval(), creationResult.getMetaData().getMaxInactiveInterval());
+
+        SimpleSessionAccessMetaData accessMetaData = new SimpleSessionAccessMetaData();
+        accessMetaData.setLastAccessedDuration(Duration.ofSeconds(10));
+
+        SimpleSessionAccessMetaData accessResult = (SimpleSessionAccessMetaData) this.marshaller.objectFromByteBuffer(this.marshaller.objectToByteBuffer(accessMetaData));
+        assertEquals(accessMetaData.getLastAccessedDuration(), accessResult.getLastAccessedDuration());
+    }
+
+    @Test
+    public void opaque() throws Exception {
+        // Objects without a message marshaller are delegated to the JBoss marshaller
+        Map<String, UUID> names = Collections.singletonMap("name", UUID.randomUUID());
+        assertTrue(this.marshaller.isMarshallable(names));
+        assertEquals(names, this.marshaller.objectFromByteBuffer(this.marshaller.objectToByteBuffer(names)));
+    }
+
+    private void test(Object key) throws Exception {
+        byte[] bytes = this.marshaller.objectToByteBuffer(key);
+        assertSame(bytes, this.marshaller.objectToByteBuffer(key));
+        assertEquals(key, this.marshaller.objectFromByteBuffer(bytes));
+    }
+}
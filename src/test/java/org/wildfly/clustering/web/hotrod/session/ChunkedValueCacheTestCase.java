@@ -0,0 +1,276 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.commons.marshall.Marshaller;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.clustering.web.hotrod.HotRodMarshaller;
+import org.wildfly.clustering.web.hotrod.PreMarshalled;
+import org.wildfly.clustering.web.hotrod.session.coarse.SessionAttributesKey;
+
+/**
+ * Unit test for {@link ChunkedValueCache}.
+ * @author Paul Ferraro
+ */
+public class ChunkedValueCacheTestCase {
+    private static final int CHUNK_SIZE = 4;
+
+    private final Map<Object, Object> entries = new HashMap<>();
+    private final RemoteCache<SessionAttributesKey, String> cache = mock(RemoteCache.class);
+    private final RemoteCacheManager manager = mock(RemoteCacheManager.class);
+    private final ChunkedValueCache<SessionAttributesKey, String> subject = new ChunkedValueCache<>(this.cache, CHUNK_SIZE, Duration.ZERO);
+    private Marshaller marshaller = mock(Marshaller.class);
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void init() throws Exception {
+        when(this.cache.getRemoteCacheManager()).thenReturn(this.manager);
+        when(this.manager.getMarshaller()).thenAnswer(invocation -> this.marshaller);
+        // Like the marshaller of the remote cache, a marshalled value is written as is
+        when(this.marshaller.objectToByteBuffer(any())).thenAnswer(invocation -> (invocation.getArgument(0) instanceof PreMarshalled) ? ((PreMarshalled) invocation.getArgument(0)).getBytes() : invocation.getArgument(0).toString().getBytes(StandardCharsets.UTF_8));
+        when(this.marshaller.objectFromByteBuffer(any(), anyInt(), anyInt())).thenAnswer(invocation -> new String((byte[]) invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), StandardCharsets.UTF_8));
+
+        when(this.cache.withFlags(any())).thenReturn(this.cache);
+        when(this.cache.get(any())).thenAnswer(invocation -> this.entries.get(invocation.getArgument(0)));
+        when(this.cache.put(any(), any())).thenAnswer(invocation -> this.entries.put(invocation.getArgument(0), this.unmarshal(invocation.getArgument(1))));
+        when(this.cache.remove(any())).thenAnswer(invocation -> this.entries.remove(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            this.entries.putAll(invocation.getArgument(0));
+            return null;
+        }).when(this.cache).putAll(any());
+        when(this.cache.getAll(any())).thenAnswer(invocation -> {
+            Map<Object, Object> result = new HashMap<>();
+            for (Object key : (Set<Object>) invocation.getArgument(0)) {
+                Object value = this.entries.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        });
+    }
+
+    // Emulates the remote cache, which returns values in their unmarshalled form
+    private Object unmarshal(Object value) throws Exception {
+        if (value instanceof PreMarshalled) {
+            byte[] bytes = ((PreMarshalled) value).getBytes();
+            return this.marshaller.objectFromByteBuffer(bytes, 0, bytes.length);
+        }
+        return value;
+    }
+
+    @Test
+    public void test() throws Exception {
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        // Small values are stored directly
+        assertNull(this.subject.put(key, "abc"));
+        assertEquals(1, this.entries.size());
+        assertEquals("abc", this.entries.get(key));
+        assertEquals("abc", this.subject.get(key));
+        // Values are only marshalled once
+        verify(this.marshaller).objectToByteBuffer("abc");
+
+        // Large values are stored as chunks
+        assertEquals("abc", this.subject.put(key, "abcdefghij"));
+        assertTrue(this.entries.get(key) instanceof ChunkedValue);
+        ChunkedValue chunkedValue = (ChunkedValue) this.entries.get(key);
+        assertEquals(10, chunkedValue.getLength());
+        assertEquals(3, chunkedValue.getChunks());
+        assertEquals(4, this.entries.size());
+        assertArrayEquals("ij".getBytes(StandardCharsets.UTF_8), (byte[]) this.entries.get(new ChunkKey("session", chunkedValue.getId(), 2)));
+        assertEquals("abcdefghij", this.subject.get(key));
+
+        // Chunks of an overwritten chunked value are retained until a subsequent write
+        this.subject.write(key, "0123456789ab");
+        assertEquals(7, this.entries.size());
+        assertTrue(this.entries.containsKey(new ChunkKey("session", chunkedValue.getId(), 0)));
+        assertEquals("0123456789ab", this.subject.get(key));
+
+        this.subject.createMutator(key, "xyz").mutate();
+        assertEquals(4, this.entries.size());
+        assertFalse(this.entries.containsKey(new ChunkKey("session", chunkedValue.getId(), 0)));
+        assertEquals("xyz", this.subject.get(key));
+
+        this.subject.close();
+        assertEquals(1, this.entries.size());
+
+        this.subject.write(key, "abcdefghij");
+        assertEquals("abcdefghij", this.subject.remove(key));
+        assertTrue(this.entries.isEmpty());
+
+        this.subject.write(key, "abcdefghij");
+        this.subject.delete(key);
+        assertTrue(this.entries.isEmpty());
+        assertNull(this.subject.get(key));
+    }
+
+    @Test
+    public void conditional() throws Exception {
+        SessionAttributesKey key = new SessionAttributesKey("session");
+        when(this.cache.replace(any(), any())).thenAnswer(invocation -> this.entries.replace(invocation.getArgument(0), this.unmarshal(invocation.getArgument(1))));
+        when(this.cache.putIfAbsent(any(), any())).thenAnswer(invocation -> this.entries.putIfAbsent(invocation.getArgument(0), this.unmarshal(invocation.getArgument(1))));
+
+        // A value is only replaced if it exists, and the chunks of a rejected value are removed
+        assertFalse(this.subject.replace(key, "abcdefghij"));
+        assertTrue(this.entries.isEmpty());
+
+        assertTrue(this.subject.putIfAbsent(key, "abcdefghij"));
+        assertFalse(this.subject.putIfAbsent(key, "0123456789ab"));
+        assertEquals(4, this.entries.size());
+        assertEquals("abcdefghij", this.subject.get(key));
+
+        assertTrue(this.subject.replace(key, "xyz"));
+        assertEquals("xyz", this.subject.get(key));
+        this.subject.close();
+        assertEquals(1, this.entries.size());
+    }
+
+    @Test
+    public void capture() {
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        Map<Object, Runnable> writes = SessionWriteBehindQueue.capture(() -> {
+            this.subject.createMutator(key, "abcdefgh").mutate();
+            this.subject.createMutator(key, "0123456789").mutate();
+        });
+
+        // Writes are deferred, and the latest write of a key supersedes any previous write
+        assertTrue(this.entries.isEmpty());
+        assertEquals(1, writes.size());
+
+        writes.values().forEach(Runnable::run);
+        assertEquals("0123456789", this.subject.get(key));
+    }
+
+    @Test
+    public void gracePeriod() {
+        ChunkedValueCache<SessionAttributesKey, String> subject = new ChunkedValueCache<>(this.cache, CHUNK_SIZE);
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        subject.write(key, "abcdefghij");
+        ChunkedValue chunkedValue = (ChunkedValue) this.entries.get(key);
+        subject.write(key, "0123456789ab");
+        subject.write(key, "klmnopqrst");
+
+        // Chunks of overwritten values are retained within the grace period
+        for (int i = 0; i < chunkedValue.getChunks(); ++i) {
+            assertTrue(this.entries.containsKey(new ChunkKey("session", chunkedValue.getId(), i)));
+        }
+        subject.close();
+        assertEquals(4, this.entries.size());
+    }
+
+    @Test
+    public void concurrentWrite() {
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        this.subject.write(key, "abcdefghij");
+        ChunkedValue stale = (ChunkedValue) this.entries.get(key);
+        this.subject.write(key, "0123456789ab");
+        this.subject.close();
+
+        // Emulate a reader that read the previous value before its chunks were removed
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(this.cache.get(key)).thenAnswer(invocation -> first.getAndSet(false) ? stale : this.entries.get(key));
+
+        assertEquals("0123456789ab", this.subject.get(key));
+    }
+
+    @Test
+    public void missingChunk() {
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        this.subject.write(key, "abcdefghij");
+        ChunkedValue chunkedValue = (ChunkedValue) this.entries.get(key);
+        this.entries.remove(new ChunkKey("session", chunkedValue.getId(), 1));
+
+        // Missing chunks are never reported as a missing value
+        try {
+            this.subject.get(key);
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void stream() {
+        this.marshaller = new HotRodMarshaller(HotRodMarshaller.class.getClassLoader());
+        ChunkedValueCache<SessionAttributesKey, String> subject = new ChunkedValueCache<>(this.cache, 32, Duration.ZERO);
+        SessionAttributesKey key = new SessionAttributesKey("session");
+        char[] chars = new char[256];
+        Arrays.fill(chars, 'a');
+        String large = new String(chars);
+
+        // Large values are marshalled directly into chunks
+        subject.write(key, large);
+        ChunkedValue chunkedValue = (ChunkedValue) this.entries.get(key);
+        assertTrue(chunkedValue.getChunks() > 1);
+        assertEquals(chunkedValue.getChunks() + 1, this.entries.size());
+        assertEquals(large, subject.get(key));
+
+        // Small values are stored directly
+        subject.write(key, "abc");
+        assertEquals("abc", this.entries.get(key));
+        assertEquals("abc", subject.get(key));
+        subject.close();
+        assertEquals(1, this.entries.size());
+
+        subject.write(key, large);
+        chunkedValue = (ChunkedValue) this.entries.get(key);
+        this.entries.remove(new ChunkKey("session", chunkedValue.getId(), 1));
+        try {
+            subject.get(key);
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void disabled() {
+        ChunkedValueCache<SessionAttributesKey, String> subject = new ChunkedValueCache<>(this.cache, 0);
+        SessionAttributesKey key = new SessionAttributesKey("session");
+
+        subject.write(key, "abcdefghij");
+        assertEquals("abcdefghij", this.entries.get(key));
+        assertEquals("abcdefghij", subject.get(key));
+        assertEquals("abcdefghij", subject.remove(key));
+        assertTrue(this.entries.isEmpty());
+    }
+}
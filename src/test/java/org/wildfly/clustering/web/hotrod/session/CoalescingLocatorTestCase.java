@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.Locator;
+
+/**
+ * Unit test for {@link CoalescingLocator}.
+ * @author Paul Ferraro
+ */
+public class CoalescingLocatorTestCase {
+
+    private static final int CONCURRENT_REQUESTS = 16;
+    private static final long TIMEOUT = 10L;
+
+    @Test
+    public void findValue() {
+        Locator<String, Object> locator = mock(Locator.class);
+        Object expected = new Object();
+
+        when(locator.findValue("found")).thenReturn(expected);
+
+        Locator<String, Object> subject = new CoalescingLocator<>(locator);
+
+        assertSame(expected, subject.findValue("found"));
+        assertNull(subject.findValue("missing"));
+
+        // Completed lookups must not be cached
+        assertSame(expected, subject.findValue("found"));
+        verify(locator, times(2)).findValue("found");
+    }
+
+    @Test
+    public void findValueFailure() {
+        Locator<String, Object> locator = mock(Locator.class);
+        IllegalStateException exception = new IllegalStateException();
+
+        when(locator.findValue("id")).thenThrow(exception);
+
+        Locator<String, Object> subject = new CoalescingLocator<>(locator);
+
+        try {
+            subject.findValue("id");
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    @Test
+    public void concurrentRequests() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Locator<String, Object> locator = new Locator<String, Object>() {
+            @Override
+            public Object findValue(String id) {
+                lookups.incrementAndGet();
+                started.countDown();
+                try {
+                    // Simulate remote latency
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Object();
+            }
+        };
+        Locator<String, Object> subject = new CoalescingLocator<>(locator);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS + 1);
+        try {
+            Future<Object> first = executor.submit(() -> subject.findValue("id"));
+            assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+
+            // Issue concurrent requests while the first lookup is in flight
+            List<Thread> threads = new ArrayList<>(CONCURRENT_REQUESTS);
+            List<Future<Object>> futures = new ArrayList<>(CONCURRENT_REQUESTS);
+            for (int i = 0; i < CONCURRENT_REQUESTS; ++i) {
+                CountDownLatch submitted = new CountDownLatch(1);
+                Thread[] thread = new Thread[1];
+                futures.add(executor.submit(() -> {
+                    thread[0] = Thread.currentThread();
+                    submitted.countDown();
+                    return subject.findValue("id");
+                }));
+                assertTrue(submitted.await(TIMEOUT, TimeUnit.SECONDS));
+                threads.add(thread[0]);
+            }
+            // Wait until every concurrent request is blocked on the in-flight lookup
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+            for (Thread thread : threads) {
+                while (thread.getState() != Thread.State.WAITING) {
+                    assertTrue(System.nanoTime() < deadline);
+                    Thread.yield();
+                }
+            }
+            release.countDown();
+
+            Object expected = first.get(TIMEOUT, TimeUnit.SECONDS);
+            for (Future<Object> future : futures) {
+                assertSame(expected, future.get(TIMEOUT, TimeUnit.SECONDS));
+            }
+            // All concurrent requests must have shared the in-flight lookup
+            assertEquals(1, lookups.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
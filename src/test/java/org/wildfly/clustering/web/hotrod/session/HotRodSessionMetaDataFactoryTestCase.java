@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.Test;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.web.cache.session.SessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SessionCreationMetaDataEntry;
+import org.wildfly.clustering.web.cache.session.SimpleSessionAccessMetaData;
+import org.wildfly.clustering.web.cache.session.SimpleSessionCreationMetaData;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+
+/**
+ * Unit test for {@link HotRodSessionMetaDataFactory}.
+ * @author Paul Ferraro
+ */
+public class HotRodSessionMetaDataFactoryTestCase {
+
+    private final RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+    private final LocalContextRegistry<Object> localContexts = new LocalContextRegistry<>(16);
+    private final HotRodSessionMetaDataFactory<Object> factory = new HotRodSessionMetaDataFactory<>(this.cache, mock(CacheProperties.class), new SessionCreationBuffer(this.cache, false), this.localContexts);
+
+    @Test
+    public void findImmutableSessionMetaData() {
+        SessionCreationMetaDataEntry<Object> creationMetaDataEntry = new SessionCreationMetaDataEntry<>(new SimpleSessionCreationMetaData());
+        SessionAccessMetaData accessMetaData = new SimpleSessionAccessMetaData();
+        when(this.cache.get(new SessionCreationMetaDataKey("session"))).thenReturn(creationMetaDataEntry);
+        when(this.cache.get(new SessionAccessMetaDataKey("session"))).thenReturn(accessMetaData);
+
+        ImmutableSessionMetaData metaData = this.factory.findImmutableSessionMetaData("session");
+
+        assertNotNull(metaData);
+        assertEquals(creationMetaDataEntry.getMetaData().getCreationTime(), metaData.getCreationTime());
+        // Reading meta data must not register a local context
+        assertEquals(0, this.localContexts.size());
+
+        // Session is not yet fully written, e.g. by a concurrent creation on another node
+        when(this.cache.get(new SessionCreationMetaDataKey("creating"))).thenReturn(creationMetaDataEntry);
+
+        assertNull(this.factory.findImmutableSessionMetaData("creating"));
+        // Creation meta data entry must not be purged
+        verify(this.cache, never()).getWithMetadata(any());
+        verify(this.cache, never()).removeWithVersion(any(), anyLong());
+        verify(this.cache, never()).remove(any());
+
+        assertNull(this.factory.findImmutableSessionMetaData("missing"));
+        verify(this.cache, never()).get(new SessionAccessMetaDataKey("missing"));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.Executor;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.transport.netty.ChannelFactory;
+import org.infinispan.commons.marshall.Marshaller;
+import org.junit.Test;
+import org.wildfly.clustering.web.IdentifierFactory;
+
+/**
+ * Unit test for {@link KeyAffinityIdentifierFactory}.
+ * @author Paul Ferraro
+ */
+public class KeyAffinityIdentifierFactoryTestCase {
+
+    @Test
+    public void test() throws Exception {
+        IdentifierFactory<String> factory = mock(IdentifierFactory.class);
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        RemoteCacheManager manager = mock(RemoteCacheManager.class);
+        ChannelFactory channelFactory = mock(ChannelFactory.class);
+        ConsistentHash hash = mock(ConsistentHash.class);
+        Marshaller marshaller = mock(Marshaller.class);
+        SocketAddress local = InetSocketAddress.createUnresolved("local", 11222);
+        SocketAddress remote = InetSocketAddress.createUnresolved("remote", 11222);
+        byte[] localKey = new byte[] { 1 };
+        byte[] remoteKey = new byte[] { 2 };
+
+        when(cache.getName()).thenReturn("sessions");
+        when(cache.getRemoteCacheManager()).thenReturn(manager);
+        when(manager.getMarshaller()).thenReturn(marshaller);
+        when(manager.getChannelFactory()).thenReturn(channelFactory);
+        when(marshaller.objectToByteBuffer(new SessionCreationMetaDataKey("local"))).thenReturn(localKey);
+        when(marshaller.objectToByteBuffer(new SessionCreationMetaDataKey("remote"))).thenReturn(remoteKey);
+        when(hash.getServer(localKey)).thenReturn(local);
+        when(hash.getServer(remoteKey)).thenReturn(remote);
+        when(factory.createIdentifier()).thenReturn("remote", "local", "remote", "local", "fallback");
+
+        KeyAffinityIdentifierFactory subject = new KeyAffinityIdentifierFactory(factory, cache, local::equals, Runnable::run, 2);
+
+        // No topology yet
+        assertFalse(subject.fill());
+        verify(factory, never()).createIdentifier();
+
+        when(channelFactory.getConsistentHash(any())).thenReturn(hash);
+
+        assertTrue(subject.fill());
+        // Pool is full
+        assertTrue(subject.fill());
+
+        assertEquals("local", subject.createIdentifier());
+        assertEquals("local", subject.createIdentifier());
+        // Pool is exhausted
+        assertEquals("fallback", subject.createIdentifier());
+    }
+
+    @Test
+    public void noPreferredServer() throws Exception {
+        IdentifierFactory<String> factory = mock(IdentifierFactory.class);
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        RemoteCacheManager manager = mock(RemoteCacheManager.class);
+        ChannelFactory channelFactory = mock(ChannelFactory.class);
+        ConsistentHash hash = mock(ConsistentHash.class);
+        Marshaller marshaller = mock(Marshaller.class);
+        SocketAddress local = InetSocketAddress.createUnresolved("local", 11222);
+        SocketAddress remote = InetSocketAddress.createUnresolved("remote", 11222);
+        byte[] remoteKey = new byte[] { 2 };
+
+        when(cache.getName()).thenReturn("sessions");
+        when(cache.getRemoteCacheManager()).thenReturn(manager);
+        when(manager.getMarshaller()).thenReturn(marshaller);
+        when(manager.getChannelFactory()).thenReturn(channelFactory);
+        when(channelFactory.getConsistentHash(any())).thenReturn(hash);
+        when(marshaller.objectToByteBuffer(new SessionCreationMetaDataKey("remote"))).thenReturn(remoteKey);
+        when(hash.getServer(remoteKey)).thenReturn(remote);
+        when(factory.createIdentifier()).thenReturn("remote");
+
+        KeyAffinityIdentifierFactory subject = new KeyAffinityIdentifierFactory(factory, cache, local::equals, Runnable::run, 2);
+
+        // A fill that yields nothing is reported, so that subsequent attempts back off
+        assertFalse(subject.fill());
+        assertEquals("remote", subject.createIdentifier());
+    }
+
+    @Test
+    public void refill() throws Exception {
+        IdentifierFactory<String> factory = mock(IdentifierFactory.class);
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        RemoteCacheManager manager = mock(RemoteCacheManager.class);
+        ChannelFactory channelFactory = mock(ChannelFactory.class);
+        ConsistentHash hash = mock(ConsistentHash.class);
+        Marshaller marshaller = mock(Marshaller.class);
+        Executor executor = mock(Executor.class);
+        SocketAddress local = InetSocketAddress.createUnresolved("local", 11222);
+        byte[] localKey = new byte[] { 1 };
+
+        when(cache.getName()).thenReturn("sessions");
+        when(cache.getRemoteCacheManager()).thenReturn(manager);
+        when(manager.getMarshaller()).thenReturn(marshaller);
+        when(manager.getChannelFactory()).thenReturn(channelFactory);
+        when(channelFactory.getConsistentHash(any())).thenReturn(hash);
+        when(marshaller.objectToByteBuffer(any())).thenReturn(localKey);
+        when(hash.getServer(localKey)).thenReturn(local);
+        when(factory.createIdentifier()).thenReturn("local");
+        doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(0);
+            task.run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        KeyAffinityIdentifierFactory subject = new KeyAffinityIdentifierFactory(factory, cache, local::equals, executor, 4);
+
+        // Pool is filled on start
+        subject.start();
+
+        verify(executor, times(1)).execute(any(Runnable.class));
+
+        // Pool remains at or above its low-water mark
+        assertEquals("local", subject.createIdentifier());
+        assertEquals("local", subject.createIdentifier());
+
+        verify(executor, times(1)).execute(any(Runnable.class));
+
+        // Pool falls below its low-water mark, so it is refilled
+        assertEquals("local", subject.createIdentifier());
+
+        verify(executor, times(2)).execute(any(Runnable.class));
+
+        subject.stop();
+
+        // No refills once stopped
+        subject.createIdentifier();
+
+        verify(executor, times(2)).execute(any(Runnable.class));
+    }
+}
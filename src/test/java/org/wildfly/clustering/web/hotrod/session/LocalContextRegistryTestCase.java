@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link LocalContextRegistry}.
+ * @author Paul Ferraro
+ */
+public class LocalContextRegistryTestCase {
+
+    private final LocalContextRegistry<Object> registry = new LocalContextRegistry<>(2, 1);
+
+    @Test
+    public void getLocalContext() {
+        AtomicReference<Object> context = this.registry.create("session");
+        context.set(new Object());
+
+        assertSame(context, this.registry.getLocalContext("session"));
+
+        // Creation replaces any stale context
+        AtomicReference<Object> created = this.registry.create("session");
+        assertNotSame(context, created);
+        assertNull(created.get());
+
+        this.registry.remove("session");
+
+        assertEquals(0, this.registry.size());
+        assertNotSame(created, this.registry.getLocalContext("session"));
+    }
+
+    @Test
+    public void evict() {
+        AtomicReference<Object> context1 = this.registry.getLocalContext("session1");
+        AtomicReference<Object> context2 = this.registry.getLocalContext("session2");
+
+        // Touch session1, such that session2 is least recently used
+        assertSame(context1, this.registry.getLocalContext("session1"));
+
+        this.registry.getLocalContext("session3");
+
+        assertEquals(2, this.registry.size());
+        assertSame(context1, this.registry.getLocalContext("session1"));
+        assertNotSame(context2, this.registry.getLocalContext("session2"));
+    }
+
+    @Test
+    public void striped() {
+        LocalContextRegistry<Object> registry = new LocalContextRegistry<>(10, 4);
+
+        for (int i = 0; i < 100; ++i) {
+            AtomicReference<Object> context = registry.getLocalContext("session" + i);
+
+            // Most recently used context is always retained
+            assertSame(context, registry.getLocalContext("session" + i));
+            assertTrue(registry.size() <= 10);
+        }
+    }
+}
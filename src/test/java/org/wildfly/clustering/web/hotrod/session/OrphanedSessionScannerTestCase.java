@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.infinispan.client.hotrod.CacheTopologyInfo;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.CloseableIterator;
+import org.junit.Test;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Membership;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+
+/**
+ * Unit test for {@link OrphanedSessionScanner}.
+ * @author Paul Ferraro
+ */
+public class OrphanedSessionScannerTestCase {
+
+    private static CloseableIterator<Map.Entry<Object, Object>> iterator(Object... keys) {
+        Iterator<Object> iterator = Arrays.asList(keys).iterator();
+        return new CloseableIterator<Map.Entry<Object, Object>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Object, Object> next() {
+                return new SimpleImmutableEntry<>(iterator.next(), new Object());
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static Set<Integer> segments(Integer... segments) {
+        return new HashSet<>(Arrays.asList(segments));
+    }
+
+    @Test
+    public void scan() {
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        Function<String, ImmutableSessionMetaData> reader = mock(Function.class);
+        Scheduler scheduler = mock(Scheduler.class);
+        CacheTopologyInfo topology = mock(CacheTopologyInfo.class);
+        ImmutableSessionMetaData metaData = mock(ImmutableSessionMetaData.class);
+
+        Map<SocketAddress, Set<Integer>> segmentsPerServer = new LinkedHashMap<>();
+        SocketAddress server1 = InetSocketAddress.createUnresolved("server1", 11222);
+        SocketAddress server2 = InetSocketAddress.createUnresolved("server2", 11222);
+        segmentsPerServer.put(server1, segments(0, 1));
+        segmentsPerServer.put(server2, segments(1, 2));
+
+        when(cache.getName()).thenReturn("cache");
+        when(cache.getCacheTopologyInfo()).thenReturn(topology);
+        when(topology.getSegmentsPerServer()).thenReturn(segmentsPerServer);
+        when(cache.retrieveEntries(isNull(), any(Set.class), anyInt())).thenAnswer(invocation -> {
+            Set<Integer> segments = invocation.getArgument(1);
+            if (segments.equals(segments(0, 1))) {
+                return iterator(new SessionCreationMetaDataKey("a"), new SessionAccessMetaDataKey("a"));
+            }
+            // Segment shared by both servers must only be retrieved once
+            if (segments.equals(segments(2))) {
+                return iterator(new SessionCreationMetaDataKey("b"));
+            }
+            return iterator(new SessionCreationMetaDataKey("c"));
+        });
+        when(reader.apply("a")).thenReturn(metaData);
+
+        OrphanedSessionScanner scanner = new OrphanedSessionScanner(cache, null, null, reader, scheduler, Duration.ofMinutes(1), Integer.MAX_VALUE, null, 2);
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        try {
+            scanner.scan(workers);
+        } finally {
+            workers.shutdown();
+        }
+
+        verify(scheduler).schedule("a", metaData);
+        // Session b no longer exists
+        verify(reader).apply("b");
+        verify(scheduler, never()).schedule(eq("b"), any());
+        verify(reader, never()).apply("c");
+    }
+
+    @Test
+    public void partition() {
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        Function<String, ImmutableSessionMetaData> reader = mock(Function.class);
+        Scheduler scheduler = mock(Scheduler.class);
+        CacheTopologyInfo topology = mock(CacheTopologyInfo.class);
+        Group group = mock(Group.class);
+        Membership membership = mock(Membership.class);
+        Node member1 = mock(Node.class);
+        Node member2 = mock(Node.class);
+        ImmutableSessionMetaData metaData = mock(ImmutableSessionMetaData.class);
+
+        SocketAddress server = InetSocketAddress.createUnresolved("server", 11222);
+
+        when(cache.getName()).thenReturn("cache");
+        when(cache.getCacheTopologyInfo()).thenReturn(topology);
+        when(topology.getSegmentsPerServer()).thenReturn(Collections.singletonMap(server, segments(0)));
+        when(group.getMembership()).thenReturn(membership);
+        when(group.getLocalMember()).thenReturn(member2);
+        when(membership.getMembers()).thenReturn(Arrays.asList(member1, member2));
+        // Hashes of "a" and "c" are odd, hash of "b" is even
+        when(cache.retrieveEntries(eq("converter"), any(Set.class), anyInt())).thenReturn(iterator(new SessionCreationMetaDataKey("a"), new SessionCreationMetaDataKey("b"), new SessionCreationMetaDataKey("c")));
+        when(scheduler.isScheduled("c")).thenReturn(true);
+        when(reader.apply("a")).thenReturn(metaData);
+
+        OrphanedSessionScanner scanner = new OrphanedSessionScanner(cache, null, group, reader, scheduler, Duration.ofMinutes(1), Integer.MAX_VALUE, "converter", 1);
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        try {
+            scanner.scan(workers);
+        } finally {
+            workers.shutdown();
+        }
+
+        verify(scheduler).schedule("a", metaData);
+        // Session b is claimed by the other member
+        verify(reader, never()).apply("b");
+        // Session c is already scheduled
+        verify(reader, never()).apply("c");
+        verify(scheduler, never()).schedule(eq("c"), any());
+
+        // Not a member of the current view, so nothing is claimed
+        reset(cache);
+        when(membership.getMembers()).thenReturn(Collections.singletonList(member1));
+
+        scanner.scan(workers);
+
+        verifyZeroInteractions(cache);
+    }
+
+    @Test
+    public void preferred() {
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        Function<String, ImmutableSessionMetaData> reader = mock(Function.class);
+        Scheduler scheduler = mock(Scheduler.class);
+        CacheTopologyInfo topology = mock(CacheTopologyInfo.class);
+
+        SocketAddress server = InetSocketAddress.createUnresolved("server", 11222);
+        List<SocketAddress> preferred = Collections.emptyList();
+
+        when(cache.getName()).thenReturn("cache");
+        when(cache.getCacheTopologyInfo()).thenReturn(topology);
+        when(topology.getSegmentsPerServer()).thenReturn(Collections.singletonMap(server, segments(0)));
+
+        // No preferred server, so nothing is claimed
+        OrphanedSessionScanner scanner = new OrphanedSessionScanner(cache, preferred::contains, null, reader, scheduler, Duration.ofMinutes(1), Integer.MAX_VALUE, null, 1);
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        try {
+            scanner.scan(workers);
+        } finally {
+            workers.shutdown();
+        }
+
+        verify(cache, never()).retrieveEntries(any(), any(Set.class), anyInt());
+        verifyZeroInteractions(scheduler);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.transport.netty.ChannelFactory;
+import org.infinispan.commons.marshall.Marshaller;
+import org.junit.Test;
+import org.wildfly.clustering.web.session.RouteLocator;
+
+/**
+ * Unit test for {@link OwnerRouteLocator}.
+ * @author Paul Ferraro
+ */
+public class OwnerRouteLocatorTestCase {
+
+    @Test
+    public void test() throws Exception {
+        RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+        RemoteCacheManager manager = mock(RemoteCacheManager.class);
+        ChannelFactory channelFactory = mock(ChannelFactory.class);
+        ConsistentHash hash = mock(ConsistentHash.class);
+        Marshaller marshaller = mock(Marshaller.class);
+        SocketAddress server = InetSocketAddress.createUnresolved("server", 11222);
+        SocketAddress otherServer = InetSocketAddress.createUnresolved("other", 11222);
+        byte[] key = new byte[] { 1 };
+        byte[] otherKey = new byte[] { 2 };
+
+        when(cache.getName()).thenReturn("sessions");
+        when(cache.getRemoteCacheManager()).thenReturn(manager);
+        when(manager.getMarshaller()).thenReturn(marshaller);
+        when(manager.getChannelFactory()).thenReturn(channelFactory);
+        when(marshaller.objectToByteBuffer(new SessionCreationMetaDataKey("session"))).thenReturn(key);
+        when(marshaller.objectToByteBuffer(new SessionCreationMetaDataKey("other"))).thenReturn(otherKey);
+
+        RouteLocator locator = new OwnerRouteLocator(cache, Collections.singletonMap(server, "remote")::get, "local");
+
+        // No topology received yet
+        assertEquals("local", locator.locate("session"));
+
+        when(channelFactory.getConsistentHash(any())).thenReturn(hash);
+        when(hash.getServer(key)).thenReturn(server);
+        when(hash.getServer(otherKey)).thenReturn(otherServer);
+
+        assertEquals("remote", locator.locate("session"));
+        // Server without a route
+        assertEquals("local", locator.locate("other"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SessionCreationBuffer}.
+ * @author Paul Ferraro
+ */
+public class SessionCreationBufferTestCase {
+
+    private final RemoteCache<Object, Object> cache = mock(RemoteCache.class);
+    private final SessionCreationBuffer buffer = new SessionCreationBuffer(this.cache, true);
+
+    @Test
+    public void flush() {
+        String id = "session";
+        Object creationKey = new Object();
+        Object creationValue = new Object();
+        Object key = new Object();
+        Object value = new Object();
+
+        assertFalse(this.buffer.isReserved(id));
+        assertFalse(this.buffer.buffer(id, key, value));
+
+        assertTrue(this.buffer.reserve(id, creationKey, creationValue));
+        assertFalse(this.buffer.reserve(id, creationKey, creationValue));
+        assertTrue(this.buffer.isReserved(id));
+        assertTrue(this.buffer.buffer(id, key, value));
+
+        verify(this.cache, never()).putIfAbsent(any(), any());
+        verify(this.cache, never()).putAll(any(Map.class));
+
+        when(this.cache.withFlags(Flag.FORCE_RETURN_VALUE)).thenReturn(this.cache);
+        when(this.cache.putIfAbsent(creationKey, creationValue)).thenReturn(null);
+
+        this.buffer.flush(id);
+
+        verify(this.cache).putIfAbsent(creationKey, creationValue);
+        verify(this.cache).putAll(Collections.singletonMap(key, value));
+        assertFalse(this.buffer.isReserved(id));
+
+        // Subsequent flush is a no-op
+        reset(this.cache);
+
+        this.buffer.flush(id);
+
+        verifyZeroInteractions(this.cache);
+    }
+
+    @Test
+    public void existing() {
+        String id = "session";
+        Object creationKey = new Object();
+
+        when(this.cache.containsKey(creationKey)).thenReturn(true);
+
+        // Collision with an existing session is detected on creation
+        assertFalse(this.buffer.reserve(id, creationKey, new Object()));
+        assertFalse(this.buffer.isReserved(id));
+    }
+
+    @Test
+    public void collision() {
+        String id = "session";
+        Object creationKey = new Object();
+        Object creationValue = new Object();
+
+        assertTrue(this.buffer.reserve(id, creationKey, creationValue));
+        assertTrue(this.buffer.buffer(id, new Object(), new Object()));
+
+        when(this.cache.withFlags(Flag.FORCE_RETURN_VALUE)).thenReturn(this.cache);
+        when(this.cache.putIfAbsent(creationKey, creationValue)).thenReturn(new Object());
+
+        // Collision with a session created concurrently is detected on flush
+        try {
+            this.buffer.flush(id);
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        verify(this.cache, never()).putAll(any(Map.class));
+    }
+
+    @Test
+    public void cancel() {
+        String id = "session";
+
+        assertTrue(this.buffer.reserve(id, new Object(), new Object()));
+        assertTrue(this.buffer.buffer(id, new Object(), new Object()));
+
+        this.buffer.cancel(id);
+
+        assertFalse(this.buffer.isReserved(id));
+
+        this.buffer.flush(id);
+
+        verify(this.cache, never()).putIfAbsent(any(), any());
+        verify(this.cache, never()).putAll(any(Map.class));
+    }
+
+    @Test
+    public void overdue() throws InterruptedException {
+        SessionCreationBuffer buffer = new SessionCreationBuffer(this.cache, true, Duration.ofMillis(1));
+        Object creationKey = new Object();
+        Object creationValue = new Object();
+        Object key = new Object();
+        Object value = new Object();
+
+        assertTrue(buffer.reserve("overdue", creationKey, creationValue));
+        assertTrue(buffer.buffer("overdue", key, value));
+
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        // Reservation of a session that is still open outlives the timeout
+        assertTrue(buffer.reserve("session", new Object(), new Object()));
+
+        assertTrue(buffer.isReserved("overdue"));
+        assertTrue(buffer.isReserved("session"));
+
+        when(this.cache.withFlags(Flag.FORCE_RETURN_VALUE)).thenReturn(this.cache);
+
+        // Session is written when it is eventually closed
+        buffer.flush("overdue");
+
+        verify(this.cache).putIfAbsent(creationKey, creationValue);
+        verify(this.cache).putAll(Collections.singletonMap(key, value));
+        assertFalse(buffer.isReserved("overdue"));
+    }
+}
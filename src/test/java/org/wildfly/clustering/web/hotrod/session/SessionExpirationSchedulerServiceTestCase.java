@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.wildfly.clustering.ee.Remover;
+import org.wildfly.clustering.web.session.ImmutableSessionMetaData;
+
+/**
+ * Unit test for {@link SessionExpirationSchedulerService}.
+ * @author Paul Ferraro
+ */
+public class SessionExpirationSchedulerServiceTestCase {
+
+    private final ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+    private final ExecutorService workers = mock(ExecutorService.class);
+    private final SessionExpirationSchedulerService service = new SessionExpirationSchedulerService(this.timer, this.workers);
+    private final List<Runnable> timers = new ArrayList<>();
+    private final Queue<Runnable> tasks = new LinkedList<>();
+    private final ScheduledFuture<?> future = mock(ScheduledFuture.class);
+
+    public SessionExpirationSchedulerServiceTestCase() {
+        when(this.timer.schedule(any(Runnable.class), anyLong(), same(TimeUnit.SECONDS))).thenAnswer(invocation -> {
+            this.timers.add(invocation.getArgument(0));
+            return this.future;
+        });
+        doAnswer(invocation -> this.tasks.add(invocation.getArgument(0))).when(this.workers).execute(any(Runnable.class));
+    }
+
+    private static ImmutableSessionMetaData createMetaData() {
+        ImmutableSessionMetaData metaData = mock(ImmutableSessionMetaData.class);
+        when(metaData.getMaxInactiveInterval()).thenReturn(Duration.ofMinutes(1));
+        when(metaData.getLastAccessedTime()).thenReturn(Instant.now());
+        return metaData;
+    }
+
+    private void runTasks() {
+        Runnable task = this.tasks.poll();
+        while (task != null) {
+            task.run();
+            task = this.tasks.poll();
+        }
+    }
+
+    @Test
+    public void expire() {
+        Remover<String> remover = mock(Remover.class);
+        Scheduler scheduler = this.service.createScheduler(remover);
+
+        scheduler.schedule("session", createMetaData());
+
+        this.timers.forEach(Runnable::run);
+        this.runTasks();
+
+        verify(remover).remove("session");
+
+        scheduler.close();
+    }
+
+    @Test
+    public void cancel() {
+        Remover<String> remover = mock(Remover.class);
+        Scheduler scheduler = this.service.createScheduler(remover);
+
+        scheduler.schedule("session", createMetaData());
+        scheduler.cancel("session");
+
+        verify(this.future).cancel(false);
+
+        // Simulate expiration that raced with cancellation
+        this.timers.forEach(Runnable::run);
+        this.runTasks();
+
+        verify(remover, never()).remove("session");
+
+        scheduler.close();
+    }
+
+    @Test
+    public void reschedule() {
+        Remover<String> remover = mock(Remover.class);
+        Scheduler scheduler = this.service.createScheduler(remover);
+
+        scheduler.schedule("session", createMetaData());
+
+        verify(this.future, never()).cancel(false);
+
+        scheduler.schedule("session", createMetaData());
+
+        // Previous expiration was cancelled
+        verify(this.future).cancel(false);
+
+        this.timers.forEach(Runnable::run);
+        this.runTasks();
+
+        verify(remover, times(1)).remove("session");
+
+        scheduler.close();
+    }
+
+    @Test
+    public void close() {
+        Remover<String> remover = mock(Remover.class);
+        Scheduler scheduler = this.service.createScheduler(remover);
+
+        scheduler.schedule("session", createMetaData());
+        scheduler.close();
+
+        verify(this.future).cancel(false);
+
+        this.timers.forEach(Runnable::run);
+        this.runTasks();
+
+        verify(remover, never()).remove("session");
+    }
+
+    @Test
+    public void fairness() {
+        Remover<String> remover1 = mock(Remover.class);
+        Remover<String> remover2 = mock(Remover.class);
+        Scheduler scheduler1 = this.service.createScheduler(remover1);
+        Scheduler scheduler2 = this.service.createScheduler(remover2);
+
+        for (int i = 0; i < 20; ++i) {
+            scheduler1.schedule("session" + i, createMetaData());
+        }
+        scheduler2.schedule("other", createMetaData());
+
+        this.timers.forEach(Runnable::run);
+        this.runTasks();
+
+        // Expiration of other deployment is not delayed until all sessions of first deployment are expired
+        InOrder order = inOrder(remover1, remover2);
+        order.verify(remover1).remove("session15");
+        order.verify(remover2).remove("other");
+        order.verify(remover1).remove("session16");
+
+        verify(remover1, times(20)).remove(any());
+
+        scheduler1.close();
+        scheduler2.close();
+    }
+}
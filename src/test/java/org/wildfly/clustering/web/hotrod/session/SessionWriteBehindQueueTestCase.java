@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SessionWriteBehindQueue}.
+ * @author Paul Ferraro
+ */
+public class SessionWriteBehindQueueTestCase {
+
+    @Test
+    public void test() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<String> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        try (SessionWriteBehindQueue queue = new SessionWriteBehindQueue(3, executor, Duration.ofSeconds(10))) {
+            // Occupy flusher
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            queue.enqueue("a", capture(writes, "x", "a1"));
+            // Supersedes the pending write of the same entry
+            queue.enqueue("a", capture(writes, "x", "a2", "y", "a2"));
+            queue.enqueue("b", capture(writes, "x", "b1"));
+
+            assertEquals(Collections.emptyList(), writes);
+
+            // Queue is full, so the caller applies pending writes of the session, followed by its own
+            queue.enqueue("a", capture(writes, "x", "a3"));
+
+            assertEquals(Arrays.asList("a2", "a2", "a3"), writes);
+
+            // Read-your-writes
+            queue.flush("b");
+
+            assertEquals(Arrays.asList("a2", "a2", "a3", "b1"), writes);
+
+            queue.enqueue("c", capture(writes, "x", "c1"));
+
+            assertFalse(queue.drain(Duration.ofMillis(10)));
+
+            latch.countDown();
+
+            assertTrue(queue.drain(Duration.ofSeconds(10)));
+            assertEquals(Arrays.asList("a2", "a2", "a3", "b1", "c1"), writes);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void close() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            SessionWriteBehindQueue queue = new SessionWriteBehindQueue(1, executor, Duration.ofMillis(10));
+            // Write that never completes, e.g. if the remote cache is unreachable
+            queue.enqueue("a", SessionWriteBehindQueue.capture(() -> SessionWriteBehindQueue.defer("x", () -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            })));
+
+            long start = System.nanoTime();
+            // Close does not wait indefinitely for pending writes
+            queue.close();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void capture() {
+        List<String> writes = new CopyOnWriteArrayList<>();
+
+        // Writes are applied directly, unless captured
+        SessionWriteBehindQueue.defer("x", () -> writes.add("direct"));
+        assertEquals(Collections.singletonList("direct"), writes);
+
+        Map<Object, Runnable> captured = SessionWriteBehindQueue.capture(() -> {
+            assertTrue(SessionWriteBehindQueue.isCapturing());
+            SessionWriteBehindQueue.defer("x", () -> writes.add("x1"));
+            SessionWriteBehindQueue.defer("y", () -> writes.add("y1"));
+            SessionWriteBehindQueue.defer("x", () -> writes.add("x2"));
+        });
+        assertFalse(SessionWriteBehindQueue.isCapturing());
+        assertEquals(Collections.singletonList("direct"), writes);
+
+        // Superseding writes are applied in the order they were last made
+        captured.values().forEach(Runnable::run);
+        assertEquals(Arrays.asList("direct", "y1", "x2"), writes);
+    }
+
+    // Captures writes of the specified entries, each appending the specified label
+    private static Map<Object, Runnable> capture(List<String> writes, String... entries) {
+        return SessionWriteBehindQueue.capture(() -> {
+            for (int i = 0; i < entries.length; i += 2) {
+                String label = entries[i + 1];
+                SessionWriteBehindQueue.defer(entries[i], () -> writes.add(label));
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.adaptive;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.wildfly.clustering.web.cache.session.SessionAttributes;
+
+/**
+ * Unit test for {@link AdaptiveSessionAttributes}.
+ * @author Paul Ferraro
+ */
+public class AdaptiveSessionAttributesTestCase {
+
+    private final SessionAttributes attributes = mock(SessionAttributes.class);
+    @SuppressWarnings("unchecked")
+    private final Predicate<Map<String, Object>> migration = mock(Predicate.class);
+    private final AdaptiveSessionAttributes subject = new AdaptiveSessionAttributes(this.attributes, new ConcurrentHashMap<>(), this.migration);
+
+    @Test
+    public void written() {
+        List<String> mutable = new ArrayList<>();
+        when(this.attributes.getAttribute("immutable")).thenReturn("value");
+        when(this.attributes.getAttribute("mutable")).thenReturn(mutable);
+
+        assertEquals("value", this.subject.getAttribute("immutable"));
+        assertSame(mutable, this.subject.getAttribute("mutable"));
+        assertNull(this.subject.getAttribute("missing"));
+
+        this.subject.setAttribute("set", "value");
+        this.subject.setAttribute("removed", "value");
+        this.subject.removeAttribute("removed");
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("mutable", mutable);
+        expected.put("set", "value");
+        when(this.migration.test(expected)).thenReturn(false);
+
+        this.subject.close();
+
+        InOrder order = inOrder(this.attributes, this.migration);
+        order.verify(this.migration).test(expected);
+        order.verify(this.attributes).close();
+    }
+
+    @Test
+    public void migrated() {
+        this.subject.setAttribute("set", "value");
+
+        when(this.migration.test(Collections.singletonMap("set", "value"))).thenReturn(true);
+
+        this.subject.close();
+
+        // The migration supersedes the write of the decorated attributes
+        verify(this.attributes, never()).close();
+    }
+
+    @Test
+    public void unwritten() {
+        when(this.attributes.getAttribute("immutable")).thenReturn("value");
+
+        assertEquals("value", this.subject.getAttribute("immutable"));
+
+        this.subject.close();
+
+        verify(this.attributes).close();
+        verifyZeroInteractions(this.migration);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.bucket;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.Mutator;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.Marshallability;
+
+/**
+ * Unit test for {@link BucketedSessionAttributes}.
+ * @author Paul Ferraro
+ */
+public class BucketedSessionAttributesTestCase {
+
+    @Test
+    public void test() {
+        int size = 4;
+        List<Map<String, Object>> maps = new ArrayList<>();
+        List<Mutator> mutators = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            maps.add(new ConcurrentHashMap<>());
+            mutators.add(mock(Mutator.class));
+        }
+        SessionAttributeBuckets<Object> buckets = new SessionAttributeBuckets<>(maps, new ArrayList<>(maps));
+        Marshallability marshallability = mock(Marshallability.class);
+        CacheProperties properties = mock(CacheProperties.class);
+        when(properties.isTransactional()).thenReturn(false);
+        when(properties.isMarshalling()).thenReturn(false);
+
+        BucketedSessionAttributes attributes = new BucketedSessionAttributes(buckets, mutators, marshallability, properties);
+
+        String immutable = "immutable";
+        String mutable = "mutable";
+        int immutableBucket = buckets.bucketOf(immutable);
+        int mutableBucket = buckets.bucketOf(mutable);
+
+        assertNull(attributes.setAttribute(immutable, "value"));
+        assertEquals("value", maps.get(immutableBucket).get(immutable));
+        // Only the bucket of the attribute is written
+        verify(mutators.get(immutableBucket)).mutate();
+        for (int i = 0; i < size; ++i) {
+            if (i != immutableBucket) {
+                verify(mutators.get(i), never()).mutate();
+            }
+        }
+
+        List<String> value = new ArrayList<>();
+        maps.get(mutableBucket).put(mutable, value);
+
+        assertEquals(new HashSet<>(Arrays.asList(immutable, mutable)), attributes.getAttributeNames());
+        assertSame(value, attributes.getAttribute(mutable));
+
+        // Mutable attributes are written on close
+        reset(mutators.toArray());
+        attributes.close();
+        verify(mutators.get(mutableBucket)).mutate();
+
+        reset(mutators.toArray());
+        assertEquals("value", attributes.removeAttribute(immutable));
+        verify(mutators.get(immutableBucket)).mutate();
+        assertNull(attributes.removeAttribute(immutable));
+        verifyNoMoreInteractions(mutators.toArray());
+    }
+}
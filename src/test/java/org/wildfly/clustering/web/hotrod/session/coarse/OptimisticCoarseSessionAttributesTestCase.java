@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.coarse;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.client.hotrod.VersionedValue;
+import org.junit.Test;
+import org.wildfly.clustering.ee.cache.CacheProperties;
+import org.wildfly.clustering.marshalling.spi.InvalidSerializedFormException;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+import org.wildfly.clustering.web.hotrod.session.ChunkedValueCache;
+
+/**
+ * Unit test for {@link OptimisticCoarseSessionAttributes}.
+ * @author Paul Ferraro
+ */
+public class OptimisticCoarseSessionAttributesTestCase {
+
+    private final SessionAttributesKey key = new SessionAttributesKey("session");
+    private final ChunkedValueCache<SessionAttributesKey, Object> cache = mock(ChunkedValueCache.class);
+    private final Marshaller<Map<String, Object>, Object> marshaller = mock(Marshaller.class);
+    private final CacheProperties properties = mock(CacheProperties.class);
+
+    @Test
+    public void unmodified() {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("a", "1");
+        VersionedValue<Object> version = mock(VersionedValue.class);
+        when(version.getValue()).thenReturn(new Object());
+
+        OptimisticCoarseSessionAttributes<Object> subject = new OptimisticCoarseSessionAttributes<>(this.key, new VersionedSessionAttributesEntry<>(this.key, attributes, version), this.cache, this.marshaller, this.properties);
+
+        assertEquals("1", subject.getAttribute("a"));
+
+        subject.close();
+
+        verifyZeroInteractions(this.cache);
+    }
+
+    @Test
+    public void merge() throws InvalidSerializedFormException {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("a", "1");
+        attributes.put("b", "2");
+        attributes.put("d", "4");
+        Object value = new Object();
+        VersionedValue<Object> version = mock(VersionedValue.class);
+        when(version.getValue()).thenReturn(value);
+
+        OptimisticCoarseSessionAttributes<Object> subject = new OptimisticCoarseSessionAttributes<>(this.key, new VersionedSessionAttributesEntry<>(this.key, attributes, version), this.cache, this.marshaller, this.properties);
+
+        subject.setAttribute("a", "10");
+        subject.removeAttribute("d");
+
+        // Writes are deferred until close
+        verifyZeroInteractions(this.cache);
+
+        // Simulate a concurrent write of another attribute
+        Object currentValue = new Object();
+        VersionedValue<Object> currentVersion = mock(VersionedValue.class);
+        when(currentVersion.getValue()).thenReturn(currentValue);
+        Map<String, Object> current = new ConcurrentHashMap<>();
+        current.put("a", "1");
+        current.put("b", "3");
+        current.put("c", "5");
+        current.put("d", "4");
+        Object mergedValue = new Object();
+
+        when(this.cache.replace(this.key, value, version)).thenReturn(false);
+        when(this.cache.getVersioned(this.key)).thenReturn(currentVersion);
+        when(this.marshaller.read(currentValue)).thenReturn(current);
+        when(this.marshaller.write(current)).thenReturn(mergedValue);
+        when(this.cache.replace(this.key, mergedValue, currentVersion)).thenReturn(true);
+
+        subject.close();
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("a", "10");
+        expected.put("b", "3");
+        expected.put("c", "5");
+        assertEquals(expected, current);
+        verify(this.cache).replace(this.key, mergedValue, currentVersion);
+    }
+
+    @Test
+    public void removed() throws InvalidSerializedFormException {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        Object value = new Object();
+        VersionedValue<Object> version = mock(VersionedValue.class);
+        when(version.getValue()).thenReturn(value);
+
+        OptimisticCoarseSessionAttributes<Object> subject = new OptimisticCoarseSessionAttributes<>(this.key, new VersionedSessionAttributesEntry<>(this.key, attributes, version), this.cache, this.marshaller, this.properties);
+
+        subject.setAttribute("a", "1");
+
+        when(this.cache.replace(this.key, value, version)).thenReturn(false);
+        when(this.cache.getVersioned(this.key)).thenReturn(null);
+
+        subject.close();
+
+        // A concurrently removed session is not resurrected
+        verify(this.cache, never()).write(same(this.key), any());
+        verifyZeroInteractions(this.marshaller);
+    }
+
+    @Test
+    public void missingChunks() {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        Object value = new Object();
+        VersionedValue<Object> version = mock(VersionedValue.class);
+        when(version.getValue()).thenReturn(value);
+
+        OptimisticCoarseSessionAttributes<Object> subject = new OptimisticCoarseSessionAttributes<>(this.key, new VersionedSessionAttributesEntry<>(this.key, attributes, version), this.cache, this.marshaller, this.properties);
+
+        subject.setAttribute("a", "1");
+
+        when(this.cache.replace(this.key, value, version)).thenReturn(false);
+        when(this.cache.getVersioned(this.key)).thenThrow(new IllegalStateException());
+
+        subject.close();
+
+        // Unreadable attributes are not mistaken for a removed session, but overwritten
+        verify(this.cache).write(this.key, value);
+    }
+
+    @Test
+    public void conflicts() throws InvalidSerializedFormException {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        Object value = new Object();
+        VersionedValue<Object> version = mock(VersionedValue.class);
+        when(version.getValue()).thenReturn(value);
+
+        OptimisticCoarseSessionAttributes<Object> subject = new OptimisticCoarseSessionAttributes<>(this.key, new VersionedSessionAttributesEntry<>(this.key, attributes, version), this.cache, this.marshaller, this.properties);
+
+        subject.setAttribute("a", "1");
+
+        // Simulate a concurrent write preceding every attempt
+        Object currentValue = new Object();
+        VersionedValue<Object> currentVersion = mock(VersionedValue.class);
+        when(currentVersion.getValue()).thenReturn(currentValue);
+        Object mergedValue = new Object();
+        when(this.cache.replace(same(this.key), any(), any())).thenReturn(false);
+        when(this.cache.getVersioned(this.key)).thenReturn(currentVersion);
+        when(this.marshaller.read(currentValue)).thenAnswer(invocation -> new HashMap<>());
+        when(this.marshaller.write(any())).thenReturn(mergedValue);
+
+        subject.close();
+
+        // Attempts are bounded, after which the merged attributes are written, unless the session was removed
+        verify(this.cache, times(OptimisticCoarseSessionAttributes.MAX_WRITE_ATTEMPTS)).replace(same(this.key), any(), any());
+        verify(this.cache).replace(this.key, mergedValue);
+        verify(this.cache, never()).write(same(this.key), any());
+    }
+}
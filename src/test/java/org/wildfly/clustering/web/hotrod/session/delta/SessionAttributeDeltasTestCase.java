@@ -0,0 +1,249 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.delta;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.marshalling.spi.Marshaller;
+
+/**
+ * Unit test for {@link SessionAttributeDeltas}.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeDeltasTestCase {
+
+    private final RemoteCache<SessionAttributeDeltasKey, SessionAttributeDeltaLog> logCache = mock(RemoteCache.class);
+    private final RemoteCache<SessionAttributeDeltaKey, Object> deltaCache = mock(RemoteCache.class);
+    private final Marshaller<Object, Object> marshaller = new Marshaller<Object, Object>() {
+        @Override
+        public Object read(Object value) {
+            return value;
+        }
+
+        @Override
+        public Object write(Object value) {
+            return value;
+        }
+
+        @Override
+        public boolean isMarshallable(Object object) {
+            return true;
+        }
+    };
+
+    @Test
+    public void test() {
+        String id = "session";
+        SessionAttributeDeltasKey key = new SessionAttributeDeltasKey(id, "cart");
+        SessionAttributeDeltaKey key0 = new SessionAttributeDeltaKey(id, "cart", 0);
+        SessionAttributeDeltaKey key1 = new SessionAttributeDeltaKey(id, "cart", 1);
+        SessionAttributeDeltas<Object> deltas = new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, 2);
+
+        AppendList cart = new AppendList();
+        assertSame(cart, deltas.apply("cart", cart, 1L));
+        verify(this.logCache).get(key);
+        verify(this.deltaCache, never()).getAll(any());
+
+        // Unchanged attributes append nothing
+        assertTrue(deltas.append("cart", cart));
+        deltas.write();
+        verify(this.logCache, never()).put(same(key), any());
+
+        cart.add("a");
+        assertTrue(deltas.append("cart", cart));
+        deltas.write();
+        verify(this.deltaCache).put(key0, new AppendDelta(Arrays.asList("a")));
+        ArgumentCaptor<SessionAttributeDeltaLog> captor = ArgumentCaptor.forClass(SessionAttributeDeltaLog.class);
+        verify(this.logCache).put(eq(key), captor.capture());
+        SessionAttributeDeltaLog log = captor.getValue();
+        // Deltas are logged against the version from which the attribute was read
+        assertEquals(1L, log.getVersion());
+        assertEquals(1, log.getSize());
+
+        // Logged deltas are applied on read
+        reset(this.logCache, this.deltaCache);
+        when(this.logCache.get(key)).thenReturn(log);
+        when(this.deltaCache.getAll(Collections.singleton(key0))).thenReturn(Collections.singletonMap(key0, new AppendDelta(Arrays.asList("a"))));
+        deltas = new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, 2);
+        cart = new AppendList();
+        deltas.apply("cart", cart, 1L);
+        assertEquals(Arrays.asList("a"), cart.items);
+        assertTrue(cart.delta().isEmpty());
+
+        // Appending a delta writes only that delta, followed by the header of its log
+        cart.add("b");
+        assertTrue(deltas.append("cart", cart));
+        deltas.write();
+        verify(this.deltaCache, never()).put(same(key0), any());
+        verify(this.deltaCache).put(key1, new AppendDelta(Arrays.asList("b")));
+        captor = ArgumentCaptor.forClass(SessionAttributeDeltaLog.class);
+        verify(this.logCache).put(eq(key), captor.capture());
+        assertEquals(1L, captor.getValue().getVersion());
+        assertEquals(2, captor.getValue().getSize());
+
+        // Attribute must be written in its entirety once its log is full
+        cart.add("c");
+        assertFalse(deltas.append("cart", cart));
+
+        deltas.discard("cart");
+        deltas.write();
+        verify(this.logCache).remove(key);
+        verify(this.deltaCache).remove(key0);
+        verify(this.deltaCache).remove(key1);
+
+        // Deltas of an attribute whose version was not read cannot be logged
+        cart.add("d");
+        assertFalse(deltas.append("cart", cart));
+    }
+
+    @Test
+    public void compact() {
+        String id = "session";
+        SessionAttributeDeltasKey key = new SessionAttributeDeltasKey(id, "cart");
+        SessionAttributeDeltaKey key0 = new SessionAttributeDeltaKey(id, "cart", 0);
+        SessionAttributeDeltaKey key1 = new SessionAttributeDeltaKey(id, "cart", 1);
+        Map<SessionAttributeDeltaKey, Object> logged = new HashMap<>();
+        logged.put(key0, new AppendDelta(Arrays.asList("a")));
+        logged.put(key1, new AppendDelta(Arrays.asList("b")));
+        when(this.logCache.get(key)).thenReturn(new SessionAttributeDeltaLog(1L, 2));
+        when(this.deltaCache.getAll(logged.keySet())).thenReturn(logged);
+        SessionAttributeDeltas<Object> deltas = new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, 2);
+
+        AppendList cart = new AppendList();
+        deltas.apply("cart", cart, 1L);
+        assertEquals(Arrays.asList("a", "b"), cart.items);
+
+        // A log that reached its limit when read is compacted, even if its attribute did not change
+        assertFalse(deltas.append("cart", cart));
+        deltas.discard("cart");
+        deltas.write();
+        verify(this.logCache).remove(key);
+        verify(this.deltaCache).remove(key0);
+        verify(this.deltaCache).remove(key1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missing() {
+        String id = "session";
+        SessionAttributeDeltasKey key = new SessionAttributeDeltasKey(id, "cart");
+        SessionAttributeDeltaKey key0 = new SessionAttributeDeltaKey(id, "cart", 0);
+        when(this.logCache.get(key)).thenReturn(new SessionAttributeDeltaLog(1L, 1));
+        when(this.deltaCache.getAll(Collections.singleton(key0))).thenReturn(Collections.emptyMap());
+        SessionAttributeDeltas<Object> deltas = new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, 2);
+
+        // A log whose deltas no longer exist cannot be applied
+        deltas.apply("cart", new AppendList(), 1L);
+    }
+
+    @Test
+    public void version() {
+        String id = "session";
+        SessionAttributeDeltasKey key = new SessionAttributeDeltasKey(id, "cart");
+        SessionAttributeDeltaLog log = new SessionAttributeDeltaLog(1L, 1);
+        when(this.logCache.getAll(Collections.singleton(key))).thenReturn(Collections.singletonMap(key, log));
+        SessionAttributeDeltas<Object> deltas = new SessionAttributeDeltas<>(this.logCache, this.deltaCache, id, this.marshaller, 2);
+
+        // Deltas logged against a previous version were already written with the attribute, thus are never applied again
+        AppendList cart = new AppendList();
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("cart", cart);
+        attributes.put("immutable", "value");
+        deltas.apply(attributes, 2L);
+        assertTrue(cart.items.isEmpty());
+
+        // Logs are read in bulk, only for delta aware attributes
+        verify(this.logCache).getAll(Collections.singleton(key));
+        verify(this.logCache, never()).get(any());
+        verify(this.deltaCache, never()).getAll(any());
+
+        // Stale logs are removed by the next write, before appending to a new log
+        cart.add("a");
+        assertTrue(deltas.append("cart", cart));
+        deltas.write();
+        verify(this.logCache).remove(key);
+        verify(this.deltaCache).remove(new SessionAttributeDeltaKey(id, "cart", 0));
+        verify(this.deltaCache).put(new SessionAttributeDeltaKey(id, "cart", 0), new AppendDelta(Arrays.asList("a")));
+        ArgumentCaptor<SessionAttributeDeltaLog> captor = ArgumentCaptor.forClass(SessionAttributeDeltaLog.class);
+        verify(this.logCache).put(eq(key), captor.capture());
+        assertEquals(2L, captor.getValue().getVersion());
+        assertEquals(1, captor.getValue().getSize());
+    }
+
+    static class AppendList implements DeltaAware<AppendList> {
+        final List<String> items = new ArrayList<>();
+        private List<String> appended = new ArrayList<>();
+
+        void add(String item) {
+            this.items.add(item);
+            this.appended.add(item);
+        }
+
+        @Override
+        public Delta<AppendList> delta() {
+            Delta<AppendList> delta = new AppendDelta(this.appended);
+            this.appended = new ArrayList<>();
+            return delta;
+        }
+    }
+
+    static class AppendDelta implements Delta<AppendList> {
+        private final List<String> items;
+
+        AppendDelta(List<String> items) {
+            this.items = items;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.items.isEmpty();
+        }
+
+        @Override
+        public void apply(AppendList list) {
+            for (String item : this.items) {
+                list.add(item);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return this.items.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return (object instanceof AppendDelta) && this.items.equals(((AppendDelta) object).items);
+        }
+    }
+}
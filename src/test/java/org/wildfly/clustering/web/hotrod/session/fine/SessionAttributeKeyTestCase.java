@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.session.fine;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SessionAttributeKey} equality.
+ * @author Paul Ferraro
+ */
+public class SessionAttributeKeyTestCase {
+
+    @Test
+    public void test() {
+        UUID attributeId = UUID.randomUUID();
+        SessionAttributeKey key = new SessionAttributeKey("test", attributeId);
+        SessionAttributeKey same = new SessionAttributeKey("test", attributeId);
+
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+
+        assertNotEquals(key, new SessionAttributeKey("test", UUID.randomUUID()));
+        assertNotEquals(key, new SessionAttributeKey("other", attributeId));
+        // Keys of different types for the same session must not be equal
+        assertNotEquals(key, new SessionAttributeNamesKey("test"));
+        assertFalse(key.equals(null));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2019, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.wildfly.clustering.web.hotrod.sso.coarse;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.Test;
+import org.wildfly.clustering.web.sso.Sessions;
+
+/**
+ * Unit test for {@link CoarseSessionsFactory}.
+ * @author Paul Ferraro
+ */
+public class CoarseSessionsFactoryTestCase {
+
+    private final RemoteCache<SessionsKey, Map<String, String>> cache = mock(RemoteCache.class);
+    private final RemoteCache<SessionSSOKey, String> indexCache = mock(RemoteCache.class);
+    private final CoarseSessionsFactory<String> factory = new CoarseSessionsFactory<>(this.cache, this.indexCache);
+
+    @Test
+    public void createSessions() {
+        Map<String, String> map = new HashMap<>();
+        Sessions<String, String> sessions = this.factory.createSessions("sso", map);
+
+        assertTrue(sessions.addSession("deployment", "session"));
+
+        assertEquals("session", map.get("deployment"));
+        verify(this.indexCache).put(new SessionSSOKey("session"), "sso");
+
+        assertFalse(sessions.addSession("deployment", "session"));
+
+        verify(this.indexCache).put(new SessionSSOKey("session"), "sso");
+
+        MetadataValue<String> index = index("sso", 1L);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session"))).thenReturn(index);
+
+        assertEquals("session", sessions.removeSession("deployment"));
+
+        verify(this.indexCache).removeWithVersion(new SessionSSOKey("session"), 1L);
+
+        assertNull(sessions.removeSession("deployment"));
+
+        verify(this.indexCache).removeWithVersion(new SessionSSOKey("session"), 1L);
+        verify(this.indexCache, never()).remove(any(), any());
+    }
+
+    @Test
+    public void removeSessionReindexed() {
+        Map<String, String> map = new HashMap<>();
+        Sessions<String, String> sessions = this.factory.createSessions("sso", map);
+        assertTrue(sessions.addSession("deployment", "session"));
+
+        // Session was concurrently re-indexed to a different single sign on
+        MetadataValue<String> index = index("other", 2L);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session"))).thenReturn(index);
+
+        assertEquals("session", sessions.removeSession("deployment"));
+
+        verify(this.indexCache, never()).removeWithVersion(any(), anyLong());
+    }
+
+    @Test
+    public void findEntryContaining() {
+        Map<String, String> map = Collections.singletonMap("deployment", "session");
+
+        MetadataValue<String> index = index("sso", 1L);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session"))).thenReturn(index);
+        when(this.cache.get(new SessionsKey("sso"))).thenReturn(map);
+
+        Map.Entry<String, Map<String, String>> result = this.factory.findEntryContaining("session");
+
+        assertNotNull(result);
+        assertEquals("sso", result.getKey());
+        assertSame(map, result.getValue());
+        verify(this.indexCache, never()).removeWithVersion(any(), anyLong());
+
+        // Unindexed session
+        assertNull(this.factory.findEntryContaining("unknown"));
+
+        verify(this.cache, times(1)).get(any());
+    }
+
+    @Test
+    public void findEntryContainingStale() {
+        MetadataValue<String> index = index("sso", 1L);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session"))).thenReturn(index);
+        when(this.cache.get(new SessionsKey("sso"))).thenReturn(Collections.singletonMap("deployment", "other"));
+
+        assertNull(this.factory.findEntryContaining("session"));
+
+        // Removed only if not concurrently re-indexed
+        verify(this.indexCache).removeWithVersion(new SessionSSOKey("session"), 1L);
+    }
+
+    @Test
+    public void remove() {
+        Map<String, String> map = new HashMap<>();
+        map.put("deployment1", "session1");
+        map.put("deployment2", "session2");
+
+        when(this.cache.withFlags(Flag.FORCE_RETURN_VALUE)).thenReturn(this.cache);
+        when(this.cache.remove(new SessionsKey("sso"))).thenReturn(map);
+        MetadataValue<String> index1 = index("sso", 1L);
+        MetadataValue<String> index2 = index("other", 2L);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session1"))).thenReturn(index1);
+        when(this.indexCache.getWithMetadata(new SessionSSOKey("session2"))).thenReturn(index2);
+
+        assertTrue(this.factory.remove("sso"));
+
+        verify(this.indexCache).removeWithVersion(new SessionSSOKey("session1"), 1L);
+        // session2 was concurrently re-indexed to a different single sign on
+        verify(this.indexCache, never()).removeWithVersion(new SessionSSOKey("session2"), 2L);
+
+        assertFalse(this.factory.remove("missing"));
+    }
+
+    private static MetadataValue<String> index(String ssoId, long version) {
+        MetadataValue<String> index = mock(MetadataValue.class);
+        when(index.getValue()).thenReturn(ssoId);
+        when(index.getVersion()).thenReturn(version);
+        return index;
+    }
+}